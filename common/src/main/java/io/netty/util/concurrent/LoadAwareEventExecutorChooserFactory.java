@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.Random;
+
+/**
+ * {@link EventExecutorChooserFactory} which uses the <i>power of two choices</i> algorithm to choose the next
+ * {@link EventExecutor}: two distinct {@link EventExecutor}s are picked at random and the one with the lower load, as
+ * reported by the {@link LoadEstimator}, is used.
+ * <p>
+ * Compared to the round-robin used by {@link DefaultEventExecutorChooserFactory} this spreads work more evenly if
+ * the amount of work per registration differs a lot (for example long-lived connections with very different
+ * traffic patterns), while still only looking at two {@link EventExecutor}s per choice.
+ */
+@UnstableApi
+public final class LoadAwareEventExecutorChooserFactory implements EventExecutorChooserFactory {
+
+    /**
+     * Estimates the load of an {@link EventExecutor}.
+     */
+    public interface LoadEstimator {
+        /**
+         * Returns the current load of the given {@link EventExecutor}. Higher values mean more load. This method may
+         * be called from any {@link Thread} and so must be thread-safe and cheap to compute.
+         */
+        long load(EventExecutor executor);
+    }
+
+    /**
+     * {@link LoadEstimator} which uses the number of pending tasks of a {@link SingleThreadEventExecutor} as load.
+     */
+    public static final LoadEstimator PENDING_TASKS = new LoadEstimator() {
+        @Override
+        public long load(EventExecutor executor) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                return ((SingleThreadEventExecutor) executor).pendingTasks();
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * Instance which uses {@link #PENDING_TASKS} to estimate the load.
+     */
+    public static final LoadAwareEventExecutorChooserFactory INSTANCE =
+            new LoadAwareEventExecutorChooserFactory(PENDING_TASKS);
+
+    private final LoadEstimator loadEstimator;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param loadEstimator the {@link LoadEstimator} used to compare the load of {@link EventExecutor}s.
+     */
+    public LoadAwareEventExecutorChooserFactory(LoadEstimator loadEstimator) {
+        this.loadEstimator = ObjectUtil.checkNotNull(loadEstimator, "loadEstimator");
+    }
+
+    @Override
+    public EventExecutorChooser newChooser(EventExecutor[] executors) {
+        if (executors.length == 1) {
+            return new SingleEventExecutorChooser(executors[0]);
+        }
+        return new PowerOfTwoChoicesEventExecutorChooser(executors, loadEstimator);
+    }
+
+    private static final class SingleEventExecutorChooser implements EventExecutorChooser {
+        private final EventExecutor executor;
+
+        SingleEventExecutorChooser(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public EventExecutor next() {
+            return executor;
+        }
+    }
+
+    private static final class PowerOfTwoChoicesEventExecutorChooser implements EventExecutorChooser {
+        private final EventExecutor[] executors;
+        private final LoadEstimator loadEstimator;
+
+        PowerOfTwoChoicesEventExecutorChooser(EventExecutor[] executors, LoadEstimator loadEstimator) {
+            this.executors = executors;
+            this.loadEstimator = loadEstimator;
+        }
+
+        @Override
+        public EventExecutor next() {
+            Random random = PlatformDependent.threadLocalRandom();
+            int length = executors.length;
+            int first = random.nextInt(length);
+            // Pick a second index that is guaranteed to be different from the first one.
+            int second = (first + 1 + random.nextInt(length - 1)) % length;
+
+            EventExecutor a = executors[first];
+            EventExecutor b = executors[second];
+            return loadEstimator.load(b) < loadEstimator.load(a) ? b : a;
+        }
+    }
+}
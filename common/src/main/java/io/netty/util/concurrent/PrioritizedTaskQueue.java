@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * A task {@link Queue} for {@link SingleThreadEventExecutor}s with two lanes. Tasks implementing
+ * {@link PriorityRunnable} are put into the priority lane and are polled before all other tasks, so they do not
+ * have to wait behind a backlog of user submitted tasks. Each lane is bounded on its own, so a flood of ordinary
+ * tasks is rejected while priority tasks are still accepted.
+ * <p>
+ * To make sure ordinary tasks are not starved, one ordinary task is polled after {@code 64} consecutive priority
+ * tasks. The queue must only be polled by a single consumer and does not support blocking operations, so it can only
+ * be used by executors which never call {@link SingleThreadEventExecutor#takeTask()}.
+ * <p>
+ * Only tasks that do not depend on the order of previously submitted tasks should implement
+ * {@link PriorityRunnable}, as they may run before tasks that were submitted earlier.
+ */
+@UnstableApi
+public final class PrioritizedTaskQueue extends AbstractQueue<Runnable> {
+    private static final int MAX_CONSECUTIVE_PRIORITY_TASKS = 64;
+
+    /**
+     * Marker interface for tasks which are put into the priority lane of a {@link PrioritizedTaskQueue}.
+     */
+    public interface PriorityRunnable extends Runnable { }
+
+    private final Queue<Runnable> priorityLane;
+    private final Queue<Runnable> normalLane;
+    private final LongCounter rejectedPriorityTasks = PlatformDependent.newLongCounter();
+    private final LongCounter rejectedTasks = PlatformDependent.newLongCounter();
+    // Only accessed by the consumer.
+    private int consecutivePriorityTasks;
+
+    /**
+     * Creates a new instance with unbounded lanes.
+     */
+    public PrioritizedTaskQueue() {
+        this(PlatformDependent.<Runnable>newMpscQueue(), PlatformDependent.<Runnable>newMpscQueue());
+    }
+
+    /**
+     * Creates a new instance whose lanes hold at most the given number of tasks, subject to the minimum capacity
+     * of {@link PlatformDependent#newMpscQueue(int)}.
+     */
+    public PrioritizedTaskQueue(int maxPriorityTasks, int maxTasks) {
+        this(PlatformDependent.<Runnable>newMpscQueue(ObjectUtil.checkPositive(maxPriorityTasks, "maxPriorityTasks")),
+             PlatformDependent.<Runnable>newMpscQueue(ObjectUtil.checkPositive(maxTasks, "maxTasks")));
+    }
+
+    /**
+     * Creates a new instance which uses the given multi-producer single-consumer queues as lanes.
+     */
+    public PrioritizedTaskQueue(Queue<Runnable> priorityLane, Queue<Runnable> normalLane) {
+        this.priorityLane = ObjectUtil.checkNotNull(priorityLane, "priorityLane");
+        this.normalLane = ObjectUtil.checkNotNull(normalLane, "normalLane");
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task instanceof PriorityRunnable) {
+            if (priorityLane.offer(task)) {
+                return true;
+            }
+            rejectedPriorityTasks.increment();
+        } else {
+            if (normalLane.offer(task)) {
+                return true;
+            }
+            rejectedTasks.increment();
+        }
+        return false;
+    }
+
+    @Override
+    public Runnable poll() {
+        if (consecutivePriorityTasks < MAX_CONSECUTIVE_PRIORITY_TASKS) {
+            Runnable task = priorityLane.poll();
+            if (task != null) {
+                consecutivePriorityTasks++;
+                return task;
+            }
+        }
+        consecutivePriorityTasks = 0;
+        Runnable task = normalLane.poll();
+        return task != null ? task : priorityLane.poll();
+    }
+
+    @Override
+    public Runnable peek() {
+        Runnable task = priorityLane.peek();
+        return task != null ? task : normalLane.peek();
+    }
+
+    @Override
+    public boolean remove(Object task) {
+        return task instanceof PriorityRunnable ? priorityLane.remove(task) : normalLane.remove(task);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return priorityLane.isEmpty() && normalLane.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return priorityLane.size() + normalLane.size();
+    }
+
+    /**
+     * Returns the number of tasks in the priority lane.
+     */
+    public int priorityTasks() {
+        return priorityLane.size();
+    }
+
+    /**
+     * Returns the number of tasks that were rejected because the priority lane was full.
+     */
+    public long rejectedPriorityTasks() {
+        return rejectedPriorityTasks.value();
+    }
+
+    /**
+     * Returns the number of ordinary tasks that were rejected because their lane was full.
+     */
+    public long rejectedTasks() {
+        return rejectedTasks.value();
+    }
+
+    /**
+     * Returns a weakly consistent {@link Iterator} over the priority lane followed by the normal lane. Each lane is
+     * iterated by its own {@link Iterator}, which is only created once the previous lane was exhausted, so this is
+     * only supported if the lanes support {@link Queue#iterator()}. {@link Iterator#remove()} is not supported.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        return new Iterator<Runnable>() {
+            private Iterator<Runnable> current = priorityLane.iterator();
+            private boolean normalLaneStarted;
+
+            @Override
+            public boolean hasNext() {
+                if (current.hasNext()) {
+                    return true;
+                }
+                if (normalLaneStarted) {
+                    return false;
+                }
+                normalLaneStarted = true;
+                current = normalLane.iterator();
+                return current.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
@@ -61,7 +62,9 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private static final int ST_SHUTDOWN = 4;
     private static final int ST_TERMINATED = 5;
 
-    private static final Runnable WAKEUP_TASK = new Runnable() {
+    // Does not depend on the order of other tasks, so it can use the priority lane of a PrioritizedTaskQueue and is
+    // still accepted when the normal lane is full.
+    private static final Runnable WAKEUP_TASK = new PrioritizedTaskQueue.PriorityRunnable() {
         @Override
         public void run() {
             // Do nothing.
@@ -96,6 +99,12 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
     private long lastExecutionTime;
 
+    // Only modified by the executor thread, volatile so they can be read from other threads for metrics.
+    private volatile long executedTasks;
+    private volatile long taskTimeNanos;
+
+    private final LongCounter rejectedTasks = PlatformDependent.newLongCounter();
+
     @SuppressWarnings({ "FieldMayBeFinal", "unused" })
     private volatile int state = ST_NOT_STARTED;
 
@@ -311,6 +320,42 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return taskQueue.size();
     }
 
+    /**
+     * Return the number of tasks that are pending in the priority lane if a {@link PrioritizedTaskQueue} is used,
+     * {@code 0} otherwise.
+     */
+    @UnstableApi
+    public int pendingPriorityTasks() {
+        Queue<Runnable> taskQueue = this.taskQueue;
+        return taskQueue instanceof PrioritizedTaskQueue ? ((PrioritizedTaskQueue) taskQueue).priorityTasks() : 0;
+    }
+
+    /**
+     * Returns the total number of tasks that were passed to the {@link RejectedExecutionHandler} so far.
+     */
+    @UnstableApi
+    public long rejectedTasks() {
+        return rejectedTasks.value();
+    }
+
+    /**
+     * Returns the total number of tasks that were executed by {@link #runAllTasks()} and {@link #runAllTasks(long)}
+     * so far.
+     */
+    @UnstableApi
+    public long executedTasks() {
+        return executedTasks;
+    }
+
+    /**
+     * Returns the total time in nanoseconds that this {@link SingleThreadEventExecutor} spent in
+     * {@link #runAllTasks()} and {@link #runAllTasks(long)} so far.
+     */
+    @UnstableApi
+    public long taskTimeNanos() {
+        return taskTimeNanos;
+    }
+
     /**
      * Add a task to the task queue, or throws a {@link RejectedExecutionException} if this instance was shutdown
      * before.
@@ -348,6 +393,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      */
     protected boolean runAllTasks() {
         assert inEventLoop();
+        final long startTime = ScheduledFutureTask.nanoTime();
         boolean fetchedAll;
         boolean ranAtLeastOne = false;
 
@@ -362,6 +408,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             lastExecutionTime = ScheduledFutureTask.nanoTime();
         }
         afterRunningAllTasks();
+        taskTimeNanos += ScheduledFutureTask.nanoTime() - startTime;
         return ranAtLeastOne;
     }
 
@@ -377,10 +424,13 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (task == null) {
             return false;
         }
+        long runTasks = 0;
         for (;;) {
             safeExecute(task);
+            runTasks ++;
             task = pollTaskFrom(taskQueue);
             if (task == null) {
+                executedTasks += runTasks;
                 return true;
             }
         }
@@ -391,14 +441,16 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * the tasks in the task queue and returns if it ran longer than {@code timeoutNanos}.
      */
     protected boolean runAllTasks(long timeoutNanos) {
+        final long startTime = ScheduledFutureTask.nanoTime();
         fetchFromScheduledTaskQueue();
         Runnable task = pollTask();
         if (task == null) {
             afterRunningAllTasks();
+            taskTimeNanos += ScheduledFutureTask.nanoTime() - startTime;
             return false;
         }
 
-        final long deadline = ScheduledFutureTask.nanoTime() + timeoutNanos;
+        final long deadline = startTime + timeoutNanos;
         long runTasks = 0;
         long lastExecutionTime;
         for (;;) {
@@ -422,8 +474,10 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             }
         }
 
+        executedTasks += runTasks;
         afterRunningAllTasks();
         this.lastExecutionTime = lastExecutionTime;
+        taskTimeNanos += ScheduledFutureTask.nanoTime() - startTime;
         return true;
     }
 
@@ -850,6 +904,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * @param task to reject.
      */
     protected final void reject(Runnable task) {
+        rejectedTasks.increment();
         rejectedExecutionHandler.rejected(task, this);
     }
 
@@ -29,6 +29,11 @@ import org.jctools.util.Pow2;
 import org.jctools.util.UnsafeAccess;
 
 import java.io.File;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
@@ -98,6 +103,7 @@ public final class PlatformDependent {
     private static final String NORMALIZED_OS = normalizeOs(SystemPropertyUtil.get("os.name", ""));
 
     private static final int ADDRESS_SIZE = addressSize0();
+    private static final Runnable ON_SPIN_WAIT = onSpinWait0();
     private static final boolean USE_DIRECT_BUFFER_NO_CLEANER;
     private static final AtomicLong DIRECT_MEMORY_COUNTER;
     private static final long DIRECT_MEMORY_LIMIT;
@@ -440,6 +446,22 @@ public final class PlatformDependent {
         return PlatformDependent0.getLong(address);
     }
 
+    /**
+     * Reads a {@code long} from the given memory address with volatile semantics, which also applies if the memory
+     * is shared with another process.
+     */
+    public static long getLongVolatile(long address) {
+        return PlatformDependent0.getLongVolatile(address);
+    }
+
+    /**
+     * Reads an {@code int} from the given memory address with volatile semantics, which also applies if the memory
+     * is shared with the kernel or another process.
+     */
+    public static int getIntVolatile(long address) {
+        return PlatformDependent0.getIntVolatile(address);
+    }
+
     public static byte getByte(byte[] data, int index) {
         return PlatformDependent0.getByte(data, index);
     }
@@ -568,6 +590,23 @@ public final class PlatformDependent {
         PlatformDependent0.putLong(address, value);
     }
 
+    /**
+     * Writes a {@code long} to the given memory address with volatile semantics, which also applies if the memory
+     * is shared with another process.
+     */
+    public static void putLongVolatile(long address, long value) {
+        PlatformDependent0.putLongVolatile(address, value);
+    }
+
+    /**
+     * Writes an {@code int} to the given memory address with release semantics, so all previous writes are visible
+     * to a reader which observes the new value. This also applies if the memory is shared with the kernel or another
+     * process.
+     */
+    public static void putIntOrdered(long address, int value) {
+        PlatformDependent0.putIntOrdered(address, value);
+    }
+
     public static void putByte(byte[] data, int index, byte value) {
         PlatformDependent0.putByte(data, index, value);
     }
@@ -921,6 +960,37 @@ public final class PlatformDependent {
         return RANDOM_PROVIDER.current();
     }
 
+    /**
+     * Indicates that the caller is momentarily unable to progress and is in a busy-wait loop. This uses
+     * {@code Thread.onSpinWait()} if running on Java 9+ and is a no-op otherwise.
+     */
+    public static void onSpinWait() {
+        if (ON_SPIN_WAIT != null) {
+            ON_SPIN_WAIT.run();
+        }
+    }
+
+    @SuppressJava6Requirement(reason = "Only called on Java 9+")
+    private static Runnable onSpinWait0() {
+        if (javaVersion() < 9) {
+            return null;
+        }
+        try {
+            // Resolve a MethodHandle once and bind it to a Runnable, so each call is a plain interface call that the
+            // JIT can inline. Invoking the MethodHandle directly is not possible as its signature polymorphic
+            // methods require Java 7 source level.
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType voidType = MethodType.methodType(void.class);
+            MethodHandle onSpinWait = lookup.findStatic(Thread.class, "onSpinWait", voidType);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "run", MethodType.methodType(Runnable.class),
+                    voidType, onSpinWait, voidType);
+            return (Runnable) site.getTarget().invokeWithArguments();
+        } catch (Throwable t) {
+            logger.debug("Thread.onSpinWait(): unavailable", t);
+            return null;
+        }
+    }
+
     private static boolean isWindows0() {
         boolean windows = SystemPropertyUtil.get("os.name", "").toLowerCase(Locale.US).contains("win");
         if (windows) {
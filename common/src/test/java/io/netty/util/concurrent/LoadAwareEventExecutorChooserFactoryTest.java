@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.concurrent.EventExecutorChooserFactory.EventExecutorChooser;
+import io.netty.util.concurrent.LoadAwareEventExecutorChooserFactory.LoadEstimator;
+import org.junit.Test;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LoadAwareEventExecutorChooserFactoryTest {
+
+    @Test
+    public void testSingleExecutor() {
+        EventExecutor executor = new DefaultEventExecutor();
+        EventExecutorChooser chooser = LoadAwareEventExecutorChooserFactory.INSTANCE.newChooser(
+                new EventExecutor[] { executor });
+        for (int i = 0; i < 16; i++) {
+            assertSame(executor, chooser.next());
+        }
+    }
+
+    @Test
+    public void testChoosesLessLoaded() {
+        EventExecutor[] executors = new EventExecutor[3];
+        final Map<EventExecutor, Long> loads = new IdentityHashMap<EventExecutor, Long>();
+        for (int i = 0; i < executors.length; i++) {
+            executors[i] = new DefaultEventExecutor();
+            loads.put(executors[i], (long) i);
+        }
+        EventExecutorChooser chooser = new LoadAwareEventExecutorChooserFactory(new LoadEstimator() {
+            @Override
+            public long load(EventExecutor executor) {
+                return loads.get(executor);
+            }
+        }).newChooser(executors);
+
+        int[] chosen = new int[executors.length];
+        for (int i = 0; i < 1000; i++) {
+            EventExecutor executor = chooser.next();
+            chosen[loads.get(executor).intValue()]++;
+        }
+        // The executor with the highest load is never chosen as it always loses the comparison.
+        assertEquals(0, chosen[2]);
+        // The executor with the lowest load wins every comparison it is part of.
+        assertTrue(chosen[0] > chosen[1]);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullLoadEstimator() {
+        new LoadAwareEventExecutorChooserFactory(null);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.concurrent.PrioritizedTaskQueue.PriorityRunnable;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrioritizedTaskQueueTest {
+
+    private static final class Task implements Runnable {
+        @Override
+        public void run() { }
+    }
+
+    private static final class PriorityTask implements PriorityRunnable {
+        @Override
+        public void run() { }
+    }
+
+    @Test
+    public void testPriorityTasksArePolledFirst() {
+        PrioritizedTaskQueue queue = new PrioritizedTaskQueue();
+        Runnable task1 = new Task();
+        Runnable task2 = new Task();
+        Runnable priority1 = new PriorityTask();
+        Runnable priority2 = new PriorityTask();
+        assertTrue(queue.offer(task1));
+        assertTrue(queue.offer(priority1));
+        assertTrue(queue.offer(task2));
+        assertTrue(queue.offer(priority2));
+
+        assertEquals(4, queue.size());
+        assertEquals(2, queue.priorityTasks());
+        assertSame(priority1, queue.peek());
+        assertSame(priority1, queue.poll());
+        assertSame(priority2, queue.poll());
+        assertSame(task1, queue.poll());
+        assertSame(task2, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testLaneLimits() {
+        PrioritizedTaskQueue queue = new PrioritizedTaskQueue(
+                new ArrayBlockingQueue<Runnable>(2), new ArrayBlockingQueue<Runnable>(2));
+        assertTrue(queue.offer(new Task()));
+        assertTrue(queue.offer(new Task()));
+        assertFalse(queue.offer(new Task()));
+
+        // The priority lane still accepts tasks.
+        assertTrue(queue.offer(new PriorityTask()));
+        assertTrue(queue.offer(new PriorityTask()));
+        assertFalse(queue.offer(new PriorityTask()));
+
+        assertEquals(1, queue.rejectedTasks());
+        assertEquals(1, queue.rejectedPriorityTasks());
+    }
+
+    @Test
+    public void testNormalLaneIsNotStarved() {
+        PrioritizedTaskQueue queue = new PrioritizedTaskQueue();
+        Runnable task = new Task();
+        assertTrue(queue.offer(task));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(queue.offer(new PriorityTask()));
+        }
+        int polled = 0;
+        Runnable current;
+        while ((current = queue.poll()) != task) {
+            assertTrue(current instanceof PriorityTask);
+            polled++;
+        }
+        assertEquals(64, polled);
+        assertEquals(36, queue.size());
+    }
+
+    @Test
+    public void testIterator() {
+        PrioritizedTaskQueue queue = new PrioritizedTaskQueue(
+                new ConcurrentLinkedQueue<Runnable>(), new ConcurrentLinkedQueue<Runnable>());
+        assertFalse(queue.iterator().hasNext());
+
+        Runnable task1 = new Task();
+        Runnable task2 = new Task();
+        Runnable priority1 = new PriorityTask();
+        assertTrue(queue.offer(task1));
+        assertTrue(queue.offer(priority1));
+
+        Iterator<Runnable> it = queue.iterator();
+        assertTrue(it.hasNext());
+        assertSame(priority1, it.next());
+        // Tasks added to a lane which was not iterated yet are returned.
+        assertTrue(queue.offer(task2));
+        assertSame(task1, it.next());
+        assertSame(task2, it.next());
+        assertFalse(it.hasNext());
+        try {
+            it.next();
+            fail();
+        } catch (NoSuchElementException expected) {
+            // expected
+        }
+
+        assertTrue(queue.contains(task2));
+        assertArrayEquals(new Object[] { priority1, task1, task2 }, queue.toArray());
+    }
+
+    @Test
+    public void testRemove() {
+        PrioritizedTaskQueue queue = new PrioritizedTaskQueue();
+        Runnable task = new Task();
+        Runnable priority = new PriorityTask();
+        queue.offer(task);
+        queue.offer(priority);
+        assertTrue(queue.remove(priority));
+        assertFalse(queue.remove(priority));
+        assertTrue(queue.remove(task));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testExecutorRejectsWhenLaneIsFull() throws Exception {
+        SingleThreadEventExecutor executor = new SingleThreadEventExecutor(null, new DefaultThreadFactory("test"),
+                true, 16, RejectedExecutionHandlers.reject()) {
+            @Override
+            protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+                return new PrioritizedTaskQueue(
+                        new ArrayBlockingQueue<Runnable>(16), new ArrayBlockingQueue<Runnable>(16));
+            }
+
+            @Override
+            protected void run() {
+                do {
+                    Runnable task = pollTask();
+                    if (task != null) {
+                        task.run();
+                    } else if (confirmShutdown()) {
+                        break;
+                    } else {
+                        Thread.yield();
+                    }
+                } while (true);
+            }
+        };
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        int rejected = 0;
+        for (int i = 0; i < 32; i++) {
+            try {
+                executor.execute(new Task());
+            } catch (RejectedExecutionException expected) {
+                rejected++;
+            }
+        }
+        assertTrue(rejected > 0);
+        assertEquals(rejected, executor.rejectedTasks());
+
+        // Priority tasks are still accepted.
+        executor.execute(new PriorityTask());
+        assertEquals(1, executor.pendingPriorityTasks());
+        latch.countDown();
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.epoll.AffinityThreadFactory;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.EventExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many connections per second can be accepted when the accept work is distributed over multiple
+ * {@link EventLoop}s:
+ * <ul>
+ *     <li>{@code SHARED}: one listening socket which is registered to every {@link EventLoop}, so every
+ *     {@link EventLoop} is woken up for each connection.</li>
+ *     <li>{@code SHARED_EXCLUSIVE}: the same as {@code SHARED} but registered with
+ *     {@link EpollChannelOption#EPOLL_EXCLUSIVE}, so only one {@link EventLoop} is woken up.</li>
+ *     <li>{@code REUSEPORT}: one listening socket per {@link EventLoop} via {@code SO_REUSEPORT}, connections are
+ *     distributed by hash.</li>
+ *     <li>{@code REUSEPORT_CBPF}: like {@code REUSEPORT} with {@link EventLoop}s pinned to CPUs and
+ *     {@link EpollChannelOption#SO_ATTACH_REUSEPORT_CBPF}, so connections are accepted on the CPU that received
+ *     them.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class EpollAcceptDistributionBenchmark extends AbstractMicrobenchmark {
+
+    public enum Mode {
+        SHARED, SHARED_EXCLUSIVE, REUSEPORT, REUSEPORT_CBPF
+    }
+
+    @Param
+    public Mode mode;
+
+    @Param({ "4" })
+    public int eventLoops;
+
+    private EpollEventLoopGroup serverGroup;
+    private EpollEventLoopGroup clientGroup;
+    private Channel serverChan;
+    private final List<Channel> sharedChans = new ArrayList<Channel>();
+    private Bootstrap bootstrap;
+
+    @Setup
+    public void setup() throws Exception {
+        if (mode == Mode.REUSEPORT_CBPF) {
+            serverGroup = new EpollEventLoopGroup(eventLoops, new AffinityThreadFactory(getClass()));
+            // Start the threads in order so EventLoop i is pinned to CPU i and so matches the socket at index i.
+            for (EventExecutor executor: serverGroup) {
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // NOOP
+                    }
+                }).sync();
+            }
+        } else {
+            serverGroup = new EpollEventLoopGroup(eventLoops);
+        }
+        clientGroup = new EpollEventLoopGroup(eventLoops);
+
+        ServerBootstrap sb = new ServerBootstrap()
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childHandler(new CloseOnActiveHandler());
+        switch (mode) {
+            case SHARED:
+            case SHARED_EXCLUSIVE:
+                boolean exclusive = mode == Mode.SHARED_EXCLUSIVE;
+                List<EventLoop> loops = new ArrayList<EventLoop>();
+                for (EventExecutor executor: serverGroup) {
+                    loops.add((EventLoop) executor);
+                }
+                serverChan = sb.clone().group(loops.get(0), serverGroup)
+                        .channel(EpollServerSocketChannel.class)
+                        .option(EpollChannelOption.EPOLL_EXCLUSIVE, exclusive)
+                        .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+                final int fd = ((EpollServerSocketChannel) serverChan).fd().intValue();
+                for (int i = 1; i < loops.size(); i++) {
+                    sharedChans.add(sb.clone().group(loops.get(i), serverGroup)
+                            .channelFactory(new ChannelFactory<EpollServerSocketChannel>() {
+                                @Override
+                                public EpollServerSocketChannel newChannel() {
+                                    return new EpollServerSocketChannel(fd);
+                                }
+                            })
+                            .option(EpollChannelOption.EPOLL_EXCLUSIVE, exclusive)
+                            .register().sync().channel());
+                }
+                break;
+            case REUSEPORT:
+                serverChan = sb.group(serverGroup).channel(EpollServerSocketChannel.class)
+                        .acceptorPerEventLoop(EpollChannelOption.SO_REUSEPORT)
+                        .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+                break;
+            case REUSEPORT_CBPF:
+                serverChan = sb.group(serverGroup).channel(EpollServerSocketChannel.class)
+                        .acceptorPerEventLoop(EpollChannelOption.SO_REUSEPORT)
+                        .option(EpollChannelOption.SO_REUSEPORT, true)
+                        .option(EpollChannelOption.SO_ATTACH_REUSEPORT_CBPF, eventLoops)
+                        .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+                break;
+            default:
+                throw new Error();
+        }
+        bootstrap = new Bootstrap()
+                .channel(EpollSocketChannel.class)
+                .group(clientGroup)
+                .option(ChannelOption.SO_LINGER, 0)
+                .handler(new NoopHandler())
+                .remoteAddress(serverChan.localAddress());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        // The shared channels use the same file descriptor, so only the bound channel is allowed to close it.
+        for (Channel ch: sharedChans) {
+            ch.deregister().sync();
+        }
+        sharedChans.clear();
+        serverChan.close().sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public Object connectAndClose() throws Exception {
+        // The server closes the connection once it was accepted, so this includes the full accept path.
+        return bootstrap.connect().sync().channel().closeFuture().sync();
+    }
+
+    @ChannelHandler.Sharable
+    private static final class NoopHandler extends ChannelInboundHandlerAdapter {
+    }
+
+    @ChannelHandler.Sharable
+    private static final class CloseOnActiveHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            ctx.close();
+        }
+    }
+}
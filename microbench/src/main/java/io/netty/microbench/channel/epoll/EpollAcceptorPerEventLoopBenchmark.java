@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.NetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many connections per second can be accepted, with either a single acceptor or one acceptor per
+ * {@link io.netty.channel.EventLoop} as configured via {@link ServerBootstrap#acceptorPerEventLoop(ChannelOption)}.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class EpollAcceptorPerEventLoopBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "false", "true" })
+    public boolean acceptorPerEventLoop;
+
+    @Param({ "4" })
+    public int eventLoops;
+
+    private EpollEventLoopGroup serverGroup;
+    private EpollEventLoopGroup clientGroup;
+    private Channel serverChan;
+    private Bootstrap bootstrap;
+
+    @Setup
+    public void setup() throws Exception {
+        serverGroup = new EpollEventLoopGroup(eventLoops);
+        clientGroup = new EpollEventLoopGroup(eventLoops);
+        serverChan = new ServerBootstrap()
+                .channel(EpollServerSocketChannel.class)
+                .group(serverGroup)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .acceptorPerEventLoop(acceptorPerEventLoop ? EpollChannelOption.SO_REUSEPORT : null)
+                .childHandler(new CloseOnActiveHandler())
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0))
+                .sync()
+                .channel();
+        bootstrap = new Bootstrap()
+                .channel(EpollSocketChannel.class)
+                .group(clientGroup)
+                .option(ChannelOption.SO_LINGER, 0)
+                .handler(new ChannelInboundHandlerAdapter())
+                .remoteAddress(serverChan.localAddress());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serverChan.close().sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public Object connectAndClose() throws Exception {
+        // The server closes the connection once it was accepted, so this includes the full accept path.
+        return bootstrap.connect().sync().channel().closeFuture().sync();
+    }
+
+    @ChannelHandler.Sharable
+    private static final class CloseOnActiveHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how many datagrams per second the {@link EpollDatagramChannel} can receive when reading them one at a time
+ * with {@code recvfrom(...)} ({@code batchSize} of {@code 1}) or in batches with {@code recvmmsg(...)}.
+ */
+public class EpollDatagramReadBenchmark extends AbstractMicrobenchmark {
+    private static final int BURST = 64;
+
+    @Param({ "1", "8", "32" })
+    public int batchSize;
+
+    @Param({ "64", "512" })
+    public int size;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChan;
+    private Channel clientChan;
+    private InetSocketAddress serverAddress;
+    private ByteBuf payload;
+    private final AtomicInteger received = new AtomicInteger();
+
+    @Setup
+    public void setup() throws Exception {
+        serverGroup = new EpollEventLoopGroup(1);
+        clientGroup = new EpollEventLoopGroup(1);
+        serverChan = new Bootstrap()
+                .group(serverGroup)
+                .channel(EpollDatagramChannel.class)
+                .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+                .option(EpollChannelOption.DATAGRAM_READ_BATCH_SIZE, batchSize)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                        received.incrementAndGet();
+                    }
+                })
+                .bind(NetUtil.LOCALHOST4, 0).sync().channel();
+        serverAddress = (InetSocketAddress) serverChan.localAddress();
+        clientChan = new Bootstrap()
+                .group(clientGroup)
+                .channel(EpollDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .bind(NetUtil.LOCALHOST4, 0).sync().channel();
+        payload = clientChan.alloc().directBuffer(size).writeZero(size);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        clientChan.close().sync();
+        serverChan.close().sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        payload.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int receiveBurst() throws Exception {
+        received.set(0);
+        for (int i = 0; i < BURST; i++) {
+            clientChan.write(new DatagramPacket(payload.retainedDuplicate(), serverAddress), clientChan.voidPromise());
+        }
+        clientChan.flush();
+
+        // Datagrams may be dropped, so do not wait forever for the whole burst.
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        int count;
+        while ((count = received.get()) < BURST && System.nanoTime() - deadline < 0) {
+            Thread.yield();
+        }
+        return count;
+    }
+}
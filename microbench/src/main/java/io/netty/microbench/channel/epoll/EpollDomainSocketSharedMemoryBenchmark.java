@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.SharedMemoryHandler;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link EpollDomainSocketChannel} with and without {@link SharedMemoryHandler}.
+ */
+public class EpollDomainSocketSharedMemoryBenchmark extends AbstractMicrobenchmark {
+    private static final int BYTES_PER_OPERATION = 4 * 1024 * 1024;
+
+    @Param({ "false", "true" })
+    public boolean sharedMemory;
+
+    @Param({ "1024", "65536" })
+    public int chunkSize;
+
+    private EpollEventLoopGroup group;
+    private Channel serverChan;
+    private Channel chan;
+    private ByteBuf chunk;
+    private CountingHandler counter;
+    private File socketFile;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new EpollEventLoopGroup(2);
+        socketFile = File.createTempFile("netty-bench", ".sock");
+        socketFile.delete();
+        counter = new CountingHandler();
+
+        serverChan = new ServerBootstrap()
+                .channel(EpollServerDomainSocketChannel.class)
+                .group(group)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        if (sharedMemory) {
+                            ch.pipeline().addLast(new SharedMemoryHandler());
+                        }
+                        ch.pipeline().addLast(counter);
+                    }
+                })
+                .bind(new DomainSocketAddress(socketFile))
+                .sync()
+                .channel();
+
+        chan = new Bootstrap()
+                .channel(EpollDomainSocketChannel.class)
+                .group(group)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        if (sharedMemory) {
+                            ch.pipeline().addLast(new SharedMemoryHandler());
+                        }
+                    }
+                })
+                .connect(serverChan.localAddress())
+                .sync()
+                .channel();
+
+        chunk = Unpooled.unreleasableBuffer(Unpooled.directBuffer(chunkSize).writeZero(chunkSize));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        chan.close().sync();
+        serverChan.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        socketFile.delete();
+    }
+
+    @Benchmark
+    public Object transfer() throws Exception {
+        Promise<Void> promise = counter.expect(group.next().<Void>newPromise(), BYTES_PER_OPERATION);
+        for (int written = 0; written < BYTES_PER_OPERATION; written += chunkSize) {
+            chan.write(chunk.duplicate(), chan.voidPromise());
+        }
+        chan.flush();
+        return promise.sync();
+    }
+
+    @Sharable
+    private static final class CountingHandler extends ChannelInboundHandlerAdapter {
+        private volatile Promise<Void> promise;
+        private volatile long remaining;
+
+        Promise<Void> expect(Promise<Void> promise, long bytes) {
+            remaining = bytes;
+            this.promise = promise;
+            return promise;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            remaining -= buf.readableBytes();
+            buf.release();
+            if (remaining <= 0) {
+                promise.trySuccess(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.local;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures latency and throughput of a {@link LocalChannel} pair, either sharing one {@link io.netty.channel.EventLoop}
+ * or using different ones.
+ */
+public class LocalChannelBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "true", "false" })
+    public boolean sharedEventLoop;
+
+    @Param({ "1", "64" })
+    public int burst;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChan;
+    private Channel chan;
+    private ByteBuf payload;
+    private CountingHandler counter;
+
+    @Setup
+    public void setup() throws Exception {
+        serverGroup = new DefaultEventLoopGroup(1);
+        clientGroup = sharedEventLoop ? serverGroup : new DefaultEventLoopGroup(1);
+        LocalAddress address = new LocalAddress("LocalChannelBenchmark");
+
+        serverChan = new ServerBootstrap()
+                .channel(LocalServerChannel.class)
+                .group(serverGroup)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                ctx.write(msg, ctx.voidPromise());
+                            }
+
+                            @Override
+                            public void channelReadComplete(ChannelHandlerContext ctx) {
+                                ctx.flush();
+                            }
+                        });
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+
+        counter = new CountingHandler();
+        chan = new Bootstrap()
+                .channel(LocalChannel.class)
+                .group(clientGroup)
+                .handler(counter)
+                .connect(address)
+                .sync()
+                .channel();
+
+        payload = Unpooled.unreleasableBuffer(Unpooled.directBuffer(64).writeZero(64));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        chan.close().sync();
+        serverChan.close().sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        if (clientGroup != serverGroup) {
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        Promise<Void> promise = counter.expect(chan.eventLoop().<Void>newPromise(), burst);
+        for (int i = 0; i < burst; i++) {
+            chan.write(payload.duplicate(), chan.voidPromise());
+        }
+        chan.flush();
+        return promise.sync();
+    }
+
+    private static final class CountingHandler extends ChannelInboundHandlerAdapter {
+        private volatile Promise<Void> promise;
+        private volatile int remaining;
+
+        Promise<Void> expect(Promise<Void> promise, int messages) {
+            remaining = messages;
+            this.promise = promise;
+            return promise;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (--remaining == 0) {
+                promise.setSuccess(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ConcurrentFixedChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the acquire / release throughput of {@link FixedChannelPool} and {@link ConcurrentFixedChannelPool} when
+ * used concurrently from several {@link EventLoop}s.
+ */
+public class ChannelPoolBenchmark extends AbstractMicrobenchmark {
+
+    public enum PoolType {
+        FIXED,
+        CONCURRENT_FIXED
+    }
+
+    @Param
+    public PoolType poolType;
+
+    @Param({ "1", "8" })
+    public int eventLoops;
+
+    @Param({ "1000" })
+    public int acquiresPerEventLoop;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private ChannelPool pool;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new DefaultEventLoopGroup(eventLoops);
+        LocalAddress address = new LocalAddress("ChannelPoolBenchmark");
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        AbstractChannelPoolHandler handler = new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                // NOOP
+            }
+        };
+        switch (poolType) {
+            case FIXED:
+                pool = new FixedChannelPool(bootstrap, handler, eventLoops);
+                break;
+            case CONCURRENT_FIXED:
+                pool = new ConcurrentFixedChannelPool(bootstrap, handler, eventLoops);
+                break;
+            default:
+                throw new Error();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pool.close();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public void acquireAndRelease() throws Exception {
+        CountDownLatch latch = new CountDownLatch(eventLoops);
+        for (int i = 0; i < eventLoops; i++) {
+            final EventLoop loop = group.next();
+            new AcquireReleaseLoop(loop, latch).start();
+        }
+        latch.await();
+    }
+
+    /**
+     * Acquires and releases a {@link Channel} {@link #acquiresPerEventLoop} times, each acquire being issued from
+     * the same {@link EventLoop} once the previous release completed.
+     */
+    private final class AcquireReleaseLoop implements Runnable, FutureListener<Object> {
+        private final EventLoop loop;
+        private final CountDownLatch latch;
+        private int remaining = acquiresPerEventLoop;
+
+        AcquireReleaseLoop(EventLoop loop, CountDownLatch latch) {
+            this.loop = loop;
+            this.latch = latch;
+        }
+
+        void start() {
+            loop.execute(this);
+        }
+
+        @Override
+        public void run() {
+            if (remaining-- == 0) {
+                latch.countDown();
+                return;
+            }
+            pool.acquire(loop.<Channel>newPromise()).addListener(this);
+        }
+
+        @Override
+        public void operationComplete(Future<Object> future) {
+            Object result = future.getNow();
+            if (result instanceof Channel) {
+                pool.release((Channel) result, loop.<Void>newPromise()).addListener(this);
+            } else if (future.isSuccess()) {
+                run();
+            } else {
+                // Stop this loop, the failure will show up as a too high score.
+                latch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.uring;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.uring.IoUringEventLoopGroup;
+import io.netty.channel.uring.IoUringServerSocketChannel;
+import io.netty.channel.uring.IoUringSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the HTTP/1.1 throughput of the epoll and the io_uring transport over a loopback TCP connection. Each
+ * invocation writes {@link #pipelined} pre-encoded requests at once and waits until all responses were decoded.
+ */
+public class IoUringHttpBenchmark extends AbstractMicrobenchmark {
+
+    private static final byte[] REQUEST = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(CharsetUtil.US_ASCII);
+
+    public enum Transport {
+        EPOLL, IO_URING
+    }
+
+    @Param
+    public Transport transport;
+
+    @Param({ "1", "16" })
+    public int pipelined;
+
+    @Param({ "16", "4096" })
+    public int responseSize;
+
+    private EventLoopGroup group;
+    private Channel serverChan;
+    private Channel chan;
+    private ByteBuf requests;
+    private FullHttpResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        final Class<? extends ServerChannel> serverChannelClass;
+        final Class<? extends Channel> channelClass;
+        if (transport == Transport.EPOLL) {
+            group = new EpollEventLoopGroup(2);
+            serverChannelClass = EpollServerSocketChannel.class;
+            channelClass = EpollSocketChannel.class;
+        } else {
+            group = new IoUringEventLoopGroup(2);
+            serverChannelClass = IoUringServerSocketChannel.class;
+            channelClass = IoUringSocketChannel.class;
+        }
+
+        response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                                               Unpooled.directBuffer(responseSize).writeZero(responseSize));
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, responseSize);
+
+        serverChan = new ServerBootstrap()
+            .channel(serverChannelClass)
+            .group(group)
+            .childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new HttpServerCodec(), new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            if (msg instanceof LastHttpContent) {
+                                ctx.write(response.retainedDuplicate(), ctx.voidPromise());
+                            }
+                            ReferenceCountUtil.release(msg);
+                        }
+
+                        @Override
+                        public void channelReadComplete(ChannelHandlerContext ctx) {
+                            ctx.flush();
+                        }
+                    });
+                }
+            })
+            .bind(0)
+            .sync()
+            .channel();
+        chan = new Bootstrap()
+            .channel(channelClass)
+            .handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new HttpResponseDecoder(), new ChannelDuplexHandler() {
+                        private ChannelPromise lastWritePromise;
+                        private int received;
+
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            try {
+                                if (msg instanceof LastHttpContent && ++received == pipelined) {
+                                    received = 0;
+                                    lastWritePromise.trySuccess();
+                                    lastWritePromise = null;
+                                }
+                            } finally {
+                                ReferenceCountUtil.release(msg);
+                            }
+                        }
+
+                        @Override
+                        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+                                throws Exception {
+                            if (lastWritePromise != null) {
+                                throw new IllegalStateException();
+                            }
+                            lastWritePromise = promise;
+                            super.write(ctx, msg, ctx.voidPromise());
+                        }
+                    });
+                }
+            })
+            .group(group)
+            .connect(serverChan.localAddress())
+            .sync()
+            .channel();
+
+        requests = chan.alloc().directBuffer(REQUEST.length * pipelined);
+        for (int i = 0; i < pipelined; i++) {
+            requests.writeBytes(REQUEST);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        chan.close().sync();
+        serverChan.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        requests.release();
+        response.release();
+    }
+
+    @Benchmark
+    public Object requests() throws Exception {
+        return chan.pipeline().writeAndFlush(requests.retainedSlice()).sync();
+    }
+}
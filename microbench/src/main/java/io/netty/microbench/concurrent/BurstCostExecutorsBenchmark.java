@@ -180,6 +180,11 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
     private String executorType;
     @Param({ "0", "10" })
     private int work;
+    /**
+     * Only used by {@code nioEventLoop} and {@code epollEventLoop}: the time the event loop spins before it blocks.
+     */
+    @Param({ "0", "50" })
+    private int spinTimeMicros;
 
     private ExecutorService executor;
     private ExecutorService executorToShutdown;
@@ -207,6 +212,7 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
         case nioEventLoop:
             NioEventLoopGroup nioEventLoopGroup = new NioEventLoopGroup(1);
             nioEventLoopGroup.setIoRatio(1);
+            nioEventLoopGroup.setSpinTime(spinTimeMicros, TimeUnit.MICROSECONDS);
             executor = nioEventLoopGroup.next();
             executorToShutdown = nioEventLoopGroup;
             break;
@@ -214,6 +220,7 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
             Epoll.ensureAvailability();
             EpollEventLoopGroup epollEventLoopGroup = new EpollEventLoopGroup(1);
             epollEventLoopGroup.setIoRatio(1);
+            epollEventLoopGroup.setSpinTime(spinTimeMicros, TimeUnit.MICROSECONDS);
             executor = epollEventLoopGroup.next();
             executorToShutdown = epollEventLoopGroup;
             break;
@@ -27,6 +27,8 @@
 #include <netinet/in.h>
 #include <sys/sendfile.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
+#include <linux/errqueue.h>
+#include <linux/filter.h>
 
 #include "netty_epoll_linuxsocket.h"
 #include "netty_unix_errors.h"
@@ -55,6 +57,58 @@
 #define SO_BUSY_POLL 46
 #endif
 
+// SOL_UDP and UDP_GRO are defined in linux 5.0. We define this here so older kernels can compile.
+#ifndef SOL_UDP
+#define SOL_UDP 17
+#endif
+
+#ifndef UDP_GRO
+#define UDP_GRO 104
+#endif
+
+// SO_ZEROCOPY and MSG_ZEROCOPY are defined in linux 4.14. We define this here so older kernels can compile.
+#ifndef SO_ZEROCOPY
+#define SO_ZEROCOPY 60
+#endif
+
+#ifndef MSG_ZEROCOPY
+#define MSG_ZEROCOPY 0x4000000
+#endif
+
+#ifndef SO_EE_ORIGIN_ZEROCOPY
+#define SO_EE_ORIGIN_ZEROCOPY 5
+#endif
+
+#ifndef SO_EE_CODE_ZEROCOPY_COPIED
+#define SO_EE_CODE_ZEROCOPY_COPIED 1
+#endif
+
+// SO_INCOMING_CPU is defined in linux 3.19, SO_ATTACH_REUSEPORT_CBPF in linux 4.5 and SO_DETACH_REUSEPORT_BPF in
+// linux 5.3. We define this here so older kernels can compile.
+#ifndef SO_INCOMING_CPU
+#define SO_INCOMING_CPU 49
+#endif
+
+#ifndef SO_ATTACH_REUSEPORT_CBPF
+#define SO_ATTACH_REUSEPORT_CBPF 51
+#endif
+
+#ifndef SO_DETACH_REUSEPORT_BPF
+#define SO_DETACH_REUSEPORT_BPF 68
+#endif
+
+// TCP_ULP and SOL_TLS are defined in linux 4.13. We define this here so older kernels can compile.
+#ifndef TCP_ULP
+#define TCP_ULP 31
+#endif
+
+#ifndef SOL_TLS
+#define SOL_TLS 282
+#endif
+
+// The largest struct tls12_crypto_info_* is the one of AES-GCM-256 / CHACHA20-POLY1305: 4 + 8 + 32 + 4 + 8 bytes.
+#define NETTY_TLS_CRYPTO_INFO_MAX_SIZE 56
+
 static jclass peerCredentialsClass = NULL;
 static jmethodID peerCredentialsMethodId = NULL;
 
@@ -142,6 +196,73 @@ static void netty_epoll_linuxsocket_setIpRecvOrigDestAddr(JNIEnv* env, jclass cl
     netty_unix_socket_setOption(env, fd, IPPROTO_IP, IP_RECVORIGDSTADDR, &optval, sizeof(optval));
 }
 
+static void netty_epoll_linuxsocket_setUdpGro(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval));
+}
+
+static void netty_epoll_linuxsocket_setZeroCopy(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+}
+
+static void netty_epoll_linuxsocket_setIncomingCpu(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_INCOMING_CPU, &optval, sizeof(optval));
+}
+
+static void netty_epoll_linuxsocket_setReusePortCpuCbpf(JNIEnv* env, jclass clazz, jint fd, jint groupSize) {
+    if (groupSize <= 0) {
+        int optval = 0;
+        netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_DETACH_REUSEPORT_BPF, &optval, sizeof(optval));
+        return;
+    }
+    // Select the socket of the SO_REUSEPORT group by the CPU which handled the packet: A = cpu % groupSize
+    struct sock_filter code[] = {
+        { BPF_LD | BPF_W | BPF_ABS, 0, 0, SKF_AD_OFF + SKF_AD_CPU },
+        { BPF_ALU | BPF_MOD | BPF_K, 0, 0, (__u32) groupSize },
+        { BPF_RET | BPF_A, 0, 0, 0 }
+    };
+    struct sock_fprog prog = { sizeof(code) / sizeof(code[0]), code };
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_ATTACH_REUSEPORT_CBPF, &prog, sizeof(prog));
+}
+
+static void netty_epoll_linuxsocket_setTlsUlp(JNIEnv* env, jclass clazz, jint fd) {
+    // Fails with ENOENT if the tls kernel module is not available.
+    netty_unix_socket_setOption(env, fd, IPPROTO_TCP, TCP_ULP, "tls", sizeof("tls"));
+}
+
+static int netty_epoll_linuxsocket_copyTlsBytes(JNIEnv* env, jbyteArray array, char* dst, int offset) {
+    jsize len = (*env)->GetArrayLength(env, array);
+    if (offset + len > NETTY_TLS_CRYPTO_INFO_MAX_SIZE) {
+        netty_unix_errors_throwIOException(env, "crypto info too big");
+        return -1;
+    }
+    (*env)->GetByteArrayRegion(env, array, 0, len, (jbyte*) dst + offset);
+    if ((*env)->ExceptionCheck(env) == JNI_TRUE) {
+        return -1;
+    }
+    return offset + len;
+}
+
+static void netty_epoll_linuxsocket_setTlsCryptoInfo(JNIEnv* env, jclass clazz, jint fd, jint direction, jint version, jint cipherType,
+                                                     jbyteArray iv, jbyteArray key, jbyteArray salt, jbyteArray recSeq) {
+    // All struct tls12_crypto_info_* start with struct tls_crypto_info followed by the byte arrays
+    // iv, key, salt and rec_seq without any padding, so we can build them generically.
+    char info[NETTY_TLS_CRYPTO_INFO_MAX_SIZE];
+    uint16_t header[2] = { (uint16_t) version, (uint16_t) cipherType };
+    int len = sizeof(header);
+
+    memset(info, 0, sizeof(info));
+    memcpy(info, header, sizeof(header));
+    if ((len = netty_epoll_linuxsocket_copyTlsBytes(env, iv, info, len)) == -1 ||
+        (len = netty_epoll_linuxsocket_copyTlsBytes(env, key, info, len)) == -1 ||
+        (len = netty_epoll_linuxsocket_copyTlsBytes(env, salt, info, len)) == -1 ||
+        (len = netty_epoll_linuxsocket_copyTlsBytes(env, recSeq, info, len)) == -1) {
+        return;
+    }
+    netty_unix_socket_setOption(env, fd, SOL_TLS, direction, info, len);
+    // Do not keep the key material on the stack.
+    memset(info, 0, sizeof(info));
+}
+
 static void netty_epoll_linuxsocket_setSoBusyPoll(JNIEnv* env, jclass clazz, jint fd, jint optval) {
     netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_BUSY_POLL, &optval, sizeof(optval));
 }
@@ -456,6 +577,30 @@ static jint netty_epoll_linuxsocket_isIpRecvOrigDestAddr(JNIEnv* env, jclass cla
      return optval;
 }
 
+static jint netty_epoll_linuxsocket_isUdpGro(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
+static jint netty_epoll_linuxsocket_isZeroCopy(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
+static jint netty_epoll_linuxsocket_getIncomingCpu(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_INCOMING_CPU, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
 static void netty_epoll_linuxsocket_getTcpInfo(JNIEnv* env, jclass clazz, jint fd, jlongArray array) {
      struct tcp_info tcp_info;
      if (netty_unix_socket_getOption(env, fd, IPPROTO_TCP, TCP_INFO, &tcp_info, sizeof(tcp_info)) == -1) {
@@ -595,6 +740,77 @@ static jlong netty_epoll_linuxsocket_sendFile(JNIEnv* env, jclass clazz, jint fd
 
     return res;
 }
+
+static jint netty_epoll_linuxsocket_sendAddressZeroCopy(JNIEnv* env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    ssize_t res;
+    int err;
+    do {
+       res = send(fd, (void*) (intptr_t) (address + pos), (size_t) (limit - pos), MSG_ZEROCOPY);
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        // ENOBUFS is returned if the socket has too many outstanding notifications. Handle it like EAGAIN so the write
+        // is retried once the notifications were read from the error queue.
+        return err == ENOBUFS ? -EAGAIN : -err;
+    }
+    return (jint) res;
+}
+
+static jlong netty_epoll_linuxsocket_sendmsgAddressesZeroCopy(JNIEnv* env, jclass clazz, jint fd, jlong memoryAddress, jint length) {
+    struct msghdr m = { 0 };
+    m.msg_iov = (struct iovec*) (intptr_t) memoryAddress;
+    m.msg_iovlen = length;
+
+    ssize_t res;
+    int err;
+    do {
+       res = sendmsg(fd, &m, MSG_ZEROCOPY);
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return err == ENOBUFS ? -EAGAIN : -err;
+    }
+    return (jlong) res;
+}
+
+static jint netty_epoll_linuxsocket_recvZeroCopyCompletion(JNIEnv* env, jclass clazz, jint fd, jintArray completion) {
+    char control[CMSG_SPACE(sizeof(struct sock_extended_err) + sizeof(struct sockaddr_in6))];
+    struct msghdr m = { 0 };
+    m.msg_control = control;
+    m.msg_controllen = sizeof(control);
+
+    ssize_t res;
+    int err;
+    do {
+        res = recvmsg(fd, &m, MSG_ERRQUEUE);
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    if ((m.msg_flags & MSG_CTRUNC) != 0) {
+        return -EMSGSIZE;
+    }
+
+    struct cmsghdr* cm;
+    for (cm = CMSG_FIRSTHDR(&m); cm != NULL; cm = CMSG_NXTHDR(&m, cm)) {
+        if ((cm->cmsg_level == SOL_IP && cm->cmsg_type == IP_RECVERR) ||
+                (cm->cmsg_level == SOL_IPV6 && cm->cmsg_type == IPV6_RECVERR)) {
+            struct sock_extended_err* serr = (struct sock_extended_err*) CMSG_DATA(cm);
+            if (serr->ee_errno == 0 && serr->ee_origin == SO_EE_ORIGIN_ZEROCOPY) {
+                // ee_info and ee_data hold the inclusive range of completed send calls.
+                jint values[3] = { (jint) serr->ee_info, (jint) serr->ee_data,
+                                   (serr->ee_code & SO_EE_CODE_ZEROCOPY_COPIED) != 0 ? 1 : 0 };
+                (*env)->SetIntArrayRegion(env, completion, 0, 3, values);
+                return 1;
+            }
+            // Any other entry is an error reported for the socket, surface it to the caller.
+            return serr->ee_errno != 0 ? -serr->ee_errno : -EIO;
+        }
+    }
+    // Every entry of the error queue should carry an extended error.
+    return -EIO;
+}
 // JNI Registered Methods End
 
 // JNI Method Registration Table Begin
@@ -622,6 +838,12 @@ static const JNINativeMethod fixed_method_table[] = {
   { "setIpFreeBind", "(II)V", (void *) netty_epoll_linuxsocket_setIpFreeBind },
   { "setIpTransparent", "(II)V", (void *) netty_epoll_linuxsocket_setIpTransparent },
   { "setIpRecvOrigDestAddr", "(II)V", (void *) netty_epoll_linuxsocket_setIpRecvOrigDestAddr },
+  { "setUdpGro", "(II)V", (void *) netty_epoll_linuxsocket_setUdpGro },
+  { "setZeroCopy", "(II)V", (void *) netty_epoll_linuxsocket_setZeroCopy },
+  { "setIncomingCpu", "(II)V", (void *) netty_epoll_linuxsocket_setIncomingCpu },
+  { "setReusePortCpuCbpf", "(II)V", (void *) netty_epoll_linuxsocket_setReusePortCpuCbpf },
+  { "setTlsUlp", "(I)V", (void *) netty_epoll_linuxsocket_setTlsUlp },
+  { "setTlsCryptoInfo", "(IIII[B[B[B[B)V", (void *) netty_epoll_linuxsocket_setTlsCryptoInfo },
   { "getTcpKeepIdle", "(I)I", (void *) netty_epoll_linuxsocket_getTcpKeepIdle },
   { "getTcpKeepIntvl", "(I)I", (void *) netty_epoll_linuxsocket_getTcpKeepIntvl },
   { "getTcpKeepCnt", "(I)I", (void *) netty_epoll_linuxsocket_getTcpKeepCnt },
@@ -629,6 +851,12 @@ static const JNINativeMethod fixed_method_table[] = {
   { "isIpFreeBind", "(I)I", (void *) netty_epoll_linuxsocket_isIpFreeBind },
   { "isIpTransparent", "(I)I", (void *) netty_epoll_linuxsocket_isIpTransparent },
   { "isIpRecvOrigDestAddr", "(I)I", (void *) netty_epoll_linuxsocket_isIpRecvOrigDestAddr },
+  { "isUdpGro", "(I)I", (void *) netty_epoll_linuxsocket_isUdpGro },
+  { "isZeroCopy", "(I)I", (void *) netty_epoll_linuxsocket_isZeroCopy },
+  { "getIncomingCpu", "(I)I", (void *) netty_epoll_linuxsocket_getIncomingCpu },
+  { "sendAddressZeroCopy", "(IJII)I", (void *) netty_epoll_linuxsocket_sendAddressZeroCopy },
+  { "sendmsgAddressesZeroCopy", "(IJI)J", (void *) netty_epoll_linuxsocket_sendmsgAddressesZeroCopy },
+  { "recvZeroCopyCompletion", "(I[I)I", (void *) netty_epoll_linuxsocket_recvZeroCopyCompletion },
   { "getTcpInfo", "(I[J)V", (void *) netty_epoll_linuxsocket_getTcpInfo },
   { "setTcpMd5Sig", "(IZ[BI[B)V", (void *) netty_epoll_linuxsocket_setTcpMd5Sig },
   { "joinGroup", "(IZ[B[BII)V", (void *) netty_epoll_linuxsocket_joinGroup },
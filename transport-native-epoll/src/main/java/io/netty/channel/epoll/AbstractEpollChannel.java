@@ -356,6 +356,7 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
         if (buf.hasMemoryAddress()) {
             int localFlushedAmount = socket.writeAddress(buf.memoryAddress(), buf.readerIndex(), buf.writerIndex());
             if (localFlushedAmount > 0) {
+                bytesWritten(localFlushedAmount);
                 in.removeBytes(localFlushedAmount);
                 return 1;
             }
@@ -365,6 +366,7 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
             int localFlushedAmount = socket.write(nioBuf, nioBuf.position(), nioBuf.limit());
             if (localFlushedAmount > 0) {
                 nioBuf.position(nioBuf.position() + localFlushedAmount);
+                bytesWritten(localFlushedAmount);
                 in.removeBytes(localFlushedAmount);
                 return 1;
             }
@@ -372,6 +374,14 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
         return WRITE_STATUS_SNDBUF_FULL;
     }
 
+    /**
+     * Called once the given number of bytes were written to the socket by {@link #doWriteBytes(ChannelOutboundBuffer,
+     * ByteBuf)}.
+     */
+    void bytesWritten(long bytes) {
+        // NOOP
+    }
+
     protected abstract class AbstractEpollUnsafe extends AbstractUnsafe {
         boolean readPending;
         boolean maybeMoreDataToRead;
@@ -519,7 +529,7 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
         /**
          * Called once a EPOLLOUT event is ready to be processed
          */
-        final void epollOutReady() {
+        void epollOutReady() {
             if (connectPromise != null) {
                 // pending connect which is now complete so handle it.
                 finishConnect();
@@ -35,8 +35,10 @@ import io.netty.channel.unix.FileDescriptor;
 import io.netty.channel.unix.IovArray;
 import io.netty.channel.unix.SocketWritableByteChannel;
 import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.ThrowableUtil;
 import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
@@ -47,8 +49,11 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import static io.netty.channel.internal.ChannelUtils.MAX_BYTES_PER_GATHERING_WRITE_ATTEMPTED_LOW_THRESHOLD;
 import static io.netty.channel.internal.ChannelUtils.WRITE_STATUS_SNDBUF_FULL;
@@ -62,6 +67,9 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ", " +
                     StringUtil.simpleClassName(DefaultFileRegion.class) + ')';
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractEpollStreamChannel.class);
+    private static final long ZEROCOPY_CLOSE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(0, SystemPropertyUtil.getLong("io.netty.epoll.zeroCopyCloseTimeoutMillis", 5000)));
+    private static final long ZEROCOPY_CLOSE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 
     private final Runnable flushTask = new Runnable() {
         @Override
@@ -79,6 +87,12 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     private WritableByteChannel byteChannel;
 
+    // Lazy init if we need to write via MSG_ZEROCOPY.
+    private ZeroCopyPendingBuffers zeroCopyBuffers;
+    private ZeroCopyCloseExecutor zeroCopyCloseExecutor;
+
+    private final DefaultEpollWriteMetrics writeMetrics = new DefaultEpollWriteMetrics();
+
     protected AbstractEpollStreamChannel(Channel parent, int fd) {
         this(parent, new LinuxSocket(fd));
     }
@@ -119,6 +133,14 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         return METADATA;
     }
 
+    /**
+     * Returns the {@link EpollWriteMetrics} of this {@link AbstractEpollStreamChannel}.
+     */
+    @UnstableApi
+    public final EpollWriteMetrics writeMetrics() {
+        return writeMetrics;
+    }
+
     /**
      * Splice from this {@link AbstractEpollStreamChannel} to another {@link AbstractEpollStreamChannel}.
      * The {@code len} is the number of bytes to splice. If using {@link Integer#MAX_VALUE} it will
@@ -220,6 +242,21 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         return promise;
     }
 
+    /**
+     * Splice all data of this {@link AbstractEpollStreamChannel} to another {@link AbstractEpollStreamChannel} until
+     * the end of the input was reached, and then shutdown the output of the target. Reading is suspended while the
+     * target can not accept more data. Used by {@link EpollSpliceRelay}.
+     */
+    final void spliceToUntilEof(AbstractEpollStreamChannel ch, ChannelPromise promise) {
+        assert eventLoop().inEventLoop() && ch.eventLoop() == eventLoop();
+        if (!isOpen()) {
+            promise.tryFailure(new ClosedChannelException());
+        } else {
+            addToSpliceQueue(new SpliceRelayTask(ch, promise));
+            failSpliceIfClosed(promise);
+        }
+    }
+
     private void failSpliceIfClosed(ChannelPromise promise) {
         if (!isOpen()) {
             // Seems like the Channel was closed in the meantime try to fail the promise to prevent any
@@ -257,6 +294,9 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return 0;
         }
 
+        if (buf.hasMemoryAddress() && useZeroCopy(readableBytes)) {
+            return writeBytesZeroCopy(in, buf);
+        }
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             return doWriteBytes(in, buf);
         } else {
@@ -266,6 +306,47 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    private int writeBytesZeroCopy(ChannelOutboundBuffer in, ByteBuf buf) throws Exception {
+        int localFlushedAmount = socket.sendAddressZeroCopy(
+                buf.memoryAddress(), buf.readerIndex(), buf.writerIndex());
+        if (localFlushedAmount > 0) {
+            bytesWritten(localFlushedAmount);
+            // Retain the buffer before it is released by the ChannelOutboundBuffer as the kernel may still use it.
+            zeroCopyBuffers().add(buf);
+            in.removeBytes(localFlushedAmount);
+            return 1;
+        }
+        return WRITE_STATUS_SNDBUF_FULL;
+    }
+
+    /**
+     * Returns the minimal number of bytes a write must have to be done via {@code MSG_ZEROCOPY}, or {@code 0} if
+     * {@code MSG_ZEROCOPY} should not be used.
+     */
+    int zeroCopyWriteThreshold() {
+        return 0;
+    }
+
+    private boolean useZeroCopy(long bytes) {
+        int threshold = zeroCopyWriteThreshold();
+        // Stop using MSG_ZEROCOPY once the kernel reported that it copied the data anyway, for example because the
+        // device does not support scatter-gather or the connection is over the loopback device.
+        return threshold > 0 && bytes >= threshold && (zeroCopyBuffers == null || !zeroCopyBuffers.isCopied());
+    }
+
+    private ZeroCopyPendingBuffers zeroCopyBuffers() {
+        if (zeroCopyBuffers == null) {
+            zeroCopyBuffers = new ZeroCopyPendingBuffers();
+        }
+        return zeroCopyBuffers;
+    }
+
+    private void processZeroCopyCompletions() throws IOException {
+        if (zeroCopyBuffers != null && !zeroCopyBuffers.isEmpty()) {
+            zeroCopyBuffers.processCompletions(socket);
+        }
+    }
+
     private void adjustMaxBytesPerGatheringWrite(long attempted, long written, long oldMaxBytesPerGatheringWrite) {
         // By default we track the SO_SNDBUF when ever it is explicitly set. However some OSes may dynamically change
         // SO_SNDBUF (and other characteristics that determine how much data can be written at once) so we should try
@@ -292,17 +373,26 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      *     <li>{@link ChannelUtils#WRITE_STATUS_SNDBUF_FULL} - if an attempt to write data was made to the OS, but
      *     no data was accepted</li>
      * </ul>
-     * @throws IOException If an I/O exception occurs during write.
+     * @throws Exception If an I/O exception occurs during write.
      */
-    private int writeBytesMultiple(ChannelOutboundBuffer in, IovArray array) throws IOException {
+    private int writeBytesMultiple(ChannelOutboundBuffer in, IovArray array) throws Exception {
         final long expectedWrittenBytes = array.size();
         assert expectedWrittenBytes != 0;
         final int cnt = array.count();
         assert cnt != 0;
 
-        final long localWrittenBytes = socket.writevAddresses(array.memoryAddress(0), cnt);
+        final boolean zeroCopy = useZeroCopy(expectedWrittenBytes);
+        final long localWrittenBytes = zeroCopy ? socket.sendmsgAddressesZeroCopy(array.memoryAddress(0), cnt) :
+                socket.writevAddresses(array.memoryAddress(0), cnt);
         if (localWrittenBytes > 0) {
+            bytesWritten(localWrittenBytes);
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, array.maxBytes());
+            if (zeroCopy) {
+                zeroCopyBuffers().add(in, localWrittenBytes);
+            }
+            // Keep the remaining iovecs, so the next write can continue with them. This must be done before the
+            // buffers are removed from the ChannelOutboundBuffer as listeners may use the IovArray as well.
+            array.removeBytes(localWrittenBytes);
             in.removeBytes(localWrittenBytes);
             return 1;
         }
@@ -337,6 +427,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
         final long localWrittenBytes = socket.writev(nioBuffers, 0, nioBufferCnt, expectedWrittenBytes);
         if (localWrittenBytes > 0) {
+            bytesWritten(localWrittenBytes);
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, maxBytesPerGatheringWrite);
             in.removeBytes(localWrittenBytes);
             return 1;
@@ -368,6 +459,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
         final long flushedAmount = socket.sendFile(region, region.position(), offset, regionCount - offset);
         if (flushedAmount > 0) {
+            bytesWritten(flushedAmount);
             in.progress(flushedAmount);
             if (region.transferred() >= regionCount) {
                 in.remove();
@@ -404,6 +496,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
         final long flushedAmount = region.transferTo(byteChannel, region.transferred());
         if (flushedAmount > 0) {
+            bytesWritten(flushedAmount);
             in.progress(flushedAmount);
             if (region.transferred() >= region.count()) {
                 in.remove();
@@ -419,16 +512,24 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         do {
             final int msgCount = in.size();
             // Do gathering write if the outbound buffer entries start with more than one ByteBuf.
+            final int status;
             if (msgCount > 1 && in.current() instanceof ByteBuf) {
-                writeSpinCount -= doWriteMultiple(in);
+                status = doWriteMultiple(in);
             } else if (msgCount == 0) {
                 // Wrote all messages.
                 clearFlag(Native.EPOLLOUT);
                 // Return here so we not set the EPOLLOUT flag.
                 return;
             } else {  // msgCount == 1
-                writeSpinCount -= doWriteSingle(in);
+                status = doWriteSingle(in);
+            }
+            if (status != 0) {
+                writeMetrics.writeCalls++;
+                if (status == WRITE_STATUS_SNDBUF_FULL) {
+                    writeMetrics.sendBufferFullCount++;
+                }
             }
+            writeSpinCount -= status;
 
             // We do not break the loop here even if the outbound buffer was flushed completely,
             // because a user might have triggered another write and flush when we notify his or her
@@ -466,6 +567,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * @throws Exception If an I/O error occurs.
      */
     protected int doWriteSingle(ChannelOutboundBuffer in) throws Exception {
+        // The iovecs of a previous gathering write would be outdated once we write the current message directly.
+        ((EpollEventLoop) eventLoop()).disownIovArray(this);
         // The outbound buffer contains only one message or it contains a file region.
         Object msg = in.current();
         if (msg instanceof ByteBuf) {
@@ -501,12 +604,21 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * @throws Exception If an I/O error occurs.
      */
     private int doWriteMultiple(ChannelOutboundBuffer in) throws Exception {
+        final EpollEventLoop loop = (EpollEventLoop) eventLoop();
+        // If the last write was partial and nobody else used the IovArray since then, it still holds the iovecs of
+        // the remaining flushed buffers, so we do not need to build it again.
+        IovArray array = loop.ownedIovArray(this);
+        if (array != null && array.count() > 0) {
+            writeMetrics.iovArrayReuses++;
+            return writeBytesMultiple(in, array);
+        }
         final long maxBytesPerGatheringWrite = config().getMaxBytesPerGatheringWrite();
-        IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
+        array = loop.cleanIovArray();
         array.maxBytes(maxBytesPerGatheringWrite);
         in.forEachFlushedMessage(array);
 
         if (array.count() >= 1) {
+            loop.ownIovArray(this);
             // TODO: Handle the case where cnt == 1 specially.
             return writeBytesMultiple(in, array);
         }
@@ -515,6 +627,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         return 0;
     }
 
+    @Override
+    final void bytesWritten(long bytes) {
+        writeMetrics.bytesWritten += bytes;
+    }
+
     @Override
     protected Object filterOutboundMessage(Object msg) {
         if (msg instanceof ByteBuf) {
@@ -669,12 +786,102 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     @Override
     protected void doClose() throws Exception {
         try {
+            awaitZeroCopyCompletions();
             // Calling super.doClose() first so spliceTo(...) will fail on next call.
             super.doClose();
         } finally {
             safeClosePipe(pipeIn);
             safeClosePipe(pipeOut);
             clearSpliceQueue();
+            if (zeroCopyBuffers != null) {
+                // Either all notifications were received or the connection was reset, which discards the data that
+                // was not sent yet.
+                zeroCopyBuffers.releaseAll();
+            }
+        }
+    }
+
+    private boolean hasPendingZeroCopyWrites() {
+        return zeroCopyBuffers != null && !zeroCopyBuffers.isEmpty();
+    }
+
+    /**
+     * The kernel still sends the data of a closed socket directly from the memory of the buffers which were written
+     * via {@code MSG_ZEROCOPY}, so these must not be released (and maybe reused) before the kernel notified that it
+     * is done with them. As the notifications can not be received anymore once the socket was closed, the close is
+     * delayed until they were received, see {@link ZeroCopyCloseExecutor}. If this takes too long, for example
+     * because the peer does not read, the connection is reset which discards the data which was not sent yet.
+     */
+    private void awaitZeroCopyCompletions() {
+        if (!hasPendingZeroCopyWrites() || !socket.isOpen()) {
+            return;
+        }
+        // Only block if the close was moved off the EventLoop, for example because of SO_LINGER.
+        long deadline = System.nanoTime();
+        if (!eventLoop().inEventLoop()) {
+            deadline += ZEROCOPY_CLOSE_TIMEOUT_NANOS;
+        }
+        for (;;) {
+            try {
+                processZeroCopyCompletions();
+            } catch (IOException e) {
+                logger.debug("Failed to process MSG_ZEROCOPY notifications before closing the channel.", e);
+            }
+            if (!hasPendingZeroCopyWrites()) {
+                return;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            LockSupport.parkNanos(ZEROCOPY_CLOSE_POLL_NANOS);
+        }
+        try {
+            socket.setSoLinger(0);
+        } catch (IOException e) {
+            logger.debug("Failed to reset the connection with pending MSG_ZEROCOPY writes.", e);
+        }
+    }
+
+    /**
+     * Delays the close (or shutdown) of the channel on its {@link EventLoop} until all {@code MSG_ZEROCOPY} writes
+     * were completed or the timeout expired.
+     */
+    private final class ZeroCopyCloseExecutor implements Executor, Runnable {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>(2);
+        private ScheduledFuture<?> timeoutFuture;
+
+        @Override
+        public void execute(Runnable task) {
+            assert eventLoop().inEventLoop();
+            tasks.add(task);
+            if (timeoutFuture == null) {
+                timeoutFuture = eventLoop().schedule(this, ZEROCOPY_CLOSE_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+            }
+            // The notifications may have been received already.
+            runTasksIfCompleted();
+        }
+
+        void runTasksIfCompleted() {
+            if (!hasPendingZeroCopyWrites()) {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (zeroCopyCloseExecutor == this) {
+                zeroCopyCloseExecutor = null;
+            }
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+            for (;;) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+            }
         }
     }
 
@@ -696,6 +903,22 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Returns the write end of the pipe which is used to splice data to this channel.
+     */
+    private FileDescriptor spliceOutPipe() throws IOException {
+        // We create the pipe on the target channel as this will allow us to just handle pending writes
+        // later in a correct fashion without get into any ordering issues when spliceTo(...) is called
+        // on multiple Channels pointing to one target Channel.
+        if (pipeOut == null) {
+            // Create a new pipe as non was created before.
+            FileDescriptor[] pipe = pipe();
+            pipeIn = pipe[0];
+            pipeOut = pipe[1];
+        }
+        return pipeOut;
+    }
+
     private static void safeClosePipe(FileDescriptor fd) {
         if (fd != null) {
             try {
@@ -709,12 +932,41 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     }
 
     class EpollStreamUnsafe extends AbstractEpollUnsafe {
-        // Overridden here just to be able to access this method from AbstractEpollStreamChannel
         @Override
         protected Executor prepareToClose() {
+            if (hasPendingZeroCopyWrites()) {
+                // Keep the socket open until the MSG_ZEROCOPY notifications were received, see doClose().
+                if (zeroCopyCloseExecutor == null) {
+                    zeroCopyCloseExecutor = new ZeroCopyCloseExecutor();
+                }
+                return zeroCopyCloseExecutor;
+            }
             return super.prepareToClose();
         }
 
+        @Override
+        void epollOutReady() {
+            if (isFlagSet(Native.EPOLLOUT)) {
+                writeMetrics.epollOutWakeups++;
+            }
+            // MSG_ZEROCOPY notifications are signaled via EPOLLERR, which also triggers epollOutReady().
+            try {
+                processZeroCopyCompletions();
+            } catch (IOException e) {
+                if (zeroCopyCloseExecutor != null) {
+                    // No more notifications are expected, so close now.
+                    zeroCopyCloseExecutor.run();
+                }
+                pipeline().fireExceptionCaught(e);
+                close(voidPromise());
+                return;
+            }
+            if (zeroCopyCloseExecutor != null) {
+                zeroCopyCloseExecutor.runTasksIfCompleted();
+            }
+            super.epollOutReady();
+        }
+
         private void handleReadException(ChannelPipeline pipeline, ByteBuf byteBuf, Throwable cause, boolean close,
                 EpollRecvByteAllocatorHandle allocHandle) {
             if (byteBuf != null) {
@@ -897,17 +1149,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 return true;
             }
             try {
-                // We create the pipe on the target channel as this will allow us to just handle pending writes
-                // later in a correct fashion without get into any ordering issues when spliceTo(...) is called
-                // on multiple Channels pointing to one target Channel.
-                FileDescriptor pipeOut = ch.pipeOut;
-                if (pipeOut == null) {
-                    // Create a new pipe as non was created before.
-                    FileDescriptor[] pipe = pipe();
-                    ch.pipeIn = pipe[0];
-                    pipeOut = ch.pipeOut = pipe[1];
-                }
-
+                FileDescriptor pipeOut = ch.spliceOutPipe();
                 int splicedIn = spliceIn(pipeOut, handle);
                 if (splicedIn > 0) {
                     // Integer.MAX_VALUE is a special value which will result in splice forever.
@@ -947,6 +1189,71 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    // Let it directly implement channelFutureListener as well to reduce object creation.
+    private final class SpliceRelayTask extends SpliceInTask implements ChannelFutureListener {
+        private final AbstractEpollStreamChannel ch;
+        private boolean outPending;
+        private boolean done;
+
+        SpliceRelayTask(AbstractEpollStreamChannel ch, ChannelPromise promise) {
+            super(Integer.MAX_VALUE, promise);
+            this.ch = ch;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            outPending = false;
+            if (future.isSuccess()) {
+                // The target accepted all data, so start reading again.
+                config().setAutoRead(true);
+            } else {
+                fail(future.cause());
+            }
+        }
+
+        @Override
+        public boolean spliceIn(RecvByteBufAllocator.Handle handle) {
+            assert ch.eventLoop().inEventLoop();
+            // The task is never removed from the queue, as otherwise the data would be read into the pipeline.
+            if (done || outPending) {
+                return false;
+            }
+            try {
+                int splicedIn = Native.spliceOrEof(socket.intValue(), -1, ch.spliceOutPipe().intValue(), -1,
+                                                   Integer.MAX_VALUE);
+                if (splicedIn < 0) {
+                    // Propagate the end of the input to the target.
+                    done = true;
+                    config().setAutoRead(false);
+                    ch.shutdownOutput(promise);
+                } else if (splicedIn > 0) {
+                    ChannelPromise splicePromise = ch.newPromise();
+                    // Just call unsafe().write(...) and flush() as we not want to traverse the whole pipeline for
+                    // this case.
+                    ch.unsafe().write(new SpliceOutTask(ch, splicedIn, false), splicePromise);
+                    ch.unsafe().flush();
+                    if (!splicePromise.isDone()) {
+                        // The target is not writable, so stop reading until the pipe was drained.
+                        outPending = true;
+                        config().setAutoRead(false);
+                        splicePromise.addListener(this);
+                    } else if (!splicePromise.isSuccess()) {
+                        fail(splicePromise.cause());
+                    }
+                }
+            } catch (Throwable cause) {
+                fail(cause);
+            }
+            return false;
+        }
+
+        private void fail(Throwable cause) {
+            done = true;
+            config().setAutoRead(false);
+            promise.tryFailure(cause);
+        }
+    }
+
     private final class SpliceOutTask {
         private final AbstractEpollStreamChannel ch;
         private final boolean autoRead;
@@ -1043,4 +1350,38 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return AbstractEpollStreamChannel.this.alloc();
         }
     }
+
+    private static final class DefaultEpollWriteMetrics implements EpollWriteMetrics {
+        // Only updated by the EventLoop.
+        volatile long writeCalls;
+        volatile long bytesWritten;
+        volatile long sendBufferFullCount;
+        volatile long epollOutWakeups;
+        volatile long iovArrayReuses;
+
+        @Override
+        public long writeCalls() {
+            return writeCalls;
+        }
+
+        @Override
+        public long bytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public long sendBufferFullCount() {
+            return sendBufferFullCount;
+        }
+
+        @Override
+        public long epollOutWakeups() {
+            return epollOutWakeups;
+        }
+
+        @Override
+        public long iovArrayReuses() {
+            return iovArrayReuses;
+        }
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link DefaultThreadFactory} which pins every created {@link Thread} to a single CPU via
+ * {@code sched_setaffinity}. CPUs are handed out in round-robin order, so passing an instance to
+ * {@link EpollEventLoopGroup#EpollEventLoopGroup(int, java.util.concurrent.ThreadFactory)} pins each
+ * {@link EpollEventLoop} to its own core as long as there are at least as many CPUs as threads.
+ * <p>
+ * Pinned threads also remember the NUMA node of their CPU, which is used by {@link NumaAwareByteBufAllocator}.
+ */
+@UnstableApi
+public class AffinityThreadFactory extends DefaultThreadFactory {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AffinityThreadFactory.class);
+
+    private static final FastThreadLocal<Integer> NUMA_NODE = new FastThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return -1;
+        }
+    };
+
+    private final int[] cpus;
+    private final AtomicInteger nextCpu = new AtomicInteger();
+
+    /**
+     * Creates a new instance which pins threads to the given CPUs, or to all CPUs in the affinity mask of the
+     * process if none are given.
+     */
+    public AffinityThreadFactory(Class<?> poolType, int... cpus) {
+        this(toPoolName(poolType), cpus);
+    }
+
+    /**
+     * Creates a new instance which pins threads to the given CPUs, or to all CPUs in the affinity mask of the
+     * process if none are given.
+     */
+    public AffinityThreadFactory(String poolName, int... cpus) {
+        super(poolName);
+        if (cpus == null || cpus.length == 0) {
+            cpus = NumaTopology.allowedCpus();
+        } else {
+            cpus = cpus.clone();
+            for (int cpu: cpus) {
+                if (cpu < 0) {
+                    throw new IllegalArgumentException("cpu: " + cpu + " (expected: >= 0)");
+                }
+            }
+        }
+        this.cpus = cpus;
+    }
+
+    /**
+     * Returns the NUMA node of the CPU the current thread was pinned to by an {@link AffinityThreadFactory},
+     * or {@code -1} if the current thread is not pinned.
+     */
+    public static int currentNumaNode() {
+        return NUMA_NODE.get();
+    }
+
+    @Override
+    protected Thread newThread(Runnable r, String name) {
+        int cpu = cpus[Math.abs(nextCpu.getAndIncrement() % cpus.length)];
+        return super.newThread(new AffinityRunnable(r, cpu), name);
+    }
+
+    private static final class AffinityRunnable implements Runnable {
+        private final Runnable task;
+        private final int cpu;
+
+        AffinityRunnable(Runnable task, int cpu) {
+            this.task = task;
+            this.cpu = cpu;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Native.setThreadAffinity(cpu);
+                NUMA_NODE.set(NumaTopology.nodeOf(cpu));
+            } catch (IOException e) {
+                logger.warn("Failed to pin thread {} to CPU {}", Thread.currentThread().getName(), cpu, e);
+            }
+            task.run();
+        }
+    }
+}
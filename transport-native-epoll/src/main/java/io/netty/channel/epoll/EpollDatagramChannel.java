@@ -59,6 +59,9 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
             StringUtil.simpleClassName(InetSocketAddress.class) + ">, " +
             StringUtil.simpleClassName(ByteBuf.class) + ')';
 
+    // The maximal size of datagrams which were coalesced because of UDP_GRO.
+    private static final int MAX_GRO_SIZE = 65535;
+
     private final EpollDatagramChannelConfig config;
     private volatile boolean connected;
 
@@ -305,7 +308,8 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
             try {
                 // Check if sendmmsg(...) is supported which is only the case for GLIBC 2.14+
-                if (Native.IS_SUPPORTING_SENDMMSG && in.size() > 1) {
+                // SegmentedDatagramPackets are always written via sendmmsg(...) as they need a control message.
+                if (Native.IS_SUPPORTING_SENDMMSG && (in.size() > 1 || msg instanceof SegmentedDatagramPacket)) {
                     NativeDatagramPacketArray array = ((EpollEventLoop) eventLoop()).cleanDatagramPacketArray();
                     in.forEachFlushedMessage(array);
                     int cnt = array.count();
@@ -413,6 +417,16 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
         if (msg instanceof DatagramPacket) {
             DatagramPacket packet = (DatagramPacket) msg;
             ByteBuf content = packet.content();
+            if (packet instanceof SegmentedDatagramPacket) {
+                if (!SegmentedDatagramPacket.isSupported()) {
+                    throw new UnsupportedOperationException(
+                            "unsupported message type: " + StringUtil.simpleClassName(msg) +
+                            " (UDP_SEGMENT not supported)");
+                }
+                checkSegmentLimits((SegmentedDatagramPacket) packet);
+                return UnixChannelUtil.isBufferCopyNeededForWrite(content) ?
+                        ((SegmentedDatagramPacket) packet).replace(newDirectBuffer(packet, content)) : msg;
+            }
             return UnixChannelUtil.isBufferCopyNeededForWrite(content) ?
                     new DatagramPacket(newDirectBuffer(packet, content), packet.recipient()) : msg;
         }
@@ -439,6 +453,21 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
     }
 
+    private static void checkSegmentLimits(SegmentedDatagramPacket packet) {
+        int size = packet.content().readableBytes();
+        if (size > SegmentedDatagramPacket.MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("SegmentedDatagramPacket too large: " + size +
+                    " bytes (expected: <= " + SegmentedDatagramPacket.MAX_PAYLOAD_SIZE + ')');
+        }
+        int segmentSize = packet.segmentSize();
+        int segments = size / segmentSize + (size % segmentSize == 0 ? 0 : 1);
+        if (segments > SegmentedDatagramPacket.MAX_SEGMENTS) {
+            throw new IllegalArgumentException("SegmentedDatagramPacket has too many segments: " + segments +
+                    " (segmentSize: " + segmentSize + ", expected: <= " + SegmentedDatagramPacket.MAX_SEGMENTS +
+                    " segments)");
+        }
+    }
+
     @Override
     public EpollDatagramChannelConfig config() {
         return config;
@@ -488,7 +517,26 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 ByteBuf byteBuf = null;
                 try {
                     boolean connected = isConnected();
+                    EpollDatagramChannelConfig epollConfig = (EpollDatagramChannelConfig) config;
+                    int batchSize = epollConfig.recvmmsgBatchSize();
                     do {
+                        if (batchSize > 0) {
+                            int datagramSize = allocHandle.guess();
+                            if (epollConfig.isUdpGroEnabled()) {
+                                // Make sure coalesced datagrams are never truncated.
+                                datagramSize = Math.max(datagramSize, MAX_GRO_SIZE);
+                            }
+                            byteBuf = allocator.directBuffer(datagramSize * batchSize);
+                            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+                            boolean received = recvmmsg(allocHandle, byteBuf, datagramSize, batchSize, connected);
+                            byteBuf.release();
+                            byteBuf = null;
+                            if (!received) {
+                                break;
+                            }
+                            continue;
+                        }
+
                         byteBuf = allocHandle.allocate(allocator);
                         allocHandle.attemptedBytesRead(byteBuf.writableBytes());
 
@@ -497,13 +545,7 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                             try {
                                 allocHandle.lastBytesRead(doReadBytes(byteBuf));
                             } catch (Errors.NativeIoException e) {
-                                // We need to correctly translate connect errors to match NIO behaviour.
-                                if (e.expectedErr() == Errors.ERROR_ECONNREFUSED_NEGATIVE) {
-                                    PortUnreachableException error = new PortUnreachableException(e.getMessage());
-                                    error.initCause(e);
-                                    throw error;
-                                }
-                                throw e;
+                                throw translateForConnected(e);
                             }
                             if (allocHandle.lastBytesRead() <= 0) {
                                 // nothing was read, release the buffer.
@@ -565,5 +607,72 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 epollInFinally(config);
             }
         }
+
+        /**
+         * Receives up to {@code batchSize} datagrams via {@code recvmmsg(...)} into slices of the given {@link ByteBuf}
+         * and fires them through the pipeline. Returns {@code false} if no datagram was received.
+         */
+        private boolean recvmmsg(EpollRecvByteAllocatorHandle allocHandle, ByteBuf byteBuf, int datagramSize,
+                                 int batchSize, boolean connected) throws IOException {
+            NativeDatagramPacketArray array = ((EpollEventLoop) eventLoop()).cleanRecvDatagramPacketArray();
+            int writerIndex = byteBuf.writerIndex();
+            for (int i = 0; i < batchSize; i++) {
+                if (!array.addWritable(byteBuf, writerIndex + i * datagramSize, datagramSize)) {
+                    break;
+                }
+            }
+
+            NativeDatagramPacketArray.NativeDatagramPacket[] packets = array.packets();
+            final int received;
+            try {
+                received = socket.recvmmsg(packets, 0, array.count());
+            } catch (Errors.NativeIoException e) {
+                if (connected) {
+                    throw translateForConnected(e);
+                }
+                throw e;
+            }
+            if (received == 0) {
+                allocHandle.lastBytesRead(-1);
+                return false;
+            }
+
+            InetSocketAddress localAddress = (InetSocketAddress) localAddress();
+            int bytesRead = 0;
+            for (int i = 0; i < received; i++) {
+                NativeDatagramPacketArray.NativeDatagramPacket packet = packets[i];
+                InetSocketAddress sender = packet.sender();
+                int len = packet.receivedBytes();
+                bytesRead += len;
+
+                int index = writerIndex + i * datagramSize;
+                int segmentSize = packet.receivedSegmentSize();
+                if (segmentSize <= 0) {
+                    // Not coalesced, so this is exactly one datagram.
+                    segmentSize = len;
+                }
+                int end = index + len;
+                do {
+                    int segmentLen = Math.min(segmentSize, end - index);
+                    allocHandle.incMessagesRead(1);
+                    readPending = false;
+                    pipeline().fireChannelRead(new DatagramPacket(
+                            byteBuf.retainedSlice(index, segmentLen), localAddress, sender));
+                    index += segmentLen;
+                } while (index < end);
+            }
+            allocHandle.lastBytesRead(bytesRead);
+            return true;
+        }
+    }
+
+    private static IOException translateForConnected(Errors.NativeIoException e) {
+        // We need to correctly translate connect errors to match NIO behaviour.
+        if (e.expectedErr() == Errors.ERROR_ECONNREFUSED_NEGATIVE) {
+            PortUnreachableException error = new PortUnreachableException(e.getMessage());
+            error.initCause(e);
+            return error;
+        }
+        return e;
     }
 }
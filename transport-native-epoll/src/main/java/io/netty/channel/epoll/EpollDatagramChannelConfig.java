@@ -23,6 +23,7 @@ import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.DatagramChannelConfig;
+import io.netty.channel.unix.Limits;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -32,6 +33,9 @@ import java.util.Map;
 public final class EpollDatagramChannelConfig extends EpollChannelConfig implements DatagramChannelConfig {
     private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
     private boolean activeOnOpen;
+    private volatile int datagramReadBatchSize = 1;
+    private volatile boolean ipRecvOrigDestAddr;
+    private volatile boolean udpGro;
 
     EpollDatagramChannelConfig(EpollDatagramChannel channel) {
         super(channel);
@@ -48,7 +52,8 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
                 ChannelOption.IP_MULTICAST_ADDR, ChannelOption.IP_MULTICAST_IF, ChannelOption.IP_MULTICAST_TTL,
                 ChannelOption.IP_TOS, ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION,
                 EpollChannelOption.SO_REUSEPORT, EpollChannelOption.IP_FREEBIND, EpollChannelOption.IP_TRANSPARENT,
-                EpollChannelOption.IP_RECVORIGDSTADDR);
+                EpollChannelOption.IP_RECVORIGDSTADDR, EpollChannelOption.DATAGRAM_READ_BATCH_SIZE,
+                EpollChannelOption.UDP_GRO);
     }
 
     @SuppressWarnings({ "unchecked", "deprecation" })
@@ -96,6 +101,12 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         if (option == EpollChannelOption.IP_RECVORIGDSTADDR) {
             return (T) Boolean.valueOf(isIpRecvOrigDestAddr());
         }
+        if (option == EpollChannelOption.DATAGRAM_READ_BATCH_SIZE) {
+            return (T) Integer.valueOf(getDatagramReadBatchSize());
+        }
+        if (option == EpollChannelOption.UDP_GRO) {
+            return (T) Boolean.valueOf(isUdpGro());
+        }
         return super.getOption(option);
     }
 
@@ -132,6 +143,10 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             setIpTransparent((Boolean) value);
         } else if (option == EpollChannelOption.IP_RECVORIGDSTADDR) {
             setIpRecvOrigDestAddr((Boolean) value);
+        } else if (option == EpollChannelOption.DATAGRAM_READ_BATCH_SIZE) {
+            setDatagramReadBatchSize((Integer) value);
+        } else if (option == EpollChannelOption.UDP_GRO) {
+            setUdpGro((Boolean) value);
         } else {
             return super.setOption(option, value);
         }
@@ -476,10 +491,91 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
     public EpollDatagramChannelConfig setIpRecvOrigDestAddr(boolean ipTransparent) {
         try {
             ((EpollDatagramChannel) channel).socket.setIpRecvOrigDestAddr(ipTransparent);
+            ipRecvOrigDestAddr = ipTransparent;
             return this;
         } catch (IOException e) {
             throw new ChannelException(e);
         }
     }
 
+    /**
+     * Returns the maximal number of datagrams which are received with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call.
+     */
+    public int getDatagramReadBatchSize() {
+        return datagramReadBatchSize;
+    }
+
+    /**
+     * Set the maximal number of datagrams which are received with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call. Each datagram is read
+     * into a slice of one buffer which holds {@link io.netty.channel.RecvByteBufAllocator.Handle#guess()} bytes per
+     * datagram, so the buffer is only released once all the datagrams of a batch were released. A value of {@code 1}
+     * (the default) disables the use of {@code recvmmsg(...)}.
+     * <p>
+     * {@code recvmmsg(...)} is not used if {@link EpollChannelOption#IP_RECVORIGDSTADDR} is enabled or it is not
+     * supported by the system.
+     */
+    public EpollDatagramChannelConfig setDatagramReadBatchSize(int datagramReadBatchSize) {
+        if (datagramReadBatchSize < 1 || datagramReadBatchSize > Limits.UIO_MAX_IOV) {
+            throw new IllegalArgumentException("datagramReadBatchSize: " + datagramReadBatchSize +
+                    " (expected: 1-" + Limits.UIO_MAX_IOV + ')');
+        }
+        this.datagramReadBatchSize = datagramReadBatchSize;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if <a href="http://man7.org/linux/man-pages/man7/udp.7.html">UDP_GRO</a> is enabled,
+     * {@code false} otherwise.
+     */
+    public boolean isUdpGro() {
+        try {
+            return ((EpollDatagramChannel) channel).socket.isUdpGro();
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * If {@code true} is used <a href="http://man7.org/linux/man-pages/man7/udp.7.html">UDP_GRO</a> is enabled,
+     * {@code false} for disable it. Default is disabled.
+     * <p>
+     * When enabled the kernel may coalesce datagrams of the same flow. These are received with one
+     * {@code recvmmsg(...)} call and split into separate {@link io.netty.channel.socket.DatagramPacket}s again before
+     * they are passed through the pipeline. Each datagram of a batch is read into a slot of at least 64KiB in this
+     * case, and the {@link EpollChannelOption#IP_RECVORIGDSTADDR} option has no effect.
+     */
+    public EpollDatagramChannelConfig setUdpGro(boolean udpGro) {
+        if (udpGro && !Native.IS_SUPPORTING_RECVMMSG) {
+            throw new UnsupportedOperationException("UDP_GRO requires recvmmsg(...) support");
+        }
+        try {
+            ((EpollDatagramChannel) channel).socket.setUdpGro(udpGro);
+            this.udpGro = udpGro;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    boolean isUdpGroEnabled() {
+        return udpGro;
+    }
+
+    /**
+     * Returns the number of datagrams to receive with one {@code recvmmsg(...)} call, or {@code 0} if datagrams
+     * should be received one at a time with {@code recvfrom(...)}.
+     */
+    int recvmmsgBatchSize() {
+        if (!Native.IS_SUPPORTING_RECVMMSG) {
+            return 0;
+        }
+        int batchSize = datagramReadBatchSize;
+        if (udpGro) {
+            // Coalesced datagrams can only be received with recvmmsg(...) as we need the segment size.
+            return batchSize;
+        }
+        return batchSize > 1 && !ipRecvOrigDestAddr ? batchSize : 0;
+    }
 }
@@ -34,6 +34,7 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import java.io.IOException;
 import java.util.Queue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static java.lang.Math.min;
@@ -63,7 +64,9 @@ class EpollEventLoop extends SingleThreadEventLoop {
 
     // These are initialized on first use
     private IovArray iovArray;
+    private AbstractEpollChannel iovArrayOwner;
     private NativeDatagramPacketArray datagramPacketArray;
+    private NativeDatagramPacketArray recvDatagramPacketArray;
 
     private final SelectStrategy selectStrategy;
     private final IntSupplier selectNowSupplier = new IntSupplier() {
@@ -75,6 +78,10 @@ class EpollEventLoop extends SingleThreadEventLoop {
     @SuppressWarnings("unused") // AtomicIntegerFieldUpdater
     private volatile int wakenUp;
     private volatile int ioRatio = 50;
+    private volatile long spinTimeNanos;
+    private volatile long timerSlackNanos;
+    // Only accessed from the event loop.
+    private long appliedTimerSlackNanos;
 
     // See http://man7.org/linux/man-pages/man2/timerfd_create.2.html.
     private static final long MAX_SCHEDULED_TIMERFD_NS = 999999999;
@@ -149,9 +156,33 @@ class EpollEventLoop extends SingleThreadEventLoop {
         } else {
             iovArray.clear();
         }
+        iovArrayOwner = null;
         return iovArray;
     }
 
+    /**
+     * Return the {@link IovArray} if it still holds the content that the given {@link AbstractEpollChannel} added
+     * after it called {@link #ownIovArray(AbstractEpollChannel)}, or {@code null} if it was used by someone else
+     * since then.
+     */
+    IovArray ownedIovArray(AbstractEpollChannel ch) {
+        return iovArrayOwner == ch ? iovArray : null;
+    }
+
+    /**
+     * Marks the content of the {@link IovArray} as owned by the given {@link AbstractEpollChannel} until it is
+     * cleared again or the {@link AbstractEpollChannel} calls {@link #disownIovArray(AbstractEpollChannel)}.
+     */
+    void ownIovArray(AbstractEpollChannel ch) {
+        iovArrayOwner = ch;
+    }
+
+    void disownIovArray(AbstractEpollChannel ch) {
+        if (iovArrayOwner == ch) {
+            iovArrayOwner = null;
+        }
+    }
+
     /**
      * Return a cleared {@link NativeDatagramPacketArray} that can be used for writes in this {@link EventLoop}.
      */
@@ -164,9 +195,24 @@ class EpollEventLoop extends SingleThreadEventLoop {
         return datagramPacketArray;
     }
 
+    /**
+     * Return a cleared {@link NativeDatagramPacketArray} that can be used for reads in this {@link EventLoop}. This is
+     * a different instance than the one returned by {@link #cleanDatagramPacketArray()} as a handler may write while
+     * the received packets are still processed.
+     */
+    NativeDatagramPacketArray cleanRecvDatagramPacketArray() {
+        if (recvDatagramPacketArray == null) {
+            recvDatagramPacketArray = new NativeDatagramPacketArray();
+        } else {
+            recvDatagramPacketArray.clear();
+        }
+        return recvDatagramPacketArray;
+    }
+
     @Override
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
+            recordWakeupRequest();
             // write to the evfd which will then wake-up epoll_wait(...)
             Native.eventFdWrite(eventFd.intValue(), 1L);
         }
@@ -191,7 +237,14 @@ class EpollEventLoop extends SingleThreadEventLoop {
      */
     void modify(AbstractEpollChannel ch) throws IOException {
         assert inEventLoop();
-        Native.epollCtlMod(epollFd.intValue(), ch.socket.intValue(), ch.flags);
+        int fd = ch.socket.intValue();
+        if (ch.isFlagSet(Native.EPOLLEXCLUSIVE)) {
+            // The events of a registration which uses EPOLLEXCLUSIVE can not be modified, so register it again.
+            Native.epollCtlDel(epollFd.intValue(), fd);
+            Native.epollCtlAdd(epollFd.intValue(), fd, ch.flags);
+        } else {
+            Native.epollCtlMod(epollFd.intValue(), fd, ch.flags);
+        }
     }
 
     /**
@@ -200,6 +253,8 @@ class EpollEventLoop extends SingleThreadEventLoop {
     void remove(AbstractEpollChannel ch) throws IOException {
         assert inEventLoop();
         int fd = ch.socket.intValue();
+        // The buffers referenced by the IovArray may be released once the Channel is closed.
+        disownIovArray(ch);
 
         AbstractEpollChannel old = channels.remove(fd);
         if (old != null && old != ch) {
@@ -218,8 +273,7 @@ class EpollEventLoop extends SingleThreadEventLoop {
     @Override
     protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
         // This event loop never calls takeTask()
-        return maxPendingTasks == Integer.MAX_VALUE ? PlatformDependent.<Runnable>newMpscQueue()
-                                                    : PlatformDependent.<Runnable>newMpscQueue(maxPendingTasks);
+        return newMpscTaskQueue(maxPendingTasks);
     }
 
     /**
@@ -240,6 +294,52 @@ class EpollEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns the time in nanoseconds this event loop spins, polling for I/O events without blocking, before it
+     * blocks to wait for I/O events.
+     */
+    public long getSpinTimeNanos() {
+        return spinTimeNanos;
+    }
+
+    /**
+     * Sets the time this event loop spins, polling for I/O events without blocking, before it blocks to wait for
+     * I/O events. The default value is {@code 0}, which means the event loop blocks right away.
+     * <p>
+     * Spinning reduces the latency to pick up I/O events and submitted tasks as the thread does not need to be waken
+     * up, at the cost of burning CPU cycles. This is mostly useful if the event loop runs on a dedicated core.
+     */
+    public void setSpinTime(long spinTime, TimeUnit unit) {
+        if (spinTime < 0) {
+            throw new IllegalArgumentException("spinTime: " + spinTime + " (expected: >= 0)");
+        }
+        spinTimeNanos = ObjectUtil.checkNotNull(unit, "unit").toNanos(spinTime);
+    }
+
+    /**
+     * Returns the maximal time in nanoseconds a scheduled task of this event loop may run after its deadline, or
+     * {@code 0} if the default timer slack of the kernel is used.
+     */
+    public long getTimerSlackNanos() {
+        return timerSlackNanos;
+    }
+
+    /**
+     * Sets the maximal time a scheduled task of this event loop may run after its deadline. The default value is
+     * {@code 0}, which keeps the default timer slack of the kernel (usually 50 microseconds).
+     * <p>
+     * The timer slack of the event loop thread is set to the given value, so the kernel fires the {@code timerfd}
+     * which is used to wait for the next scheduled task at most that late. If the next deadline is closer than the
+     * timer slack the event loop does not block at all but polls for I/O events until the deadline. This allows
+     * pacing with sub-millisecond precision, at the cost of more wakeups and CPU cycles.
+     */
+    public void setTimerSlack(long timerSlack, TimeUnit unit) {
+        if (timerSlack < 0) {
+            throw new IllegalArgumentException("timerSlack: " + timerSlack + " (expected: >= 0)");
+        }
+        timerSlackNanos = ObjectUtil.checkNotNull(unit, "unit").toNanos(timerSlack);
+    }
+
     @Override
     public int registeredChannels() {
         return channels.size();
@@ -254,9 +354,33 @@ class EpollEventLoop extends SingleThreadEventLoop {
             return epollWaitNow();
         }
 
+        final long spinTimeNanos = this.spinTimeNanos;
+        if (spinTimeNanos > 0) {
+            final long spinDeadlineNanos = System.nanoTime() + min(spinTimeNanos, delayNanos(System.nanoTime()));
+            for (;;) {
+                int ready = epollWaitNow();
+                if (ready != 0 || hasTasks()) {
+                    return ready;
+                }
+                if (System.nanoTime() - spinDeadlineNanos >= 0) {
+                    break;
+                }
+                PlatformDependent.onSpinWait();
+            }
+        }
+
+        final long timerSlackNanos = this.timerSlackNanos;
+        if (timerSlackNanos != appliedTimerSlackNanos) {
+            applyTimerSlack(timerSlackNanos);
+        }
+
         int delaySeconds;
         int delayNanos;
         long curDeadlineNanos = deadlineNanos();
+        if (timerSlackNanos > 0 && curDeadlineNanos - nanoTime() <= timerSlackNanos) {
+            // The deadline is so close that the timerfd may fire too late, so poll until it is reached.
+            return epollWaitUntil(curDeadlineNanos);
+        }
         if (curDeadlineNanos == prevDeadlineNanos) {
             delaySeconds = -1;
             delayNanos = -1;
@@ -269,6 +393,26 @@ class EpollEventLoop extends SingleThreadEventLoop {
         return Native.epollWait(epollFd, events, timerFd, delaySeconds, delayNanos);
     }
 
+    private int epollWaitUntil(long deadlineNanos) throws IOException {
+        for (;;) {
+            int ready = epollWaitNow();
+            if (ready != 0 || hasTasks() || nanoTime() - deadlineNanos >= 0) {
+                return ready;
+            }
+            PlatformDependent.onSpinWait();
+        }
+    }
+
+    private void applyTimerSlack(long timerSlackNanos) {
+        appliedTimerSlackNanos = timerSlackNanos;
+        try {
+            Native.setTimerSlack(timerSlackNanos);
+        } catch (IOException e) {
+            logger.warn("Failed to set the timer slack of {} to {}ns", Thread.currentThread().getName(),
+                    timerSlackNanos, e);
+        }
+    }
+
     private int epollWaitNow() throws IOException {
         return Native.epollWait(epollFd, events, timerFd, 0, 0);
     }
@@ -281,17 +425,23 @@ class EpollEventLoop extends SingleThreadEventLoop {
     protected void run() {
         for (;;) {
             try {
+                long waitTime = 0;
                 int strategy = selectStrategy.calculateStrategy(selectNowSupplier, hasTasks());
                 switch (strategy) {
                     case SelectStrategy.CONTINUE:
                         continue;
 
                     case SelectStrategy.BUSY_WAIT:
+                        final long busyWaitStartTime = System.nanoTime();
                         strategy = epollBusyWait();
+                        waitTime = System.nanoTime() - busyWaitStartTime;
                         break;
 
                     case SelectStrategy.SELECT:
+                        final long waitStartTime = System.nanoTime();
                         strategy = epollWait(WAKEN_UP_UPDATER.getAndSet(this, 0) == 1);
+                        final long waitEndTime = System.nanoTime();
+                        waitTime = waitEndTime - waitStartTime;
 
                         // 'wakenUp.compareAndSet(false, true)' is always evaluated
                         // before calling 'selector.wakeup()' to reduce the wake-up
@@ -323,34 +473,29 @@ class EpollEventLoop extends SingleThreadEventLoop {
 
                         if (wakenUp == 1) {
                             Native.eventFdWrite(eventFd.intValue(), 1L);
+                            recordWakeup(waitEndTime);
                         }
                         // fallthrough
                     default:
                 }
 
                 final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
-                    try {
-                        if (strategy > 0) {
-                            processReady(events, strategy);
-                        }
-                    } finally {
-                        // Ensure we always run tasks.
-                        runAllTasks();
+                final long ioStartTime = System.nanoTime();
+                long ioTime;
+                try {
+                    if (strategy > 0) {
+                        processReady(events, strategy);
                     }
-                } else {
-                    final long ioStartTime = System.nanoTime();
-
-                    try {
-                        if (strategy > 0) {
-                            processReady(events, strategy);
-                        }
-                    } finally {
-                        // Ensure we always run tasks.
-                        final long ioTime = System.nanoTime() - ioStartTime;
+                } finally {
+                    // Ensure we always run tasks.
+                    ioTime = System.nanoTime() - ioStartTime;
+                    if (ioRatio == 100) {
+                        runAllTasks();
+                    } else {
                         runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                     }
                 }
+                recordIteration(waitTime, ioTime);
                 if (allowGrowing && strategy == events.length()) {
                     //increase the size of the array as we needed the whole space for the events
                     events.increase();
@@ -493,6 +638,10 @@ class EpollEventLoop extends SingleThreadEventLoop {
                 datagramPacketArray.release();
                 datagramPacketArray = null;
             }
+            if (recvDatagramPacketArray != null) {
+                recvDatagramPacketArray.release();
+                recvDatagramPacketArray = null;
+            }
             events.free();
         }
     }
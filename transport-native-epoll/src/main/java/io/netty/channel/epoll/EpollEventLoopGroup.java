@@ -27,6 +27,7 @@ import io.netty.util.concurrent.RejectedExecutionHandlers;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link EventLoopGroup} which uses epoll under the covers. Because of this
@@ -129,6 +130,30 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Sets the time the child event loops spin, polling for I/O events without blocking, before they block to wait
+     * for I/O events. The default value is {@code 0}, which means the event loops block right away.
+     *
+     * @see EpollEventLoop#setSpinTime(long, TimeUnit)
+     */
+    public void setSpinTime(long spinTime, TimeUnit unit) {
+        for (EventExecutor e: this) {
+            ((EpollEventLoop) e).setSpinTime(spinTime, unit);
+        }
+    }
+
+    /**
+     * Sets the maximal time a scheduled task of the child event loops may run after its deadline. The default value
+     * is {@code 0}, which keeps the default timer slack of the kernel.
+     *
+     * @see EpollEventLoop#setTimerSlack(long, TimeUnit)
+     */
+    public void setTimerSlack(long timerSlack, TimeUnit unit) {
+        for (EventExecutor e: this) {
+            ((EpollEventLoop) e).setTimerSlack(timerSlack, unit);
+        }
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         return new EpollEventLoop(this, executor, (Integer) args[0],
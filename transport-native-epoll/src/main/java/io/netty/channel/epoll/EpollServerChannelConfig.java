@@ -42,7 +42,8 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.TCP_FASTOPEN);
+        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.TCP_FASTOPEN,
+                EpollChannelOption.EPOLL_EXCLUSIVE);
     }
 
     @SuppressWarnings("unchecked")
@@ -60,6 +61,9 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
         if (option == EpollChannelOption.TCP_FASTOPEN) {
             return (T) Integer.valueOf(getTcpFastopen());
         }
+        if (option == EpollChannelOption.EPOLL_EXCLUSIVE) {
+            return (T) Boolean.valueOf(isEpollExclusive());
+        }
         return super.getOption(option);
     }
 
@@ -75,6 +79,8 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
             setBacklog((Integer) value);
         } else if (option == EpollChannelOption.TCP_FASTOPEN) {
             setTcpFastopen((Integer) value);
+        } else if (option == EpollChannelOption.EPOLL_EXCLUSIVE) {
+            setEpollExclusive((Boolean) value);
         } else {
             return super.setOption(option, value);
         }
@@ -150,6 +156,37 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
         return this;
     }
 
+    /**
+     * Returns {@code true} if the channel is registered with {@code EPOLLEXCLUSIVE}.
+     */
+    public boolean isEpollExclusive() {
+        return ((AbstractEpollChannel) channel).isFlagSet(Native.EPOLLEXCLUSIVE);
+    }
+
+    /**
+     * If {@code true} the channel is registered with {@code EPOLLEXCLUSIVE}, which requires linux 4.5 or later. If
+     * multiple channels for the same listening socket are registered to different {@link EpollEventLoop}s (for
+     * example via {@link EpollServerSocketChannel#EpollServerSocketChannel(int)}) only one of them is woken up for an
+     * incoming connection instead of all of them. Default is {@code false}.
+     *
+     * <strong>Be aware this config setting can only be adjusted before the channel was registered.</strong>
+     */
+    public EpollServerChannelConfig setEpollExclusive(boolean epollExclusive) {
+        if (channel.isRegistered()) {
+            throw new IllegalStateException("EPOLLEXCLUSIVE can only be changed before channel is registered");
+        }
+        try {
+            if (epollExclusive) {
+                ((AbstractEpollChannel) channel).setFlag(Native.EPOLLEXCLUSIVE);
+            } else {
+                ((AbstractEpollChannel) channel).clearFlag(Native.EPOLLEXCLUSIVE);
+            }
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+        return this;
+    }
+
     @Override
     public EpollServerChannelConfig setPerformancePreferences(int connectionTime, int latency, int bandwidth) {
         return this;
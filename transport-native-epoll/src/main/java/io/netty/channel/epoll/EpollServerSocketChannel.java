@@ -72,6 +72,10 @@ public final class EpollServerSocketChannel extends AbstractEpollServerChannel i
             socket.setTcpFastOpen(config.getTcpFastopen());
         }
         socket.listen(config.getBacklog());
+        if (config.getReusePortCbpfGroupSize() > 0) {
+            // The SO_REUSEPORT group is only formed once the socket is listening.
+            socket.setReusePortCpuCbpf(config.getReusePortCbpfGroupSize());
+        }
         active = true;
     }
 
@@ -27,8 +27,11 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.util.Map;
 
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
 public final class EpollServerSocketChannelConfig extends EpollServerChannelConfig
         implements ServerSocketChannelConfig {
+    private volatile int reusePortCbpfGroupSize;
 
     EpollServerSocketChannelConfig(EpollServerSocketChannel channel) {
         super(channel);
@@ -42,7 +45,8 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
         return getOptions(super.getOptions(), EpollChannelOption.SO_REUSEPORT, EpollChannelOption.IP_FREEBIND,
-            EpollChannelOption.IP_TRANSPARENT, EpollChannelOption.TCP_DEFER_ACCEPT);
+            EpollChannelOption.IP_TRANSPARENT, EpollChannelOption.TCP_DEFER_ACCEPT, EpollChannelOption.SO_INCOMING_CPU,
+            EpollChannelOption.SO_ATTACH_REUSEPORT_CBPF);
     }
 
     @SuppressWarnings("unchecked")
@@ -60,6 +64,12 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
         if (option == EpollChannelOption.TCP_DEFER_ACCEPT) {
             return (T) Integer.valueOf(getTcpDeferAccept());
         }
+        if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            return (T) Integer.valueOf(getIncomingCpu());
+        }
+        if (option == EpollChannelOption.SO_ATTACH_REUSEPORT_CBPF) {
+            return (T) Integer.valueOf(getReusePortCbpfGroupSize());
+        }
         return super.getOption(option);
     }
 
@@ -79,6 +89,10 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
             setTcpMd5Sig(m);
         } else if (option == EpollChannelOption.TCP_DEFER_ACCEPT) {
             setTcpDeferAccept((Integer) value);
+        } else if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            setIncomingCpu((Integer) value);
+        } else if (option == EpollChannelOption.SO_ATTACH_REUSEPORT_CBPF) {
+            setReusePortCbpfGroupSize((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -285,4 +299,61 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
             throw new ChannelException(e);
         }
     }
+
+    /**
+     * Set the {@code SO_INCOMING_CPU} option on the socket. A listening socket with this option only accepts
+     * connections whose packets are processed on the given CPU when used together with {@code SO_REUSEPORT}.
+     * See {@code man 7 socket} for more details.
+     */
+    public EpollServerSocketChannelConfig setIncomingCpu(int cpu) {
+        try {
+            ((EpollServerSocketChannel) channel).socket.setIncomingCpu(cpu);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code SO_INCOMING_CPU} option, or {@code -1} if it was not set.
+     */
+    public int getIncomingCpu() {
+        try {
+            return ((EpollServerSocketChannel) channel).socket.getIncomingCpu();
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Attach a classic BPF program via {@code SO_ATTACH_REUSEPORT_CBPF} which hands an incoming connection to the
+     * socket with the index {@code cpu % groupSize} in the {@code SO_REUSEPORT} group, where {@code cpu} is the CPU
+     * which processed the packets of the connection. Together with {@link EpollEventLoop}s that are pinned to the
+     * matching CPUs (for example by using {@link AffinityThreadFactory}) connections are
+     * handled on the CPU that received them. A {@code groupSize} of {@code 0} detaches the program.
+     *
+     * Be aware {@link #setReusePort(boolean)} must be enabled. If the channel is not bound yet the program is
+     * attached once it starts listening. The program is shared by the whole group, so it only needs to be attached to
+     * one of the sockets. The sockets are indexed in the order they were bound.
+     */
+    public EpollServerSocketChannelConfig setReusePortCbpfGroupSize(int groupSize) {
+        checkPositiveOrZero(groupSize, "groupSize");
+        try {
+            if (channel.isActive()) {
+                ((EpollServerSocketChannel) channel).socket.setReusePortCpuCbpf(groupSize);
+            }
+            reusePortCbpfGroupSize = groupSize;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns the group size of the {@code SO_ATTACH_REUSEPORT_CBPF} program which was attached via
+     * {@link #setReusePortCbpfGroupSize(int)}, or {@code 0} if none is attached.
+     */
+    public int getReusePortCbpfGroupSize() {
+        return reusePortCbpfGroupSize;
+    }
 }
@@ -17,19 +17,25 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.internal.UnstableApi;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
 import static io.netty.channel.epoll.LinuxSocket.newSocketStream;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
 /**
  * {@link SocketChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
@@ -40,6 +46,10 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
     private final EpollSocketChannelConfig config;
 
     private volatile Collection<InetAddress> tcpMd5SigAddresses = Collections.emptyList();
+    // Only modified by the EventLoop. The ULP stays attached even if installing the crypto state failed.
+    private boolean kernelTlsUlp;
+    private volatile boolean kernelTlsTx;
+    private volatile boolean kernelTlsRx;
 
     public EpollSocketChannel() {
         super(newSocketStream(), false);
@@ -85,6 +95,133 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         }
     }
 
+    /**
+     * Offloads the TLS record layer to the kernel (kTLS), which requires the {@code tls} kernel module. Once the
+     * returned {@link ChannelFuture} succeeded everything written to this {@link Channel} is encrypted by the kernel
+     * using {@code tx} and everything read is decrypted using {@code rx}. This allows for example to transfer a
+     * {@link io.netty.channel.DefaultFileRegion} via {@code sendfile} over TLS.
+     * <p>
+     * This is typically called once the handshake was done in user space, with the traffic keys and record sequence
+     * numbers the TLS implementation used. The {@link io.netty.channel.ChannelHandler} that did the handshake must be
+     * removed from the pipeline afterwards, as the data is now plain text.
+     * <p>
+     * {@code rx} is installed before {@code tx}. If the returned {@link ChannelFuture} fails,
+     * {@link #isKernelTlsRx()} and {@link #isKernelTlsTx()} report exactly what was installed:
+     * <ul>
+     *   <li>If nothing was installed, for example because the kernel module is not loaded, the connection can
+     *   continue to use the user space implementation and this method can be called again.</li>
+     *   <li>If {@code rx} was installed by this call but {@code tx} failed, reads are decrypted by the kernel while
+     *   writes are not, which can not be recovered from. The {@link Channel} is closed in this case.</li>
+     * </ul>
+     * <p>
+     * Please note:
+     * <ul>
+     *   <li>There must be no pending writes when {@code tx} is installed, as these are encrypted already.</li>
+     *   <li>With {@code rx} installed only application data records can be read. Other records, like alerts or key
+     *   updates, fail the read with an {@link IOException}.</li>
+     * </ul>
+     *
+     * @param tx    the crypto state for writing or {@code null} if writes should not be offloaded
+     * @param rx    the crypto state for reading or {@code null} if reads should not be offloaded
+     */
+    @UnstableApi
+    public ChannelFuture enableKernelTls(EpollTlsCryptoInfo tx, EpollTlsCryptoInfo rx) {
+        return enableKernelTls(tx, rx, newPromise());
+    }
+
+    /**
+     * See {@link #enableKernelTls(EpollTlsCryptoInfo, EpollTlsCryptoInfo)}.
+     */
+    @UnstableApi
+    public ChannelFuture enableKernelTls(final EpollTlsCryptoInfo tx, final EpollTlsCryptoInfo rx,
+                                         final ChannelPromise promise) {
+        if (tx == null && rx == null) {
+            throw new IllegalArgumentException("tx and rx are null");
+        }
+        checkNotNull(promise, "promise");
+        if (eventLoop().inEventLoop()) {
+            enableKernelTls0(tx, rx, promise);
+        } else {
+            eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    enableKernelTls0(tx, rx, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void enableKernelTls0(EpollTlsCryptoInfo tx, EpollTlsCryptoInfo rx, ChannelPromise promise) {
+        if (!isActive()) {
+            promise.setFailure(new ClosedChannelException());
+            return;
+        }
+        if (tx != null) {
+            if (kernelTlsTx) {
+                promise.setFailure(new IllegalStateException("kTLS is enabled for writes already"));
+                return;
+            }
+            ChannelOutboundBuffer in = unsafe().outboundBuffer();
+            if (in == null || in.totalPendingWriteBytes() != 0) {
+                promise.setFailure(new IllegalStateException("kTLS can only be enabled without pending writes"));
+                return;
+            }
+        }
+        if (rx != null && kernelTlsRx) {
+            promise.setFailure(new IllegalStateException("kTLS is enabled for reads already"));
+            return;
+        }
+        try {
+            if (!kernelTlsUlp) {
+                socket.setTlsUlp();
+                kernelTlsUlp = true;
+            }
+            if (rx != null) {
+                socket.setTlsCryptoInfo(false, rx);
+                kernelTlsRx = true;
+            }
+        } catch (Throwable cause) {
+            // Nothing was installed, the user space implementation can still be used.
+            promise.setFailure(cause);
+            return;
+        }
+        if (tx != null) {
+            try {
+                socket.setTlsCryptoInfo(true, tx);
+                kernelTlsTx = true;
+            } catch (Throwable cause) {
+                promise.setFailure(cause);
+                if (rx != null) {
+                    // Reads are decrypted by the kernel now but writes are not, this can not be used anymore.
+                    unsafe().close(unsafe().voidPromise());
+                }
+                return;
+            }
+        }
+        promise.setSuccess();
+    }
+
+    /**
+     * Returns {@code true} if writes are encrypted by the kernel.
+     *
+     * @see #enableKernelTls(EpollTlsCryptoInfo, EpollTlsCryptoInfo)
+     */
+    @UnstableApi
+    public boolean isKernelTlsTx() {
+        return kernelTlsTx;
+    }
+
+    /**
+     * Returns {@code true} if reads are decrypted by the kernel.
+     *
+     * @see #enableKernelTls(EpollTlsCryptoInfo, EpollTlsCryptoInfo)
+     */
+    @UnstableApi
+    public boolean isKernelTlsRx() {
+        return kernelTlsRx;
+    }
+
     @Override
     public InetSocketAddress remoteAddress() {
         return (InetSocketAddress) super.remoteAddress();
@@ -100,6 +237,11 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         return config;
     }
 
+    @Override
+    int zeroCopyWriteThreshold() {
+        return config.getZeroCopyWriteThreshold();
+    }
+
     @Override
     public ServerSocketChannel parent() {
         return (ServerSocketChannel) super.parent();
@@ -126,10 +268,10 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
                 }
             } catch (Throwable ignore) {
                 // Ignore the error as the underlying channel may be closed in the meantime and so
-                // getSoLinger() may produce an exception. In this case we just return null.
+                // getSoLinger() may produce an exception. In this case we just fall back to the default.
                 // See https://github.com/netty/netty/issues/4449
             }
-            return null;
+            return super.prepareToClose();
         }
     }
 
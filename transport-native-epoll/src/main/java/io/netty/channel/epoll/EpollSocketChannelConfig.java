@@ -36,9 +36,11 @@ import static io.netty.channel.ChannelOption.SO_RCVBUF;
 import static io.netty.channel.ChannelOption.SO_REUSEADDR;
 import static io.netty.channel.ChannelOption.SO_SNDBUF;
 import static io.netty.channel.ChannelOption.TCP_NODELAY;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
     private volatile boolean allowHalfClosure;
+    private volatile int zeroCopyWriteThreshold;
 
     /**
      * Creates a new instance.
@@ -60,7 +62,8 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
                 EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK, EpollChannelOption.IP_TRANSPARENT,
-                EpollChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL);
+                EpollChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL,
+                EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD, EpollChannelOption.SO_INCOMING_CPU);
     }
 
     @SuppressWarnings("unchecked")
@@ -120,6 +123,12 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.SO_BUSY_POLL) {
             return (T) Integer.valueOf(getSoBusyPoll());
         }
+        if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            return (T) Integer.valueOf(getIncomingCpu());
+        }
+        if (option == EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD) {
+            return (T) Integer.valueOf(getZeroCopyWriteThreshold());
+        }
         return super.getOption(option);
     }
 
@@ -167,6 +176,10 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             setTcpFastOpenConnect((Boolean) value);
         } else if (option == EpollChannelOption.SO_BUSY_POLL) {
             setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            setIncomingCpu((Integer) value);
+        } else if (option == EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD) {
+            setZeroCopyWriteThreshold((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -549,6 +562,29 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Set the {@code SO_INCOMING_CPU} option on the socket. See {@code man 7 socket} for more details.
+     */
+    public EpollSocketChannelConfig setIncomingCpu(int cpu) {
+        try {
+            ((EpollSocketChannel) channel).socket.setIncomingCpu(cpu);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns the CPU which processed the last packet received by the socket, as reported by {@code SO_INCOMING_CPU}.
+     */
+    public int getIncomingCpu() {
+        try {
+            return ((EpollSocketChannel) channel).socket.getIncomingCpu();
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
     /**
      * Set the {@code TCP_FASTOPEN_CONNECT} option on the socket. Requires Linux kernel 4.11 or later.
      * See
@@ -575,6 +611,38 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Set the minimal number of bytes a write must have to be sent via {@code MSG_ZEROCOPY}, which avoids copying the
+     * data into the socket buffer. A value of {@code 0} (the default) disables {@code MSG_ZEROCOPY}. Enabling it sets
+     * the {@code SO_ZEROCOPY} option on the socket, which requires linux 4.14 or later.
+     * <p>
+     * Written buffers are only released once the kernel reported on the error queue of the socket that it no longer
+     * uses them, so they stay in memory longer. As the kernel pins the pages and notifies the socket per write, this
+     * only pays off for large writes (typically more than 10KB) of direct buffers. If the kernel reports that it had
+     * to copy the data anyway (for example on the loopback device) {@code MSG_ZEROCOPY} is not used anymore for this
+     * channel. See <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a>.
+     */
+    public EpollSocketChannelConfig setZeroCopyWriteThreshold(int zeroCopyWriteThreshold) {
+        checkPositiveOrZero(zeroCopyWriteThreshold, "zeroCopyWriteThreshold");
+        try {
+            if (zeroCopyWriteThreshold > 0) {
+                ((EpollSocketChannel) channel).socket.setZeroCopy(true);
+            }
+            this.zeroCopyWriteThreshold = zeroCopyWriteThreshold;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns the minimal number of bytes a write must have to be sent via {@code MSG_ZEROCOPY}, or {@code 0} if
+     * {@code MSG_ZEROCOPY} is not used.
+     */
+    public int getZeroCopyWriteThreshold() {
+        return zeroCopyWriteThreshold;
+    }
+
     @Override
     public boolean isAllowHalfClosure() {
         return allowHalfClosure;
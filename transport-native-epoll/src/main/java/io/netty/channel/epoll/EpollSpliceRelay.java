@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.UnstableApi;
+
+import java.nio.channels.ClosedChannelException;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Relays all bytes between two {@link AbstractEpollStreamChannel}s in both directions via
+ * <a href="http://man7.org/linux/man-pages/man2/splice.2.html">splice(...)</a>, so the data is never copied into user
+ * space. This is useful to build layer 4 proxies.
+ * <p>
+ * Each direction uses a pipe which is created once per target {@link AbstractEpollStreamChannel} and reused for all
+ * data. While a target can not accept more data, reading from the other {@link AbstractEpollStreamChannel} is
+ * suspended. Once the end of the input of one {@link AbstractEpollStreamChannel} is reached the output of the other
+ * one is shutdown, so half-closures are propagated. When both directions are done, or if any of them fails or any of
+ * the {@link AbstractEpollStreamChannel}s is closed, both {@link AbstractEpollStreamChannel}s are closed.
+ * <p>
+ * Please note:
+ * <ul>
+ *   <li>both channels need to be registered to the same {@link EventLoop}, otherwise an
+ *   {@link IllegalArgumentException} is thrown.</li>
+ *   <li>{@link EpollChannelConfig#getEpollMode()} must be {@link EpollMode#LEVEL_TRIGGERED} for both channels,
+ *   otherwise an {@link IllegalStateException} is thrown.</li>
+ *   <li>reading is controlled by the relay. {@link io.netty.channel.ChannelOption#AUTO_READ} should be disabled until
+ *   the relay is started, as data which was read into the pipeline before is not relayed.</li>
+ * </ul>
+ */
+@UnstableApi
+public final class EpollSpliceRelay {
+
+    private EpollSpliceRelay() {
+    }
+
+    /**
+     * Start to relay all bytes between the given {@link AbstractEpollStreamChannel}s. The returned {@link Promise} is
+     * notified once both directions reached the end of their input, or failed if the relay was not completed.
+     */
+    public static Promise<Void> relay(final AbstractEpollStreamChannel first,
+                                      final AbstractEpollStreamChannel second) {
+        checkNotNull(first, "first");
+        checkNotNull(second, "second");
+        if (first == second) {
+            throw new IllegalArgumentException("Can not relay a channel to itself.");
+        }
+        EventLoop loop = first.eventLoop();
+        if (second.eventLoop() != loop) {
+            throw new IllegalArgumentException("EventLoops are not the same.");
+        }
+        if (first.config().getEpollMode() != EpollMode.LEVEL_TRIGGERED
+                || second.config().getEpollMode() != EpollMode.LEVEL_TRIGGERED) {
+            throw new IllegalStateException("relay() supported only when using " + EpollMode.LEVEL_TRIGGERED);
+        }
+        final Promise<Void> promise = loop.newPromise();
+        if (loop.inEventLoop()) {
+            relay0(first, second, promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    relay0(first, second, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private static void relay0(final AbstractEpollStreamChannel first, final AbstractEpollStreamChannel second,
+                               final Promise<Void> promise) {
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            private int done;
+
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (future.isSuccess()) {
+                    if (++done < 2) {
+                        return;
+                    }
+                    promise.trySuccess(null);
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+                first.close();
+                second.close();
+            }
+        };
+        ChannelFutureListener closeListener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (promise.tryFailure(new ClosedChannelException())) {
+                    first.close();
+                    second.close();
+                }
+            }
+        };
+        first.closeFuture().addListener(closeListener);
+        second.closeFuture().addListener(closeListener);
+
+        ChannelPromise firstToSecond = first.newPromise().addListener(listener);
+        ChannelPromise secondToFirst = second.newPromise().addListener(listener);
+        first.spliceToUntilEof(second, firstToSecond);
+        second.spliceToUntilEof(first, secondToFirst);
+
+        first.config().setAutoRead(true);
+        second.config().setAutoRead(true);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * Periodically samples the {@link EpollTcpInfo} of an {@link EpollSocketChannel}, so the congestion state of the
+ * connection can be used to size writes and is available as metrics.
+ * <p>
+ * After each sample the {@link EpollTcpInfoSampler} itself is fired as user event through the
+ * {@link io.netty.channel.ChannelPipeline} of the channel. A {@link io.netty.channel.ChannelHandler} can use this to
+ * adjust how much data it produces at once to {@link #recommendedWriteSize()}, for example the allocation quantum of
+ * the HTTP/2 {@code WeightedFairQueueByteDistributor} or the chunk size of the {@code ChunkedInput}s written to a
+ * {@code ChunkedWriteHandler}. Writing roughly as much data as the congestion window can take avoids queueing a lot
+ * of data in the socket send buffer (bufferbloat).
+ * <p>
+ * All values are updated by the {@link EpollEventLoop} of the channel, so reading them from another {@link Thread}
+ * is cheap but may return slightly outdated values. Sampling stops once the channel is closed or {@link #stop()} is
+ * called.
+ */
+@UnstableApi
+public final class EpollTcpInfoSampler {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollTcpInfoSampler.class);
+    // Buckets of power of two sizes cover any unsigned 32 bit value.
+    private static final int HISTOGRAM_BUCKETS = 33;
+
+    private final EpollSocketChannel channel;
+    // Only accessed from the EventLoop.
+    private final EpollTcpInfo info = new EpollTcpInfo();
+    private final AtomicLongArray rttHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final AtomicLongArray retransmitHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final ScheduledFuture<?> future;
+    private final ChannelFutureListener closeListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            stop();
+        }
+    };
+
+    private volatile long samples;
+    private volatile long rtt;
+    private volatile long rttVariance;
+    private volatile long mss;
+    private volatile long congestionWindow;
+    private volatile long unacked;
+    private volatile long totalRetransmits;
+
+    private EpollTcpInfoSampler(EpollSocketChannel channel, long intervalNanos) {
+        this.channel = channel;
+        future = channel.eventLoop().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }, 0, intervalNanos, TimeUnit.NANOSECONDS);
+        channel.closeFuture().addListener(closeListener);
+    }
+
+    /**
+     * Starts to sample the {@link EpollTcpInfo} of the given {@link EpollSocketChannel} every {@code interval}.
+     *
+     * @param channel   the channel to sample
+     * @param interval  the interval in which to sample
+     * @param unit      the {@link TimeUnit} of {@code interval}
+     * @return          the sampler, which can be used to {@link #stop()} sampling
+     */
+    public static EpollTcpInfoSampler start(EpollSocketChannel channel, long interval, TimeUnit unit) {
+        checkNotNull(channel, "channel");
+        checkNotNull(unit, "unit");
+        return new EpollTcpInfoSampler(channel, unit.toNanos(checkPositive(interval, "interval")));
+    }
+
+    /**
+     * Stops sampling. The values of the last sample stay available.
+     */
+    public void stop() {
+        future.cancel(false);
+        channel.closeFuture().removeListener(closeListener);
+    }
+
+    private void sample() {
+        if (!channel.isActive()) {
+            return;
+        }
+        try {
+            channel.tcpInfo(info);
+        } catch (Throwable cause) {
+            logger.debug("Failed to sample TCP_INFO of {}, stop sampling.", channel, cause);
+            stop();
+            return;
+        }
+        long sndMss = info.sndMss();
+        long retransmits = info.totalRetrans();
+        long previousRetransmits = totalRetransmits;
+        boolean first = samples == 0;
+
+        rtt = info.rtt();
+        rttVariance = info.rttvar();
+        mss = sndMss;
+        congestionWindow = info.sndCwnd() * sndMss;
+        unacked = info.unacked() * sndMss;
+        totalRetransmits = retransmits;
+
+        rttHistogram.incrementAndGet(bucket(info.rtt()));
+        if (!first) {
+            retransmitHistogram.incrementAndGet(bucket(retransmits - previousRetransmits));
+        }
+        samples++;
+        channel.pipeline().fireUserEventTriggered(this);
+    }
+
+    private static int bucket(long value) {
+        // Bucket 0 holds 0, bucket i holds [2^(i-1), 2^i).
+        return value <= 0 ? 0 : Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    private static long[] snapshot(AtomicLongArray histogram) {
+        long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the {@link EpollSocketChannel} which is sampled.
+     */
+    public EpollSocketChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Returns the number of samples taken so far.
+     */
+    public long samples() {
+        return samples;
+    }
+
+    /**
+     * Returns the smoothed round trip time in microseconds.
+     */
+    public long rtt() {
+        return rtt;
+    }
+
+    /**
+     * Returns the variance of the round trip time in microseconds.
+     */
+    public long rttVariance() {
+        return rttVariance;
+    }
+
+    /**
+     * Returns the maximum segment size used for sending.
+     */
+    public long mss() {
+        return mss;
+    }
+
+    /**
+     * Returns the congestion window in bytes.
+     */
+    public long congestionWindow() {
+        return congestionWindow;
+    }
+
+    /**
+     * Returns the number of bytes which were sent but not acknowledged yet. This is an estimation based on the
+     * number of unacknowledged segments.
+     */
+    public long unacked() {
+        return unacked;
+    }
+
+    /**
+     * Returns the total number of retransmitted segments of the connection.
+     */
+    public long totalRetransmits() {
+        return totalRetransmits;
+    }
+
+    /**
+     * Returns the number of bytes that can be sent right away without exceeding the congestion window, but at least
+     * one segment. Returns {@code 0} until the first sample was taken.
+     */
+    public int recommendedWriteSize() {
+        long size = Math.max(mss, congestionWindow - unacked);
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    /**
+     * Returns a histogram of the sampled round trip times in microseconds. The element at index {@code 0} is the
+     * number of samples with a round trip time of {@code 0}, the element at index {@code i > 0} is the number of
+     * samples with a round trip time in {@code [2^(i-1), 2^i)}.
+     */
+    public long[] rttHistogram() {
+        return snapshot(rttHistogram);
+    }
+
+    /**
+     * Returns a histogram of the number of retransmitted segments between two samples, using the same buckets as
+     * {@link #rttHistogram()}.
+     */
+    public long[] retransmitHistogram() {
+        return snapshot(retransmitHistogram);
+    }
+}
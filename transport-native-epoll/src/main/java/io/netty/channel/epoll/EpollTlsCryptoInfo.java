@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * The crypto state of one direction of a TLS connection which is handed to the kernel to offload the TLS record
+ * layer (kTLS). See {@link EpollSocketChannel#enableKernelTls(EpollTlsCryptoInfo, EpollTlsCryptoInfo)} and
+ * <a href="https://www.kernel.org/doc/html/latest/networking/tls.html">the kernel documentation</a>.
+ * <p>
+ * For AES-GCM the {@code salt} is the implicit part of the nonce and the {@code iv} the explicit part: With TLS 1.2
+ * these are the 4 byte client / server write IV and the 8 byte explicit nonce, with TLS 1.3 the first 4 and the last
+ * 8 bytes of the 12 byte traffic IV. The {@code recordSequence} is the big-endian sequence number of the next record.
+ */
+@UnstableApi
+public final class EpollTlsCryptoInfo {
+
+    /** TLS 1.2 as {@code TLS_1_2_VERSION}. */
+    public static final int TLS_1_2 = 0x0303;
+    /** TLS 1.3 as {@code TLS_1_3_VERSION}. */
+    public static final int TLS_1_3 = 0x0304;
+
+    // See include/uapi/linux/tls.h
+    private static final int TLS_CIPHER_AES_GCM_128 = 51;
+    private static final int TLS_CIPHER_AES_GCM_256 = 52;
+    private static final int TLS_CIPHER_CHACHA20_POLY1305 = 54;
+    private static final byte[] EMPTY_SALT = new byte[0];
+
+    final int version;
+    final int cipherType;
+    final byte[] iv;
+    final byte[] key;
+    final byte[] salt;
+    final byte[] recordSequence;
+
+    private EpollTlsCryptoInfo(int version, int cipherType, byte[] iv, int ivLength, byte[] key, int keyLength,
+                               byte[] salt, int saltLength, byte[] recordSequence) {
+        if (version != TLS_1_2 && version != TLS_1_3) {
+            throw new IllegalArgumentException("version: " + version + " (expected: TLS_1_2 or TLS_1_3)");
+        }
+        this.version = version;
+        this.cipherType = cipherType;
+        this.iv = copy(iv, ivLength, "iv");
+        this.key = copy(key, keyLength, "key");
+        this.salt = copy(salt, saltLength, "salt");
+        this.recordSequence = copy(recordSequence, 8, "recordSequence");
+    }
+
+    /**
+     * Creates the crypto state for {@code AES_128_GCM}.
+     */
+    public static EpollTlsCryptoInfo aesGcm128(int version, byte[] key, byte[] iv, byte[] salt,
+                                               byte[] recordSequence) {
+        return new EpollTlsCryptoInfo(version, TLS_CIPHER_AES_GCM_128, iv, 8, key, 16, salt, 4, recordSequence);
+    }
+
+    /**
+     * Creates the crypto state for {@code AES_256_GCM}.
+     */
+    public static EpollTlsCryptoInfo aesGcm256(int version, byte[] key, byte[] iv, byte[] salt,
+                                               byte[] recordSequence) {
+        return new EpollTlsCryptoInfo(version, TLS_CIPHER_AES_GCM_256, iv, 8, key, 32, salt, 4, recordSequence);
+    }
+
+    /**
+     * Creates the crypto state for {@code CHACHA20_POLY1305}, which requires linux 5.11 or later. The {@code iv} is
+     * the 12 byte write IV.
+     */
+    public static EpollTlsCryptoInfo chacha20Poly1305(int version, byte[] key, byte[] iv, byte[] recordSequence) {
+        return new EpollTlsCryptoInfo(version, TLS_CIPHER_CHACHA20_POLY1305, iv, 12, key, 32, EMPTY_SALT, 0,
+                recordSequence);
+    }
+
+    private static byte[] copy(byte[] bytes, int expectedLength, String name) {
+        checkNotNull(bytes, name);
+        if (bytes.length != expectedLength) {
+            throw new IllegalArgumentException(
+                    name + ".length: " + bytes.length + " (expected: " + expectedLength + ')');
+        }
+        return bytes.clone();
+    }
+}
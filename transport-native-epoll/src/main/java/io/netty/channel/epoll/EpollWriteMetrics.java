@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Write metrics of a single {@link AbstractEpollStreamChannel}. All values are cumulative since the channel was
+ * created and are updated by its {@link EpollEventLoop}, so reading them from another {@link Thread} is cheap but
+ * may return slightly outdated values.
+ * <p>
+ * If {@link #sendBufferFullCount()} grows at a similar rate as {@link #writeCalls()} the socket send buffer (or
+ * {@link EpollChannelOption#TCP_NOTSENT_LOWAT} if set) limits how fast data can be written and the channel mostly
+ * waits for {@code EPOLLOUT}. In this case the peer or the network is the bottleneck, not the application.
+ *
+ * @see AbstractEpollStreamChannel#writeMetrics()
+ */
+@UnstableApi
+public interface EpollWriteMetrics {
+
+    /**
+     * Returns the number of system calls that were made to write data.
+     */
+    long writeCalls();
+
+    /**
+     * Returns the number of bytes that were written.
+     */
+    long bytesWritten();
+
+    /**
+     * Returns the number of write attempts that could not write any data because the socket send buffer was full.
+     * Each of these results in waiting for {@code EPOLLOUT}.
+     */
+    long sendBufferFullCount();
+
+    /**
+     * Returns the number of times {@code EPOLLOUT} signaled that the socket can accept more data while there was
+     * pending data to write.
+     */
+    long epollOutWakeups();
+
+    /**
+     * Returns the number of gathering writes which continued with the remaining {@code iovec}s of a previous partial
+     * {@code writev(...)} instead of building them again from the {@link io.netty.channel.ChannelOutboundBuffer}.
+     */
+    long iovArrayReuses();
+}
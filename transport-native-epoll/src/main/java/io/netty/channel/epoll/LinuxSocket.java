@@ -39,6 +39,9 @@ final class LinuxSocket extends Socket {
     static final InetAddress INET6_ANY = unsafeInetAddrByName("::");
     private static final InetAddress INET_ANY = unsafeInetAddrByName("0.0.0.0");
     private static final long MAX_UINT32_T = 0xFFFFFFFFL;
+    // See include/uapi/linux/tls.h
+    private static final int TLS_TX = 1;
+    private static final int TLS_RX = 2;
 
     LinuxSocket(int fd) {
         super(fd);
@@ -53,6 +56,10 @@ final class LinuxSocket extends Socket {
         return Native.sendmmsg(intValue(), ipv6, msgs, offset, len);
     }
 
+    int recvmmsg(NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len) throws IOException {
+        return Native.recvmmsg(intValue(), msgs, offset, len);
+    }
+
     void setTimeToLive(int ttl) throws IOException {
         setTimeToLive(intValue(), ttl);
     }
@@ -174,6 +181,31 @@ final class LinuxSocket extends Socket {
         setIpRecvOrigDestAddr(intValue(), enabled ? 1 : 0);
     }
 
+    void setUdpGro(boolean enabled) throws IOException {
+        setUdpGro(intValue(), enabled ? 1 : 0);
+    }
+
+    void setTlsUlp() throws IOException {
+        setTlsUlp(intValue());
+    }
+
+    void setTlsCryptoInfo(boolean tx, EpollTlsCryptoInfo info) throws IOException {
+        setTlsCryptoInfo(intValue(), tx ? TLS_TX : TLS_RX, info.version, info.cipherType, info.iv, info.key,
+                info.salt, info.recordSequence);
+    }
+
+    void setIncomingCpu(int cpu) throws IOException {
+        setIncomingCpu(intValue(), cpu);
+    }
+
+    void setReusePortCpuCbpf(int groupSize) throws IOException {
+        setReusePortCpuCbpf(intValue(), groupSize);
+    }
+
+    void setZeroCopy(boolean enabled) throws IOException {
+        setZeroCopy(intValue(), enabled ? 1 : 0);
+    }
+
     int getTimeToLive() throws IOException {
         return getTimeToLive(intValue());
     }
@@ -235,6 +267,48 @@ final class LinuxSocket extends Socket {
         return isIpRecvOrigDestAddr(intValue()) != 0;
     }
 
+    boolean isUdpGro() throws IOException {
+        return isUdpGro(intValue()) != 0;
+    }
+
+    int getIncomingCpu() throws IOException {
+        return getIncomingCpu(intValue());
+    }
+
+    boolean isZeroCopy() throws IOException {
+        return isZeroCopy(intValue()) != 0;
+    }
+
+    int sendAddressZeroCopy(long address, int pos, int limit) throws IOException {
+        int res = sendAddressZeroCopy(intValue(), address, pos, limit);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("sendAddressZeroCopy", res);
+    }
+
+    long sendmsgAddressesZeroCopy(long memoryAddress, int length) throws IOException {
+        long res = sendmsgAddressesZeroCopy(intValue(), memoryAddress, length);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("sendmsgAddressesZeroCopy", (int) res);
+    }
+
+    /**
+     * Reads the next {@code MSG_ZEROCOPY} notification from the error queue of the socket into {@code completion}
+     * (first id, last id and {@code 1} if the kernel copied the data) and returns {@code true}, or returns
+     * {@code false} if there is none.
+     */
+    boolean recvZeroCopyCompletion(int[] completion) throws IOException {
+        int res = recvZeroCopyCompletion(intValue(), completion);
+        if (res > 0) {
+            return true;
+        }
+        ioResult("recvZeroCopyCompletion", res);
+        return false;
+    }
+
     PeerCredentials getPeerCredentials() throws IOException {
         return getPeerCredentials(intValue());
     }
@@ -318,6 +392,9 @@ final class LinuxSocket extends Socket {
     private static native int isIpFreeBind(int fd) throws IOException;
     private static native int isIpTransparent(int fd) throws IOException;
     private static native int isIpRecvOrigDestAddr(int fd) throws IOException;
+    private static native int isUdpGro(int fd) throws IOException;
+    private static native int isZeroCopy(int fd) throws IOException;
+    private static native int getIncomingCpu(int fd) throws IOException;
     private static native void getTcpInfo(int fd, long[] array) throws IOException;
     private static native PeerCredentials getPeerCredentials(int fd) throws IOException;
     private static native int isTcpFastOpenConnect(int fd) throws IOException;
@@ -336,6 +413,16 @@ final class LinuxSocket extends Socket {
     private static native void setIpFreeBind(int fd, int freeBind) throws IOException;
     private static native void setIpTransparent(int fd, int transparent) throws IOException;
     private static native void setIpRecvOrigDestAddr(int fd, int transparent) throws IOException;
+    private static native void setUdpGro(int fd, int gro) throws IOException;
+    private static native void setZeroCopy(int fd, int zeroCopy) throws IOException;
+    private static native void setIncomingCpu(int fd, int cpu) throws IOException;
+    private static native void setTlsUlp(int fd) throws IOException;
+    private static native void setTlsCryptoInfo(int fd, int direction, int version, int cipherType, byte[] iv,
+                                                byte[] key, byte[] salt, byte[] recSeq) throws IOException;
+    private static native void setReusePortCpuCbpf(int fd, int groupSize) throws IOException;
+    private static native int sendAddressZeroCopy(int fd, long address, int pos, int limit);
+    private static native long sendmsgAddressesZeroCopy(int fd, long memoryAddress, int length);
+    private static native int recvZeroCopyCompletion(int fd, int[] completion);
     private static native void setTcpMd5Sig(
             int fd, boolean ipv6, byte[] address, int scopeId, byte[] key) throws IOException;
     private static native void setInterface(
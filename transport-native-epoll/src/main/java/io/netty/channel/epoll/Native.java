@@ -29,11 +29,14 @@ import java.util.Locale;
 
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollerr;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollet;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollexclusive;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollin;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollout;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollrdhup;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingRecvmmsg;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingSendmmsg;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingTcpFastopen;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingUdpSegment;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.kernelVersion;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.tcpMd5SigMaxKeyLen;
 import static io.netty.channel.unix.Errors.ioResult;
@@ -65,8 +68,11 @@ public final class Native {
     public static final int EPOLLRDHUP = epollrdhup();
     public static final int EPOLLET = epollet();
     public static final int EPOLLERR = epollerr();
+    static final int EPOLLEXCLUSIVE = epollexclusive();
 
     public static final boolean IS_SUPPORTING_SENDMMSG = isSupportingSendmmsg();
+    static final boolean IS_SUPPORTING_RECVMMSG = isSupportingRecvmmsg();
+    static final boolean IS_SUPPORTING_UDP_SEGMENT = isSupportingUdpSegment();
     public static final boolean IS_SUPPORTING_TCP_FASTOPEN = isSupportingTcpFastopen();
     public static final int TCP_MD5SIG_MAXKEYLEN = tcpMd5SigMaxKeyLen();
     public static final String KERNEL_VERSION = kernelVersion();
@@ -150,6 +156,21 @@ public final class Native {
         return ioResult("splice", res);
     }
 
+    /**
+     * Same as {@link #splice(int, long, int, long, long)} but returns {@code -1} once the end of the input was reached,
+     * while {@code 0} means that no data could be moved right now.
+     */
+    static int spliceOrEof(int fd, long offIn, int fdOut, long offOut, long len) throws IOException {
+        int res = splice0(fd, offIn, fdOut, offOut, len);
+        if (res > 0) {
+            return res;
+        }
+        if (res == 0) {
+            return -1;
+        }
+        return ioResult("splice", res);
+    }
+
     private static native int splice0(int fd, long offIn, int fdOut, long offOut, long len);
 
     @Deprecated
@@ -170,6 +191,43 @@ public final class Native {
     private static native int sendmmsg0(
             int fd, boolean ipv6, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
 
+    static int recvmmsg(int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs,
+                        int offset, int len) throws IOException {
+        int res = recvmmsg0(fd, msgs, offset, len);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("recvmmsg", res);
+    }
+
+    private static native int recvmmsg0(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
+
+    /**
+     * Pins the calling {@link Thread} to the given CPU via {@code sched_setaffinity}.
+     */
+    static void setThreadAffinity(int cpu) throws IOException {
+        int res = setThreadAffinity0(cpu);
+        if (res < 0) {
+            throw newIOException("sched_setaffinity", res);
+        }
+    }
+
+    private static native int setThreadAffinity0(int cpu);
+
+    /**
+     * Sets the timer slack of the calling {@link Thread} via {@code prctl(PR_SET_TIMERSLACK, ...)}, which bounds how
+     * late the kernel may fire its timers. {@code 0} restores the default.
+     */
+    static void setTimerSlack(long nanos) throws IOException {
+        int res = setTimerSlack0(nanos);
+        if (res < 0) {
+            throw newIOException("prctl", res);
+        }
+    }
+
+    private static native int setTimerSlack0(long nanos);
+
     // epoll_event related
     public static native int sizeofEpollEvent();
     public static native int offsetofEpollData();
@@ -22,16 +22,19 @@ import io.netty.channel.unix.IovArray;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 
 import static io.netty.channel.unix.Limits.UIO_MAX_IOV;
 import static io.netty.channel.unix.NativeInetAddress.ipv4MappedIpv6Address;
 
 /**
- * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+
+ * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+ and
+ * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> on linux with GLIBC 2.12+
  */
 final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessageProcessor {
 
-    // Use UIO_MAX_IOV as this is the maximum number we can write with one sendmmsg(...) call.
+    // Use UIO_MAX_IOV as this is the maximum number we can write with one sendmmsg(...) or read with one
+    // recvmmsg(...) call.
     private final NativeDatagramPacket[] packets = new NativeDatagramPacket[UIO_MAX_IOV];
 
     // We share one IovArray for all NativeDatagramPackets to reduce memory overhead. This will allow us to write
@@ -60,15 +63,31 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         if (len == 0) {
             return true;
         }
+        int segmentSize = packet instanceof SegmentedDatagramPacket ?
+                ((SegmentedDatagramPacket) packet).segmentSize() : 0;
+        return add0(content, content.readerIndex(), len, segmentSize, packet.recipient());
+    }
+
+    /**
+     * Try to add a packet which will receive into the given region of the {@link ByteBuf} via
+     * {@code recvmmsg(...)}. Returns {@code true} on success, {@code false} otherwise.
+     */
+    boolean addWritable(ByteBuf buf, int index, int len) {
+        if (count == packets.length) {
+            return false;
+        }
+        return add0(buf, index, len, 0, null);
+    }
+
+    private boolean add0(ByteBuf buf, int index, int len, int segmentSize, InetSocketAddress recipient) {
         NativeDatagramPacket p = packets[count];
-        InetSocketAddress recipient = packet.recipient();
 
         int offset = iovArray.count();
-        if (!iovArray.add(content)) {
+        if (!iovArray.add(buf, index, len)) {
             // Not enough space to hold the whole content, we will try again later.
             return false;
         }
-        p.init(iovArray.memoryAddress(offset), iovArray.count() - offset, recipient);
+        p.init(iovArray.memoryAddress(offset), iovArray.count() - offset, segmentSize, recipient);
 
         count++;
         return true;
@@ -110,16 +129,29 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
 
         // This is the actual struct iovec*
         private long memoryAddress;
+        // The number of iovecs, after recvmmsg(...) this is the number of bytes that were received.
         private int count;
+        // The UDP_SEGMENT size to send with, after recvmmsg(...) this is the UDP_GRO size or 0 if not coalesced.
+        private int segmentSize;
 
         private byte[] addr;
         private int scopeId;
         private int port;
 
-        private void init(long memoryAddress, int count, InetSocketAddress recipient) {
+        // Filled by recvmmsg(...)
+        private final byte[] senderAddr = new byte[16];
+        private int senderAddrLen;
+        private int senderScopeId;
+        private int senderPort;
+
+        private void init(long memoryAddress, int count, int segmentSize, InetSocketAddress recipient) {
             this.memoryAddress = memoryAddress;
             this.count = count;
+            this.segmentSize = segmentSize;
 
+            if (recipient == null) {
+                return;
+            }
             InetAddress address = recipient.getAddress();
             if (address instanceof Inet6Address) {
                 addr = address.getAddress();
@@ -130,5 +162,34 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
             }
             port = recipient.getPort();
         }
+
+        /**
+         * Returns the number of bytes which were received by {@code recvmmsg(...)}.
+         */
+        int receivedBytes() {
+            return count;
+        }
+
+        /**
+         * Returns the size of the datagrams which were coalesced by the kernel because of {@code UDP_GRO}, or
+         * {@code 0} if a single datagram was received.
+         */
+        int receivedSegmentSize() {
+            return segmentSize;
+        }
+
+        /**
+         * Returns the address of the sender of the datagram which was received by {@code recvmmsg(...)}.
+         */
+        InetSocketAddress sender() throws UnknownHostException {
+            final InetAddress address;
+            if (senderAddrLen == 4) {
+                address = InetAddress.getByAddress(new byte[] {
+                        senderAddr[0], senderAddr[1], senderAddr[2], senderAddr[3] });
+            } else {
+                address = Inet6Address.getByAddress(null, senderAddr, senderScopeId);
+            }
+            return new InetSocketAddress(address, senderPort);
+        }
     }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * A {@link ByteBufAllocator} which keeps a separate {@link PooledByteBufAllocator}, and so separate arenas, for each
+ * NUMA node. Threads created by {@link AffinityThreadFactory} allocate from the arenas of the node they are pinned
+ * to. As chunks are allocated lazily by the first thread that needs them, the kernel's first-touch policy places
+ * their memory on that node as well. Threads which are not pinned, or pinned to a node that was not online when
+ * this allocator was created, use the arenas of the first online node.
+ */
+@UnstableApi
+public final class NumaAwareByteBufAllocator implements ByteBufAllocator {
+
+    // Indexed by node id. Node ids may be sparse, so entries of nodes that are not online are null.
+    private final PooledByteBufAllocator[] allocatorsByNode;
+    private final PooledByteBufAllocator defaultAllocator;
+    private final int numNodes;
+
+    /**
+     * Creates a new instance that prefers direct buffers.
+     */
+    public NumaAwareByteBufAllocator() {
+        this(true);
+    }
+
+    /**
+     * Creates a new instance which splits the default number of arenas across all online NUMA nodes.
+     */
+    public NumaAwareByteBufAllocator(boolean preferDirect) {
+        this(preferDirect, NumaTopology.onlineNodes());
+    }
+
+    NumaAwareByteBufAllocator(boolean preferDirect, int[] nodes) {
+        numNodes = nodes.length;
+        int nHeapArena = Math.max(1, PooledByteBufAllocator.defaultNumHeapArena() / numNodes);
+        int nDirectArena = Math.max(1, PooledByteBufAllocator.defaultNumDirectArena() / numNodes);
+        allocatorsByNode = new PooledByteBufAllocator[nodes[nodes.length - 1] + 1];
+        for (int node: nodes) {
+            allocatorsByNode[node] = new PooledByteBufAllocator(preferDirect, nHeapArena, nDirectArena,
+                    PooledByteBufAllocator.defaultPageSize(), PooledByteBufAllocator.defaultMaxOrder());
+        }
+        defaultAllocator = allocatorsByNode[nodes[0]];
+    }
+
+    /**
+     * Returns the number of NUMA nodes this allocator keeps arenas for.
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    PooledByteBufAllocator allocator() {
+        int node = AffinityThreadFactory.currentNumaNode();
+        if (node >= 0 && node < allocatorsByNode.length) {
+            PooledByteBufAllocator allocator = allocatorsByNode[node];
+            if (allocator != null) {
+                return allocator;
+            }
+        }
+        return defaultAllocator;
+    }
+
+    @Override
+    public ByteBuf buffer() {
+        return allocator().buffer();
+    }
+
+    @Override
+    public ByteBuf buffer(int initialCapacity) {
+        return allocator().buffer(initialCapacity);
+    }
+
+    @Override
+    public ByteBuf buffer(int initialCapacity, int maxCapacity) {
+        return allocator().buffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public ByteBuf ioBuffer() {
+        return allocator().ioBuffer();
+    }
+
+    @Override
+    public ByteBuf ioBuffer(int initialCapacity) {
+        return allocator().ioBuffer(initialCapacity);
+    }
+
+    @Override
+    public ByteBuf ioBuffer(int initialCapacity, int maxCapacity) {
+        return allocator().ioBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public ByteBuf heapBuffer() {
+        return allocator().heapBuffer();
+    }
+
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity) {
+        return allocator().heapBuffer(initialCapacity);
+    }
+
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity, int maxCapacity) {
+        return allocator().heapBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public ByteBuf directBuffer() {
+        return allocator().directBuffer();
+    }
+
+    @Override
+    public ByteBuf directBuffer(int initialCapacity) {
+        return allocator().directBuffer(initialCapacity);
+    }
+
+    @Override
+    public ByteBuf directBuffer(int initialCapacity, int maxCapacity) {
+        return allocator().directBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public CompositeByteBuf compositeBuffer() {
+        return allocator().compositeBuffer();
+    }
+
+    @Override
+    public CompositeByteBuf compositeBuffer(int maxNumComponents) {
+        return allocator().compositeBuffer(maxNumComponents);
+    }
+
+    @Override
+    public CompositeByteBuf compositeHeapBuffer() {
+        return allocator().compositeHeapBuffer();
+    }
+
+    @Override
+    public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
+        return allocator().compositeHeapBuffer(maxNumComponents);
+    }
+
+    @Override
+    public CompositeByteBuf compositeDirectBuffer() {
+        return allocator().compositeDirectBuffer();
+    }
+
+    @Override
+    public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
+        return allocator().compositeDirectBuffer(maxNumComponents);
+    }
+
+    @Override
+    public boolean isDirectBufferPooled() {
+        return true;
+    }
+
+    @Override
+    public int calculateNewCapacity(int minNewCapacity, int maxCapacity) {
+        return defaultAllocator.calculateNewCapacity(minNewCapacity, maxCapacity);
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(nodes: " + numNodes + ')';
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads the NUMA layout of the machine from {@code sysfs} and the CPUs the process may run on from {@code procfs}.
+ */
+final class NumaTopology {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(NumaTopology.class);
+
+    private static final File NODE_DIR = new File("/sys/devices/system/node");
+    private static final File CPU_DIR = new File("/sys/devices/system/cpu");
+    private static final File ONLINE_NODES = new File(NODE_DIR, "online");
+    private static final File PROCESS_STATUS = new File("/proc/self/status");
+    private static final String CPUS_ALLOWED_LIST = "Cpus_allowed_list:";
+
+    private NumaTopology() { }
+
+    /**
+     * Returns the sorted ids of all online NUMA nodes, which is {@code [0]} if the layout can not be detected.
+     * Node ids are not necessarily contiguous.
+     */
+    static int[] onlineNodes() {
+        int[] nodes = parseList(readLine(ONLINE_NODES, null));
+        return nodes == null || nodes.length == 0 ? new int[] { 0 } : nodes;
+    }
+
+    /**
+     * Returns the sorted ids of all CPUs in the affinity mask of the process, which are all
+     * {@link Runtime#availableProcessors()} CPUs if the mask can not be detected.
+     */
+    static int[] allowedCpus() {
+        int[] cpus = parseList(readLine(PROCESS_STATUS, CPUS_ALLOWED_LIST));
+        if (cpus == null || cpus.length == 0) {
+            cpus = new int[Runtime.getRuntime().availableProcessors()];
+            for (int i = 0; i < cpus.length; i++) {
+                cpus[i] = i;
+            }
+        }
+        return cpus;
+    }
+
+    /**
+     * Returns the NUMA node the given CPU belongs to, which is {@code 0} if the layout can not be detected.
+     */
+    static int nodeOf(int cpu) {
+        String[] names = new File(CPU_DIR, "cpu" + cpu).list();
+        if (names != null) {
+            for (String name: names) {
+                int id = nodeId(name);
+                if (id >= 0) {
+                    return id;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parses a list in the format used by the kernel for CPU and node lists, like {@code 0-3,8,10-11}, and returns
+     * the sorted ids or {@code null} if the list is malformed.
+     */
+    static int[] parseList(String list) {
+        if (list == null) {
+            return null;
+        }
+        list = list.trim();
+        if (list.isEmpty()) {
+            return new int[0];
+        }
+        String[] ranges = list.split(",");
+        int[] ids = new int[ranges.length];
+        int count = 0;
+        try {
+            for (String range: ranges) {
+                int dash = range.indexOf('-');
+                int first = Integer.parseInt(dash < 0 ? range.trim() : range.substring(0, dash).trim());
+                int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1).trim());
+                if (first < 0 || last < first) {
+                    return null;
+                }
+                for (int id = first; id <= last; id++) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count << 1);
+                    }
+                    ids[count++] = id;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        ids = Arrays.copyOf(ids, count);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Returns the first line of the given file, or the remainder of the first line starting with {@code prefix}
+     * if it is not {@code null}. Returns {@code null} if there is no such line or the file can not be read.
+     */
+    private static String readLine(File file, String prefix) {
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader(new FileReader(file));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (prefix == null) {
+                    return line;
+                }
+                if (line.startsWith(prefix)) {
+                    return line.substring(prefix.length());
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to read {}", file, e);
+        } catch (SecurityException e) {
+            logger.debug("Failed to read {}", file, e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int nodeId(String name) {
+        if (name.length() <= 4 || !name.startsWith("node")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Keeps the buffers which were written via {@code MSG_ZEROCOPY} alive until the kernel reports on the error queue of
+ * the socket that it no longer references their memory.
+ * <p>
+ * The kernel assigns consecutive ids to all successful {@code send(...)} calls with {@code MSG_ZEROCOPY}, starting at
+ * {@code 0}, and notifies about completed ranges of these ids.
+ */
+final class ZeroCopyPendingBuffers implements MessageProcessor {
+    private final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+    private final int[] completion = new int[3];
+    private int nextId;
+    private boolean copied;
+
+    // Only used while adding the messages of a gathering write.
+    private long remainingBytes;
+
+    /**
+     * Retains the given {@link ByteBuf} until the send call which just wrote bytes of it was completed.
+     */
+    void add(ByteBuf buf) {
+        entries.add(new Entry(nextId++, buf.retain()));
+    }
+
+    /**
+     * Retains the flushed {@link ByteBuf}s of the {@link ChannelOutboundBuffer} which were (partially) written with the
+     * last gathering send call, which must be done before the {@link ChannelOutboundBuffer} is updated.
+     */
+    void add(ChannelOutboundBuffer in, long writtenBytes) throws Exception {
+        remainingBytes = writtenBytes;
+        in.forEachFlushedMessage(this);
+        nextId++;
+    }
+
+    @Override
+    public boolean processMessage(Object msg) {
+        if (!(msg instanceof ByteBuf)) {
+            return false;
+        }
+        ByteBuf buf = (ByteBuf) msg;
+        entries.add(new Entry(nextId, buf.retain()));
+        remainingBytes -= buf.readableBytes();
+        return remainingBytes > 0;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns {@code true} if the kernel reported that it copied the data of a send call anyway, in which case using
+     * {@code MSG_ZEROCOPY} only adds overhead.
+     */
+    boolean isCopied() {
+        return copied;
+    }
+
+    /**
+     * Reads all notifications from the error queue of the socket and releases the buffers of the completed send calls.
+     */
+    void processCompletions(LinuxSocket socket) throws IOException {
+        while (socket.recvZeroCopyCompletion(completion)) {
+            complete(completion[0], completion[1], completion[2] != 0);
+        }
+    }
+
+    void complete(int firstId, int lastId, boolean copied) {
+        if (copied) {
+            this.copied = true;
+        }
+        // Ids wrap around, so compare the distance to the first id. Notifications are usually delivered in order, so
+        // the matching entries are normally found at the head of the queue.
+        long range = (lastId - firstId) & 0xFFFFFFFFL;
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            long distance = (entry.id - firstId) & 0xFFFFFFFFL;
+            if (distance <= range) {
+                iterator.remove();
+                entry.buf.release();
+            } else if (entry.id == lastId + 1) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Releases all buffers. Must only be called once the socket was closed and so no notifications will be received
+     * anymore.
+     */
+    void releaseAll() {
+        for (;;) {
+            Entry entry = entries.poll();
+            if (entry == null) {
+                break;
+            }
+            entry.buf.release();
+        }
+    }
+
+    private static final class Entry {
+        final int id;
+        final ByteBuf buf;
+
+        Entry(int id, ByteBuf buf) {
+            this.id = id;
+            this.buf = buf;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoopGroup;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AffinityThreadFactoryTest {
+
+    @Test
+    public void testPinnedThreadKnowsNumaNode() throws Exception {
+        // Only CPUs in the affinity mask of the process can be used.
+        final int cpu = NumaTopology.allowedCpus()[0];
+        EventLoopGroup group = new EpollEventLoopGroup(1, new AffinityThreadFactory(getClass(), cpu));
+        try {
+            int node = group.next().submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return AffinityThreadFactory.currentNumaNode();
+                }
+            }).syncUninterruptibly().getNow();
+            assertEquals(NumaTopology.nodeOf(cpu), node);
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test
+    public void testUnpinnedThread() {
+        assertEquals(-1, AffinityThreadFactory.currentNumaNode());
+    }
+
+    @Test
+    public void testParseList() {
+        assertArrayEquals(new int[] { 0 }, NumaTopology.parseList("0\n"));
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 8, 10, 11 }, NumaTopology.parseList("\t0-3,8,10-11"));
+        assertArrayEquals(new int[0], NumaTopology.parseList(""));
+        assertNull(NumaTopology.parseList("3-1"));
+        assertNull(NumaTopology.parseList("a"));
+        assertNull(NumaTopology.parseList(null));
+    }
+
+    @Test
+    public void testNumaAwareAllocatorWithSparseNodes() throws Exception {
+        final NumaAwareByteBufAllocator allocator = new NumaAwareByteBufAllocator(true, new int[] { 1, 3 });
+        assertEquals(2, allocator.numNodes());
+        // Unpinned threads use the first online node.
+        assertSame(allocator.allocator(), allocator.allocator());
+        EventLoopGroup group = new EpollEventLoopGroup(1, new AffinityThreadFactory(getClass()));
+        try {
+            Object pinned = group.next().submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return allocator.allocator();
+                }
+            }).syncUninterruptibly().getNow();
+            // Node 3 has its own arenas, all other nodes fall back to the arenas of node 1.
+            if (NumaTopology.nodeOf(NumaTopology.allowedCpus()[0]) == 3) {
+                assertNotSame(allocator.allocator(), pinned);
+            } else {
+                assertSame(allocator.allocator(), pinned);
+            }
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCpu() {
+        new AffinityThreadFactory(getClass(), -1);
+    }
+
+    @Test
+    public void testNumaAwareAllocator() throws Exception {
+        final NumaAwareByteBufAllocator allocator = new NumaAwareByteBufAllocator();
+        assertTrue(allocator.numNodes() >= 1);
+        EventLoopGroup group = new EpollEventLoopGroup(1, new AffinityThreadFactory(getClass()));
+        try {
+            ByteBuf buf = group.next().submit(new Callable<ByteBuf>() {
+                @Override
+                public ByteBuf call() {
+                    return allocator.directBuffer(64);
+                }
+            }).syncUninterruptibly().getNow();
+            assertTrue(buf.isDirect());
+            assertTrue(buf.release());
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+}
@@ -17,6 +17,7 @@ package io.netty.channel.epoll;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class EpollDatagramChannelConfigTest {
@@ -29,4 +30,25 @@ public class EpollDatagramChannelConfigTest {
         assertTrue(channel.config().getOption(EpollChannelOption.IP_FREEBIND));
         channel.fd().close();
     }
+
+    @Test
+    public void testDatagramReadBatchSize() throws Exception {
+        Epoll.ensureAvailability();
+        EpollDatagramChannel channel = new EpollDatagramChannel();
+        assertEquals(1, (int) channel.config().getOption(EpollChannelOption.DATAGRAM_READ_BATCH_SIZE));
+        assertTrue(channel.config().setOption(EpollChannelOption.DATAGRAM_READ_BATCH_SIZE, 32));
+        assertEquals(32, (int) channel.config().getOption(EpollChannelOption.DATAGRAM_READ_BATCH_SIZE));
+        channel.fd().close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDatagramReadBatchSizeInvalid() throws Exception {
+        Epoll.ensureAvailability();
+        EpollDatagramChannel channel = new EpollDatagramChannel();
+        try {
+            channel.config().setDatagramReadBatchSize(0);
+        } finally {
+            channel.fd().close();
+        }
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class EpollDatagramRecvmmsgTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        Epoll.ensureAvailability();
+        assumeTrue(Native.IS_SUPPORTING_RECVMMSG);
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchedRead() throws Throwable {
+        testRead(16, 100, false);
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchedReadConnected() throws Throwable {
+        testRead(16, 100, true);
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchedReadBatchSizeBiggerThanMaxMessagesPerRead() throws Throwable {
+        testRead(64, 100, false);
+    }
+
+    private static void testRead(int batchSize, int numPackets, boolean connected) throws Throwable {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        Channel server = null;
+        Channel client = null;
+        try {
+            server = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                    .option(EpollChannelOption.DATAGRAM_READ_BATCH_SIZE, batchSize)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            received.add(new DatagramPacket(
+                                    Unpooled.copiedBuffer(msg.content()), msg.recipient(), msg.sender()));
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.add(cause);
+                        }
+                    }).bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+            final InetSocketAddress serverAddress = (InetSocketAddress) server.localAddress();
+
+            Bootstrap clientBootstrap = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            // NOOP
+                        }
+                    });
+            client = clientBootstrap.bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+            InetSocketAddress clientAddress = (InetSocketAddress) client.localAddress();
+            if (connected) {
+                ((EpollDatagramChannel) server).connect(clientAddress).sync();
+            }
+
+            for (int i = 0; i < numPackets; i++) {
+                ByteBuf content = Unpooled.copiedBuffer(String.valueOf(i), CharsetUtil.US_ASCII);
+                client.write(new DatagramPacket(content, serverAddress));
+            }
+            client.flush();
+
+            Set<String> expected = new HashSet<String>();
+            for (int i = 0; i < numPackets; i++) {
+                expected.add(String.valueOf(i));
+            }
+            Set<String> actual = new HashSet<String>();
+            for (int i = 0; i < numPackets; i++) {
+                Object msg = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(msg);
+                if (msg instanceof Throwable) {
+                    throw (Throwable) msg;
+                }
+                DatagramPacket packet = (DatagramPacket) msg;
+                try {
+                    assertEquals(clientAddress, packet.sender());
+                    assertEquals(serverAddress.getPort(), packet.recipient().getPort());
+                    actual.add(packet.content().toString(CharsetUtil.US_ASCII));
+                } finally {
+                    packet.release();
+                }
+            }
+            assertEquals(expected, actual);
+            assertTrue(received.isEmpty());
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+        }
+    }
+}
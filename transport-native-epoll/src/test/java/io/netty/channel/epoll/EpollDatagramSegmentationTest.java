@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class EpollDatagramSegmentationTest {
+    private static final int SEGMENT_SIZE = 1000;
+    private static final int NUM_SEGMENTS = 10;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        Epoll.ensureAvailability();
+        assumeTrue(SegmentedDatagramPacket.isSupported());
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSegmentedWrite() throws Throwable {
+        testSegmented(false, 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testSegmentedWriteGroRead() throws Throwable {
+        testSegmented(true, 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testSegmentedWriteGroBatchedRead() throws Throwable {
+        testSegmented(true, 8);
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteExceedingLimitsFails() throws Exception {
+        Channel client = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+        InetSocketAddress recipient = new InetSocketAddress(NetUtil.LOCALHOST4, 9);
+        try {
+            // Exactly at the limits.
+            ByteBuf data = Unpooled.directBuffer().writeZero(SegmentedDatagramPacket.MAX_SEGMENTS * 100);
+            ChannelFuture future = client.writeAndFlush(new SegmentedDatagramPacket(data, 100, recipient)).await();
+            assertFalse(future.cause() instanceof IllegalArgumentException);
+
+            data = Unpooled.directBuffer().writeZero(SegmentedDatagramPacket.MAX_SEGMENTS * 100 + 1);
+            future = client.writeAndFlush(new SegmentedDatagramPacket(data, 100, recipient)).await();
+            assertTrue(future.cause() instanceof IllegalArgumentException);
+            assertTrue(future.cause().getMessage().contains("too many segments"));
+
+            data = Unpooled.directBuffer().writeZero(SegmentedDatagramPacket.MAX_PAYLOAD_SIZE + 1);
+            future = client.writeAndFlush(new SegmentedDatagramPacket(data, 1472, recipient)).await();
+            assertTrue(future.cause() instanceof IllegalArgumentException);
+            assertTrue(future.cause().getMessage().contains("too large"));
+        } finally {
+            client.close().sync();
+        }
+    }
+
+    private static void testSegmented(boolean gro, int batchSize) throws Throwable {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        Channel server = null;
+        Channel client = null;
+        try {
+            server = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                    .option(EpollChannelOption.DATAGRAM_READ_BATCH_SIZE, batchSize)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            received.add(msg.retain());
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.add(cause);
+                        }
+                    }).bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+            if (gro) {
+                try {
+                    ((EpollDatagramChannel) server).config().setUdpGro(true);
+                } catch (Exception e) {
+                    // UDP_GRO needs linux 5.0+
+                    assumeTrue(false);
+                }
+                assertTrue(((EpollDatagramChannel) server).config().isUdpGro());
+            }
+            InetSocketAddress serverAddress = (InetSocketAddress) server.localAddress();
+
+            client = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            // NOOP
+                        }
+                    }).bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+
+            // The last segment is smaller than the segment size.
+            byte[] bytes = new byte[SEGMENT_SIZE * NUM_SEGMENTS + SEGMENT_SIZE / 2];
+            new Random().nextBytes(bytes);
+            ByteBuf data = client.alloc().directBuffer(bytes.length).writeBytes(bytes);
+            client.writeAndFlush(new SegmentedDatagramPacket(data, SEGMENT_SIZE, serverAddress)).sync();
+
+            ByteBuf expected = Unpooled.wrappedBuffer(bytes);
+            for (int i = 0; i <= NUM_SEGMENTS; i++) {
+                Object msg = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(msg);
+                if (msg instanceof Throwable) {
+                    throw (Throwable) msg;
+                }
+                DatagramPacket packet = (DatagramPacket) msg;
+                try {
+                    assertFalse(packet instanceof SegmentedDatagramPacket);
+                    assertEquals(client.localAddress(), packet.sender());
+                    int expectedLen = Math.min(SEGMENT_SIZE, expected.readableBytes());
+                    assertEquals(expectedLen, packet.content().readableBytes());
+                    assertTrue(ByteBufUtil.equals(expected.readSlice(expectedLen), packet.content()));
+                } finally {
+                    packet.release();
+                }
+            }
+            assertFalse(expected.isReadable());
+            assertTrue(received.isEmpty());
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+        }
+    }
+}
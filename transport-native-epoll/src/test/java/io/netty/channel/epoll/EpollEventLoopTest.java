@@ -27,8 +27,10 @@ import io.netty.util.concurrent.ThreadPerTaskExecutor;
 import org.junit.Test;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -75,4 +77,28 @@ public class EpollEventLoopTest extends AbstractSingleThreadEventLoopTest {
             group.shutdownGracefully();
         }
     }
+
+    @Test(timeout = 10000)
+    public void testScheduleWithTimerSlack() throws Exception {
+        final EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            group.setTimerSlack(100, TimeUnit.MICROSECONDS);
+            final EventLoop eventLoop = group.next();
+            for (int i = 0; i < 100; i++) {
+                final long delayNanos = TimeUnit.MICROSECONDS.toNanos(i % 2 == 0 ? 50 : 500);
+                final long start = System.nanoTime();
+                final AtomicLong runNanos = new AtomicLong();
+                eventLoop.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        runNanos.set(System.nanoTime());
+                    }
+                }, delayNanos, TimeUnit.NANOSECONDS).sync();
+                assertTrue(runNanos.get() - start >= delayNanos);
+            }
+            assertEquals(TimeUnit.MICROSECONDS.toNanos(100), ((EpollEventLoop) eventLoop).getTimerSlackNanos());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Promise;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNoException;
+
+public class EpollKernelTlsTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        Epoll.ensureAvailability();
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testInvalidCryptoInfo() {
+        try {
+            EpollTlsCryptoInfo.aesGcm128(EpollTlsCryptoInfo.TLS_1_2, new byte[32], new byte[8], new byte[4],
+                    new byte[8]);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            EpollTlsCryptoInfo.aesGcm256(EpollTlsCryptoInfo.TLS_1_3, new byte[32], new byte[12], new byte[4],
+                    new byte[8]);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            EpollTlsCryptoInfo.chacha20Poly1305(0x0301, new byte[32], new byte[12], new byte[8]);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        EpollTlsCryptoInfo.chacha20Poly1305(EpollTlsCryptoInfo.TLS_1_3, new byte[32], new byte[12], new byte[8]);
+    }
+
+    @Test(timeout = 10000)
+    public void testEnableRxAndTxSeparately() throws Throwable {
+        EpollTlsCryptoInfo info = EpollTlsCryptoInfo.aesGcm128(EpollTlsCryptoInfo.TLS_1_2, new byte[16], new byte[8],
+                new byte[4], new byte[8]);
+        Channel server = null;
+        Channel client = null;
+        try {
+            server = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter())
+                    .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+            client = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).sync().channel();
+            EpollSocketChannel clientChannel = (EpollSocketChannel) client;
+
+            try {
+                clientChannel.enableKernelTls(null, info).sync();
+            } catch (Throwable cause) {
+                // Most likely the tls kernel module is not available.
+                assertFalse(clientChannel.isKernelTlsRx());
+                assertTrue(clientChannel.isOpen());
+                assumeNoException(cause);
+            }
+            assertTrue(clientChannel.isKernelTlsRx());
+            assertFalse(clientChannel.isKernelTlsTx());
+
+            // The ULP is attached already, so this must not fail with EEXIST.
+            clientChannel.enableKernelTls(info, null).sync();
+            assertTrue(clientChannel.isKernelTlsTx());
+
+            assertTrue(clientChannel.enableKernelTls(null, info).await().cause() instanceof IllegalStateException);
+            assertTrue(clientChannel.enableKernelTls(info, null).await().cause() instanceof IllegalStateException);
+            assertTrue(clientChannel.isOpen());
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSendFileRegionOverKernelTls() throws Throwable {
+        Random random = new Random();
+        byte[] key = new byte[16];
+        byte[] iv = new byte[8];
+        byte[] salt = new byte[4];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        random.nextBytes(salt);
+        // Both sides use the same keys, which is fine as only one direction is used.
+        EpollTlsCryptoInfo info = EpollTlsCryptoInfo.aesGcm128(EpollTlsCryptoInfo.TLS_1_2, key, iv, salt,
+                new byte[8]);
+
+        final byte[] data = new byte[64 * 1024];
+        random.nextBytes(data);
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+
+        final Promise<Channel> accepted = group.next().newPromise();
+        final Promise<byte[]> received = group.next().newPromise();
+        Channel server = null;
+        Channel client = null;
+        try {
+            server = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                    .childHandler(new SimpleChannelInboundHandler<ByteBuf>() {
+                        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                        @Override
+                        public void handlerAdded(ChannelHandlerContext ctx) {
+                            accepted.setSuccess(ctx.channel());
+                        }
+
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+                            msg.readBytes(out, msg.readableBytes());
+                            if (out.size() == data.length) {
+                                received.trySuccess(out.toByteArray());
+                            }
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.tryFailure(cause);
+                        }
+                    }).bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+
+            client = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).sync().channel();
+            EpollSocketChannel child = (EpollSocketChannel) accepted.sync().getNow();
+            EpollSocketChannel clientChannel = (EpollSocketChannel) client;
+
+            try {
+                child.enableKernelTls(null, info).sync();
+            } catch (Throwable cause) {
+                // Most likely the tls kernel module is not available.
+                assertFalse(child.isKernelTlsRx());
+                assumeNoException(cause);
+            }
+            clientChannel.enableKernelTls(info, null).sync();
+            assertTrue(clientChannel.isKernelTlsTx());
+            assertFalse(clientChannel.isKernelTlsRx());
+            assertTrue(child.isKernelTlsRx());
+
+            client.writeAndFlush(new DefaultFileRegion(file, 0, data.length)).sync();
+            assertArrayEquals(data, received.sync().getNow());
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+            file.delete();
+        }
+    }
+}
@@ -18,11 +18,13 @@ package io.netty.channel.epoll;
 import io.netty.bootstrap.AbstractBootstrap;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
 import io.netty.util.NetUtil;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ResourceLeakDetector;
@@ -36,6 +38,9 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -114,6 +119,56 @@ public class EpollReuseAddrTest {
         future2.channel().close().syncUninterruptibly();
     }
 
+    @Test(timeout = 10000)
+    public void testAcceptorPerEventLoop() throws Exception {
+        Assume.assumeTrue(versionEqOrGt(3, 9, 0));
+        final Set<Channel> acceptors = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+        final AtomicBoolean sameEventLoop = new AtomicBoolean(true);
+        EventLoopGroup group = new EpollEventLoopGroup(2);
+        try {
+            ServerBootstrap bootstrap = new ServerBootstrap();
+            bootstrap.group(group)
+                    .channel(EpollServerSocketChannel.class)
+                    .acceptorPerEventLoop(EpollChannelOption.SO_REUSEPORT)
+                    .childHandler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public boolean isSharable() {
+                            return true;
+                        }
+
+                        @Override
+                        public void channelActive(ChannelHandlerContext ctx) {
+                            Channel child = ctx.channel();
+                            if (child.eventLoop() != child.parent().eventLoop()) {
+                                sameEventLoop.set(false);
+                            }
+                            acceptors.add(child.parent());
+                            ctx.close();
+                        }
+                    });
+            Assert.assertTrue(bootstrap.config().isAcceptorPerEventLoop());
+            Channel channel = bootstrap.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0))
+                    .syncUninterruptibly().channel();
+            Assert.assertTrue(channel.config().getOption(EpollChannelOption.SO_REUSEPORT));
+
+            InetSocketAddress address = (InetSocketAddress) channel.localAddress();
+            while (acceptors.size() < 2) {
+                Socket socket = new Socket(address.getAddress(), address.getPort());
+                socket.setReuseAddress(true);
+                socket.close();
+            }
+            Assert.assertTrue(sameEventLoop.get());
+
+            // Closing the first acceptor closes all of them.
+            channel.close().syncUninterruptibly();
+            for (Channel acceptor: acceptors) {
+                acceptor.closeFuture().syncUninterruptibly();
+            }
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
     @Test(timeout = 10000)
     @Ignore // TODO: Unignore after making it pass on centos6-1 and debian7-1
     public void testMultipleBindDatagramChannel() throws Exception {
@@ -15,7 +15,11 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
@@ -25,8 +29,12 @@ import org.junit.Test;
 
 import java.net.InetSocketAddress;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNoException;
 
 public class EpollServerSocketChannelConfigTest {
 
@@ -78,6 +86,75 @@ public class EpollServerSocketChannelConfigTest {
         assertTrue(ch.config().isFreeBind());
     }
 
+    @Test
+    public void testIncomingCpu() {
+        try {
+            ch.config().setIncomingCpu(0);
+        } catch (ChannelException e) {
+            // SO_INCOMING_CPU can only be set on linux 4.4 and later.
+            assumeNoException(e);
+        }
+        assertEquals(0, ch.config().getIncomingCpu());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEpollExclusiveAfterRegister() {
+        ch.config().setEpollExclusive(true);
+    }
+
+    @Test(timeout = 10000)
+    public void testEpollExclusiveAccept() throws Exception {
+        final BlockingQueue<Integer> incomingCpus = new LinkedBlockingQueue<Integer>();
+        Channel serverChannel = new ServerBootstrap().group(group)
+                .channel(EpollServerSocketChannel.class)
+                .option(EpollChannelOption.EPOLL_EXCLUSIVE, true)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelActive(ChannelHandlerContext ctx) {
+                        incomingCpus.add(((EpollSocketChannel) ctx.channel()).config().getIncomingCpu());
+                        ctx.close();
+                    }
+                })
+                .bind(new InetSocketAddress(0)).sync().channel();
+        try {
+            assertTrue(((EpollServerSocketChannel) serverChannel).config().isEpollExclusive());
+            Channel client = new Bootstrap().group(group)
+                    .channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(serverChannel.localAddress()).sync().channel();
+            try {
+                Integer cpu = incomingCpus.poll(5, TimeUnit.SECONDS);
+                assertNotNull(cpu);
+                assertTrue(cpu >= -1);
+            } finally {
+                client.close().sync();
+            }
+        } finally {
+            serverChannel.close().sync();
+        }
+    }
+
+    @Test
+    public void testReusePortCbpf() throws Exception {
+        Channel serverChannel = new ServerBootstrap().group(group)
+                .channel(EpollServerSocketChannel.class)
+                .option(EpollChannelOption.SO_REUSEPORT, true)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress(0)).sync().channel();
+        try {
+            EpollServerSocketChannelConfig config = ((EpollServerSocketChannel) serverChannel).config();
+            try {
+                config.setReusePortCbpfGroupSize(2);
+            } catch (ChannelException e) {
+                // SO_ATTACH_REUSEPORT_CBPF is only supported on linux 4.5 and later.
+                assumeNoException(e);
+            }
+            assertEquals(2, config.getReusePortCbpfGroupSize());
+        } finally {
+            serverChannel.close().sync();
+        }
+    }
+
     @Test
     public void getGetOptions() {
         Map<ChannelOption<?>, Object> map = ch.config().getOptions();
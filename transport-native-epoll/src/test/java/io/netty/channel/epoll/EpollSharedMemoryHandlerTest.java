@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.unix.SharedMemoryHandler;
+import io.netty.channel.unix.tests.UnixTestUtils;
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class EpollSharedMemoryHandlerTest {
+
+    @Test(timeout = 30000)
+    public void testEchoWithSmallRing() throws Throwable {
+        testEcho(4096);
+    }
+
+    @Test(timeout = 30000)
+    public void testEchoWithLargeRing() throws Throwable {
+        testEcho(4 * 1024 * 1024);
+    }
+
+    @Test
+    public void testRejectFileOutsideOfDirectory() throws Exception {
+        assumeTrue(PlatformDependent.hasUnsafe());
+        File directory = File.createTempFile("netty-shm", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        File victim = File.createTempFile("netty-shm-", ".ring");
+        try {
+            testRejectFile(directory, victim);
+            // A path that escapes the directory is rejected as well.
+            testRejectFile(directory, new File(directory, ".." + File.separator + victim.getName()));
+            assertTrue(victim.exists());
+        } finally {
+            victim.delete();
+            directory.delete();
+        }
+    }
+
+    private static void testRejectFile(File directory, File file) throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new SharedMemoryHandler(4096, directory));
+        // Our own handshake.
+        ByteBuf handshake = ch.readOutbound();
+        handshake.release();
+
+        byte[] path = file.getPath().getBytes(CharsetUtil.UTF_8);
+        ByteBuf buf = Unpooled.buffer().writeInt(0x4e53484d).writeInt(path.length).writeBytes(path);
+        try {
+            ch.writeInbound(buf);
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof IOException);
+        }
+        ch.finishAndReleaseAll();
+    }
+
+    private static void testEcho(final int capacity) throws Throwable {
+        assumeTrue(PlatformDependent.hasUnsafe());
+        final File directory = File.createTempFile("netty-shm", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+
+        final byte[] data = new byte[1024 * 1024];
+        ThreadLocalRandom.current().nextBytes(data);
+        final ByteBuf received = Unpooled.buffer(data.length);
+        final EchoClientHandler clientHandler = new EchoClientHandler(received, data.length);
+
+        EventLoopGroup group = new EpollEventLoopGroup(2);
+        try {
+            Channel sc = new ServerBootstrap()
+                    .group(group)
+                    .channel(EpollServerDomainSocketChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new SharedMemoryHandler(capacity, directory));
+                            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                                @Override
+                                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                    ctx.write(msg);
+                                }
+
+                                @Override
+                                public void channelReadComplete(ChannelHandlerContext ctx) {
+                                    ctx.flush();
+                                }
+                            });
+                        }
+                    })
+                    .bind(UnixTestUtils.newSocketAddress()).sync().channel();
+
+            Channel cc = new Bootstrap()
+                    .group(group)
+                    .channel(EpollDomainSocketChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new SharedMemoryHandler(capacity, directory));
+                            ch.pipeline().addLast(clientHandler);
+                        }
+                    })
+                    .connect(sc.localAddress()).sync().channel();
+
+            for (int i = 0; i < data.length; i += 8192) {
+                cc.write(Unpooled.wrappedBuffer(data, i, Math.min(8192, data.length - i)));
+            }
+            cc.flush();
+
+            assertTrue(clientHandler.done.await(20, TimeUnit.SECONDS));
+            byte[] actual = new byte[data.length];
+            received.readBytes(actual);
+            assertArrayEquals(data, actual);
+
+            // The rings are unlinked once the peers acknowledged that they mapped them.
+            while (directory.list().length != 0) {
+                Thread.sleep(10);
+            }
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            received.release();
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+            directory.delete();
+        }
+    }
+
+    private static final class EchoClientHandler extends ChannelInboundHandlerAdapter {
+        final CountDownLatch done = new CountDownLatch(1);
+        private final ByteBuf received;
+        private final int expected;
+
+        EchoClientHandler(ByteBuf received, int expected) {
+            this.received = received;
+            this.expected = expected;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            received.writeBytes(buf);
+            buf.release();
+            if (received.readableBytes() == expected) {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.unix.IovArray;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Promise;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EpollSocketWriteMetricsTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        Epoll.ensureAvailability();
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testIovArrayRemoveBytes() {
+        IovArray array = new IovArray();
+        ByteBuf buf = Unpooled.directBuffer(64).writeZero(64);
+        try {
+            array.add(buf, 0, 10);
+            array.add(buf, 10, 20);
+            array.add(buf, 30, 30);
+            assertEquals(3, array.count());
+            assertEquals(60, array.size());
+
+            array.removeBytes(0);
+            assertEquals(3, array.count());
+            array.removeBytes(15);
+            assertEquals(2, array.count());
+            assertEquals(45, array.size());
+            array.removeBytes(15);
+            assertEquals(1, array.count());
+            assertEquals(30, array.size());
+            array.removeBytes(30);
+            assertEquals(0, array.count());
+            assertEquals(0, array.size());
+        } finally {
+            array.release();
+            buf.release();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testGatheringWriteWithFullSendBuffer() throws Throwable {
+        final Random random = new Random();
+        final ByteBuf[] buffers = new ByteBuf[1024];
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < buffers.length; i++) {
+            byte[] bytes = new byte[1 + random.nextInt(4096)];
+            random.nextBytes(bytes);
+            expected.write(bytes);
+            if (i % 4 == 0) {
+                // Use a CompositeByteBuf from time to time so a single buffer spans multiple iovecs.
+                int half = bytes.length / 2;
+                CompositeByteBuf composite = Unpooled.compositeBuffer();
+                composite.addComponent(true, Unpooled.directBuffer(half).writeBytes(bytes, 0, half));
+                composite.addComponent(true, Unpooled.directBuffer(bytes.length - half)
+                        .writeBytes(bytes, half, bytes.length - half));
+                buffers[i] = composite;
+            } else {
+                buffers[i] = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+            }
+        }
+        final int expectedBytes = expected.size();
+        final Promise<Channel> accepted = group.next().newPromise();
+        final Promise<byte[]> received = group.next().newPromise();
+
+        Channel server = null;
+        Channel client = null;
+        try {
+            server = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                    .childOption(ChannelOption.AUTO_READ, false)
+                    .childOption(ChannelOption.SO_RCVBUF, 8192)
+                    .childHandler(new SimpleChannelInboundHandler<ByteBuf>() {
+                        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                        @Override
+                        public void channelActive(ChannelHandlerContext ctx) {
+                            accepted.setSuccess(ctx.channel());
+                        }
+
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+                            msg.readBytes(out, msg.readableBytes());
+                            if (out.size() == expectedBytes) {
+                                received.trySuccess(out.toByteArray());
+                            }
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.tryFailure(cause);
+                        }
+                    }).bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+
+            client = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .option(ChannelOption.SO_SNDBUF, 8192)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).sync().channel();
+            Channel child = accepted.sync().getNow();
+
+            for (ByteBuf buffer : buffers) {
+                client.write(buffer);
+            }
+            client.flush();
+
+            // Wait until the client could not write more as the peer does not read yet.
+            EpollWriteMetrics metrics = ((EpollSocketChannel) client).writeMetrics();
+            while (metrics.sendBufferFullCount() == 0) {
+                Thread.sleep(10);
+            }
+            child.config().setAutoRead(true);
+
+            assertArrayEquals(expected.toByteArray(), received.sync().getNow());
+            while (metrics.bytesWritten() != expectedBytes) {
+                Thread.sleep(10);
+            }
+            assertTrue(metrics.writeCalls() > metrics.sendBufferFullCount());
+            assertTrue(metrics.epollOutWakeups() > 0);
+            assertTrue(metrics.iovArrayReuses() > 0);
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+        }
+    }
+}
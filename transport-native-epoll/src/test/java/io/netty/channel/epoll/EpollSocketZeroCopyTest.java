@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Promise;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeNoException;
+
+public class EpollSocketZeroCopyTest {
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        Epoll.ensureAvailability();
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSingleWrite() throws Throwable {
+        testZeroCopyWrite(1, 8);
+    }
+
+    @Test(timeout = 10000)
+    public void testGatheringWrite() throws Throwable {
+        testZeroCopyWrite(8, 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWaitsForPendingWrites() throws Throwable {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        new Random().nextBytes(bytes);
+        final Promise<Channel> accepted = group.next().newPromise();
+        final Promise<byte[]> received = group.next().newPromise();
+        final int expectedBytes = bytes.length;
+
+        Channel server = null;
+        Channel client = null;
+        try {
+            server = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                    .childOption(ChannelOption.AUTO_READ, false)
+                    .childHandler(new SimpleChannelInboundHandler<ByteBuf>() {
+                        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                        @Override
+                        public void channelActive(ChannelHandlerContext ctx) {
+                            accepted.setSuccess(ctx.channel());
+                        }
+
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+                            msg.readBytes(out, msg.readableBytes());
+                            if (out.size() == expectedBytes) {
+                                received.trySuccess(out.toByteArray());
+                            }
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.tryFailure(cause);
+                        }
+                    }).bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+
+            client = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).sync().channel();
+            try {
+                ((EpollSocketChannel) client).config().setZeroCopyWriteThreshold(1024);
+            } catch (ChannelException e) {
+                // SO_ZEROCOPY needs linux 4.14+
+                assumeNoException(e);
+            }
+            Channel child = accepted.sync().getNow();
+
+            ByteBuf buffer = Unpooled.directBuffer(BUFFER_SIZE).writeBytes(bytes);
+            client.writeAndFlush(buffer).sync();
+
+            // The peer does not read yet, so the kernel still references the memory of the buffer.
+            ChannelFuture closeFuture = client.close();
+            Thread.sleep(100);
+            assertFalse(closeFuture.isDone());
+            assertEquals(1, buffer.refCnt());
+
+            child.config().setAutoRead(true);
+            assertArrayEquals(bytes, received.sync().getNow());
+            closeFuture.sync();
+            assertEquals(0, buffer.refCnt());
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+        }
+    }
+
+    private static void testZeroCopyWrite(int buffersPerFlush, int flushes) throws Throwable {
+        byte[] bytes = new byte[BUFFER_SIZE * buffersPerFlush * flushes];
+        new Random().nextBytes(bytes);
+        final Promise<byte[]> received = group.next().newPromise();
+        final int expectedBytes = bytes.length;
+
+        Channel server = null;
+        Channel client = null;
+        try {
+            server = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                    .childHandler(new SimpleChannelInboundHandler<ByteBuf>() {
+                        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+                            msg.readBytes(out, msg.readableBytes());
+                            if (out.size() == expectedBytes) {
+                                received.trySuccess(out.toByteArray());
+                            }
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.tryFailure(cause);
+                        }
+                    }).bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+
+            client = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).sync().channel();
+            try {
+                ((EpollSocketChannel) client).config().setZeroCopyWriteThreshold(1024);
+            } catch (ChannelException e) {
+                // SO_ZEROCOPY needs linux 4.14+
+                assumeNoException(e);
+            }
+            assertEquals(1024, (int) client.config().getOption(EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD));
+
+            ByteBuf[] buffers = new ByteBuf[buffersPerFlush * flushes];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = Unpooled.directBuffer(BUFFER_SIZE).writeBytes(bytes, i * BUFFER_SIZE, BUFFER_SIZE);
+            }
+            for (int i = 0; i < buffers.length; i++) {
+                client.write(buffers[i]);
+                if ((i + 1) % buffersPerFlush == 0) {
+                    client.flush();
+                }
+            }
+
+            assertArrayEquals(bytes, received.sync().getNow());
+
+            // The buffers are released once the kernel notified the completion of the writes.
+            for (ByteBuf buffer : buffers) {
+                while (buffer.refCnt() != 0) {
+                    Thread.sleep(10);
+                }
+            }
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+        }
+    }
+}
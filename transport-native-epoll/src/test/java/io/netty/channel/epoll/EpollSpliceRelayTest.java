@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.ClosedChannelException;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EpollSpliceRelayTest {
+    private static final byte[] DATA = new byte[1024 * 1024];
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        Epoll.ensureAvailability();
+        new Random().nextBytes(DATA);
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRelayWithHalfClosure() throws Throwable {
+        final BlockingQueue<Future<Void>> relays = new LinkedBlockingQueue<Future<Void>>();
+        final Promise<byte[]> received = group.next().newPromise();
+        Channel backend = null;
+        Channel proxy = null;
+        Channel client = null;
+        try {
+            backend = startEchoServer();
+            proxy = startProxy(backend, relays, null);
+            client = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .option(ChannelOption.ALLOW_HALF_CLOSURE, true)
+                    .handler(new SimpleChannelInboundHandler<ByteBuf>() {
+                        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+                            msg.readBytes(out, msg.readableBytes());
+                        }
+
+                        @Override
+                        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                            if (evt == ChannelInputShutdownEvent.INSTANCE) {
+                                received.trySuccess(out.toByteArray());
+                            }
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.tryFailure(cause);
+                        }
+                    }).connect(proxy.localAddress()).sync().channel();
+
+            for (int i = 0; i < DATA.length; i += 8192) {
+                client.write(Unpooled.wrappedBuffer(DATA, i, 8192));
+            }
+            client.flush();
+            // Shutting down the output of the client is propagated to the backend, which then shuts down its output.
+            ((EpollSocketChannel) client).shutdownOutput().sync();
+
+            assertArrayEquals(DATA, received.sync().getNow());
+            relays.take().sync();
+        } finally {
+            close(client, proxy, backend);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRelayFailsWhenChannelClosed() throws Throwable {
+        final BlockingQueue<Future<Void>> relays = new LinkedBlockingQueue<Future<Void>>();
+        final BlockingQueue<Channel> backendChannels = new LinkedBlockingQueue<Channel>();
+        Channel backend = null;
+        Channel proxy = null;
+        Channel client = null;
+        try {
+            backend = startEchoServer();
+            proxy = startProxy(backend, relays, backendChannels);
+            client = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(proxy.localAddress()).sync().channel();
+
+            Future<Void> relay = relays.take();
+            backendChannels.take().close().sync();
+            assertFalse(relay.await().isSuccess());
+            assertTrue(relay.cause() instanceof ClosedChannelException);
+            // The relay closes the other channel as well.
+            client.closeFuture().sync();
+        } finally {
+            close(client, proxy, backend);
+        }
+    }
+
+    private static Channel startEchoServer() throws InterruptedException {
+        return new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.ALLOW_HALF_CLOSURE, true)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ctx.write(msg);
+                    }
+
+                    @Override
+                    public void channelReadComplete(ChannelHandlerContext ctx) {
+                        ctx.flush();
+                    }
+
+                    @Override
+                    public void userEventTriggered(final ChannelHandlerContext ctx, Object evt) {
+                        if (evt == ChannelInputShutdownEvent.INSTANCE) {
+                            ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(new ChannelFutureListener() {
+                                @Override
+                                public void operationComplete(ChannelFuture future) {
+                                    ((EpollSocketChannel) ctx.channel()).shutdownOutput();
+                                }
+                            });
+                        }
+                    }
+                }).bind(NetUtil.LOCALHOST4, 0).sync().channel();
+    }
+
+    private static Channel startProxy(final Channel backend, final BlockingQueue<Future<Void>> relays,
+                                      final BlockingQueue<Channel> backendChannels) throws InterruptedException {
+        return new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.AUTO_READ, false)
+                .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelActive(ChannelHandlerContext ctx) {
+                        final EpollSocketChannel frontend = (EpollSocketChannel) ctx.channel();
+                        new Bootstrap().group(frontend.eventLoop()).channel(EpollSocketChannel.class)
+                                .option(ChannelOption.AUTO_READ, false)
+                                .option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED)
+                                .handler(new ChannelInboundHandlerAdapter())
+                                .connect(backend.localAddress()).addListener(new ChannelFutureListener() {
+                                    @Override
+                                    public void operationComplete(ChannelFuture future) {
+                                        if (!future.isSuccess()) {
+                                            frontend.close();
+                                            return;
+                                        }
+                                        EpollSocketChannel channel = (EpollSocketChannel) future.channel();
+                                        if (backendChannels != null) {
+                                            backendChannels.add(channel);
+                                        }
+                                        relays.add(EpollSpliceRelay.relay(frontend, channel));
+                                    }
+                                });
+                    }
+                }).bind(NetUtil.LOCALHOST4, 0).sync().channel();
+    }
+
+    private static void close(Channel... channels) throws InterruptedException {
+        for (Channel channel : channels) {
+            if (channel != null) {
+                channel.close().sync();
+            }
+        }
+    }
+}
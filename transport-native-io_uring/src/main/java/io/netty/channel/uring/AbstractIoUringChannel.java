@@ -0,0 +1,595 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.EventLoop;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Socket;
+import io.netty.channel.unix.UnixChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.AlreadyConnectedException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ConnectionPendingException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.channel.unix.UnixChannelUtil.computeRemoteAddr;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Base class for channels which submit their I/O operations to the io_uring instance of their
+ * {@link IoUringEventLoop}. At most one operation of each kind is in flight at any time, which is tracked in
+ * {@link #ioState}. After the channel was moved to another {@link IoUringEventLoop} the completions of operations
+ * which were submitted to the previous one are handed over to the new one, see
+ * {@link IoUringEventLoop#remove(AbstractIoUringChannel, boolean)}.
+ */
+abstract class AbstractIoUringChannel extends AbstractChannel implements UnixChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    // Bits of ioState
+    static final int READ_SCHEDULED = 1;
+    static final int WRITE_SCHEDULED = 1 << 1;
+    static final int POLL_OUT_SCHEDULED = 1 << 2;
+
+    final Socket socket;
+
+    // Assigned and only accessed by the IoUringEventLoop.
+    int ioId;
+    boolean removalPending;
+
+    int ioState;
+    // The bits of ioState whose operations were submitted to the ring of the current IoUringEventLoop.
+    int loopIoState;
+    private int cancelledIoState;
+
+    /**
+     * The future of the current connection attempt.  If not null, subsequent
+     * connection attempts will fail.
+     */
+    private ChannelPromise connectPromise;
+    private ScheduledFuture<?> connectTimeoutFuture;
+    private SocketAddress requestedRemoteAddress;
+
+    private volatile SocketAddress local;
+    private volatile SocketAddress remote;
+
+    protected volatile boolean active;
+
+    AbstractIoUringChannel(Channel parent, Socket fd, boolean active) {
+        super(parent);
+        socket = checkNotNull(fd, "fd");
+        this.active = active;
+        if (active) {
+            // Directly cache the remote and local addresses
+            // See https://github.com/netty/netty/issues/2359
+            local = fd.localAddress();
+            remote = fd.remoteAddress();
+        }
+    }
+
+    AbstractIoUringChannel(Channel parent, Socket fd, SocketAddress remote) {
+        super(parent);
+        socket = checkNotNull(fd, "fd");
+        active = true;
+        // Directly cache the remote and local addresses
+        // See https://github.com/netty/netty/issues/2359
+        this.remote = remote;
+        local = fd.localAddress();
+    }
+
+    @Override
+    public final FileDescriptor fd() {
+        return socket;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return socket.isOpen();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof IoUringEventLoop;
+    }
+
+    final IoUringSubmissionQueue submissionQueue() {
+        return ((IoUringEventLoop) eventLoop()).submissionQueue();
+    }
+
+    final long userData(byte op) {
+        return IoUringEventLoop.userData(ioId, op, (short) 0);
+    }
+
+    final boolean hasPendingIo() {
+        return ioState != 0;
+    }
+
+    /**
+     * Returns the opcode of the operation which is in flight for the given {@link #ioState} bit.
+     */
+    byte pendingOp(int ioStateBit) {
+        if (ioStateBit == POLL_OUT_SCHEDULED) {
+            return Native.IORING_OP_POLL_ADD;
+        }
+        throw new IllegalArgumentException("ioStateBit: " + ioStateBit);
+    }
+
+    /**
+     * Cancels all operations which were submitted to the ring of the current {@link IoUringEventLoop} and returns
+     * {@code true} if there were any. Their completions will still be received.
+     */
+    final boolean cancelPendingIo(IoUringSubmissionQueue submissionQueue) throws IOException {
+        int toCancel = loopIoState & ~cancelledIoState;
+        for (int bit = 1; toCancel != 0; bit <<= 1) {
+            if ((toCancel & bit) != 0) {
+                cancelIo(submissionQueue, bit);
+                toCancel &= ~bit;
+            }
+        }
+        return loopIoState != 0;
+    }
+
+    /**
+     * Cancels the operation for the given {@link #ioState} bit if it was submitted to the ring of the current
+     * {@link IoUringEventLoop} and was not cancelled yet. Its completion will still be received.
+     */
+    final void cancelIo(IoUringSubmissionQueue submissionQueue, int ioStateBit) throws IOException {
+        if ((loopIoState & ~cancelledIoState & ioStateBit) != 0) {
+            submissionQueue.enqueue(Native.IORING_OP_ASYNC_CANCEL, (short) 0, -1, 0, userData(pendingOp(ioStateBit)),
+                                    0, 0, IoUringEventLoop.CANCEL_USER_DATA);
+            cancelledIoState |= ioStateBit;
+        }
+    }
+
+    final void ioScheduled(int ioStateBit) {
+        ioState |= ioStateBit;
+        loopIoState |= ioStateBit;
+        cancelledIoState &= ~ioStateBit;
+    }
+
+    final void ioCompleted(int ioStateBit) {
+        ioState &= ~ioStateBit;
+        loopIoState &= ~ioStateBit;
+        cancelledIoState &= ~ioStateBit;
+    }
+
+    /**
+     * Called by the {@link IoUringEventLoop} once an operation of this channel completed.
+     */
+    final void complete(byte op, int res, int flags) {
+        try {
+            ((AbstractIoUringUnsafe) unsafe()).complete(op, res, flags);
+        } finally {
+            if (!isOpen() && !hasPendingIo()) {
+                releaseIoResources();
+            }
+        }
+    }
+
+    /**
+     * Releases the resources which are referenced by operations while they are in flight. Called once the channel was
+     * closed and all of its operations completed.
+     */
+    void releaseIoResources() {
+        // NOOP
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        ((IoUringEventLoop) eventLoop()).add(this);
+        if (connectPromise != null && (ioState & POLL_OUT_SCHEDULED) == 0) {
+            // The channel was moved to this EventLoop while connecting.
+            schedulePollOut();
+        }
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        ((IoUringEventLoop) eventLoop()).remove(this, !isOpen());
+    }
+
+    private void removeClosed() throws IOException {
+        IoUringEventLoop loop = (IoUringEventLoop) eventLoop();
+        loop.remove(this, true);
+        // Operations only reference the file once they were submitted. Hand them to the kernel before the file
+        // descriptor is closed, as otherwise they would use whatever file reuses its number.
+        loop.submissionQueue().submit();
+        if (!hasPendingIo()) {
+            releaseIoResources();
+        }
+    }
+
+    @Override
+    protected final void doBeginRead() throws Exception {
+        // Channel.read() or ChannelHandlerContext.read() was called
+        AbstractIoUringUnsafe unsafe = (AbstractIoUringUnsafe) unsafe();
+        unsafe.readPending = true;
+        unsafe.scheduleRead();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        active = false;
+        try {
+            ChannelPromise promise = connectPromise;
+            if (promise != null) {
+                // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+                promise.tryFailure(new ClosedChannelException());
+                connectPromise = null;
+            }
+
+            ScheduledFuture<?> future = connectTimeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+                connectTimeoutFuture = null;
+            }
+
+            if (isRegistered()) {
+                // Cancel all operations, they keep a reference to the file and so would keep the socket open even
+                // after the file descriptor was closed.
+                EventLoop loop = eventLoop();
+                if (loop.inEventLoop()) {
+                    removeClosed();
+                } else {
+                    loop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                removeClosed();
+                            } catch (Throwable cause) {
+                                pipeline().fireExceptionCaught(cause);
+                            }
+                        }
+                    });
+                }
+            } else if (!hasPendingIo()) {
+                releaseIoResources();
+            }
+        } finally {
+            // It is safe to close the file descriptor right away as submitted operations reference the file itself and
+            // completions are mapped by the id of the channel.
+            socket.close();
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the original one.
+     */
+    final ByteBuf newDirectBuffer(ByteBuf buf) {
+        return newDirectBuffer(buf, buf);
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the specified holder.
+     * The caller must ensure that the holder releases the original {@link ByteBuf} when the holder is released by
+     * this method.
+     */
+    final ByteBuf newDirectBuffer(Object holder, ByteBuf buf) {
+        final int readableBytes = buf.readableBytes();
+        if (readableBytes == 0) {
+            ReferenceCountUtil.release(holder);
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        final ByteBufAllocator alloc = alloc();
+        final ByteBuf directBuf;
+        if (alloc.isDirectBufferPooled()) {
+            directBuf = alloc.directBuffer(readableBytes);
+        } else {
+            ByteBuf threadLocalBuf = ByteBufUtil.threadLocalDirectBuffer();
+            directBuf = threadLocalBuf != null ? threadLocalBuf : alloc.directBuffer(readableBytes);
+        }
+        directBuf.writeBytes(buf, buf.readerIndex(), readableBytes);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    protected static void checkResolvable(InetSocketAddress addr) {
+        if (addr.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+    }
+
+    abstract class AbstractIoUringUnsafe extends AbstractUnsafe {
+        boolean readPending;
+
+        /**
+         * Submits a read operation if none is in flight yet.
+         */
+        abstract void scheduleRead();
+
+        /**
+         * Called once an operation of this channel completed.
+         */
+        void complete(byte op, int res, int flags) {
+            if (op == Native.IORING_OP_POLL_ADD) {
+                ioCompleted(POLL_OUT_SCHEDULED);
+                if (connectPromise == null) {
+                    return;
+                }
+                if (res != Native.ERRNO_ECANCELED_NEGATIVE) {
+                    // pending connect which is now complete so handle it.
+                    finishConnect();
+                } else if (isRegistered()) {
+                    // The channel was moved to another EventLoop while connecting, submit the poll there again.
+                    try {
+                        schedulePollOut();
+                    } catch (Throwable cause) {
+                        ChannelPromise promise = connectPromise;
+                        connectPromise = null;
+                        if (connectTimeoutFuture != null) {
+                            connectTimeoutFuture.cancel(false);
+                        }
+                        fulfillConnectPromise(promise, annotateConnectException(cause, requestedRemoteAddress));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                if (connectPromise != null) {
+                    throw new ConnectionPendingException();
+                }
+
+                boolean wasActive = isActive();
+                if (doConnect(remoteAddress, localAddress)) {
+                    fulfillConnectPromise(promise, wasActive);
+                } else {
+                    connectPromise = promise;
+                    requestedRemoteAddress = remoteAddress;
+
+                    // Schedule connect timeout.
+                    int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                    if (connectTimeoutMillis > 0) {
+                        connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                ChannelPromise connectPromise = AbstractIoUringChannel.this.connectPromise;
+                                ConnectTimeoutException cause =
+                                        new ConnectTimeoutException("connection timed out: " + remoteAddress);
+                                if (connectPromise != null && connectPromise.tryFailure(cause)) {
+                                    close(voidPromise());
+                                }
+                            }
+                        }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+
+                    promise.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            if (future.isCancelled()) {
+                                if (connectTimeoutFuture != null) {
+                                    connectTimeoutFuture.cancel(false);
+                                }
+                                connectPromise = null;
+                                close(voidPromise());
+                            }
+                        }
+                    });
+                }
+            } catch (Throwable t) {
+                closeIfClosed();
+                promise.tryFailure(annotateConnectException(t, remoteAddress));
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, boolean wasActive) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+            active = true;
+
+            // Get the state as trySuccess() may trigger an ChannelFutureListener that will close the Channel.
+            // We still need to ensure we call fireChannelActive() in this case.
+            boolean active = isActive();
+
+            // trySuccess() will return false if a user cancelled the connection attempt.
+            boolean promiseSet = promise.trySuccess();
+
+            // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+            // because what happened is what happened.
+            if (!wasActive && active) {
+                pipeline().fireChannelActive();
+            }
+
+            // If a user cancelled the connection attempt, close the channel, which is followed by channelInactive().
+            if (!promiseSet) {
+                close(voidPromise());
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, Throwable cause) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(cause);
+            closeIfClosed();
+        }
+
+        private void finishConnect() {
+            // Note this method is invoked by the event loop only if the connection attempt was
+            // neither cancelled nor timed out.
+
+            assert eventLoop().inEventLoop();
+
+            boolean connectStillInProgress = false;
+            try {
+                boolean wasActive = isActive();
+                if (!doFinishConnect()) {
+                    connectStillInProgress = true;
+                    return;
+                }
+                fulfillConnectPromise(connectPromise, wasActive);
+            } catch (Throwable t) {
+                fulfillConnectPromise(connectPromise, annotateConnectException(t, requestedRemoteAddress));
+            } finally {
+                if (!connectStillInProgress) {
+                    // Check for null as the connectTimeoutFuture is only created if a connectTimeoutMillis > 0 is used
+                    // See https://github.com/netty/netty/issues/1770
+                    if (connectTimeoutFuture != null) {
+                        connectTimeoutFuture.cancel(false);
+                    }
+                    connectPromise = null;
+                }
+            }
+        }
+
+        /**
+         * Finish the connect
+         */
+        private boolean doFinishConnect() throws Exception {
+            if (socket.finishConnect()) {
+                if (requestedRemoteAddress instanceof InetSocketAddress) {
+                    remote = computeRemoteAddr((InetSocketAddress) requestedRemoteAddress, socket.remoteAddress());
+                }
+                requestedRemoteAddress = null;
+                return true;
+            }
+            schedulePollOut();
+            return false;
+        }
+    }
+
+    private void schedulePollOut() throws IOException {
+        submissionQueue().enqueue(Native.IORING_OP_POLL_ADD, (short) 0, socket.intValue(), 0, 0, 0, Native.POLLOUT,
+                                  userData(Native.IORING_OP_POLL_ADD));
+        ioScheduled(POLL_OUT_SCHEDULED);
+    }
+
+    @Override
+    protected void doBind(SocketAddress local) throws Exception {
+        if (local instanceof InetSocketAddress) {
+            checkResolvable((InetSocketAddress) local);
+        }
+        socket.bind(local);
+        this.local = socket.localAddress();
+    }
+
+    /**
+     * Connect to the remote peer
+     */
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress instanceof InetSocketAddress) {
+            checkResolvable((InetSocketAddress) localAddress);
+        }
+
+        InetSocketAddress remoteSocketAddr = remoteAddress instanceof InetSocketAddress
+                ? (InetSocketAddress) remoteAddress : null;
+        if (remoteSocketAddr != null) {
+            checkResolvable(remoteSocketAddr);
+        }
+
+        if (remote != null) {
+            // Check if already connected before trying to connect. This is needed as connect(...) will not return -1
+            // and set errno to EISCONN if a previous connect(...) attempt was setting errno to EINPROGRESS and finished
+            // later.
+            throw new AlreadyConnectedException();
+        }
+
+        if (localAddress != null) {
+            socket.bind(localAddress);
+        }
+
+        boolean connected = doConnect0(remoteAddress);
+        if (connected) {
+            remote = remoteSocketAddr == null ?
+                    remoteAddress : computeRemoteAddr(remoteSocketAddr, socket.remoteAddress());
+        }
+        // We always need to set the localAddress even if not connected yet as the bind already took place.
+        //
+        // See https://github.com/netty/netty/issues/3463
+        local = socket.localAddress();
+        return connected;
+    }
+
+    private boolean doConnect0(SocketAddress remote) throws Exception {
+        boolean success = false;
+        try {
+            // The socket is non-blocking, so we only need to wait until it becomes writable.
+            boolean connected = socket.connect(remote);
+            if (!connected) {
+                schedulePollOut();
+            }
+            success = true;
+            return connected;
+        } finally {
+            if (!success) {
+                doClose();
+            }
+        }
+    }
+
+    /**
+     * Drops the cached remote address and refreshes the local one, for example after a datagram channel was
+     * disconnected.
+     */
+    final void resetCachedAddresses() {
+        local = socket.localAddress();
+        remote = null;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remote;
+    }
+}
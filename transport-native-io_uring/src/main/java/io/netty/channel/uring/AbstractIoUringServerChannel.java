@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.Socket;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.net.SocketAddress;
+
+/**
+ * Base class for {@link ServerChannel}s that use io_uring. Connections are accepted with {@code IORING_OP_ACCEPT},
+ * which is submitted in multishot mode if supported by the kernel (Linux 5.19+) and
+ * {@link ChannelConfig#isAutoRead()} is used, so it only needs to be submitted once.
+ */
+abstract class AbstractIoUringServerChannel extends AbstractIoUringChannel implements ServerChannel {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractIoUringServerChannel.class);
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+
+    // Disabled once the kernel rejects it.
+    private static volatile boolean multishotAccept =
+            SystemPropertyUtil.getBoolean("io.netty.iouring.multishotAccept", true);
+
+    private boolean multishotAcceptScheduled;
+
+    AbstractIoUringServerChannel(Socket fd) {
+        super(null, fd, false);
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return null;
+    }
+
+    /**
+     * Creates the child {@link Channel} for an accepted connection.
+     */
+    abstract Channel newChildChannel(Socket fd) throws Exception;
+
+    @Override
+    protected AbstractIoUringUnsafe newUnsafe() {
+        return new IoUringServerUnsafe();
+    }
+
+    @Override
+    byte pendingOp(int ioStateBit) {
+        return ioStateBit == READ_SCHEDULED ? Native.IORING_OP_ACCEPT : super.pendingOp(ioStateBit);
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    private final class IoUringServerUnsafe extends AbstractIoUringUnsafe {
+
+        @Override
+        public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
+            // Connect not supported by ServerChannel implementations
+            channelPromise.setFailure(new UnsupportedOperationException());
+        }
+
+        @Override
+        void scheduleRead() {
+            if ((ioState & READ_SCHEDULED) != 0 || !isActive()) {
+                return;
+            }
+            // Only use multishot if we want to accept all connections anyway.
+            boolean multishot = multishotAccept && config().isAutoRead();
+            try {
+                submissionQueue().enqueue(Native.IORING_OP_ACCEPT,
+                                          multishot ? Native.IORING_ACCEPT_MULTISHOT : (short) 0,
+                                          socket.intValue(), 0, 0, 0, Native.SOCK_NONBLOCK | Native.SOCK_CLOEXEC,
+                                          userData(Native.IORING_OP_ACCEPT));
+                ioScheduled(READ_SCHEDULED);
+                multishotAcceptScheduled = multishot;
+            } catch (Throwable cause) {
+                pipeline().fireExceptionCaught(cause);
+            }
+        }
+
+        @Override
+        void complete(byte op, int res, int flags) {
+            if (op != Native.IORING_OP_ACCEPT) {
+                super.complete(op, res, flags);
+                return;
+            }
+            boolean more = multishotAcceptScheduled && (flags & Native.IORING_CQE_F_MORE) != 0;
+            if (!more) {
+                ioCompleted(READ_SCHEDULED);
+            }
+            if (!isActive()) {
+                closeAccepted(res);
+                return;
+            }
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The multishot accept was cancelled because auto read was disabled, but read() might have been
+                // called in the meantime.
+                if (readPending && isRegistered()) {
+                    scheduleRead();
+                }
+                return;
+            }
+            if (res == Native.ERRNO_EINVAL_NEGATIVE && multishotAcceptScheduled) {
+                logger.debug("Multishot accept is not supported by the kernel, falling back to single accepts.");
+                multishotAccept = false;
+                scheduleRead();
+                return;
+            }
+
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ChannelPipeline pipeline = pipeline();
+            allocHandle.reset(config());
+            Throwable exception = null;
+            if (res >= 0) {
+                try {
+                    Channel child = newChildChannel(new Socket(res));
+                    allocHandle.incMessagesRead(1);
+                    readPending = false;
+                    pipeline.fireChannelRead(child);
+                } catch (Throwable t) {
+                    exception = t;
+                }
+            } else {
+                exception = Errors.newIOException("accept", res);
+            }
+            allocHandle.readComplete();
+            // This will submit the next accept if auto read is used and no multishot accept is in flight.
+            pipeline.fireChannelReadComplete();
+            if (exception != null) {
+                pipeline.fireExceptionCaught(exception);
+            }
+
+            if (more && !readPending && !config().isAutoRead()) {
+                // Auto read was disabled, stop accepting connections until read() is called.
+                try {
+                    cancelPendingIo(submissionQueue());
+                } catch (Throwable cause) {
+                    pipeline.fireExceptionCaught(cause);
+                }
+            }
+        }
+
+        private void closeAccepted(int fd) {
+            if (fd >= 0) {
+                try {
+                    new Socket(fd).close();
+                } catch (Exception e) {
+                    logger.debug("Failed to close an accepted socket.", e);
+                }
+            }
+        }
+    }
+}
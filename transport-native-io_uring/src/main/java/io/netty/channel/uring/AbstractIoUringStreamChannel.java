@@ -0,0 +1,521 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.socket.ChannelInputShutdownReadComplete;
+import io.netty.channel.socket.DuplexChannel;
+import io.netty.channel.socket.SocketChannelConfig;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.Socket;
+import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.Arrays;
+
+/**
+ * Base class for stream based {@link DuplexChannel}s that use io_uring. Reads are submitted as
+ * {@code IORING_OP_RECV} into a buffer which is owned by the kernel until the operation completes. Flushed buffers are
+ * written directly until the socket is full, the rest is submitted as {@code IORING_OP_WRITE} or
+ * {@code IORING_OP_WRITEV}.
+ */
+abstract class AbstractIoUringStreamChannel extends AbstractIoUringChannel implements DuplexChannel {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractIoUringStreamChannel.class);
+    private static final String EXPECTED_TYPES = " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    // Only accessed from the EventLoop. The buffers are owned by the kernel while the operations are in flight.
+    private ByteBuf readBuffer;
+    private byte writeOp;
+    private ByteBuf[] writeBuffers = new ByteBuf[1];
+    private int writeBufferCount;
+    private IovArray iovArray;
+    private IOException writeError;
+    private boolean inputClosedSeenErrorOnRead;
+
+    private final MessageProcessor writeProcessor = new MessageProcessor() {
+        @Override
+        public boolean processMessage(Object msg) {
+            if (!(msg instanceof ByteBuf)) {
+                return false;
+            }
+            ByteBuf buf = (ByteBuf) msg;
+            int count = iovArray.count();
+            boolean added = iovArray.add(buf);
+            if (iovArray.count() != count) {
+                // The buffer is referenced by the iovecs, so we need to keep it alive.
+                addWriteBuffer(buf);
+            }
+            return added;
+        }
+    };
+
+    AbstractIoUringStreamChannel(Channel parent, Socket fd, boolean active) {
+        super(parent, fd, active);
+    }
+
+    AbstractIoUringStreamChannel(Channel parent, Socket fd, SocketAddress remoteAddress) {
+        super(parent, fd, remoteAddress);
+    }
+
+    @Override
+    protected AbstractIoUringUnsafe newUnsafe() {
+        return new IoUringStreamUnsafe();
+    }
+
+    @Override
+    byte pendingOp(int ioStateBit) {
+        switch (ioStateBit) {
+            case READ_SCHEDULED:
+                return Native.IORING_OP_RECV;
+            case WRITE_SCHEDULED:
+                return writeOp;
+            default:
+                return super.pendingOp(ioStateBit);
+        }
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            return UnixChannelUtil.isBufferCopyNeededForWrite(buf)? newDirectBuffer(buf): buf;
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if ((ioState & WRITE_SCHEDULED) != 0) {
+            // The completion of the write which is in flight will trigger the next one.
+            return;
+        }
+        IOException error = writeError;
+        if (error != null) {
+            writeError = null;
+            throw error;
+        }
+
+        // Write directly as long as the socket accepts all data, like the other transports do, so the result of a
+        // flush is known right away. Only once it is full the kernel completes the write when there is space again.
+        boolean writeDirectly = true;
+        for (;;) {
+            int msgCount = in.size();
+            if (msgCount == 0) {
+                return;
+            }
+            if (msgCount == 1) {
+                ByteBuf buf = (ByteBuf) in.current();
+                int readableBytes = buf.readableBytes();
+                if (readableBytes == 0) {
+                    in.remove();
+                    continue;
+                }
+                if (buf.hasMemoryAddress()) {
+                    if (writeDirectly) {
+                        int written = socket.writeAddress(buf.memoryAddress(), buf.readerIndex(), buf.writerIndex());
+                        in.removeBytes(written);
+                        writeDirectly = written == readableBytes;
+                        continue;
+                    }
+                    addWriteBuffer(buf);
+                    scheduleWrite(Native.IORING_OP_WRITE, buf.memoryAddress() + buf.readerIndex(), readableBytes);
+                    return;
+                }
+            }
+
+            IovArray array = iovArray;
+            if (array == null) {
+                iovArray = array = new IovArray();
+            } else {
+                array.clear();
+            }
+            in.forEachFlushedMessage(writeProcessor);
+            if (array.count() == 0) {
+                // Only empty buffers were flushed.
+                releaseWriteBuffers();
+                in.removeBytes(0);
+                continue;
+            }
+            if (writeDirectly) {
+                long written;
+                try {
+                    written = socket.writevAddresses(array.memoryAddress(0), array.count());
+                } finally {
+                    releaseWriteBuffers();
+                }
+                in.removeBytes(written);
+                writeDirectly = written == array.size();
+                continue;
+            }
+            scheduleWrite(Native.IORING_OP_WRITEV, array.memoryAddress(0), array.count());
+            return;
+        }
+    }
+
+    private void scheduleWrite(byte op, long address, int len) throws IOException {
+        writeOp = op;
+        submissionQueue().enqueue(op, (short) 0, socket.intValue(), 0, address, len, 0, userData(op));
+        ioScheduled(WRITE_SCHEDULED);
+    }
+
+    private void addWriteBuffer(ByteBuf buf) {
+        if (writeBufferCount == writeBuffers.length) {
+            writeBuffers = Arrays.copyOf(writeBuffers, writeBufferCount << 1);
+        }
+        writeBuffers[writeBufferCount++] = buf.retain();
+    }
+
+    private void releaseWriteBuffers() {
+        for (int i = 0; i < writeBufferCount; i++) {
+            writeBuffers[i].release();
+            writeBuffers[i] = null;
+        }
+        writeBufferCount = 0;
+    }
+
+    @Override
+    void releaseIoResources() {
+        if (iovArray != null) {
+            iovArray.release();
+            iovArray = null;
+        }
+    }
+
+    @UnstableApi
+    @Override
+    protected void doShutdownOutput() throws Exception {
+        socket.shutdown(false, true);
+    }
+
+    private void shutdownInput0(final ChannelPromise promise) {
+        try {
+            socket.shutdown(true, false);
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return socket.isOutputShutdown();
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return socket.isInputShutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return socket.isShutdown();
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+                }
+            });
+        }
+
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdownInput() {
+        return shutdownInput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownInput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            shutdownInput0(promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    shutdownInput0(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdown() {
+        return shutdown(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdown(final ChannelPromise promise) {
+        ChannelFuture shutdownOutputFuture = shutdownOutput();
+        if (shutdownOutputFuture.isDone()) {
+            shutdownOutputDone(shutdownOutputFuture, promise);
+        } else {
+            shutdownOutputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(final ChannelFuture shutdownOutputFuture) throws Exception {
+                    shutdownOutputDone(shutdownOutputFuture, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void shutdownOutputDone(final ChannelFuture shutdownOutputFuture, final ChannelPromise promise) {
+        ChannelFuture shutdownInputFuture = shutdownInput();
+        if (shutdownInputFuture.isDone()) {
+            shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+        } else {
+            shutdownInputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture shutdownInputFuture) throws Exception {
+                    shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+                }
+            });
+        }
+    }
+
+    private static boolean isAllowHalfClosure(ChannelConfig config) {
+        if (config instanceof IoUringDomainSocketChannelConfig) {
+            return ((IoUringDomainSocketChannelConfig) config).isAllowHalfClosure();
+        }
+        return config instanceof SocketChannelConfig && ((SocketChannelConfig) config).isAllowHalfClosure();
+    }
+
+    private static void shutdownDone(ChannelFuture shutdownOutputFuture,
+                              ChannelFuture shutdownInputFuture,
+                              ChannelPromise promise) {
+        Throwable shutdownOutputCause = shutdownOutputFuture.cause();
+        Throwable shutdownInputCause = shutdownInputFuture.cause();
+        if (shutdownOutputCause != null) {
+            if (shutdownInputCause != null) {
+                logger.debug("Exception suppressed because a previous exception occurred.",
+                        shutdownInputCause);
+            }
+            promise.setFailure(shutdownOutputCause);
+        } else if (shutdownInputCause != null) {
+            promise.setFailure(shutdownInputCause);
+        } else {
+            promise.setSuccess();
+        }
+    }
+
+    private final class IoUringStreamUnsafe extends AbstractIoUringUnsafe {
+        // Set while channelRead(...) is fired, the read loop decides itself which read to submit next.
+        private boolean readInProgress;
+
+        @Override
+        void scheduleRead() {
+            if ((ioState & READ_SCHEDULED) != 0 || readInProgress || !isActive() || shouldBreakReadReady()) {
+                return;
+            }
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            allocHandle.reset(config());
+            submitRead(allocHandle, 0);
+        }
+
+        /**
+         * Submits the next read of the current read loop. Only the first read of a read loop waits for data, all
+         * following ones use {@code MSG_DONTWAIT} so {@link ChannelPipeline#fireChannelReadComplete()} is not delayed.
+         */
+        private void submitRead(RecvByteBufAllocator.Handle allocHandle, int msgFlags) {
+            // The kernel writes directly into the memory of the buffer, so it must be a direct one.
+            ByteBuf buf = alloc().directBuffer(allocHandle.guess());
+            try {
+                allocHandle.attemptedBytesRead(buf.writableBytes());
+                submissionQueue().enqueue(Native.IORING_OP_RECV, (short) 0, socket.intValue(), 0,
+                                          buf.memoryAddress() + buf.writerIndex(), buf.writableBytes(), msgFlags,
+                                          userData(Native.IORING_OP_RECV));
+                readBuffer = buf;
+                ioScheduled(READ_SCHEDULED);
+            } catch (Throwable cause) {
+                buf.release();
+                pipeline().fireExceptionCaught(cause);
+                close(voidPromise());
+            }
+        }
+
+        @Override
+        void complete(byte op, int res, int flags) {
+            if (op == Native.IORING_OP_RECV) {
+                readComplete(res);
+            } else if (op == Native.IORING_OP_WRITE || op == Native.IORING_OP_WRITEV) {
+                writeComplete(res);
+            } else {
+                super.complete(op, res, flags);
+            }
+        }
+
+        private void readComplete(int res) {
+            ioCompleted(READ_SCHEDULED);
+            ByteBuf buf = readBuffer;
+            readBuffer = null;
+            if (!isActive() || res == Native.ERRNO_ECANCELED_NEGATIVE || shouldBreakReadReady()) {
+                buf.release();
+                if (readPending && isActive() && isRegistered()) {
+                    // The read was cancelled as the channel was moved to another EventLoop, submit it there again.
+                    scheduleRead();
+                }
+                return;
+            }
+
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ChannelPipeline pipeline = pipeline();
+            if (res == Native.ERRNO_EAGAIN_NEGATIVE) {
+                // No more data for now, the read loop is done.
+                buf.release();
+                allocHandle.lastBytesRead(0);
+                readLoopComplete(allocHandle);
+            } else if (res > 0) {
+                buf.writerIndex(buf.writerIndex() + res);
+                allocHandle.lastBytesRead(res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                readInProgress = true;
+                try {
+                    pipeline.fireChannelRead(buf);
+                } finally {
+                    readInProgress = false;
+                }
+                if (allocHandle.continueReading() && isActive() && isRegistered()) {
+                    submitRead(allocHandle, Native.MSG_DONTWAIT);
+                } else {
+                    readLoopComplete(allocHandle);
+                }
+            } else {
+                buf.release();
+                allocHandle.lastBytesRead(res == 0 ? -1 : 0);
+                readPending = false;
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+                if (res == 0) {
+                    shutdownInput();
+                } else {
+                    pipeline.fireExceptionCaught(Errors.newIOException("recv", res));
+                    close(voidPromise());
+                }
+            }
+        }
+
+        /**
+         * Returns {@code true} if the input was shutdown and {@link ChannelInputShutdownReadComplete} was fired
+         * already, or if half closure is not allowed. As a read may be submitted before the end of the input is seen
+         * this is checked again once it completes.
+         */
+        private boolean shouldBreakReadReady() {
+            return socket.isInputShutdown() && (inputClosedSeenErrorOnRead || !isAllowHalfClosure(config()));
+        }
+
+        private void readLoopComplete(RecvByteBufAllocator.Handle allocHandle) {
+            allocHandle.readComplete();
+            // This will submit the next read if auto read is used.
+            pipeline().fireChannelReadComplete();
+            if (readPending) {
+                // read() was called while the last read of the loop was in flight.
+                scheduleRead();
+            }
+        }
+
+        private void shutdownInput() {
+            if (!socket.isInputShutdown()) {
+                if (isAllowHalfClosure(config())) {
+                    try {
+                        socket.shutdown(true, false);
+                    } catch (IOException ignored) {
+                        // We attempted to shutdown and failed, which means the input has already effectively been
+                        // shutdown.
+                        pipeline().fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                        close(voidPromise());
+                        return;
+                    }
+                    pipeline().fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                } else {
+                    close(voidPromise());
+                }
+            } else {
+                inputClosedSeenErrorOnRead = true;
+                pipeline().fireUserEventTriggered(ChannelInputShutdownReadComplete.INSTANCE);
+            }
+        }
+
+        private void writeComplete(int res) {
+            ioCompleted(WRITE_SCHEDULED);
+            releaseWriteBuffers();
+            if (!isOpen()) {
+                return;
+            }
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                if (isRegistered()) {
+                    // The write was cancelled as the channel was moved to another EventLoop, submit it there again.
+                    super.flush0();
+                }
+                return;
+            }
+            if (res >= 0) {
+                ChannelOutboundBuffer in = outboundBuffer();
+                if (in != null) {
+                    in.removeBytes(res);
+                }
+            } else {
+                // Let flush0() handle the error as for any other failed write.
+                writeError = Errors.newIOException(writeOp == Native.IORING_OP_WRITE ? "write" : "writev", res);
+            }
+            super.flush0();
+        }
+
+        @Override
+        protected void flush0() {
+            // Flush immediately only when there's no write in flight.
+            // Otherwise its completion will trigger the next write.
+            if ((ioState & WRITE_SCHEDULED) == 0) {
+                super.flush0();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * The completion queue of an {@link IoUringRing}.
+ * <p>
+ * This class is not thread-safe and must only be used from the {@link IoUringEventLoop}.
+ */
+final class IoUringCompletionQueue {
+    private static final int CQE_SIZE = 16;
+
+    // Offsets of the fields in struct io_uring_cqe
+    private static final int CQE_USER_DATA_FIELD = 0;
+    private static final int CQE_RES_FIELD = 8;
+    private static final int CQE_FLAGS_FIELD = 12;
+
+    /**
+     * Callback which is notified about each completion.
+     */
+    interface CompletionCallback {
+        void handle(long userData, int res, int flags);
+    }
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final int ringMask;
+    private final long cqesAddress;
+
+    IoUringCompletionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long cqesAddress) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.cqesAddress = cqesAddress;
+        ringMask = PlatformDependent.getInt(kRingMaskAddress);
+    }
+
+    boolean hasCompletions() {
+        // Only we update the head so there is no need to use a volatile read for it.
+        return PlatformDependent.getInt(kHeadAddress) != PlatformDependent.getIntVolatile(kTailAddress);
+    }
+
+    /**
+     * Notifies the given {@link CompletionCallback} about all available completions and returns how many were
+     * processed.
+     */
+    int process(CompletionCallback callback) {
+        int head = PlatformDependent.getInt(kHeadAddress);
+        int tail = PlatformDependent.getIntVolatile(kTailAddress);
+        int processed = 0;
+        while (head != tail) {
+            long cqe = cqesAddress + (long) (head & ringMask) * CQE_SIZE;
+            long userData = PlatformDependent.getLong(cqe + CQE_USER_DATA_FIELD);
+            int res = PlatformDependent.getInt(cqe + CQE_RES_FIELD);
+            int flags = PlatformDependent.getInt(cqe + CQE_FLAGS_FIELD);
+
+            // Release the entry before the callback is notified, so the kernel can reuse it right away.
+            PlatformDependent.putIntOrdered(kHeadAddress, ++head);
+            callback.handle(userData, res, flags);
+            processed++;
+
+            if (head == tail) {
+                // Pick up completions which were added in the meantime.
+                tail = PlatformDependent.getIntVolatile(kTailAddress);
+            }
+        }
+        return processed;
+    }
+}
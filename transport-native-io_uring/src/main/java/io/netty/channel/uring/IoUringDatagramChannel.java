@@ -0,0 +1,707 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultAddressedEnvelope;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.Socket;
+import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.net.SocketException;
+
+/**
+ * {@link DatagramChannel} implementation that uses io_uring. Datagrams are received with {@code IORING_OP_RECVMSG},
+ * which is submitted in multishot mode if supported by the kernel (Linux 6.0+) so it only needs to be submitted once
+ * while reading. The kernel picks one of the buffers which are shared by all channels of the {@link IoUringEventLoop}
+ * for each datagram, datagrams which are larger than {@code io.netty.iouring.recvBufferSize} are truncated.
+ * Datagrams are sent directly as long as the socket accepts them, the rest is submitted as
+ * {@code IORING_OP_SENDMSG}.
+ * <p>
+ * Multicast is not supported.
+ */
+@UnstableApi
+public final class IoUringDatagramChannel extends AbstractIoUringChannel implements DatagramChannel {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IoUringDatagramChannel.class);
+    private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(DatagramPacket.class) + ", " +
+                    StringUtil.simpleClassName(AddressedEnvelope.class) + '<' +
+                    StringUtil.simpleClassName(ByteBuf.class) + ", " +
+                    StringUtil.simpleClassName(InetSocketAddress.class) + ">, " +
+                    StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    // Disabled once the kernel rejects it.
+    private static volatile boolean multishotRecv =
+            SystemPropertyUtil.getBoolean("io.netty.iouring.multishotRecv", true);
+
+    // Layout of struct io_uring_recvmsg_out, which is stored in front of the data by multishot receives.
+    private static final int RECVMSG_OUT_NAMELEN_FIELD = 0;
+    private static final int RECVMSG_OUT_PAYLOADLEN_FIELD = 8;
+    private static final int RECVMSG_OUT_SIZE = 16;
+    // The address of the sender follows the header, it always takes the space we reserve for it.
+    static final int RECVMSG_PREFIX_SIZE = RECVMSG_OUT_SIZE + SockaddrIn.SOCKADDR_IN6_SIZE;
+
+    // Layout of struct msghdr and struct iovec
+    private static final int MSGHDR_NAME_FIELD = 0;
+    private static final int MSGHDR_NAMELEN_FIELD = 8;
+    private static final int MSGHDR_IOV_FIELD = 16;
+    private static final int MSGHDR_IOVLEN_FIELD = 24;
+    private static final int MSGHDR_SIZE = 56;
+    private static final int SOCKADDR_STORAGE_SIZE = 32;
+
+    // Layout of the memory of each channel, which is referenced by its operations while they are in flight.
+    private static final int RECV_MSGHDR_OFFSET = 0;
+    private static final int RECV_NAME_OFFSET = RECV_MSGHDR_OFFSET + MSGHDR_SIZE;
+    private static final int SEND_MSGHDR_OFFSET = RECV_NAME_OFFSET + SOCKADDR_STORAGE_SIZE;
+    private static final int SEND_NAME_OFFSET = SEND_MSGHDR_OFFSET + MSGHDR_SIZE;
+    private static final int MEMORY_SIZE = SEND_NAME_OFFSET + SOCKADDR_STORAGE_SIZE;
+
+    private final IoUringDatagramChannelConfig config;
+    private final boolean ipv6;
+    private volatile boolean connected;
+
+    // Only accessed from the EventLoop. The memory and the buffer are owned by the kernel while operations are in
+    // flight.
+    private long memoryAddress;
+    private boolean multishotRecvScheduled;
+    private ByteBuf writeBuffer;
+    private IovArray iovArray;
+
+    public IoUringDatagramChannel() {
+        super(null, Socket.newSocketDgram(), false);
+        // Socket.newSocketDgram() uses the preferred protocol family.
+        ipv6 = Socket.isIPv6Preferred();
+        config = new IoUringDatagramChannelConfig(this);
+        memoryAddress = PlatformDependent.allocateMemory(MEMORY_SIZE);
+        PlatformDependent.setMemory(memoryAddress, MEMORY_SIZE, (byte) 0);
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean isActive() {
+        return socket.isOpen() && (config.getActiveOnOpen() && isRegistered() || active);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public IoUringDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return joinGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return joinGroup(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    null, promise);
+        } catch (SocketException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return joinGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface,
+            ChannelPromise promise) {
+        return joinGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return joinGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress source, final ChannelPromise promise) {
+
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return leaveGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return leaveGroup(
+                    multicastAddress, NetworkInterface.getByInetAddress(localAddress().getAddress()), null, promise);
+        } catch (SocketException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return leaveGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress,
+            NetworkInterface networkInterface, ChannelPromise promise) {
+        return leaveGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return leaveGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface, final InetAddress source,
+            final ChannelPromise promise) {
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock) {
+        return block(multicastAddress, networkInterface, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress sourceToBlock, final ChannelPromise promise) {
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+        if (sourceToBlock == null) {
+            throw new NullPointerException("sourceToBlock");
+        }
+
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return block(multicastAddress, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, InetAddress sourceToBlock, ChannelPromise promise) {
+        try {
+            return block(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    sourceToBlock, promise);
+        } catch (Throwable e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    protected AbstractIoUringUnsafe newUnsafe() {
+        return new IoUringDatagramUnsafe();
+    }
+
+    @Override
+    byte pendingOp(int ioStateBit) {
+        switch (ioStateBit) {
+            case READ_SCHEDULED:
+                return Native.IORING_OP_RECVMSG;
+            case WRITE_SCHEDULED:
+                return Native.IORING_OP_SENDMSG;
+            default:
+                return super.pendingOp(ioStateBit);
+        }
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        super.doBind(localAddress);
+        active = true;
+    }
+
+    @Override
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (super.doConnect(remoteAddress, localAddress)) {
+            connected = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        socket.disconnect();
+        connected = active = false;
+        resetCachedAddresses();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        super.doClose();
+        connected = false;
+    }
+
+    @Override
+    void releaseIoResources() {
+        if (iovArray != null) {
+            iovArray.release();
+            iovArray = null;
+        }
+        if (memoryAddress != 0) {
+            PlatformDependent.freeMemory(memoryAddress);
+            memoryAddress = 0;
+        }
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof DatagramPacket) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            ByteBuf content = packet.content();
+            return UnixChannelUtil.isBufferCopyNeededForWrite(content)?
+                    new DatagramPacket(newDirectBuffer(packet, content), packet.recipient()) : msg;
+        }
+
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            return UnixChannelUtil.isBufferCopyNeededForWrite(buf)? newDirectBuffer(buf) : buf;
+        }
+
+        if (msg instanceof AddressedEnvelope) {
+            @SuppressWarnings("unchecked")
+            AddressedEnvelope<Object, SocketAddress> e = (AddressedEnvelope<Object, SocketAddress>) msg;
+            if (e.content() instanceof ByteBuf &&
+                    (e.recipient() == null || e.recipient() instanceof InetSocketAddress)) {
+
+                ByteBuf content = (ByteBuf) e.content();
+                return UnixChannelUtil.isBufferCopyNeededForWrite(content)?
+                        new DefaultAddressedEnvelope<ByteBuf, InetSocketAddress>(
+                                newDirectBuffer(e, content), (InetSocketAddress) e.recipient()) : e;
+            }
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if ((ioState & WRITE_SCHEDULED) != 0) {
+            // The completion of the write which is in flight will trigger the next one.
+            return;
+        }
+
+        // Send directly as long as the socket accepts the datagrams, like the other transports do, so the result of a
+        // flush is known right away. Only once it is full the kernel completes the send when there is space again.
+        boolean writeDirectly = true;
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                return;
+            }
+
+            final ByteBuf data;
+            final InetSocketAddress remoteAddress;
+            if (msg instanceof AddressedEnvelope) {
+                @SuppressWarnings("unchecked")
+                AddressedEnvelope<ByteBuf, InetSocketAddress> envelope =
+                        (AddressedEnvelope<ByteBuf, InetSocketAddress>) msg;
+                data = envelope.content();
+                remoteAddress = envelope.recipient();
+            } else {
+                data = (ByteBuf) msg;
+                remoteAddress = null;
+            }
+            if (data.readableBytes() == 0) {
+                in.remove();
+                continue;
+            }
+
+            try {
+                if (writeDirectly) {
+                    if (doWriteMessage(data, remoteAddress)) {
+                        in.remove();
+                    } else {
+                        writeDirectly = false;
+                    }
+                    continue;
+                }
+                scheduleSend(data, remoteAddress);
+                return;
+            } catch (IOException e) {
+                // Continue on write error as a DatagramChannel can write to multiple remote peers
+                //
+                // See https://github.com/netty/netty/issues/2665
+                in.remove(e);
+            }
+        }
+    }
+
+    private boolean doWriteMessage(ByteBuf data, InetSocketAddress remoteAddress) throws IOException {
+        final long writtenBytes;
+        if (data.hasMemoryAddress()) {
+            long memoryAddress = data.memoryAddress();
+            if (remoteAddress == null) {
+                writtenBytes = socket.writeAddress(memoryAddress, data.readerIndex(), data.writerIndex());
+            } else {
+                writtenBytes = socket.sendToAddress(memoryAddress, data.readerIndex(), data.writerIndex(),
+                        remoteAddress.getAddress(), remoteAddress.getPort());
+            }
+        } else {
+            IovArray array = cleanIovArray();
+            array.add(data);
+            int cnt = array.count();
+            assert cnt != 0;
+
+            if (remoteAddress == null) {
+                writtenBytes = socket.writevAddresses(array.memoryAddress(0), cnt);
+            } else {
+                writtenBytes = socket.sendToAddresses(array.memoryAddress(0), cnt,
+                        remoteAddress.getAddress(), remoteAddress.getPort());
+            }
+        }
+
+        return writtenBytes > 0;
+    }
+
+    private void scheduleSend(ByteBuf data, InetSocketAddress remoteAddress) throws IOException {
+        long msghdr = memoryAddress + SEND_MSGHDR_OFFSET;
+        if (remoteAddress == null) {
+            PlatformDependent.putLong(msghdr + MSGHDR_NAME_FIELD, 0);
+            PlatformDependent.putInt(msghdr + MSGHDR_NAMELEN_FIELD, 0);
+        } else {
+            long name = memoryAddress + SEND_NAME_OFFSET;
+            int nameLen;
+            try {
+                nameLen = SockaddrIn.write(ipv6, name, remoteAddress);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            PlatformDependent.putLong(msghdr + MSGHDR_NAME_FIELD, name);
+            PlatformDependent.putInt(msghdr + MSGHDR_NAMELEN_FIELD, nameLen);
+        }
+        IovArray array = cleanIovArray();
+        array.add(data);
+        PlatformDependent.putLong(msghdr + MSGHDR_IOV_FIELD, array.memoryAddress(0));
+        PlatformDependent.putLong(msghdr + MSGHDR_IOVLEN_FIELD, array.count());
+
+        submissionQueue().enqueue(Native.IORING_OP_SENDMSG, (short) 0, socket.intValue(), 0, msghdr, 1, 0,
+                                  userData(Native.IORING_OP_SENDMSG));
+        writeBuffer = data.retain();
+        ioScheduled(WRITE_SCHEDULED);
+    }
+
+    private IovArray cleanIovArray() {
+        IovArray array = iovArray;
+        if (array == null) {
+            iovArray = array = new IovArray();
+        } else {
+            array.clear();
+        }
+        return array;
+    }
+
+    private final class IoUringDatagramUnsafe extends AbstractIoUringUnsafe {
+
+        @Override
+        void scheduleRead() {
+            if ((ioState & READ_SCHEDULED) != 0 || !isActive()) {
+                return;
+            }
+            boolean multishot = multishotRecv;
+            try {
+                IoUringProvidedBuffers buffers = ((IoUringEventLoop) eventLoop()).recvBuffers();
+                long msghdr = memoryAddress + RECV_MSGHDR_OFFSET;
+                // The kernel updates the length once an address was received by a single receive.
+                PlatformDependent.putLong(msghdr + MSGHDR_NAME_FIELD, memoryAddress + RECV_NAME_OFFSET);
+                PlatformDependent.putInt(msghdr + MSGHDR_NAMELEN_FIELD, SockaddrIn.SOCKADDR_IN6_SIZE);
+                // The data is received into a provided buffer, so no iovec is used.
+                PlatformDependent.putLong(msghdr + MSGHDR_IOV_FIELD, 0);
+                PlatformDependent.putLong(msghdr + MSGHDR_IOVLEN_FIELD, 0);
+                submissionQueue().enqueue(Native.IORING_OP_RECVMSG, Native.IOSQE_BUFFER_SELECT,
+                                          multishot ? Native.IORING_RECV_MULTISHOT : (short) 0,
+                                          socket.intValue(), 0, msghdr, 1, 0, userData(Native.IORING_OP_RECVMSG),
+                                          IoUringProvidedBuffers.GROUP);
+                ioScheduled(READ_SCHEDULED);
+                multishotRecvScheduled = multishot;
+            } catch (Throwable cause) {
+                pipeline().fireExceptionCaught(cause);
+            }
+        }
+
+        @Override
+        void complete(byte op, int res, int flags) {
+            if (op == Native.IORING_OP_RECVMSG) {
+                readComplete(res, flags);
+            } else if (op == Native.IORING_OP_SENDMSG) {
+                writeComplete(res);
+            } else {
+                super.complete(op, res, flags);
+            }
+        }
+
+        private void readComplete(int res, int flags) {
+            boolean more = multishotRecvScheduled && (flags & Native.IORING_CQE_F_MORE) != 0;
+            if (!more) {
+                ioCompleted(READ_SCHEDULED);
+            }
+
+            DatagramPacket packet = null;
+            Throwable exception = null;
+            if ((flags & Native.IORING_CQE_F_BUFFER) != 0) {
+                IoUringProvidedBuffers buffers = null;
+                int id = flags >>> Native.IORING_CQE_BUFFER_SHIFT;
+                try {
+                    buffers = ((IoUringEventLoop) eventLoop()).recvBuffers();
+                    if (res >= 0 && isActive()) {
+                        packet = newDatagramPacket(buffers.address(id), res);
+                    }
+                } catch (Throwable t) {
+                    exception = t;
+                } finally {
+                    if (buffers != null) {
+                        try {
+                            buffers.recycle(id);
+                        } catch (IOException e) {
+                            logger.debug("Failed to hand a buffer back to the kernel.", e);
+                        }
+                    }
+                }
+            }
+
+            if (!isActive()) {
+                if (packet != null) {
+                    packet.release();
+                }
+                return;
+            }
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The receive was cancelled because auto read was disabled or the channel was moved to another
+                // EventLoop, but read() might have been called in the meantime.
+                if (readPending && isRegistered()) {
+                    scheduleRead();
+                }
+                return;
+            }
+            if (res == Native.ERRNO_EINVAL_NEGATIVE && multishotRecvScheduled) {
+                logger.debug("Multishot receive is not supported by the kernel, falling back to single receives.");
+                multishotRecv = false;
+                scheduleRead();
+                return;
+            }
+            if (res == Native.ERRNO_ENOBUFS_NEGATIVE) {
+                // All provided buffers were in use, they are handed back to the kernel before the receive is
+                // submitted again.
+                if (!more && (readPending || config().isAutoRead())) {
+                    scheduleRead();
+                }
+                return;
+            }
+            if (res < 0 && exception == null) {
+                exception = newReceiveException(res);
+            }
+
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ChannelPipeline pipeline = pipeline();
+            allocHandle.reset(config());
+            if (packet != null) {
+                allocHandle.lastBytesRead(packet.content().readableBytes());
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                pipeline.fireChannelRead(packet);
+            }
+            allocHandle.readComplete();
+            // This will submit the next receive if auto read is used and no multishot receive is in flight.
+            pipeline.fireChannelReadComplete();
+            if (exception != null) {
+                pipeline.fireExceptionCaught(exception);
+            }
+
+            if (more && !readPending && !config().isAutoRead()) {
+                // Auto read was disabled, stop receiving until read() is called.
+                try {
+                    cancelIo(submissionQueue(), READ_SCHEDULED);
+                } catch (Throwable cause) {
+                    pipeline.fireExceptionCaught(cause);
+                }
+            } else if (readPending && isActive() && isRegistered()) {
+                // read() was called while the receive was in flight or the multishot receive ended.
+                scheduleRead();
+            }
+        }
+
+        private DatagramPacket newDatagramPacket(long bufferAddress, int res) throws IOException {
+            final long nameAddress;
+            final long dataAddress;
+            final int dataLen;
+            if (multishotRecvScheduled) {
+                // The header is followed by the address of the sender and the (possibly truncated) data.
+                int nameLen = PlatformDependent.getInt(bufferAddress + RECVMSG_OUT_NAMELEN_FIELD);
+                if (nameLen == 0) {
+                    throw new IOException("received a datagram without the address of the sender");
+                }
+                nameAddress = bufferAddress + RECVMSG_OUT_SIZE;
+                dataAddress = bufferAddress + RECVMSG_PREFIX_SIZE;
+                dataLen = Math.min(PlatformDependent.getInt(bufferAddress + RECVMSG_OUT_PAYLOADLEN_FIELD),
+                                   res - RECVMSG_PREFIX_SIZE);
+            } else {
+                nameAddress = memoryAddress + RECV_NAME_OFFSET;
+                dataAddress = bufferAddress;
+                dataLen = res;
+            }
+            InetSocketAddress sender = SockaddrIn.read(nameAddress);
+            ByteBuf buf = alloc().ioBuffer(dataLen);
+            if (buf.hasMemoryAddress()) {
+                PlatformDependent.copyMemory(dataAddress, buf.memoryAddress() + buf.writerIndex(), dataLen);
+                buf.writerIndex(buf.writerIndex() + dataLen);
+            } else {
+                byte[] data = new byte[dataLen];
+                PlatformDependent.copyMemory(dataAddress, data, 0, dataLen);
+                buf.writeBytes(data);
+            }
+            return new DatagramPacket(buf, IoUringDatagramChannel.this.localAddress(), sender);
+        }
+
+        private IOException newReceiveException(int res) {
+            Errors.NativeIoException e = Errors.newIOException("recvmsg", res);
+            if (res == Errors.ERROR_ECONNREFUSED_NEGATIVE) {
+                // We need to correctly translate connect errors to match NIO behaviour.
+                PortUnreachableException error = new PortUnreachableException(e.getMessage());
+                error.initCause(e);
+                return error;
+            }
+            return e;
+        }
+
+        private void writeComplete(int res) {
+            ioCompleted(WRITE_SCHEDULED);
+            writeBuffer.release();
+            writeBuffer = null;
+            if (!isOpen()) {
+                return;
+            }
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                if (isRegistered()) {
+                    // The send was cancelled as the channel was moved to another EventLoop, submit it there again.
+                    super.flush0();
+                }
+                return;
+            }
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (in != null) {
+                if (res >= 0) {
+                    in.remove();
+                } else {
+                    // Continue on write error as a DatagramChannel can write to multiple remote peers
+                    in.remove(Errors.newIOException("sendmsg", res));
+                }
+            }
+            super.flush0();
+        }
+
+        @Override
+        protected void flush0() {
+            // Flush immediately only when there's no send in flight.
+            // Otherwise its completion will trigger the next send.
+            if ((ioState & WRITE_SCHEDULED) == 0) {
+                super.flush0();
+            }
+        }
+    }
+}
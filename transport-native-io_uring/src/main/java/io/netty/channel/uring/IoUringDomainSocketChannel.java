@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.Channel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.DomainSocketChannel;
+import io.netty.channel.unix.Socket;
+import io.netty.util.internal.UnstableApi;
+
+import java.net.SocketAddress;
+
+/**
+ * {@link DomainSocketChannel} implementation that uses io_uring. It shares the read and write path of
+ * {@link IoUringSocketChannel}, passing {@link io.netty.channel.unix.FileDescriptor}s is not supported.
+ */
+@UnstableApi
+public final class IoUringDomainSocketChannel extends AbstractIoUringStreamChannel implements DomainSocketChannel {
+    private final IoUringDomainSocketChannelConfig config = new IoUringDomainSocketChannelConfig(this);
+
+    private volatile DomainSocketAddress local;
+    private volatile DomainSocketAddress remote;
+
+    public IoUringDomainSocketChannel() {
+        super(null, Socket.newSocketDomain(), false);
+    }
+
+    IoUringDomainSocketChannel(Channel parent, Socket fd) {
+        super(parent, fd, true);
+    }
+
+    @Override
+    protected DomainSocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected DomainSocketAddress remoteAddress0() {
+        return remote;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        socket.bind(localAddress);
+        local = (DomainSocketAddress) localAddress;
+    }
+
+    @Override
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (super.doConnect(remoteAddress, localAddress)) {
+            local = (DomainSocketAddress) localAddress;
+            remote = (DomainSocketAddress) remoteAddress;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public IoUringDomainSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public DomainSocketAddress remoteAddress() {
+        return (DomainSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public DomainSocketAddress localAddress() {
+        return (DomainSocketAddress) super.localAddress();
+    }
+}
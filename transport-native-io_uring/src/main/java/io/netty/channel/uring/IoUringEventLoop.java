@@ -0,0 +1,498 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * {@link EventLoop} which uses io_uring under the covers. Only works on Linux!
+ * <p>
+ * All operations which are added to the submission queue while completions are processed and tasks are run are
+ * submitted to the kernel with a single {@code io_uring_enter(...)} call per loop iteration, which is also used to
+ * wait for the next completions.
+ */
+final class IoUringEventLoop extends SingleThreadEventLoop implements IoUringCompletionQueue.CompletionCallback {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IoUringEventLoop.class);
+    private static final AtomicIntegerFieldUpdater<IoUringEventLoop> WAKEN_UP_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(IoUringEventLoop.class, "wakenUp");
+
+    static {
+        // Ensure JNI is initialized by the time this class is loaded by this time!
+        // We use unix-common methods in this class which are backed by JNI methods.
+        IoUring.ensureAvailability();
+    }
+
+    // The id used for operations which belong to the EventLoop itself, channels never use it.
+    private static final int LOOP_ID = 0;
+    // The user_data of cancellations submitted by channels, their completions are ignored.
+    static final long CANCEL_USER_DATA = userData(LOOP_ID, Native.IORING_OP_ASYNC_CANCEL, (short) 0);
+    // The maximum time cleanup() waits for cancelled operations to complete before the ring is closed.
+    private static final long CLEANUP_TIMEOUT_SECONDS = 5;
+
+    private final IoUringRing ring;
+    private final IoUringSubmissionQueue submissionQueue;
+    private final IoUringCompletionQueue completionQueue;
+    private final FileDescriptor eventFd;
+    private final IntObjectMap<AbstractIoUringChannel> channels = new IntObjectHashMap<AbstractIoUringChannel>(4096);
+    // Channels which were deregistered while still open and still have operations in flight on this ring.
+    private final IntObjectMap<DeregisteredChannel> deregisteredChannels =
+            new IntObjectHashMap<DeregisteredChannel>();
+
+    // Holds the value read from the eventfd (8 bytes), followed by the timespec used for timeouts (16 bytes).
+    private final long memoryAddress;
+    private final long eventFdBufferAddress;
+    private final long timespecAddress;
+    // Created once the first channel receives into provided buffers.
+    private IoUringProvidedBuffers recvBuffers;
+
+    private int nextChannelId = LOOP_ID + 1;
+    private boolean eventFdReadPending;
+    private boolean timeoutPending;
+    private long timeoutDeadlineNanos;
+    private short timeoutGeneration;
+
+    @SuppressWarnings("unused") // AtomicIntegerFieldUpdater
+    private volatile int wakenUp;
+    private volatile int ioRatio = 50;
+
+    IoUringEventLoop(EventLoopGroup parent, Executor executor, int ringSize,
+                     RejectedExecutionHandler rejectedExecutionHandler) {
+        super(parent, executor, false, DEFAULT_MAX_PENDING_TASKS, rejectedExecutionHandler);
+        boolean success = false;
+        IoUringRing ring = null;
+        FileDescriptor eventFd = null;
+        try {
+            try {
+                this.ring = ring = Native.newRing(ringSize);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to create io_uring instance", e);
+            }
+            this.eventFd = eventFd = Native.newEventFd();
+            success = true;
+        } finally {
+            if (!success) {
+                if (ring != null) {
+                    ring.close();
+                }
+                if (eventFd != null) {
+                    try {
+                        eventFd.close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+        submissionQueue = ring.submissionQueue();
+        completionQueue = ring.completionQueue();
+        memoryAddress = PlatformDependent.allocateMemory(24);
+        eventFdBufferAddress = memoryAddress;
+        timespecAddress = memoryAddress + 8;
+    }
+
+    /**
+     * Encodes the id of the channel, the opcode of the operation and some operation specific data into the
+     * {@code user_data} of a submission, which is returned with its completion.
+     */
+    static long userData(int id, byte op, short data) {
+        return (long) id << 32 | (op & 0xFFL) << 16 | data & 0xFFFFL;
+    }
+
+    IoUringSubmissionQueue submissionQueue() {
+        return submissionQueue;
+    }
+
+    /**
+     * Returns the buffers which are provided to the kernel to receive datagrams.
+     */
+    IoUringProvidedBuffers recvBuffers() throws IOException {
+        IoUringProvidedBuffers buffers = recvBuffers;
+        if (buffers == null) {
+            // Multishot receives store a header and the address of the sender in front of the data.
+            recvBuffers = buffers = new IoUringProvidedBuffers(
+                    submissionQueue, Native.RECV_BUFFER_COUNT,
+                    Native.RECV_BUFFER_SIZE + IoUringDatagramChannel.RECVMSG_PREFIX_SIZE,
+                    userData(LOOP_ID, Native.IORING_OP_PROVIDE_BUFFERS, (short) 0));
+        }
+        return buffers;
+    }
+
+    /**
+     * Register the given channel with this {@link EventLoop}.
+     */
+    void add(AbstractIoUringChannel ch) {
+        assert inEventLoop();
+        int id;
+        do {
+            id = nextChannelId++;
+        } while (id == LOOP_ID || channels.containsKey(id) || deregisteredChannels.containsKey(id));
+        ch.ioId = id;
+        ch.removalPending = false;
+        // Operations which are still in flight were submitted to the ring of the previous EventLoop.
+        ch.loopIoState = 0;
+        channels.put(id, ch);
+    }
+
+    /**
+     * Deregister the given channel from this {@link EventLoop}. All its pending operations are cancelled.
+     * <p>
+     * If the channel was closed it will only be removed once all of them completed, so their resources can be
+     * released safely. Otherwise the channel may be registered with another {@link EventLoop} right away, for example
+     * to move it with {@link io.netty.channel.ChannelMigration}. The completions of its cancelled operations are then
+     * handed to the {@link EventLoop} the channel is registered with, so its state is only ever accessed by the
+     * {@link EventLoop} which owns it and the cancelled operations can be submitted again there.
+     */
+    void remove(AbstractIoUringChannel ch, boolean closed) throws IOException {
+        assert inEventLoop();
+        int id = ch.ioId;
+        if (channels.get(id) != ch) {
+            return;
+        }
+        if (!ch.cancelPendingIo(submissionQueue)) {
+            channels.remove(id);
+        } else if (closed) {
+            ch.removalPending = true;
+        } else {
+            channels.remove(id);
+            deregisteredChannels.put(id, new DeregisteredChannel(ch, Integer.bitCount(ch.loopIoState)));
+        }
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+        // This event loop never calls takeTask()
+        return newMpscTaskQueue(maxPendingTasks);
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in the event loop.
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
+     * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio <= 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    @Override
+    public int registeredChannels() {
+        return channels.size();
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
+            recordWakeupRequest();
+            // write to the evfd which will then complete the pending read and so wake-up io_uring_enter(...)
+            Native.eventFdWrite(eventFd.intValue(), 1L);
+        }
+    }
+
+    @Override
+    protected void run() {
+        for (;;) {
+            try {
+                long waitTime = 0;
+                if (completionQueue.hasCompletions()) {
+                    // Hand the operations of the last iteration to the kernel and go on with the completions.
+                    submissionQueue.submit();
+                } else {
+                    prepareToWait();
+                    // Only after we reset wakenUp we can be sure that we either see a new task or that the eventfd
+                    // is written, so we will not block while there are tasks to run.
+                    wakenUp = 0;
+                    // While shutting down confirmShutdown() needs to be called again until the quiet period is over,
+                    // so we must not block.
+                    if (hasTasks() || isShuttingDown()) {
+                        submissionQueue.submit();
+                    } else {
+                        final long waitStartTime = System.nanoTime();
+                        submissionQueue.submitAndWait();
+                        waitTime = System.nanoTime() - waitStartTime;
+                    }
+                    // Suppress wakeups until we are about to block again.
+                    wakenUp = 1;
+                }
+
+                final int ioRatio = this.ioRatio;
+                final long ioStartTime = System.nanoTime();
+                long ioTime;
+                try {
+                    completionQueue.process(this);
+                } finally {
+                    // Ensure we always run tasks.
+                    ioTime = System.nanoTime() - ioStartTime;
+                    if (ioRatio == 100) {
+                        runAllTasks();
+                    } else {
+                        runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                    }
+                }
+                recordIteration(waitTime, ioTime);
+            } catch (Throwable t) {
+                handleLoopException(t);
+            }
+            // Always handle shutdown even if the loop processing threw an exception.
+            try {
+                if (isShuttingDown()) {
+                    closeAll();
+                    if (confirmShutdown()) {
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                handleLoopException(t);
+            }
+        }
+    }
+
+    /**
+     * Makes sure a blocking {@code io_uring_enter(...)} returns once a task is added or the next scheduled task is
+     * due.
+     */
+    private void prepareToWait() throws IOException {
+        if (!eventFdReadPending) {
+            submissionQueue.enqueue(Native.IORING_OP_READ, (short) 0, eventFd.intValue(), 0, eventFdBufferAddress, 8,
+                                    0, userData(LOOP_ID, Native.IORING_OP_READ, (short) 0));
+            eventFdReadPending = true;
+        }
+        // hasScheduledTasks() only takes tasks into account which are due already, so always use the deadline. If
+        // there is no scheduled task it is the next purge of the scheduled task queue.
+        long deadlineNanos = deadlineNanos();
+        if (timeoutPending && deadlineNanos - timeoutDeadlineNanos >= 0) {
+            // A timeout which fires earlier will just cause a spurious wakeup.
+            return;
+        }
+        if (timeoutPending) {
+            removeTimeout();
+        }
+        long delayNanos = Math.max(0, delayNanos(System.nanoTime()));
+        // The kernel copies the timespec when the entry is submitted, so we can reuse the memory.
+        PlatformDependent.putLong(timespecAddress, delayNanos / 1000000000L);
+        PlatformDependent.putLong(timespecAddress + 8, delayNanos % 1000000000L);
+        timeoutGeneration++;
+        submissionQueue.enqueue(Native.IORING_OP_TIMEOUT, (short) 0, -1, 0, timespecAddress, 1, 0,
+                                userData(LOOP_ID, Native.IORING_OP_TIMEOUT, timeoutGeneration));
+        timeoutPending = true;
+        timeoutDeadlineNanos = deadlineNanos;
+    }
+
+    private void removeTimeout() throws IOException {
+        submissionQueue.enqueue(Native.IORING_OP_TIMEOUT_REMOVE, (short) 0, -1, 0,
+                                userData(LOOP_ID, Native.IORING_OP_TIMEOUT, timeoutGeneration), 0, 0,
+                                userData(LOOP_ID, Native.IORING_OP_TIMEOUT_REMOVE, (short) 0));
+    }
+
+    @Override
+    public void handle(long userData, int res, int flags) {
+        int id = (int) (userData >>> 32);
+        byte op = (byte) (userData >>> 16);
+        short data = (short) userData;
+        if (id == LOOP_ID) {
+            if (op == Native.IORING_OP_READ) {
+                eventFdReadPending = false;
+                recordWakeup(System.nanoTime());
+            } else if (op == Native.IORING_OP_TIMEOUT && data == timeoutGeneration) {
+                timeoutPending = false;
+            } else if (op == Native.IORING_OP_PROVIDE_BUFFERS && res < 0) {
+                logger.debug("Failed to provide buffers to the kernel: {}", res);
+            }
+            // Completions of cancellations are not interesting.
+            return;
+        }
+
+        AbstractIoUringChannel ch = channels.get(id);
+        if (ch == null) {
+            DeregisteredChannel deregistered = deregisteredChannels.get(id);
+            if (deregistered != null) {
+                // Multishot operations only complete with the last completion which has no IORING_CQE_F_MORE.
+                if ((flags & Native.IORING_CQE_F_MORE) == 0 && --deregistered.pendingOps == 0) {
+                    deregisteredChannels.remove(id);
+                }
+                if ((flags & Native.IORING_CQE_F_BUFFER) != 0) {
+                    // The buffer belongs to the ring of this EventLoop, so the data is dropped and it is handed back
+                    // right away. Only the end of the operation is of interest for the owner.
+                    recycleRecvBuffer(flags);
+                    if ((flags & Native.IORING_CQE_F_MORE) != 0) {
+                        return;
+                    }
+                    res = Native.ERRNO_ECANCELED_NEGATIVE;
+                    flags = 0;
+                }
+                completeOnOwner(deregistered.channel, op, res, flags);
+            }
+            return;
+        }
+        try {
+            ch.complete(op, res, flags);
+        } finally {
+            if (ch.removalPending && ch.loopIoState == 0) {
+                channels.remove(id);
+            }
+        }
+    }
+
+    private void recycleRecvBuffer(int flags) {
+        try {
+            recvBuffers.recycle(flags >>> Native.IORING_CQE_BUFFER_SHIFT);
+        } catch (IOException e) {
+            logger.debug("Failed to hand a buffer back to the kernel.", e);
+        }
+    }
+
+    /**
+     * Hands the completion of an operation of a channel which was deregistered from this {@link EventLoop} to the
+     * {@link EventLoop} which owns the channel now.
+     */
+    private static void completeOnOwner(final AbstractIoUringChannel ch, final byte op, final int res,
+                                        final int flags) {
+        EventLoop loop = ch.eventLoop();
+        if (loop.inEventLoop()) {
+            ch.complete(op, res, flags);
+            return;
+        }
+        try {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // The channel may have been moved again in the meantime.
+                    completeOnOwner(ch, op, res, flags);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Failed to hand over the completion of a deregistered channel: {}", ch, e);
+        }
+    }
+
+    /**
+     * Visible only for testing!
+     */
+    void handleLoopException(Throwable t) {
+        logger.warn("Unexpected exception in the io_uring loop.", t);
+
+        // Prevent possible consecutive immediate failures that lead to
+        // excessive CPU consumption.
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            // Ignore.
+        }
+    }
+
+    private void closeAll() {
+        // Using the intermediate collection to prevent ConcurrentModificationException.
+        // In the `close()` method, the channel is deleted from `channels` map.
+        AbstractIoUringChannel[] localChannels = channels.values().toArray(new AbstractIoUringChannel[0]);
+
+        for (AbstractIoUringChannel ch: localChannels) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            cancelAndDrain();
+        } catch (Exception e) {
+            logger.debug("Failed to process the remaining completions.", e);
+        } finally {
+            try {
+                eventFd.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the event fd.", e);
+            }
+            ring.close();
+            PlatformDependent.freeMemory(memoryAddress);
+            if (recvBuffers != null) {
+                recvBuffers.free();
+            }
+        }
+    }
+
+    /**
+     * Cancels all operations which are still in flight and processes their completions, so the memory they reference
+     * is not freed while the kernel may still access it and the resources of the channels are released.
+     */
+    private void cancelAndDrain() throws IOException {
+        if (eventFdReadPending) {
+            submissionQueue.enqueue(Native.IORING_OP_ASYNC_CANCEL, (short) 0, -1, 0,
+                                    userData(LOOP_ID, Native.IORING_OP_READ, (short) 0), 0, 0, CANCEL_USER_DATA);
+        }
+        // Closed channels already cancelled their operations, but channels may have been registered after closeAll().
+        AbstractIoUringChannel[] localChannels = channels.values().toArray(new AbstractIoUringChannel[0]);
+        for (AbstractIoUringChannel ch: localChannels) {
+            if (ch.cancelPendingIo(submissionQueue)) {
+                ch.removalPending = true;
+            } else {
+                channels.remove(ch.ioId);
+            }
+        }
+
+        // Bound the time we wait for cancellations which the kernel can not complete right away.
+        if (timeoutPending) {
+            removeTimeout();
+        }
+        PlatformDependent.putLong(timespecAddress, CLEANUP_TIMEOUT_SECONDS);
+        PlatformDependent.putLong(timespecAddress + 8, 0);
+        timeoutGeneration++;
+        submissionQueue.enqueue(Native.IORING_OP_TIMEOUT, (short) 0, -1, 0, timespecAddress, 0, 0,
+                                userData(LOOP_ID, Native.IORING_OP_TIMEOUT, timeoutGeneration));
+        timeoutPending = true;
+
+        while (eventFdReadPending || !channels.isEmpty() || !deregisteredChannels.isEmpty()) {
+            if (!timeoutPending) {
+                logger.warn("Closing the io_uring instance with operations still in flight after {}s.",
+                            CLEANUP_TIMEOUT_SECONDS);
+                return;
+            }
+            submissionQueue.submitAndWait();
+            completionQueue.process(this);
+        }
+    }
+
+    private static final class DeregisteredChannel {
+        final AbstractIoUringChannel channel;
+        int pendingOps;
+
+        DeregisteredChannel(AbstractIoUringChannel channel, int pendingOps) {
+            this.channel = channel;
+            this.pendingOps = pendingOps;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+
+/**
+ * Buffers which are handed to the kernel with {@code IORING_OP_PROVIDE_BUFFERS}, so it can pick one once data is
+ * received by an operation which uses {@code IOSQE_BUFFER_SELECT}. This allows to keep a read in flight without
+ * dedicating a buffer to it. The buffers belong to the ring of one {@link IoUringEventLoop} and are shared by all of
+ * its channels, each one is handed back as soon as its data was copied.
+ * <p>
+ * This class is not thread-safe and must only be used from the {@link IoUringEventLoop}.
+ */
+final class IoUringProvidedBuffers {
+    // The only buffer group used by the ring.
+    static final short GROUP = 0;
+
+    private final IoUringSubmissionQueue submissionQueue;
+    private final long userData;
+    private final int bufferCount;
+    private final int bufferSize;
+    private final long memoryAddress;
+
+    IoUringProvidedBuffers(IoUringSubmissionQueue submissionQueue, int bufferCount, int bufferSize, long userData)
+            throws IOException {
+        this.submissionQueue = submissionQueue;
+        this.userData = userData;
+        this.bufferCount = bufferCount;
+        this.bufferSize = bufferSize;
+        memoryAddress = PlatformDependent.allocateMemory((long) bufferCount * bufferSize);
+        try {
+            provide(0, bufferCount);
+        } catch (IOException e) {
+            PlatformDependent.freeMemory(memoryAddress);
+            throw e;
+        }
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the address of the buffer with the given id, which is part of the flags of a completion with
+     * {@code IORING_CQE_F_BUFFER}.
+     */
+    long address(int id) {
+        assert id >= 0 && id < bufferCount;
+        return memoryAddress + (long) id * bufferSize;
+    }
+
+    /**
+     * Hands the buffer with the given id back to the kernel.
+     */
+    void recycle(int id) throws IOException {
+        provide(id, 1);
+    }
+
+    private void provide(int id, int count) throws IOException {
+        submissionQueue.enqueue(Native.IORING_OP_PROVIDE_BUFFERS, (byte) 0, (short) 0, count, id, address(id),
+                                bufferSize, 0, userData, GROUP);
+    }
+
+    /**
+     * Frees the memory of the buffers, must only be called once the ring was closed.
+     */
+    void free() {
+        PlatformDependent.freeMemory(memoryAddress);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * An io_uring instance, which consists of the submission queue and the completion queue that are shared with the
+ * kernel.
+ */
+final class IoUringRing {
+    // Must be kept in sync with the layout used in netty_io_uring_native.c
+    static final int RING_INFO_LENGTH = 18;
+
+    private final int ringFd;
+    private final int features;
+    private final IoUringSubmissionQueue submissionQueue;
+    private final IoUringCompletionQueue completionQueue;
+    private final long sqRingAddress;
+    private final int sqRingSize;
+    private final int sqesSize;
+    private final long cqRingAddress;
+    private final int cqRingSize;
+    private boolean closed;
+
+    IoUringRing(int ringFd, long[] ringInfo) {
+        this.ringFd = ringFd;
+        submissionQueue = new IoUringSubmissionQueue(ringFd, ringInfo[0], ringInfo[1], ringInfo[2], ringInfo[3],
+                                                     ringInfo[4], ringInfo[5]);
+        sqRingAddress = ringInfo[6];
+        sqRingSize = (int) ringInfo[7];
+        sqesSize = (int) ringInfo[8];
+        completionQueue = new IoUringCompletionQueue(ringInfo[9], ringInfo[10], ringInfo[11], ringInfo[13]);
+        cqRingAddress = ringInfo[14];
+        cqRingSize = (int) ringInfo[15];
+        features = (int) ringInfo[16];
+    }
+
+    int fd() {
+        return ringFd;
+    }
+
+    /**
+     * Returns {@code true} if the kernel supports all of the given {@code IORING_FEAT_*} features.
+     */
+    boolean hasFeatures(int features) {
+        return (this.features & features) == features;
+    }
+
+    IoUringSubmissionQueue submissionQueue() {
+        return submissionQueue;
+    }
+
+    IoUringCompletionQueue completionQueue() {
+        return completionQueue;
+    }
+
+    void close() {
+        if (!closed) {
+            closed = true;
+            Native.ioUringExit(sqRingAddress, sqRingSize, cqRingAddress, cqRingSize,
+                               submissionQueue.sqesAddress(), sqesSize, ringFd);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+
+/**
+ * The submission queue of an {@link IoUringRing}. Entries are only written to the shared memory when they are added
+ * and are handed to the kernel in one batch by {@link #submit()} or {@link #submitAndWait()}.
+ * <p>
+ * This class is not thread-safe and must only be used from the {@link IoUringEventLoop}.
+ */
+final class IoUringSubmissionQueue {
+    private static final int SQE_SIZE = 64;
+
+    // Offsets of the fields in struct io_uring_sqe
+    private static final int SQE_OP_CODE_FIELD = 0;
+    private static final int SQE_FLAGS_FIELD = 1;
+    private static final int SQE_IOPRIO_FIELD = 2;
+    private static final int SQE_FD_FIELD = 4;
+    private static final int SQE_OFFSET_FIELD = 8;
+    private static final int SQE_ADDRESS_FIELD = 16;
+    private static final int SQE_LEN_FIELD = 24;
+    private static final int SQE_OP_FLAGS_FIELD = 28;
+    private static final int SQE_USER_DATA_FIELD = 32;
+    private static final int SQE_BUF_GROUP_FIELD = 40;
+
+    private final int ringFd;
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final int ringMask;
+    private final int ringEntries;
+    private final long sqesAddress;
+
+    private int tail;
+    private int pending;
+
+    IoUringSubmissionQueue(int ringFd, long kHeadAddress, long kTailAddress, long kRingMaskAddress,
+                           long kRingEntriesAddress, long kArrayAddress, long sqesAddress) {
+        this.ringFd = ringFd;
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.sqesAddress = sqesAddress;
+        ringMask = PlatformDependent.getInt(kRingMaskAddress);
+        ringEntries = PlatformDependent.getInt(kRingEntriesAddress);
+        tail = PlatformDependent.getInt(kTailAddress);
+
+        // Every slot of the index array always points to the entry with the same index, so we never need to update
+        // it again.
+        for (int i = 0; i < ringEntries; i++) {
+            PlatformDependent.putInt(kArrayAddress + 4L * i, i);
+        }
+    }
+
+    long sqesAddress() {
+        return sqesAddress;
+    }
+
+    /**
+     * Returns the number of entries which were added but not submitted yet.
+     */
+    int pending() {
+        return pending;
+    }
+
+    /**
+     * Adds a new entry. If the queue is full all entries added so far are submitted first.
+     */
+    void enqueue(byte opCode, short ioPrio, int fd, long offset, long address, int len, int opFlags,
+                 long userData) throws IOException {
+        enqueue(opCode, (byte) 0, ioPrio, fd, offset, address, len, opFlags, userData, (short) 0);
+    }
+
+    /**
+     * Adds a new entry with the given {@code IOSQE_*} flags and buffer group. If the queue is full all entries added
+     * so far are submitted first.
+     */
+    void enqueue(byte opCode, byte flags, short ioPrio, int fd, long offset, long address, int len, int opFlags,
+                 long userData, short bufGroup) throws IOException {
+        if (tail - PlatformDependent.getIntVolatile(kHeadAddress) == ringEntries) {
+            submit();
+        }
+        long sqe = sqesAddress + (long) (tail & ringMask) * SQE_SIZE;
+        PlatformDependent.setMemory(sqe, SQE_SIZE, (byte) 0);
+        PlatformDependent.putByte(sqe + SQE_OP_CODE_FIELD, opCode);
+        PlatformDependent.putByte(sqe + SQE_FLAGS_FIELD, flags);
+        PlatformDependent.putShort(sqe + SQE_IOPRIO_FIELD, ioPrio);
+        PlatformDependent.putInt(sqe + SQE_FD_FIELD, fd);
+        PlatformDependent.putLong(sqe + SQE_OFFSET_FIELD, offset);
+        PlatformDependent.putLong(sqe + SQE_ADDRESS_FIELD, address);
+        PlatformDependent.putInt(sqe + SQE_LEN_FIELD, len);
+        PlatformDependent.putInt(sqe + SQE_OP_FLAGS_FIELD, opFlags);
+        PlatformDependent.putLong(sqe + SQE_USER_DATA_FIELD, userData);
+        PlatformDependent.putShort(sqe + SQE_BUF_GROUP_FIELD, bufGroup);
+        tail++;
+        pending++;
+    }
+
+    /**
+     * Submits all pending entries without waiting for completions.
+     */
+    int submit() throws IOException {
+        return submit(0, 0);
+    }
+
+    /**
+     * Submits all pending entries and blocks until at least one completion is available.
+     */
+    int submitAndWait() throws IOException {
+        return submit(1, Native.IORING_ENTER_GETEVENTS);
+    }
+
+    private int submit(int minComplete, int flags) throws IOException {
+        int toSubmit = pending;
+        if (toSubmit == 0 && minComplete == 0) {
+            return 0;
+        }
+        // Publish the new tail, this also makes the content of the entries visible to the kernel.
+        PlatformDependent.putIntOrdered(kTailAddress, tail);
+        int submitted = Native.ioUringEnter(ringFd, toSubmit, minComplete, flags);
+        pending -= submitted;
+        return submitted;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Socket;
+import io.netty.util.internal.NativeLibraryLoader;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThrowableUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import static io.netty.channel.unix.Errors.newIOException;
+
+/**
+ * Native helper methods and constants for io_uring.
+ * <p><strong>Internal usage only!</strong>
+ */
+final class Native {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Native.class);
+
+    static {
+        try {
+            // First, try calling a side-effect free JNI method to see if the library was already
+            // loaded by the application.
+            ioUringEnter0(-1, 0, 0, 0);
+        } catch (UnsatisfiedLinkError ignore) {
+            // The library was not previously loaded, load it now.
+            loadNativeLibrary();
+        }
+        Socket.initialize();
+    }
+
+    // The opcodes and flags are part of the kernel ABI and so will never change.
+    static final byte IORING_OP_WRITEV = 2;
+    static final byte IORING_OP_POLL_ADD = 6;
+    static final byte IORING_OP_SENDMSG = 9;
+    static final byte IORING_OP_RECVMSG = 10;
+    static final byte IORING_OP_TIMEOUT = 11;
+    static final byte IORING_OP_TIMEOUT_REMOVE = 12;
+    static final byte IORING_OP_ACCEPT = 13;
+    static final byte IORING_OP_ASYNC_CANCEL = 14;
+    static final byte IORING_OP_READ = 22;
+    static final byte IORING_OP_WRITE = 23;
+    static final byte IORING_OP_RECV = 27;
+    static final byte IORING_OP_PROVIDE_BUFFERS = 31;
+
+    static final byte IOSQE_BUFFER_SELECT = 1 << 5;
+
+    static final int IORING_ENTER_GETEVENTS = 1;
+    static final int IORING_CQE_F_BUFFER = 1;
+    static final int IORING_CQE_F_MORE = 1 << 1;
+    static final int IORING_CQE_BUFFER_SHIFT = 16;
+    static final short IORING_ACCEPT_MULTISHOT = 1;
+    static final short IORING_RECV_MULTISHOT = 1 << 1;
+
+    static final int IORING_FEAT_NODROP = 1 << 1;
+    static final int IORING_FEAT_FAST_POLL = 1 << 5;
+
+    static final int POLLOUT = 0x004;
+    static final int SOCK_NONBLOCK = 04000;
+    static final int SOCK_CLOEXEC = 02000000;
+    static final int MSG_TRUNC = 0x20;
+    static final int MSG_DONTWAIT = 0x40;
+
+    static final int ERRNO_EAGAIN_NEGATIVE = -11;
+    static final int ERRNO_EINVAL_NEGATIVE = -22;
+    static final int ERRNO_ETIME_NEGATIVE = -62;
+    static final int ERRNO_ENOBUFS_NEGATIVE = -105;
+    static final int ERRNO_ECANCELED_NEGATIVE = -125;
+
+    static final int DEFAULT_RING_SIZE = Math.max(64, SystemPropertyUtil.getInt("io.netty.iouring.ringSize", 4096));
+    // The buffers which are provided to the kernel to receive datagrams, see IoUringProvidedBuffers.
+    static final int RECV_BUFFER_COUNT =
+            Math.min(65536, Math.max(16, SystemPropertyUtil.getInt("io.netty.iouring.recvBufferCount", 256)));
+    static final int RECV_BUFFER_SIZE =
+            Math.max(512, SystemPropertyUtil.getInt("io.netty.iouring.recvBufferSize", 2048));
+
+    /**
+     * Creates a new io_uring instance with at least {@code entries} submission queue entries and fills
+     * {@code ringInfo} with the addresses of the mapped rings. See {@link IoUringRing} for the layout.
+     */
+    static IoUringRing newRing(int entries) throws IOException {
+        long[] ringInfo = new long[IoUringRing.RING_INFO_LENGTH];
+        int ringFd = ioUringSetup0(entries, ringInfo);
+        if (ringFd < 0) {
+            throw newIOException("io_uring_setup", ringFd);
+        }
+        return new IoUringRing(ringFd, ringInfo);
+    }
+
+    static int ioUringEnter(int ringFd, int toSubmit, int minComplete, int flags) throws IOException {
+        int res = ioUringEnter0(ringFd, toSubmit, minComplete, flags);
+        if (res < 0) {
+            throw newIOException("io_uring_enter", res);
+        }
+        return res;
+    }
+
+    static void ioUringExit(long sqRingAddress, int sqRingSize, long cqRingAddress, int cqRingSize,
+                            long sqesAddress, int sqesSize, int ringFd) {
+        ioUringExit0(sqRingAddress, sqRingSize, cqRingAddress, cqRingSize, sqesAddress, sqesSize, ringFd);
+    }
+
+    static FileDescriptor newEventFd() {
+        return new FileDescriptor(eventFd());
+    }
+
+    private static native int ioUringSetup0(int entries, long[] ringInfo);
+    private static native int ioUringEnter0(int ringFd, int toSubmit, int minComplete, int flags);
+    private static native void ioUringExit0(long sqRingAddress, int sqRingSize, long cqRingAddress, int cqRingSize,
+                                            long sqesAddress, int sqesSize, int ringFd);
+    private static native int eventFd();
+    static native void eventFdWrite(int fd, long value);
+
+    private static void loadNativeLibrary() {
+        String name = SystemPropertyUtil.get("os.name").toLowerCase(Locale.UK).trim();
+        if (!name.startsWith("linux")) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        String staticLibName = "netty_transport_native_io_uring";
+        String sharedLibName = staticLibName + '_' + PlatformDependent.normalizedArch();
+        ClassLoader cl = PlatformDependent.getClassLoader(Native.class);
+        try {
+            NativeLibraryLoader.load(sharedLibName, cl);
+        } catch (UnsatisfiedLinkError e1) {
+            try {
+                NativeLibraryLoader.load(staticLibName, cl);
+                logger.debug("Failed to load {}", sharedLibName, e1);
+            } catch (UnsatisfiedLinkError e2) {
+                ThrowableUtil.addSuppressed(e1, e2);
+                throw e1;
+            }
+        }
+    }
+
+    private Native() {
+        // utility
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.NativeInetAddress;
+import io.netty.util.internal.PlatformDependent;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Reads and writes {@code struct sockaddr_in} and {@code struct sockaddr_in6} from and to native memory.
+ */
+final class SockaddrIn {
+    static final int AF_INET = 2;
+    static final int AF_INET6 = 10;
+    static final int SOCKADDR_IN_SIZE = 16;
+    static final int SOCKADDR_IN6_SIZE = 28;
+
+    private static final int FAMILY_FIELD = 0;
+    private static final int PORT_FIELD = 2;
+    private static final int IN_ADDRESS_FIELD = 4;
+    private static final int IN6_FLOWINFO_FIELD = 4;
+    private static final int IN6_ADDRESS_FIELD = 8;
+    private static final int IN6_SCOPE_ID_FIELD = 24;
+    private static final byte[] IPV4_MAPPED_IPV6_PREFIX = {
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff };
+
+    /**
+     * Writes the given address to {@code memory} and returns the number of bytes written. If {@code ipv6} is
+     * {@code true} a {@code struct sockaddr_in6} is used, which contains an IPv4-mapped IPv6 address for
+     * {@link Inet4Address}es.
+     */
+    static int write(boolean ipv6, long memory, InetSocketAddress address) {
+        InetAddress addr = address.getAddress();
+        int port = address.getPort();
+        if (!ipv6) {
+            if (!(addr instanceof Inet4Address)) {
+                throw new IllegalArgumentException("IPv6 address on an IPv4 socket: " + address);
+            }
+            PlatformDependent.setMemory(memory, SOCKADDR_IN_SIZE, (byte) 0);
+            PlatformDependent.putShort(memory + FAMILY_FIELD, (short) AF_INET);
+            putPort(memory, port);
+            PlatformDependent.copyMemory(addr.getAddress(), 0, memory + IN_ADDRESS_FIELD, 4);
+            return SOCKADDR_IN_SIZE;
+        }
+        NativeInetAddress nativeAddress = NativeInetAddress.newInstance(addr);
+        PlatformDependent.putShort(memory + FAMILY_FIELD, (short) AF_INET6);
+        putPort(memory, port);
+        PlatformDependent.putInt(memory + IN6_FLOWINFO_FIELD, 0);
+        PlatformDependent.copyMemory(nativeAddress.address(), 0, memory + IN6_ADDRESS_FIELD, 16);
+        PlatformDependent.putInt(memory + IN6_SCOPE_ID_FIELD, nativeAddress.scopeId());
+        return SOCKADDR_IN6_SIZE;
+    }
+
+    /**
+     * Reads the address which was written by the kernel to {@code memory}. IPv4-mapped IPv6 addresses are returned
+     * as {@link Inet4Address}es.
+     */
+    static InetSocketAddress read(long memory) throws UnknownHostException {
+        int family = PlatformDependent.getShort(memory + FAMILY_FIELD);
+        int port = (PlatformDependent.getByte(memory + PORT_FIELD) & 0xFF) << 8 |
+                PlatformDependent.getByte(memory + PORT_FIELD + 1) & 0xFF;
+        if (family == AF_INET) {
+            byte[] ipv4 = new byte[4];
+            PlatformDependent.copyMemory(memory + IN_ADDRESS_FIELD, ipv4, 0, 4);
+            return new InetSocketAddress(InetAddress.getByAddress(ipv4), port);
+        }
+        if (family != AF_INET6) {
+            throw new UnknownHostException("unsupported address family: " + family);
+        }
+        byte[] ipv6 = new byte[16];
+        PlatformDependent.copyMemory(memory + IN6_ADDRESS_FIELD, ipv6, 0, 16);
+        if (isIpv4Mapped(ipv6)) {
+            byte[] ipv4 = new byte[4];
+            System.arraycopy(ipv6, IPV4_MAPPED_IPV6_PREFIX.length, ipv4, 0, 4);
+            return new InetSocketAddress(InetAddress.getByAddress(ipv4), port);
+        }
+        int scopeId = PlatformDependent.getInt(memory + IN6_SCOPE_ID_FIELD);
+        return new InetSocketAddress(Inet6Address.getByAddress(null, ipv6, scopeId), port);
+    }
+
+    private static boolean isIpv4Mapped(byte[] ipv6) {
+        for (int i = 0; i < IPV4_MAPPED_IPV6_PREFIX.length; i++) {
+            if (ipv6[i] != IPV4_MAPPED_IPV6_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putPort(long memory, int port) {
+        // The port is stored in network byte order.
+        PlatformDependent.putByte(memory + PORT_FIELD, (byte) (port >>> 8));
+        PlatformDependent.putByte(memory + PORT_FIELD + 1, (byte) port);
+    }
+
+    private SockaddrIn() {
+        // utility
+    }
+}
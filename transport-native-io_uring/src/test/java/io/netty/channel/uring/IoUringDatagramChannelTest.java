@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelMigration;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+public class IoUringDatagramChannelTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        assumeTrue(IoUring.isAvailable());
+        group = new IoUringEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testReceiveMoreDatagramsThanProvidedBuffers() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<String>();
+        Channel server = newServer(received, true);
+        Channel client = newClient();
+        try {
+            // The buffers must be handed back to the kernel once their data was copied.
+            int count = Native.RECV_BUFFER_COUNT * 4;
+            for (int i = 0; i < count; i += 16) {
+                for (int j = i; j < i + 16; j++) {
+                    client.write(newPacket(String.valueOf(j), server));
+                }
+                client.flush();
+                for (int j = i; j < i + 16; j++) {
+                    assertEquals(String.valueOf(j), received.take());
+                }
+            }
+        } finally {
+            client.close().sync();
+            server.close().sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testReceiveOnlyWhenReadIsCalled() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<String>();
+        Channel server = newServer(received, false);
+        Channel client = newClient();
+        try {
+            client.writeAndFlush(newPacket("first", server)).sync();
+            assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+            server.read();
+            assertEquals("first", received.take());
+
+            client.writeAndFlush(newPacket("second", server)).sync();
+            assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+            server.read();
+            assertEquals("second", received.take());
+        } finally {
+            client.close().sync();
+            server.close().sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testMigrate() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<String>();
+        Channel server = newServer(received, true);
+        Channel client = newClient();
+        try {
+            client.writeAndFlush(newPacket("first", server)).sync();
+            assertEquals("first", received.take());
+
+            // The receive which is in flight on the old EventLoop must be submitted again on the new one.
+            EventLoop first = server.eventLoop();
+            EventLoop second = nextEventLoop(first);
+            ChannelMigration.migrate(server, second).sync();
+            assertSame(second, server.eventLoop());
+            client.writeAndFlush(newPacket("second", server)).sync();
+            assertEquals("second", received.take());
+
+            ChannelMigration.migrate(server, first).sync();
+            assertSame(first, server.eventLoop());
+            client.writeAndFlush(newPacket("third", server)).sync();
+            assertEquals("third", received.take());
+        } finally {
+            client.close().sync();
+            server.close().sync();
+        }
+    }
+
+    private static Channel newServer(final BlockingQueue<String> received, boolean autoRead)
+            throws InterruptedException {
+        return new Bootstrap()
+                .group(group)
+                .channel(IoUringDatagramChannel.class)
+                .option(ChannelOption.AUTO_READ, autoRead)
+                .option(ChannelOption.SO_RCVBUF, 1024 * 1024)
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                        received.add(msg.content().toString(CharsetUtil.US_ASCII));
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+    }
+
+    private static Channel newClient() throws InterruptedException {
+        return new Bootstrap()
+                .group(group)
+                .channel(IoUringDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+    }
+
+    private static DatagramPacket newPacket(String message, Channel recipient) {
+        return new DatagramPacket(Unpooled.copiedBuffer(message, CharsetUtil.US_ASCII),
+                                  (InetSocketAddress) recipient.localAddress());
+    }
+
+    private static EventLoop nextEventLoop(EventLoop current) {
+        for (;;) {
+            EventLoop loop = group.next();
+            if (loop != current) {
+                return loop;
+            }
+        }
+    }
+}
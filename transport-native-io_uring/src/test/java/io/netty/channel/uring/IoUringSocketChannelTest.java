@@ -0,0 +1,223 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelMigration;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.CharsetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+public class IoUringSocketChannelTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        assumeTrue(IoUring.isAvailable());
+        group = new IoUringEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testMigrateWithPendingIo() throws Exception {
+        Channel server = newEchoServer();
+        final BlockingQueue<String> received = new LinkedBlockingQueue<String>();
+        Channel client = null;
+        try {
+            client = newClient().handler(new SimpleChannelInboundHandler<ByteBuf>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                    received.add(msg.toString(CharsetUtil.US_ASCII));
+                }
+            }).connect(server.localAddress()).sync().channel();
+            assertEcho(client, received, "first");
+
+            // The read which is in flight on the old EventLoop must be submitted again on the new one.
+            EventLoop first = client.eventLoop();
+            EventLoop second = nextEventLoop(first);
+            ChannelMigration.migrate(client, second).sync();
+            assertSame(second, client.eventLoop());
+            assertEcho(client, received, "second");
+
+            // Move it back to the EventLoop which still had operations of it in flight before.
+            ChannelMigration.migrate(client, first).sync();
+            assertSame(first, client.eventLoop());
+            assertEcho(client, received, "third");
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            server.close().sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWithPendingIo() throws Exception {
+        // The accepted channels never read, so the writes of the client can not complete once all buffers are full.
+        Channel server = new ServerBootstrap()
+                .group(group)
+                .channel(IoUringServerSocketChannel.class)
+                .childOption(ChannelOption.AUTO_READ, false)
+                .childOption(ChannelOption.SO_RCVBUF, 8192)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress(0)).sync().channel();
+        try {
+            final IoUringSocketChannel client = (IoUringSocketChannel) newClient()
+                    .option(ChannelOption.SO_SNDBUF, 8192)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).sync().channel();
+            List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+            for (int i = 0; i < 256; i++) {
+                ByteBuf buf = Unpooled.directBuffer(65536).writeZero(65536);
+                buffers.add(buf);
+                client.write(buf);
+            }
+            client.flush();
+            assertEquals(Boolean.TRUE, client.eventLoop().submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return (client.ioState & AbstractIoUringChannel.READ_SCHEDULED) != 0 &&
+                            (client.ioState & AbstractIoUringChannel.WRITE_SCHEDULED) != 0;
+                }
+            }).sync().getNow());
+
+            client.close().sync();
+
+            // The cancelled operations must complete, so the buffers they reference are released.
+            for (;;) {
+                boolean pending = client.eventLoop().submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return client.hasPendingIo();
+                    }
+                }).sync().getNow();
+                if (!pending) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            for (ByteBuf buf: buffers) {
+                assertEquals(0, buf.refCnt());
+            }
+        } finally {
+            server.close().sync();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testShutdownWithPendingIo() throws Exception {
+        Channel server = new ServerBootstrap()
+                .group(group)
+                .channel(IoUringServerSocketChannel.class)
+                .childOption(ChannelOption.AUTO_READ, false)
+                .childOption(ChannelOption.SO_RCVBUF, 8192)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress(0)).sync().channel();
+        EventLoopGroup clientGroup = new IoUringEventLoopGroup(1);
+        try {
+            Channel client = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(IoUringSocketChannel.class)
+                    .option(ChannelOption.SO_SNDBUF, 8192)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).sync().channel();
+            List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+            for (int i = 0; i < 256; i++) {
+                ByteBuf buf = Unpooled.directBuffer(65536).writeZero(65536);
+                buffers.add(buf);
+                client.write(buf);
+            }
+            client.flush();
+
+            // The operations which are still in flight must be cancelled and complete before the ring is closed.
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+            assertFalse(client.isOpen());
+            for (ByteBuf buf: buffers) {
+                assertEquals(0, buf.refCnt());
+            }
+        } finally {
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+            server.close().sync();
+        }
+    }
+
+    private static Channel newEchoServer() throws InterruptedException {
+        return new ServerBootstrap()
+                .group(group)
+                .channel(IoUringServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ctx.writeAndFlush(msg);
+                    }
+                })
+                .bind(new InetSocketAddress(0)).sync().channel();
+    }
+
+    private static Bootstrap newClient() {
+        return new Bootstrap().group(group).channel(IoUringSocketChannel.class);
+    }
+
+    private static EventLoop nextEventLoop(EventLoop current) {
+        for (;;) {
+            EventLoop loop = group.next();
+            if (loop != current) {
+                return loop;
+            }
+        }
+    }
+
+    private static void assertEcho(Channel client, BlockingQueue<String> received, String message)
+            throws InterruptedException {
+        client.writeAndFlush(Unpooled.copiedBuffer(message, CharsetUtil.US_ASCII)).sync();
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < message.length()) {
+            sb.append(received.take());
+        }
+        assertEquals(message, sb.toString());
+    }
+}
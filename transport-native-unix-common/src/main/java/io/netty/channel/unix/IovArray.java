@@ -85,26 +85,37 @@ public final class IovArray implements MessageProcessor {
      * have been added.
      */
     public boolean add(ByteBuf buf) {
+        return add(buf, buf.readerIndex(), buf.readableBytes());
+    }
+
+    /**
+     * Add the given region of a {@link ByteBuf} to this {@link IovArray}. In contrast to {@link #add(ByteBuf)} the
+     * region does not need to be readable, which allows to use it as destination of a scattering read.
+     * @param buf The {@link ByteBuf} to add.
+     * @param index The index of the first byte of the region.
+     * @param len The length of the region.
+     * @return {@code true} if the entire region has been added to this {@link IovArray}.
+     */
+    public boolean add(ByteBuf buf, int index, int len) {
         if (count == IOV_MAX) {
             // No more room!
             return false;
         } else if (buf.nioBufferCount() == 1) {
-            final int len = buf.readableBytes();
             if (len == 0) {
                 return true;
             }
             if (buf.hasMemoryAddress()) {
-                return add(buf.memoryAddress(), buf.readerIndex(), len);
+                return add(buf.memoryAddress(), index, len);
             } else {
-                ByteBuffer nioBuffer = buf.internalNioBuffer(buf.readerIndex(), len);
+                ByteBuffer nioBuffer = buf.internalNioBuffer(index, len);
                 return add(Buffer.memoryAddress(nioBuffer), nioBuffer.position(), len);
             }
         } else {
-            ByteBuffer[] buffers = buf.nioBuffers();
+            ByteBuffer[] buffers = buf.nioBuffers(index, len);
             for (ByteBuffer nioBuffer : buffers) {
-                final int len = nioBuffer.remaining();
-                if (len != 0 &&
-                    (!add(Buffer.memoryAddress(nioBuffer), nioBuffer.position(), len) || count == IOV_MAX)) {
+                final int remaining = nioBuffer.remaining();
+                if (remaining != 0 &&
+                    (!add(Buffer.memoryAddress(nioBuffer), nioBuffer.position(), remaining) || count == IOV_MAX)) {
                     return false;
                 }
             }
@@ -154,6 +165,67 @@ public final class IovArray implements MessageProcessor {
         return true;
     }
 
+    /**
+     * Removes the given number of bytes from the front of this {@link IovArray}. This allows to write the remaining
+     * content after a partial {@code writev(...)} without adding all the buffers again.
+     * @param bytes the number of bytes that were written, must not exceed {@link #size()}.
+     */
+    public void removeBytes(long bytes) {
+        if (bytes < 0 || bytes > size) {
+            throw new IllegalArgumentException("bytes: " + bytes + " (expected: 0-" + size + ')');
+        }
+        if (bytes == 0) {
+            return;
+        }
+        size -= bytes;
+        // Find the first entry that was not written completely.
+        int first = 0;
+        long len;
+        while ((len = getWord(idx(first) + ADDRESS_SIZE)) <= bytes) {
+            bytes -= len;
+            if (++first == count) {
+                count = 0;
+                return;
+            }
+        }
+        // Adjust the partial written entry and move the remaining entries to the front.
+        putWord(idx(0), getWord(idx(first)) + bytes);
+        putWord(idx(0) + ADDRESS_SIZE, len - bytes);
+        for (int i = first + 1; i < count; i++) {
+            int dst = idx(i - first);
+            putWord(dst, getWord(idx(i)));
+            putWord(dst + ADDRESS_SIZE, getWord(idx(i) + ADDRESS_SIZE));
+        }
+        count -= first;
+    }
+
+    private long getWord(int offset) {
+        if (ADDRESS_SIZE == 8) {
+            return PlatformDependent.hasUnsafe() ? PlatformDependent.getLong(offset + memoryAddress) :
+                    memory.getLong(offset);
+        }
+        assert ADDRESS_SIZE == 4;
+        return (PlatformDependent.hasUnsafe() ? PlatformDependent.getInt(offset + memoryAddress) :
+                memory.getInt(offset)) & 0xFFFFFFFFL;
+    }
+
+    private void putWord(int offset, long value) {
+        if (ADDRESS_SIZE == 8) {
+            if (PlatformDependent.hasUnsafe()) {
+                PlatformDependent.putLong(offset + memoryAddress, value);
+            } else {
+                memory.putLong(offset, value);
+            }
+        } else {
+            assert ADDRESS_SIZE == 4;
+            if (PlatformDependent.hasUnsafe()) {
+                PlatformDependent.putInt(offset + memoryAddress, (int) value);
+            } else {
+                memory.putInt(offset, (int) value);
+            }
+        }
+    }
+
     /**
      * Returns the number if iov entries.
      */
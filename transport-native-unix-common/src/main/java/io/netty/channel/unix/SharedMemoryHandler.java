@@ -0,0 +1,307 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.unix;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.PendingWriteQueue;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * A handler which moves the payload of a {@link DomainSocketChannel} into memory mapped ring buffers, so the data
+ * itself is not copied through the kernel when both peers run on the same host. It must be added as the first
+ * handler to the {@link io.netty.channel.ChannelPipeline} on both sides of the connection, all other handlers see
+ * a normal stream of {@link ByteBuf}s.
+ * <p>
+ * Each side creates a ring for the data it writes and announces the file of the ring to its peer over the socket.
+ * After that the socket is only used for single byte doorbells which are sent when the peer waits for data or for
+ * space in the ring. Once the peer acknowledged that it mapped the ring, the creator unlinks the file.
+ * <p>
+ * Both sides must use the same directory. Only ring files directly inside that directory are accepted from the
+ * peer, but as the peer can make this handler map such a file, it should still only be used between trusted
+ * processes.
+ */
+@UnstableApi
+public final class SharedMemoryHandler extends ChannelDuplexHandler {
+    private static final int MAGIC = 0x4e53484d; // "NSHM"
+    private static final int MAX_PATH_LENGTH = 4096;
+    private static final byte DATA_AVAILABLE = 'D';
+    private static final byte SPACE_AVAILABLE = 'S';
+    private static final byte RING_MAPPED = 'M';
+    private static final int DEFAULT_CAPACITY = 1024 * 1024;
+    private static final int MAX_READ_BUFFER_SIZE = 64 * 1024;
+    private static final File DEFAULT_DIRECTORY;
+
+    static {
+        File shm = new File("/dev/shm");
+        DEFAULT_DIRECTORY = shm.isDirectory() ? shm : new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    private final int capacity;
+    private final File directory;
+    private File canonicalDirectory;
+
+    private SharedMemoryRing outboundRing;
+    private SharedMemoryRing inboundRing;
+    private PendingWriteQueue pendingWrites;
+    private ByteBuf handshake;
+    private boolean waitingForSpace;
+
+    /**
+     * Creates a new instance with a ring capacity of 1 MiB.
+     */
+    public SharedMemoryHandler() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new instance which uses rings of the given capacity, rounded up to the next power of two, that are
+     * placed in {@code /dev/shm} if available.
+     */
+    public SharedMemoryHandler(int capacity) {
+        this(capacity, DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * Creates a new instance which uses rings of the given capacity, rounded up to the next power of two, that are
+     * placed in the given directory.
+     */
+    public SharedMemoryHandler(int capacity, File directory) {
+        ObjectUtil.checkPositive(capacity, "capacity");
+        if (!PlatformDependent.hasUnsafe()) {
+            throw new UnsupportedOperationException("sun.misc.Unsafe is required for shared memory");
+        }
+        this.capacity = MathUtil.safeFindNextPositivePowerOfTwo(capacity);
+        this.directory = ObjectUtil.checkNotNull(directory, "directory");
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        canonicalDirectory = directory.getCanonicalFile();
+        pendingWrites = new PendingWriteQueue(ctx);
+        handshake = ctx.alloc().buffer(8);
+        if (ctx.channel().isActive()) {
+            sendHandshake(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (outboundRing == null) {
+            sendHandshake(ctx);
+        }
+        ctx.fireChannelActive();
+    }
+
+    private void sendHandshake(ChannelHandlerContext ctx) throws IOException {
+        outboundRing = SharedMemoryRing.create(directory, capacity);
+        byte[] path = outboundRing.file().getAbsolutePath().getBytes(CharsetUtil.UTF_8);
+        ByteBuf buf = ctx.alloc().buffer(8 + path.length);
+        buf.writeInt(MAGIC).writeInt(path.length).writeBytes(path);
+        ctx.writeAndFlush(buf, ctx.voidPromise());
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        ByteBuf buf = (ByteBuf) msg;
+        try {
+            if (inboundRing == null) {
+                handshake.writeBytes(buf);
+                if (!readHandshake()) {
+                    return;
+                }
+                ctx.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { RING_MAPPED }), ctx.voidPromise());
+                buf = handshake;
+            }
+            boolean dataAvailable = false;
+            boolean spaceAvailable = false;
+            while (buf.isReadable()) {
+                byte doorbell = buf.readByte();
+                if (doorbell == DATA_AVAILABLE) {
+                    dataAvailable = true;
+                } else if (doorbell == SPACE_AVAILABLE) {
+                    spaceAvailable = true;
+                } else if (doorbell == RING_MAPPED) {
+                    // The peer mapped our ring, so the file is not needed anymore.
+                    if (outboundRing != null) {
+                        outboundRing.file().delete();
+                    }
+                } else {
+                    throw new IOException("unexpected doorbell: " + doorbell);
+                }
+            }
+            if (spaceAvailable && waitingForSpace) {
+                waitingForSpace = false;
+                writeToRing(ctx);
+            }
+            if (dataAvailable) {
+                readFromRing(ctx);
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private boolean readHandshake() throws IOException {
+        if (handshake.readableBytes() < 8) {
+            return false;
+        }
+        int index = handshake.readerIndex();
+        if (handshake.getInt(index) != MAGIC) {
+            throw new IOException("peer does not use " + StringUtil.simpleClassName(this));
+        }
+        int length = handshake.getInt(index + 4);
+        if (length <= 0 || length > MAX_PATH_LENGTH) {
+            throw new IOException("invalid shared memory file name length: " + length);
+        }
+        if (handshake.readableBytes() < 8 + length) {
+            return false;
+        }
+        File file = checkRingFile(new File(handshake.toString(index + 8, length, CharsetUtil.UTF_8)));
+        handshake.skipBytes(8 + length);
+        inboundRing = SharedMemoryRing.open(file);
+        return true;
+    }
+
+    private File checkRingFile(File file) throws IOException {
+        File canonical = file.getCanonicalFile();
+        String name = canonical.getName();
+        if (!canonicalDirectory.equals(canonical.getParentFile()) ||
+                !name.startsWith(SharedMemoryRing.FILE_PREFIX) || !name.endsWith(SharedMemoryRing.FILE_SUFFIX)) {
+            throw new IOException("peer sent a shared memory file outside of " + canonicalDirectory + ": " + file);
+        }
+        return canonical;
+    }
+
+    private void readFromRing(ChannelHandlerContext ctx) {
+        SharedMemoryRing ring = inboundRing;
+        for (;;) {
+            int readable = ring.readableBytes();
+            if (readable == 0) {
+                if (ring.prepareSleep()) {
+                    break;
+                }
+                continue;
+            }
+            ByteBuf buf = ctx.alloc().buffer(Math.min(readable, MAX_READ_BUFFER_SIZE));
+            ring.read(buf, buf.writableBytes());
+            if (ring.wakeupProducer()) {
+                ctx.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { SPACE_AVAILABLE }), ctx.voidPromise());
+            }
+            ctx.fireChannelRead(buf);
+            if (inboundRing != ring) {
+                // This handler was removed and so the ring was released by a handler that consumed the data.
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ReferenceCountUtil.release(msg);
+            promise.setFailure(new UnsupportedOperationException(
+                    "unsupported message type: " + StringUtil.simpleClassName(msg)));
+            return;
+        }
+        pendingWrites.add(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (!waitingForSpace) {
+            writeToRing(ctx);
+        }
+    }
+
+    private void writeToRing(ChannelHandlerContext ctx) {
+        SharedMemoryRing ring = outboundRing;
+        if (ring == null) {
+            pendingWrites.removeAndFailAll(new ClosedChannelException());
+            return;
+        }
+        boolean written = false;
+        for (;;) {
+            ByteBuf buf = (ByteBuf) pendingWrites.current();
+            if (buf == null) {
+                break;
+            }
+            if (ring.write(buf) > 0) {
+                written = true;
+            }
+            if (!buf.isReadable()) {
+                pendingWrites.remove().trySuccess();
+            } else if (ring.prepareWaitForSpace()) {
+                // The consumer will ring the doorbell once it freed some space.
+                waitingForSpace = true;
+                break;
+            }
+        }
+        if (written && ring.wakeupConsumer()) {
+            ctx.write(Unpooled.wrappedBuffer(new byte[] { DATA_AVAILABLE }), ctx.voidPromise());
+        }
+        ctx.flush();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        release();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        release();
+        if (handshake != null) {
+            handshake.release();
+            handshake = null;
+        }
+    }
+
+    private void release() {
+        if (pendingWrites != null) {
+            pendingWrites.removeAndFailAll(new ClosedChannelException());
+        }
+        waitingForSpace = false;
+        if (outboundRing != null) {
+            // In case the peer never mapped it.
+            outboundRing.file().delete();
+            outboundRing.release();
+            outboundRing = null;
+        }
+        if (inboundRing != null) {
+            inboundRing.release();
+            inboundRing = null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.unix;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A single-producer single-consumer byte ring which lives in a memory mapped file and so can be shared between
+ * processes. Indexes are stored in the header of the file and accessed with volatile semantics.
+ */
+final class SharedMemoryRing {
+    // Every field of the header lives in its own cache line.
+    private static final int CAPACITY_OFFSET = 0;
+    private static final int WRITE_INDEX_OFFSET = 64;
+    private static final int READ_INDEX_OFFSET = 128;
+    // Set by the consumer before it waits for a doorbell, cleared by the producer that rings it.
+    private static final int CONSUMER_SLEEPING_OFFSET = 192;
+    // Set by the producer before it waits for space, cleared by the consumer that signals it.
+    private static final int PRODUCER_WAITING_OFFSET = 256;
+    static final int HEADER_SIZE = 320;
+
+    static final String FILE_PREFIX = "netty-shm-";
+    static final String FILE_SUFFIX = ".ring";
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer data;
+    private final long address;
+    private final int capacity;
+    private final int mask;
+
+    private SharedMemoryRing(File file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        address = PlatformDependent.directBufferAddress(buffer);
+        capacity = (int) PlatformDependent.getLongVolatile(address + CAPACITY_OFFSET);
+        mask = capacity - 1;
+        buffer.position(HEADER_SIZE);
+        data = buffer.slice();
+    }
+
+    /**
+     * Creates a new ring file with the given capacity, which must be a power of two, in the given directory.
+     */
+    static SharedMemoryRing create(File directory, int capacity) throws IOException {
+        File file = File.createTempFile(FILE_PREFIX, FILE_SUFFIX, directory);
+        try {
+            MappedByteBuffer buffer = map(file, HEADER_SIZE + capacity);
+            long address = PlatformDependent.directBufferAddress(buffer);
+            PlatformDependent.putLongVolatile(address + CONSUMER_SLEEPING_OFFSET, 1);
+            PlatformDependent.putLongVolatile(address + CAPACITY_OFFSET, capacity);
+            return new SharedMemoryRing(file, buffer);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing ring file which was created by {@link #create(File, int)}, possibly in another process.
+     */
+    static SharedMemoryRing open(File file) throws IOException {
+        long length = file.length();
+        if (length <= HEADER_SIZE || length > HEADER_SIZE + (long) Integer.MAX_VALUE) {
+            throw new IOException("not a shared memory ring: " + file);
+        }
+        SharedMemoryRing ring = new SharedMemoryRing(file, map(file, (int) length));
+        if (ring.capacity != length - HEADER_SIZE || Integer.bitCount(ring.capacity) != 1) {
+            ring.release();
+            throw new IOException("not a shared memory ring: " + file);
+        }
+        return ring;
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(size);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            // The mapping stays valid after the file was closed.
+            raf.close();
+        }
+    }
+
+    File file() {
+        return file;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Copies as many readable bytes of {@code src} as fit into the ring. Must only be called by the producer.
+     *
+     * @return the number of bytes written.
+     */
+    int write(ByteBuf src) {
+        long writeIndex = PlatformDependent.getLongVolatile(address + WRITE_INDEX_OFFSET);
+        long readIndex = PlatformDependent.getLongVolatile(address + READ_INDEX_OFFSET);
+        int length = (int) Math.min(capacity - (writeIndex - readIndex), src.readableBytes());
+        if (length == 0) {
+            return 0;
+        }
+        int offset = (int) writeIndex & mask;
+        int first = Math.min(length, capacity - offset);
+        int srcIndex = src.readerIndex();
+        src.getBytes(srcIndex, chunk(offset, first));
+        if (first < length) {
+            src.getBytes(srcIndex + first, chunk(0, length - first));
+        }
+        src.skipBytes(length);
+        PlatformDependent.putLongVolatile(address + WRITE_INDEX_OFFSET, writeIndex + length);
+        return length;
+    }
+
+    /**
+     * Returns the number of bytes which can be read. Must only be called by the consumer.
+     */
+    int readableBytes() {
+        return (int) (PlatformDependent.getLongVolatile(address + WRITE_INDEX_OFFSET) -
+                PlatformDependent.getLongVolatile(address + READ_INDEX_OFFSET));
+    }
+
+    /**
+     * Moves up to {@code length} readable bytes into {@code dst}. Must only be called by the consumer.
+     *
+     * @return the number of bytes read.
+     */
+    int read(ByteBuf dst, int length) {
+        long readIndex = PlatformDependent.getLongVolatile(address + READ_INDEX_OFFSET);
+        long writeIndex = PlatformDependent.getLongVolatile(address + WRITE_INDEX_OFFSET);
+        length = (int) Math.min(Math.min(writeIndex - readIndex, length), dst.writableBytes());
+        if (length == 0) {
+            return 0;
+        }
+        int offset = (int) readIndex & mask;
+        int first = Math.min(length, capacity - offset);
+        dst.writeBytes(chunk(offset, first));
+        if (first < length) {
+            dst.writeBytes(chunk(0, length - first));
+        }
+        PlatformDependent.putLongVolatile(address + READ_INDEX_OFFSET, readIndex + length);
+        return length;
+    }
+
+    /**
+     * Called by the consumer before it waits for the producer to ring the doorbell. Returns {@code false} if there
+     * are readable bytes, in which case the consumer must not wait.
+     */
+    boolean prepareSleep() {
+        PlatformDependent.putLongVolatile(address + CONSUMER_SLEEPING_OFFSET, 1);
+        if (readableBytes() > 0) {
+            PlatformDependent.putLongVolatile(address + CONSUMER_SLEEPING_OFFSET, 0);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called by the producer after it wrote bytes. Returns {@code true} if the consumer is waiting for a doorbell.
+     */
+    boolean wakeupConsumer() {
+        if (PlatformDependent.getLongVolatile(address + CONSUMER_SLEEPING_OFFSET) != 0) {
+            PlatformDependent.putLongVolatile(address + CONSUMER_SLEEPING_OFFSET, 0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called by the producer before it waits for the consumer to free space. Returns {@code false} if there is
+     * space available, in which case the producer must not wait.
+     */
+    boolean prepareWaitForSpace() {
+        PlatformDependent.putLongVolatile(address + PRODUCER_WAITING_OFFSET, 1);
+        if (readableBytes() < capacity) {
+            PlatformDependent.putLongVolatile(address + PRODUCER_WAITING_OFFSET, 0);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called by the consumer after it read bytes. Returns {@code true} if the producer is waiting for space.
+     */
+    boolean wakeupProducer() {
+        if (PlatformDependent.getLongVolatile(address + PRODUCER_WAITING_OFFSET) != 0) {
+            PlatformDependent.putLongVolatile(address + PRODUCER_WAITING_OFFSET, 0);
+            return true;
+        }
+        return false;
+    }
+
+    private ByteBuffer chunk(int offset, int length) {
+        data.clear().position(offset).limit(offset + length);
+        return data;
+    }
+
+    /**
+     * Unmaps the ring. It must not be used anymore after this method returns.
+     */
+    void release() {
+        PlatformDependent.freeDirectBuffer(buffer);
+    }
+}
@@ -267,8 +267,12 @@ public abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C ext
         return doBind(ObjectUtil.checkNotNull(localAddress, "localAddress"));
     }
 
-    private ChannelFuture doBind(final SocketAddress localAddress) {
-        final ChannelFuture regFuture = initAndRegister();
+    ChannelFuture doBind(SocketAddress localAddress) {
+        return doBind(localAddress, config().group());
+    }
+
+    final ChannelFuture doBind(final SocketAddress localAddress, EventLoopGroup group) {
+        final ChannelFuture regFuture = initAndRegister(group);
         final Channel channel = regFuture.channel();
         if (regFuture.cause() != null) {
             return regFuture;
@@ -304,6 +308,10 @@ public abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C ext
     }
 
     final ChannelFuture initAndRegister() {
+        return initAndRegister(config().group());
+    }
+
+    final ChannelFuture initAndRegister(EventLoopGroup group) {
         Channel channel = null;
         try {
             channel = channelFactory.newChannel();
@@ -319,7 +327,7 @@ public abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C ext
             return new DefaultChannelPromise(new FailedChannel(), GlobalEventExecutor.INSTANCE).setFailure(t);
         }
 
-        ChannelFuture regFuture = config().group().register(channel);
+        ChannelFuture regFuture = group.register(channel);
         if (regFuture.cause() != null) {
             if (channel.isRegistered()) {
                 channel.close();
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.bootstrap;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPipelineTemplate;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Placeholder which adds the child handlers of a {@link ServerBootstrap} to the pipeline once the first message
+ * was read, and then replays the {@code channelRegistered} and {@code channelActive} events for it.
+ *
+ * @see ServerBootstrap#lazyChildInitialization(boolean)
+ */
+@Sharable
+final class LazyChildInitializer extends ChannelInboundHandlerAdapter {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(LazyChildInitializer.class);
+
+    private final ChannelPipelineTemplate childPipeline;
+    private final ChannelHandler childHandler;
+
+    LazyChildInitializer(ChannelPipelineTemplate childPipeline, ChannelHandler childHandler) {
+        this.childPipeline = childPipeline;
+        this.childHandler = childHandler;
+    }
+
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) {
+        // Replayed once the child handler was added.
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        // Replayed once the child handler was added. If auto read is disabled there is no handler yet that could
+        // request the first read, so do it here.
+        if (!ctx.channel().config().isAutoRead()) {
+            ctx.read();
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        ChannelPipeline pipeline = ctx.pipeline();
+        try {
+            if (childPipeline != null) {
+                childPipeline.apply(pipeline);
+            }
+            if (childHandler != null) {
+                pipeline.addLast(childHandler);
+            }
+        } catch (Throwable cause) {
+            logger.warn("Failed to initialize an accepted channel: {}", ctx.channel(), cause);
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+            return;
+        }
+        try {
+            ctx.fireChannelRegistered();
+            if (ctx.channel().isActive()) {
+                ctx.fireChannelActive();
+            }
+            ctx.fireChannelRead(msg);
+        } finally {
+            pipeline.remove(this);
+        }
+    }
+}
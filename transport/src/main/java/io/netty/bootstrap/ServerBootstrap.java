@@ -25,17 +25,25 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPipelineTemplate;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@link Bootstrap} sub-class which allows easy bootstrap of {@link ServerChannel}
@@ -50,6 +58,9 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
     private final ServerBootstrapConfig config = new ServerBootstrapConfig(this);
     private volatile EventLoopGroup childGroup;
     private volatile ChannelHandler childHandler;
+    private volatile ChannelPipelineTemplate childPipeline;
+    private volatile boolean lazyChildInitialization;
+    private volatile ChannelOption<Boolean> reusePortOption;
 
     public ServerBootstrap() { }
 
@@ -57,6 +68,9 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         super(bootstrap);
         childGroup = bootstrap.childGroup;
         childHandler = bootstrap.childHandler;
+        childPipeline = bootstrap.childPipeline;
+        lazyChildInitialization = bootstrap.lazyChildInitialization;
+        reusePortOption = bootstrap.reusePortOption;
         synchronized (bootstrap.childOptions) {
             childOptions.putAll(bootstrap.childOptions);
         }
@@ -129,6 +143,130 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         return this;
     }
 
+    /**
+     * Set the {@link ChannelPipelineTemplate} which is applied to the pipeline of every accepted {@link Channel}. This
+     * can be used instead of or in addition to {@link #childHandler(ChannelHandler)}. If both are set, the handlers of
+     * the template are added first.
+     */
+    public ServerBootstrap childPipeline(ChannelPipelineTemplate childPipeline) {
+        this.childPipeline = ObjectUtil.checkNotNull(childPipeline, "childPipeline");
+        return this;
+    }
+
+    /**
+     * If {@code true} the {@link #childHandler(ChannelHandler)} is not added to the pipeline of an accepted
+     * {@link Channel} before its first inbound message is read. Until then only a small placeholder handler is
+     * present, which saves the memory and CPU needed to build the full pipeline for connections that never send any
+     * data, like health checks of load balancers. The {@code channelRegistered} and {@code channelActive} events
+     * are replayed for the handlers once they were added.
+     * <p>
+     * This is not suitable for protocols where the server sends data first. If {@link ChannelOption#AUTO_READ} is
+     * disabled for the child {@link Channel}s, the placeholder requests the first read itself.
+     */
+    public ServerBootstrap lazyChildInitialization(boolean lazyChildInitialization) {
+        this.lazyChildInitialization = lazyChildInitialization;
+        return this;
+    }
+
+    /**
+     * If not {@code null} one {@link ServerChannel} is bound per {@link EventLoop} of the child {@link EventLoopGroup},
+     * all of them listening on the same address by enabling the given {@code SO_REUSEPORT} {@link ChannelOption} of
+     * the transport, like {@code EpollChannelOption.SO_REUSEPORT}. Use {@code null} to bind a single
+     * {@link ServerChannel} again. The kernel distributes incoming
+     * connections between the listeners and every accepted {@link Channel} is registered on the {@link EventLoop} of
+     * the listener which accepted it, so no hand-off between threads is needed.
+     * <p>
+     * The {@link ChannelFuture} returned by {@code bind(...)} belongs to the first listener and is notified once all
+     * listeners are bound. Closing its {@link Channel} closes all the other listeners as well. The parent
+     * {@link EventLoopGroup} is not used in this mode and the {@link #handler(ChannelHandler)}, if any, must be
+     * {@link ChannelHandler.Sharable}.
+     * <p>
+     * If the {@link ServerChannel} does not support the given {@link ChannelOption} only a single listener is bound
+     * and accepted {@link Channel}s are distributed over the child {@link EventLoopGroup} as usual.
+     */
+    public ServerBootstrap acceptorPerEventLoop(ChannelOption<Boolean> reusePortOption) {
+        this.reusePortOption = reusePortOption;
+        return this;
+    }
+
+    @Override
+    ChannelFuture doBind(SocketAddress localAddress) {
+        final ChannelOption<Boolean> reusePortOption = this.reusePortOption;
+        if (reusePortOption == null) {
+            return super.doBind(localAddress);
+        }
+        final List<EventLoop> eventLoops = new ArrayList<EventLoop>();
+        for (EventExecutor executor: childGroup) {
+            eventLoops.add((EventLoop) executor);
+        }
+        final ChannelFuture firstFuture = doBind(localAddress, eventLoops.get(0));
+        final Channel first = firstFuture.channel();
+        final PendingRegistrationPromise promise = new PendingRegistrationPromise(first);
+        firstFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    promise.setFailure(future.cause());
+                    return;
+                }
+                promise.registered();
+                if (!Boolean.TRUE.equals(first.config().getOption(reusePortOption))) {
+                    logger.debug("{} does not support {}, using a single acceptor.", first, reusePortOption);
+                    promise.setSuccess();
+                } else {
+                    bindSiblings(first, eventLoops, promise);
+                }
+            }
+        });
+        return promise;
+    }
+
+    private void bindSiblings(final Channel first, List<EventLoop> eventLoops, final ChannelPromise promise) {
+        final int siblings = eventLoops.size() - 1;
+        if (siblings == 0) {
+            promise.setSuccess();
+            return;
+        }
+        final Channel[] channels = new Channel[siblings];
+        final AtomicInteger pending = new AtomicInteger(siblings);
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    if (promise.tryFailure(future.cause())) {
+                        first.close();
+                    }
+                } else if (pending.decrementAndGet() == 0) {
+                    promise.trySuccess();
+                }
+            }
+        };
+        // Bind to the address of the first listener so this also works when an ephemeral port was requested.
+        SocketAddress localAddress = first.localAddress();
+        for (int i = 0; i < siblings; i++) {
+            ChannelFuture future = doBind(localAddress, eventLoops.get(i + 1));
+            channels[i] = future.channel();
+            future.addListener(listener);
+        }
+        first.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                for (Channel channel: channels) {
+                    channel.close();
+                }
+            }
+        });
+    }
+
+    private static boolean enableReusePort(Channel channel, ChannelOption<Boolean> reusePortOption) {
+        try {
+            return channel.config().setOption(reusePortOption, true);
+        } catch (Throwable t) {
+            logger.debug("Failed to enable {} for channel '{}'", reusePortOption, channel, t);
+            return false;
+        }
+    }
+
     @Override
     void init(Channel channel) throws Exception {
         final Map<ChannelOption<?>, Object> options = options0();
@@ -147,8 +285,19 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
 
         ChannelPipeline p = channel.pipeline();
 
-        final EventLoopGroup currentChildGroup = childGroup;
-        final ChannelHandler currentChildHandler = childHandler;
+        // Register accepted channels on the event loop of the listener itself if every event loop has its own.
+        final ChannelOption<Boolean> reusePortOption = this.reusePortOption;
+        final EventLoopGroup currentChildGroup = reusePortOption != null && enableReusePort(channel, reusePortOption) ?
+                null : childGroup;
+        final ChannelHandler currentChildHandler;
+        final ChannelPipelineTemplate currentChildPipeline;
+        if (lazyChildInitialization) {
+            currentChildHandler = new LazyChildInitializer(childPipeline, childHandler);
+            currentChildPipeline = null;
+        } else {
+            currentChildHandler = childHandler;
+            currentChildPipeline = childPipeline;
+        }
         final Entry<ChannelOption<?>, Object>[] currentChildOptions;
         final Entry<AttributeKey<?>, Object>[] currentChildAttrs;
         synchronized (childOptions) {
@@ -170,8 +319,8 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
                 ch.eventLoop().execute(new Runnable() {
                     @Override
                     public void run() {
-                        pipeline.addLast(new ServerBootstrapAcceptor(
-                                ch, currentChildGroup, currentChildHandler, currentChildOptions, currentChildAttrs));
+                        pipeline.addLast(new ServerBootstrapAcceptor(ch, currentChildGroup, currentChildPipeline,
+                                currentChildHandler, currentChildOptions, currentChildAttrs));
                     }
                 });
             }
@@ -181,7 +330,7 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
     @Override
     public ServerBootstrap validate() {
         super.validate();
-        if (childHandler == null) {
+        if (childHandler == null && childPipeline == null) {
             throw new IllegalStateException("childHandler not set");
         }
         if (childGroup == null) {
@@ -203,16 +352,20 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
 
     private static class ServerBootstrapAcceptor extends ChannelInboundHandlerAdapter {
 
+        // null if accepted channels are registered on the EventLoop of the ServerChannel.
         private final EventLoopGroup childGroup;
+        private final ChannelPipelineTemplate childPipeline;
         private final ChannelHandler childHandler;
         private final Entry<ChannelOption<?>, Object>[] childOptions;
         private final Entry<AttributeKey<?>, Object>[] childAttrs;
         private final Runnable enableAutoReadTask;
 
         ServerBootstrapAcceptor(
-                final Channel channel, EventLoopGroup childGroup, ChannelHandler childHandler,
-                Entry<ChannelOption<?>, Object>[] childOptions, Entry<AttributeKey<?>, Object>[] childAttrs) {
+                final Channel channel, EventLoopGroup childGroup, ChannelPipelineTemplate childPipeline,
+                ChannelHandler childHandler, Entry<ChannelOption<?>, Object>[] childOptions,
+                Entry<AttributeKey<?>, Object>[] childAttrs) {
             this.childGroup = childGroup;
+            this.childPipeline = childPipeline;
             this.childHandler = childHandler;
             this.childOptions = childOptions;
             this.childAttrs = childAttrs;
@@ -235,7 +388,17 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         public void channelRead(ChannelHandlerContext ctx, Object msg) {
             final Channel child = (Channel) msg;
 
-            child.pipeline().addLast(childHandler);
+            if (childPipeline != null) {
+                try {
+                    childPipeline.apply(child.pipeline());
+                } catch (Throwable t) {
+                    forceClose(child, t);
+                    return;
+                }
+            }
+            if (childHandler != null) {
+                child.pipeline().addLast(childHandler);
+            }
 
             setChannelOptions(child, childOptions, logger);
 
@@ -244,7 +407,8 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
             }
 
             try {
-                childGroup.register(child).addListener(new ChannelFutureListener() {
+                EventLoopGroup group = childGroup == null ? ctx.channel().eventLoop() : childGroup;
+                group.register(child).addListener(new ChannelFutureListener() {
                     @Override
                     public void operationComplete(ChannelFuture future) throws Exception {
                         if (!future.isSuccess()) {
@@ -298,6 +462,18 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         return childHandler;
     }
 
+    final ChannelPipelineTemplate childPipeline() {
+        return childPipeline;
+    }
+
+    final ChannelOption<Boolean> reusePortOption() {
+        return reusePortOption;
+    }
+
+    final boolean isLazyChildInitialization() {
+        return lazyChildInitialization;
+    }
+
     final Map<ChannelOption<?>, Object> childOptions() {
         return copiedMap(childOptions);
     }
@@ -17,6 +17,7 @@ package io.netty.bootstrap;
 
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipelineTemplate;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.util.AttributeKey;
@@ -50,6 +51,39 @@ public final class ServerBootstrapConfig extends AbstractBootstrapConfig<ServerB
         return bootstrap.childHandler();
     }
 
+    /**
+     * Returns the configured {@link ChannelPipelineTemplate} which is applied to the child channels or {@code null}
+     * if none is configured.
+     */
+    public ChannelPipelineTemplate childPipeline() {
+        return bootstrap.childPipeline();
+    }
+
+    /**
+     * Returns {@code true} if one {@link io.netty.channel.ServerChannel} is bound per child
+     * {@link io.netty.channel.EventLoop}.
+     */
+    public boolean isAcceptorPerEventLoop() {
+        return bootstrap.reusePortOption() != null;
+    }
+
+    /**
+     * Returns the {@code SO_REUSEPORT} {@link ChannelOption} which is used to bind one
+     * {@link io.netty.channel.ServerChannel} per child {@link io.netty.channel.EventLoop} or {@code null} if a
+     * single one is bound.
+     */
+    public ChannelOption<Boolean> reusePortOption() {
+        return bootstrap.reusePortOption();
+    }
+
+    /**
+     * Returns {@code true} if the {@link #childHandler()} is only added once the first message of a child channel
+     * was read.
+     */
+    public boolean isLazyChildInitialization() {
+        return bootstrap.isLazyChildInitialization();
+    }
+
     /**
      * Returns a copy of the configured options which will be used for the child channels.
      */
@@ -93,6 +127,21 @@ public final class ServerBootstrapConfig extends AbstractBootstrapConfig<ServerB
             buf.append(childHandler);
             buf.append(", ");
         }
+        ChannelPipelineTemplate childPipeline = childPipeline();
+        if (childPipeline != null) {
+            buf.append("childPipeline: ");
+            buf.append(childPipeline);
+            buf.append(", ");
+        }
+        ChannelOption<Boolean> reusePortOption = reusePortOption();
+        if (reusePortOption != null) {
+            buf.append("acceptorPerEventLoop: ");
+            buf.append(reusePortOption);
+            buf.append(", ");
+        }
+        if (isLazyChildInitialization()) {
+            buf.append("lazyChildInitialization: true, ");
+        }
         if (buf.charAt(buf.length() - 1) == '(') {
             buf.append(')');
         } else {
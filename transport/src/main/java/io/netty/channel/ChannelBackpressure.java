@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Utility methods which give producers more precise backpressure information than {@link Channel#isWritable()}.
+ * <p>
+ * Instead of writing until the {@link Channel} becomes unwritable and then waiting for
+ * {@link ChannelInboundHandler#channelWritabilityChanged(ChannelHandlerContext)}, a producer can ask for demand
+ * before it writes a chunk of data and only write once the returned {@link ChannelFuture} is complete:
+ * <pre>
+ * ChannelBackpressure.demand(channel, chunkSize).addListener(new {@link ChannelFutureListener}() {
+ *     public void operationComplete({@link ChannelFuture} future) {
+ *         if (future.isSuccess()) {
+ *             channel.writeAndFlush(nextChunk());
+ *         }
+ *     }
+ * });
+ * </pre>
+ */
+@UnstableApi
+public final class ChannelBackpressure {
+
+    private ChannelBackpressure() { }
+
+    /**
+     * Returns the number of bytes that are queued for writing but were not written to the transport yet.
+     */
+    public static long pendingBytes(Channel channel) {
+        ChannelOutboundBuffer buf = channel.unsafe().outboundBuffer();
+        return buf == null ? 0 : buf.totalPendingWriteBytes();
+    }
+
+    /**
+     * Returns the observed rate in bytes per second at which the {@link Channel} writes data to the transport.
+     *
+     * @see ChannelOutboundBuffer#drainRate()
+     */
+    public static long drainRate(Channel channel) {
+        ChannelOutboundBuffer buf = channel.unsafe().outboundBuffer();
+        return buf == null ? 0 : buf.drainRate();
+    }
+
+    /**
+     * Returns the estimated time in nanoseconds until all pending bytes are written to the transport, or {@code -1}
+     * if there is not enough information for an estimate yet.
+     *
+     * @see ChannelOutboundBuffer#timeToDrainNanos()
+     */
+    public static long timeToDrainNanos(Channel channel) {
+        ChannelOutboundBuffer buf = channel.unsafe().outboundBuffer();
+        return buf == null ? 0 : buf.timeToDrainNanos();
+    }
+
+    /**
+     * Returns a {@link ChannelFuture} which is notified once at least {@code bytes} can be written without making
+     * the {@link Channel} unwritable. Requests larger than the high water mark are capped to it. The returned
+     * {@link ChannelFuture} is failed if the {@link Channel} is closed before the demand is available.
+     */
+    public static ChannelFuture demand(final Channel channel, long bytes) {
+        ObjectUtil.checkPositiveOrZero(bytes, "bytes");
+        final ChannelPromise promise = channel.newPromise();
+        final long capped = Math.min(bytes, channel.config().getWriteBufferHighWaterMark());
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            demand0(channel, capped, promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    demand0(channel, capped, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private static void demand0(Channel channel, long bytes, ChannelPromise promise) {
+        ChannelOutboundBuffer buf = channel.unsafe().outboundBuffer();
+        if (buf == null) {
+            promise.tryFailure(new ClosedChannelException());
+        } else {
+            buf.addDemand(bytes, promise);
+        }
+    }
+}
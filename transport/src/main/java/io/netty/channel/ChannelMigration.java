@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Utility which allows to move a registered {@link Channel} to another {@link EventLoop} of the same
+ * {@link EventLoopGroup}, for example to rebalance the load between {@link EventLoop}s.
+ * <p>
+ * The {@link Channel} keeps its {@link ChannelPipeline} and its pending writes. The migration is done by
+ * deregistering the {@link Channel} from its current {@link EventLoop} and registering it with the new one, so the
+ * {@link ChannelHandler}s will see a {@link ChannelInboundHandler#channelUnregistered(ChannelHandlerContext)} followed
+ * by a {@link ChannelInboundHandler#channelRegistered(ChannelHandlerContext)}. The {@link Channel} is only switched
+ * to the new {@link EventLoop} once the old {@link EventLoop} has no pending tasks anymore, so all operations that
+ * were submitted to the old {@link EventLoop} before the switch, like writes from other threads and internal
+ * callbacks of the {@link Channel}, are processed by the old {@link EventLoop} in order before the new
+ * {@link EventLoop} takes over. Operations submitted after the switch are processed by the new {@link EventLoop}.
+ * <p>
+ * If {@link ChannelConfig#isAutoRead()} is {@code false}, a {@link Channel#read()} that was requested before but
+ * was not satisfied yet is dropped by the migration, as the read interest belongs to the registration with the old
+ * {@link EventLoop}. Call {@link Channel#read()} again once the returned {@link ChannelFuture} is complete.
+ * <p>
+ * Be aware that tasks which were scheduled on the old {@link EventLoop} by {@link ChannelHandler}s themselves (for
+ * example timeouts) are not moved. {@link ChannelHandler}s which hold such state should re-schedule their tasks
+ * when they see the {@link ChannelInboundHandler#channelRegistered(ChannelHandlerContext)} event.
+ */
+@UnstableApi
+public final class ChannelMigration {
+
+    private ChannelMigration() { }
+
+    /**
+     * Moves the given {@link Channel} to the given {@link EventLoop}. The returned {@link ChannelFuture} is notified
+     * by the new {@link EventLoop} once the {@link Channel} was registered with it.
+     *
+     * @param channel   the registered {@link Channel} to move.
+     * @param eventLoop the {@link EventLoop} to move the {@link Channel} to. This must belong to the same
+     *                  {@link EventLoopGroup} as the current {@link EventLoop} of the {@link Channel}.
+     */
+    public static ChannelFuture migrate(final Channel channel, final EventLoop eventLoop) {
+        ObjectUtil.checkNotNull(channel, "channel");
+        ObjectUtil.checkNotNull(eventLoop, "eventLoop");
+
+        final ChannelPromise promise = new DefaultChannelPromise(channel, eventLoop);
+        if (!channel.isRegistered()) {
+            return promise.setFailure(new IllegalStateException("channel not registered to an event loop"));
+        }
+        final EventLoop current = channel.eventLoop();
+        if (current == eventLoop) {
+            return promise.setSuccess();
+        }
+        EventLoopGroup parent = current.parent();
+        if (parent == null || parent != eventLoop.parent()) {
+            return promise.setFailure(new IllegalArgumentException(
+                    "eventLoop must belong to the same EventLoopGroup as the current EventLoop of the channel"));
+        }
+
+        if (current.inEventLoop()) {
+            migrate0(channel, eventLoop, promise);
+        } else {
+            current.execute(new Runnable() {
+                @Override
+                public void run() {
+                    migrate0(channel, eventLoop, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private static void migrate0(final Channel channel, final EventLoop eventLoop, final ChannelPromise promise) {
+        if (!channel.isRegistered()) {
+            promise.setFailure(new IllegalStateException("channel not registered to an event loop"));
+            return;
+        }
+        final EventLoop current = channel.eventLoop();
+        ChannelPromise deregisterPromise = channel.newPromise();
+        deregisterPromise.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    promise.setFailure(future.cause());
+                    return;
+                }
+                switchWhenDrained(channel, current, eventLoop, promise);
+            }
+        });
+        channel.unsafe().deregister(deregisterPromise);
+    }
+
+    private static void switchWhenDrained(final Channel channel, final EventLoop current, final EventLoop eventLoop,
+                                          final ChannelPromise promise) {
+        // Until the Channel is registered with the new EventLoop other threads still submit its operations to the
+        // old EventLoop. These must not run on the old EventLoop once the new one owns the Channel, so queue up
+        // behind them until nothing is pending anymore.
+        if (current instanceof SingleThreadEventExecutor && ((SingleThreadEventExecutor) current).pendingTasks() > 0) {
+            try {
+                current.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        switchWhenDrained(channel, current, eventLoop, promise);
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                // The old EventLoop is shutting down and will not run any more tasks, so switch right away.
+            }
+        }
+        register(channel, eventLoop, promise);
+    }
+
+    private static void register(Channel channel, EventLoop eventLoop, final ChannelPromise promise) {
+        final Channel.Unsafe unsafe = channel.unsafe();
+        ChannelPromise registerPromise = new DefaultChannelPromise(channel, eventLoop);
+        registerPromise.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    promise.setFailure(future.cause());
+                    return;
+                }
+                // Writes may have been pending while the Channel was moved. As the registration with the
+                // old EventLoop (and so also the interest in writability) is gone we need to try to write
+                // them again.
+                if (unsafe instanceof AbstractChannel.AbstractUnsafe) {
+                    ((AbstractChannel.AbstractUnsafe) unsafe).flush0();
+                }
+                promise.setSuccess();
+            }
+        });
+        unsafe.register(eventLoop, registerPromise);
+    }
+}
@@ -31,7 +31,9 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
@@ -46,6 +48,7 @@ import static java.lang.Math.min;
  * <li>{@link #size()} and {@link #isEmpty()}</li>
  * <li>{@link #isWritable()}</li>
  * <li>{@link #getUserDefinedWritability(int)} and {@link #setUserDefinedWritability(int, boolean)}</li>
+ * <li>{@link #drainRate()} and {@link #timeToDrainNanos()}</li>
  * </ul>
  * </p>
  */
@@ -60,6 +63,8 @@ public final class ChannelOutboundBuffer {
     static final int CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD =
             SystemPropertyUtil.getInt("io.netty.transport.outboundBufferEntrySizeOverhead", 96);
 
+    private static final long DRAIN_SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
     private static final FastThreadLocal<ByteBuffer[]> NIO_BUFFERS = new FastThreadLocal<ByteBuffer[]>() {
@@ -101,8 +106,20 @@ public final class ChannelOutboundBuffer {
 
     private volatile Runnable fireChannelWritabilityChangedTask;
 
+    // Total number of bytes that were removed from this buffer, either written out or failed. Only accessed by the
+    // EventLoop, which samples it into drainRate once per flush and removeBytes(...) call so the clock is not read
+    // for each message.
+    private long drainedBytes;
+    private long drainSampleNanos;
+    private long drainSampleBytes;
+
+    private volatile long drainRate;
+
+    private ArrayDeque<DemandRequest> demandRequests;
+
     ChannelOutboundBuffer(AbstractChannel channel) {
         this.channel = channel;
+        drainSampleNanos = System.nanoTime();
     }
 
     /**
@@ -155,6 +172,10 @@ public final class ChannelOutboundBuffer {
             // All flushed so reset unflushedEntry
             unflushedEntry = null;
         }
+
+        // Also covers transports which do not use removeBytes(...) and lets the drain rate decay while the Channel
+        // does not make any progress.
+        sampleDrainRate();
     }
 
     /**
@@ -241,6 +262,7 @@ public final class ChannelOutboundBuffer {
         ChannelPromise p = e.promise;
         long progress = e.progress + amount;
         e.progress = progress;
+        incrementDrainedBytes(amount);
         if (p instanceof ChannelProgressivePromise) {
             ((ChannelProgressivePromise) p).tryProgress(progress, e.total);
         }
@@ -269,6 +291,10 @@ public final class ChannelOutboundBuffer {
             ReferenceCountUtil.safeRelease(msg);
             safeSuccess(promise);
             decrementPendingOutboundBytes(size, false, true);
+            incrementDrainedBytes(remainingSize(e));
+            if (demandRequests != null) {
+                notifyDemand();
+            }
         }
 
         // recycle the entry
@@ -283,7 +309,13 @@ public final class ChannelOutboundBuffer {
      * {@code false} to signal that no more messages are ready to be handled.
      */
     public boolean remove(Throwable cause) {
-        return remove0(cause, true);
+        if (!remove0(cause, true)) {
+            return false;
+        }
+        if (demandRequests != null) {
+            notifyDemand();
+        }
+        return true;
     }
 
     private boolean remove0(Throwable cause, boolean notifyWritability) {
@@ -305,6 +337,7 @@ public final class ChannelOutboundBuffer {
 
             safeFail(promise, cause);
             decrementPendingOutboundBytes(size, false, notifyWritability);
+            incrementDrainedBytes(remainingSize(e));
         }
 
         // recycle the entry
@@ -313,6 +346,28 @@ public final class ChannelOutboundBuffer {
         return true;
     }
 
+    // The part of the pending size of the entry which was not already counted via progress(long).
+    private static long remainingSize(Entry e) {
+        return Math.max(0, e.pendingSize - e.progress);
+    }
+
+    private void incrementDrainedBytes(long bytes) {
+        drainedBytes += bytes;
+    }
+
+    private void sampleDrainRate() {
+        long now = System.nanoTime();
+        long elapsed = now - drainSampleNanos;
+        if (elapsed >= DRAIN_SAMPLE_INTERVAL_NANOS) {
+            long bytes = drainedBytes;
+            long rate = (long) ((bytes - drainSampleBytes) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed);
+            long oldRate = drainRate;
+            drainRate = oldRate == 0 ? rate : (oldRate + rate) >>> 1;
+            drainSampleNanos = now;
+            drainSampleBytes = bytes;
+        }
+    }
+
     private void removeEntry(Entry e) {
         if (-- flushed == 0) {
             // processed everything
@@ -357,6 +412,7 @@ public final class ChannelOutboundBuffer {
             }
         }
         clearNioBuffers();
+        sampleDrainRate();
     }
 
     // Clear all ByteBuffer from the array so these can be GC'ed.
@@ -659,6 +715,14 @@ public final class ChannelOutboundBuffer {
                     break;
                 }
             }
+            if (demandRequests != null) {
+                if (notify) {
+                    notifyDemand();
+                } else {
+                    // The Channel is closed and so the demand will never be available.
+                    failDemand(cause);
+                }
+            }
         } finally {
             inFail = false;
         }
@@ -677,6 +741,10 @@ public final class ChannelOutboundBuffer {
 
         inFail = true;
 
+        if (demandRequests != null) {
+            failDemand(cause);
+        }
+
         if (!allowChannelOpen && channel.isOpen()) {
             throw new IllegalStateException("close() must be invoked after the channel is closed.");
         }
@@ -760,6 +828,73 @@ public final class ChannelOutboundBuffer {
         return 0;
     }
 
+    /**
+     * Returns the smoothed rate in bytes per second at which bytes were removed from this buffer. The rate is
+     * sampled by the {@link EventLoop} at most every 10 milliseconds when a flush is added or written bytes are
+     * removed via {@link #removeBytes(long)}, so calling this method is cheap and does not change the estimate.
+     * Returns {@code 0} if nothing was written yet.
+     */
+    public long drainRate() {
+        return drainRate;
+    }
+
+    /**
+     * Returns the estimated time in nanoseconds until all pending bytes are written out, based on
+     * {@link #totalPendingWriteBytes()} and {@link #drainRate()}. Returns {@code 0} if nothing is pending and
+     * {@code -1} if no estimate is possible yet.
+     */
+    public long timeToDrainNanos() {
+        long pending = totalPendingSize;
+        if (pending == 0) {
+            return 0;
+        }
+        long rate = drainRate();
+        if (rate == 0) {
+            return -1;
+        }
+        return (long) (pending * (double) TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    /**
+     * Notify the given {@link ChannelPromise} once at least {@code bytes} can be written before {@link #isWritable()}
+     * returns {@code false}. Requests are satisfied in the order they were added and are re-evaluated each time a
+     * flushed message was written. The {@link ChannelPromise} is failed if this {@link ChannelOutboundBuffer} is
+     * closed before.
+     */
+    void addDemand(long bytes, ChannelPromise promise) {
+        assert channel.eventLoop().inEventLoop();
+        if ((demandRequests == null || demandRequests.isEmpty()) && bytesBeforeUnwritable() >= bytes) {
+            promise.trySuccess();
+            return;
+        }
+        if (demandRequests == null) {
+            demandRequests = new ArrayDeque<DemandRequest>(2);
+        }
+        demandRequests.add(new DemandRequest(bytes, promise));
+    }
+
+    private void notifyDemand() {
+        long available = bytesBeforeUnwritable();
+        for (;;) {
+            DemandRequest request = demandRequests.peek();
+            if (request == null || request.bytes > available) {
+                break;
+            }
+            demandRequests.poll();
+            request.promise.trySuccess();
+        }
+    }
+
+    private void failDemand(Throwable cause) {
+        for (;;) {
+            DemandRequest request = demandRequests.poll();
+            if (request == null) {
+                break;
+            }
+            request.promise.tryFailure(cause);
+        }
+    }
+
     /**
      * Call {@link MessageProcessor#processMessage(Object)} for each flushed message
      * in this {@link ChannelOutboundBuffer} until {@link MessageProcessor#processMessage(Object)}
@@ -797,6 +932,16 @@ public final class ChannelOutboundBuffer {
         boolean processMessage(Object msg) throws Exception;
     }
 
+    private static final class DemandRequest {
+        final long bytes;
+        final ChannelPromise promise;
+
+        DemandRequest(long bytes, ChannelPromise promise) {
+            this.bytes = bytes;
+            this.promise = promise;
+        }
+    }
+
     static final class Entry {
         private static final Recycler<Entry> RECYCLER = new Recycler<Entry>() {
             @Override
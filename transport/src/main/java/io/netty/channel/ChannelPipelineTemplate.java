@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable, pre-validated list of named {@link ChannelHandler}s which can be added to many
+ * {@link ChannelPipeline}s. Handler names are validated and generated once when the template is built, so adding
+ * a template to a new pipeline needs no name generation and no duplicate checks, and all handlers are added while
+ * holding the lock of the pipeline only once.
+ * <pre>
+ * ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+ *         .addLast("decoder", new {@link ChannelHandlerFactory}() {
+ *             public {@link ChannelHandler} newHandler({@link Channel} channel) {
+ *                 return new MyDecoder();
+ *             }
+ *         })
+ *         .addLast("handler", sharableHandler)
+ *         .build();
+ *
+ * serverBootstrap.childPipeline(template);
+ * </pre>
+ */
+@UnstableApi
+public final class ChannelPipelineTemplate {
+
+    /**
+     * Creates a new {@link ChannelHandler} for each {@link Channel} a {@link ChannelPipelineTemplate} is applied to.
+     */
+    public interface ChannelHandlerFactory {
+        /**
+         * Returns a new {@link ChannelHandler} for the given {@link Channel}.
+         */
+        ChannelHandler newHandler(Channel channel) throws Exception;
+    }
+
+    private final String[] names;
+    // Either a @Sharable ChannelHandler or a ChannelHandlerFactory.
+    private final Object[] handlers;
+
+    private ChannelPipelineTemplate(String[] names, Object[] handlers) {
+        this.names = names;
+        this.handlers = handlers;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the names of all handlers in the order they are added.
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Adds the handlers of this template to the end of the given {@link ChannelPipeline}.
+     */
+    public void apply(ChannelPipeline pipeline) throws Exception {
+        Channel channel = pipeline.channel();
+        if (!(pipeline instanceof DefaultChannelPipeline)) {
+            for (int i = 0; i < handlers.length; i++) {
+                pipeline.addLast(names[i], handler(i, channel));
+            }
+            return;
+        }
+        ChannelHandler[] newHandlers = new ChannelHandler[handlers.length];
+        int created = 0;
+        boolean success = false;
+        try {
+            for (; created < handlers.length; created++) {
+                ChannelHandler handler = handler(created, channel);
+                if (handlers[created] instanceof ChannelHandlerFactory) {
+                    // The names and @Sharable handlers were validated by the Builder, so only the handlers returned
+                    // by a factory need to be checked. This also marks them as added.
+                    DefaultChannelPipeline.checkMultiplicity(handler);
+                }
+                newHandlers[created] = handler;
+            }
+            ((DefaultChannelPipeline) pipeline).addAllLast(names, newHandlers);
+            success = true;
+        } finally {
+            if (!success) {
+                for (int i = 0; i < created; i++) {
+                    if (handlers[i] instanceof ChannelHandlerFactory) {
+                        DefaultChannelPipeline.clearAdded(newHandlers[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private ChannelHandler handler(int index, Channel channel) throws Exception {
+        Object handler = handlers[index];
+        if (!(handler instanceof ChannelHandlerFactory)) {
+            return (ChannelHandler) handler;
+        }
+        ChannelHandler newHandler = ((ChannelHandlerFactory) handler).newHandler(channel);
+        if (newHandler == null) {
+            throw new NullPointerException("factory of " + names[index] + " returned null");
+        }
+        return newHandler;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + Arrays.toString(names);
+    }
+
+    /**
+     * Builds a {@link ChannelPipelineTemplate}.
+     */
+    public static final class Builder {
+        private final List<String> names = new ArrayList<String>();
+        private final List<Object> handlers = new ArrayList<Object>();
+        private final Set<String> uniqueNames = new HashSet<String>();
+
+        private Builder() { }
+
+        /**
+         * Appends a {@link ChannelHandler.Sharable} handler with a generated name.
+         */
+        public Builder addLast(ChannelHandler handler) {
+            ObjectUtil.checkNotNull(handler, "handler");
+            String baseName = StringUtil.simpleClassName(handler.getClass()) + '#';
+            String name;
+            int i = 0;
+            do {
+                name = baseName + i++;
+            } while (uniqueNames.contains(name));
+            return addLast(name, handler);
+        }
+
+        /**
+         * Appends a {@link ChannelHandler.Sharable} handler which is added to every pipeline.
+         */
+        public Builder addLast(String name, ChannelHandler handler) {
+            ObjectUtil.checkNotNull(handler, "handler");
+            if (!handler.getClass().isAnnotationPresent(ChannelHandler.Sharable.class)) {
+                throw new IllegalArgumentException(handler.getClass().getName() +
+                        " is not a @Sharable handler, use a ChannelHandlerFactory instead");
+            }
+            return add(name, handler);
+        }
+
+        /**
+         * Appends a handler which is created by the given {@link ChannelHandlerFactory} for every pipeline.
+         */
+        public Builder addLast(String name, ChannelHandlerFactory factory) {
+            return add(name, ObjectUtil.checkNotNull(factory, "factory"));
+        }
+
+        private Builder add(String name, Object handler) {
+            ObjectUtil.checkNotNull(name, "name");
+            if (!uniqueNames.add(name)) {
+                throw new IllegalArgumentException("Duplicate handler name: " + name);
+            }
+            names.add(name);
+            handlers.add(handler);
+            return this;
+        }
+
+        /**
+         * Returns a new {@link ChannelPipelineTemplate} with all handlers added so far.
+         */
+        public ChannelPipelineTemplate build() {
+            return new ChannelPipelineTemplate(names.toArray(new String[0]), handlers.toArray());
+        }
+    }
+}
@@ -224,6 +224,47 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return this;
     }
 
+    /**
+     * Adds the handlers of a {@link ChannelPipelineTemplate}. The template already validated that its names are
+     * unique and that every handler is either {@link ChannelHandler.Sharable} or was never added before, so only
+     * clashes with the names of the handlers which are already in the pipeline are checked here. This is done before
+     * the first handler is added, so the pipeline is not modified if any of them can not be added.
+     */
+    final void addAllLast(String[] names, ChannelHandler[] handlers) {
+        final AbstractChannelHandlerContext[] newCtxs = new AbstractChannelHandlerContext[handlers.length];
+        synchronized (this) {
+            if (head.next != tail) {
+                for (String name: names) {
+                    checkDuplicateName(name);
+                }
+            }
+            for (int i = 0; i < handlers.length; i++) {
+                AbstractChannelHandlerContext newCtx = newContext(null, names[i], handlers[i]);
+                addLast0(newCtx);
+                newCtxs[i] = newCtx;
+
+                if (!registered) {
+                    newCtx.setAddPending();
+                    callHandlerCallbackLater(newCtx, true);
+                }
+            }
+            if (!registered) {
+                return;
+            }
+
+            EventExecutor executor = channel.eventLoop();
+            if (!executor.inEventLoop()) {
+                for (AbstractChannelHandlerContext newCtx: newCtxs) {
+                    callHandlerAddedInEventLoop(newCtx, executor);
+                }
+                return;
+            }
+        }
+        for (AbstractChannelHandlerContext newCtx: newCtxs) {
+            callHandlerAdded0(newCtx);
+        }
+    }
+
     private void addLast0(AbstractChannelHandlerContext newCtx) {
         AbstractChannelHandlerContext prev = tail.prev;
         newCtx.prev = prev;
@@ -593,7 +634,23 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         oldCtx.next = newCtx;
     }
 
-    private static void checkMultiplicity(ChannelHandler handler) {
+    static void checkMultiplicity(ChannelHandler handler) {
+        checkNotAdded(handler);
+        if (handler instanceof ChannelHandlerAdapter) {
+            ((ChannelHandlerAdapter) handler).added = true;
+        }
+    }
+
+    /**
+     * Reverts {@link #checkMultiplicity(ChannelHandler)} for a handler which was never added to a pipeline after all.
+     */
+    static void clearAdded(ChannelHandler handler) {
+        if (handler instanceof ChannelHandlerAdapter) {
+            ((ChannelHandlerAdapter) handler).added = false;
+        }
+    }
+
+    private static void checkNotAdded(ChannelHandler handler) {
         if (handler instanceof ChannelHandlerAdapter) {
             ChannelHandlerAdapter h = (ChannelHandlerAdapter) handler;
             if (!h.isSharable() && h.added) {
@@ -601,7 +658,6 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                         h.getClass().getName() +
                         " is not a @Sharable handler, so can't be added or removed multiple times.");
             }
-            h.added = true;
         }
     }
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.LoadAwareEventExecutorChooserFactory;
+import io.netty.util.concurrent.LoadAwareEventExecutorChooserFactory.LoadEstimator;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * {@link LoadEstimator}s for {@link EventLoop}s which can be used with
+ * {@link LoadAwareEventExecutorChooserFactory}.
+ */
+@UnstableApi
+public final class EventLoopLoadEstimators {
+
+    private static final LoadEstimator REGISTERED_CHANNELS = new LoadEstimator() {
+        @Override
+        public long load(EventExecutor executor) {
+            return registeredChannels(executor);
+        }
+    };
+
+    private static final LoadEstimator REGISTERED_CHANNELS_AND_PENDING_TASKS = new LoadEstimator() {
+        @Override
+        public long load(EventExecutor executor) {
+            return registeredChannels(executor) + LoadAwareEventExecutorChooserFactory.PENDING_TASKS.load(executor);
+        }
+    };
+
+    private EventLoopLoadEstimators() { }
+
+    /**
+     * Returns a {@link LoadEstimator} which uses {@link SingleThreadEventLoop#registeredChannels()} as load.
+     */
+    public static LoadEstimator registeredChannels() {
+        return REGISTERED_CHANNELS;
+    }
+
+    /**
+     * Returns a {@link LoadEstimator} which uses the sum of {@link SingleThreadEventLoop#registeredChannels()} and
+     * {@link SingleThreadEventLoop#pendingTasks()} as load. As registrations are executed as tasks on the
+     * {@link EventLoop} this also takes registrations into account that are not done yet, which makes it a good fit
+     * for choosing the {@link EventLoop} of accepted child {@link Channel}s.
+     */
+    public static LoadEstimator registeredChannelsAndPendingTasks() {
+        return REGISTERED_CHANNELS_AND_PENDING_TASKS;
+    }
+
+    private static long registeredChannels(EventExecutor executor) {
+        if (executor instanceof SingleThreadEventLoop) {
+            // registeredChannels() returns -1 if not supported.
+            return Math.max(0, ((SingleThreadEventLoop) executor).registeredChannels());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Runtime metrics of a single {@link EventLoop}. All values are cumulative since the {@link EventLoop} was created
+ * and are updated by the {@link EventLoop} itself once per loop iteration, so reading them from another
+ * {@link Thread} is cheap but may return slightly outdated values.
+ *
+ * @see SingleThreadEventLoop#metrics()
+ */
+@UnstableApi
+public interface EventLoopMetrics {
+
+    /**
+     * Returns the number of tasks that are pending for processing.
+     */
+    int pendingTasks();
+
+    /**
+     * Returns the number of pending tasks in the priority lane, which is only used if the {@link EventLoop} uses a
+     * {@link io.netty.util.concurrent.PrioritizedTaskQueue}.
+     */
+    int pendingPriorityTasks();
+
+    /**
+     * Returns the number of tasks that were rejected, for example because the task queue was full.
+     */
+    long rejectedTasks();
+
+    /**
+     * Returns the number of {@link Channel}s registered with the {@link EventLoop} or {@code -1} if not supported.
+     */
+    int registeredChannels();
+
+    /**
+     * Returns the number of tasks that were executed.
+     */
+    long executedTasks();
+
+    /**
+     * Returns the number of completed loop iterations.
+     */
+    long iterations();
+
+    /**
+     * Returns the number of times the {@link EventLoop} was woken up from a blocking select because new tasks were
+     * submitted.
+     */
+    long wakeups();
+
+    /**
+     * Returns the time in nanoseconds spent blocked waiting for I/O events (for example in {@code select} or
+     * {@code epoll_wait}).
+     */
+    long waitTimeNanos();
+
+    /**
+     * Returns the time in nanoseconds spent processing I/O events.
+     */
+    long ioTimeNanos();
+
+    /**
+     * Returns the time in nanoseconds spent running tasks.
+     */
+    long taskTimeNanos();
+}
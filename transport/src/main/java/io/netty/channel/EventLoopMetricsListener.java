@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Listener which is notified by an {@link EventLoop} about its activity. This allows to feed the metrics of
+ * an {@link EventLoop} into a metrics registry.
+ * <p>
+ * All methods are called from within the {@link EventLoop} and so must never block.
+ *
+ * @see SingleThreadEventLoop#setMetricsListener(EventLoopMetricsListener)
+ */
+@UnstableApi
+public interface EventLoopMetricsListener {
+
+    /**
+     * Called once a loop iteration was completed.
+     *
+     * @param eventLoop         the {@link EventLoop} which completed the iteration.
+     * @param waitTimeNanos     the time spent blocked waiting for I/O events during this iteration.
+     * @param ioTimeNanos       the time spent processing I/O events during this iteration.
+     * @param taskTimeNanos     the time spent running tasks during this iteration.
+     * @param executedTasks     the number of tasks that were executed during this iteration.
+     */
+    void iterationCompleted(EventLoop eventLoop, long waitTimeNanos, long ioTimeNanos, long taskTimeNanos,
+                            long executedTasks);
+
+    /**
+     * Called once the {@link EventLoop} was woken up from a blocking select because new tasks were submitted.
+     *
+     * @param eventLoop             the {@link EventLoop} which was woken up.
+     * @param wakeupLatencyNanos    the time between the request to wake up and the {@link EventLoop} returning
+     *                              from the blocking select.
+     */
+    void wokenUp(EventLoop eventLoop, long wakeupLatencyNanos);
+}
@@ -15,12 +15,16 @@
  */
 package io.netty.channel;
 
+import io.netty.util.concurrent.PrioritizedTaskQueue;
 import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
 import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.util.Queue;
 import java.util.concurrent.Executor;
@@ -35,7 +39,25 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
     protected static final int DEFAULT_MAX_PENDING_TASKS = Math.max(16,
             SystemPropertyUtil.getInt("io.netty.eventLoop.maxPendingTasks", Integer.MAX_VALUE));
 
+    private static final int DEFAULT_MAX_PENDING_PRIORITY_TASKS =
+            SystemPropertyUtil.getInt("io.netty.eventLoop.maxPendingPriorityTasks", 0);
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SingleThreadEventLoop.class);
+
     private final Queue<Runnable> tailTasks;
+    private final EventLoopMetrics metrics = new DefaultEventLoopMetrics();
+    private volatile EventLoopMetricsListener metricsListener;
+
+    // Only modified by the EventLoop itself.
+    private volatile long iterations;
+    private volatile long wakeups;
+    private volatile long waitTimeNanos;
+    private volatile long ioTimeNanos;
+    private long lastTaskTimeNanos;
+    private long lastExecutedTasks;
+
+    // Modified by the Thread that wakes up the EventLoop.
+    private volatile long wakeupRequestNanos;
 
     protected SingleThreadEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp) {
         this(parent, threadFactory, addTaskWakesUp, DEFAULT_MAX_PENDING_TASKS, RejectedExecutionHandlers.reject());
@@ -49,14 +71,40 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
                                     boolean addTaskWakesUp, int maxPendingTasks,
                                     RejectedExecutionHandler rejectedExecutionHandler) {
         super(parent, threadFactory, addTaskWakesUp, maxPendingTasks, rejectedExecutionHandler);
-        tailTasks = newTaskQueue(maxPendingTasks);
+        tailTasks = newTailTaskQueue(maxPendingTasks);
     }
 
     protected SingleThreadEventLoop(EventLoopGroup parent, Executor executor,
                                     boolean addTaskWakesUp, int maxPendingTasks,
                                     RejectedExecutionHandler rejectedExecutionHandler) {
         super(parent, executor, addTaskWakesUp, maxPendingTasks, rejectedExecutionHandler);
-        tailTasks = newTaskQueue(maxPendingTasks);
+        tailTasks = newTailTaskQueue(maxPendingTasks);
+    }
+
+    /**
+     * Creates a non-blocking task queue for {@link EventLoop}s which never call {@link #takeTask()}. If the
+     * {@code io.netty.eventLoop.maxPendingPriorityTasks} system property is set to a positive value, a
+     * {@link PrioritizedTaskQueue} is returned whose priority lane holds at most that many tasks.
+     */
+    protected static Queue<Runnable> newMpscTaskQueue(int maxPendingTasks) {
+        Queue<Runnable> taskQueue = newMpscQueue(maxPendingTasks);
+        if (DEFAULT_MAX_PENDING_PRIORITY_TASKS > 0) {
+            return new PrioritizedTaskQueue(newMpscQueue(DEFAULT_MAX_PENDING_PRIORITY_TASKS), taskQueue);
+        }
+        return taskQueue;
+    }
+
+    private static Queue<Runnable> newMpscQueue(int maxPendingTasks) {
+        return maxPendingTasks == Integer.MAX_VALUE ? PlatformDependent.<Runnable>newMpscQueue()
+                                                    : PlatformDependent.<Runnable>newMpscQueue(maxPendingTasks);
+    }
+
+    /**
+     * Tail tasks are always run in the order they were added, only the task queue may prioritize tasks.
+     */
+    private Queue<Runnable> newTailTaskQueue(int maxPendingTasks) {
+        Queue<Runnable> queue = newTaskQueue(maxPendingTasks);
+        return queue instanceof PrioritizedTaskQueue ? newMpscQueue(maxPendingTasks) : queue;
     }
 
     @Override
@@ -158,6 +206,142 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         return -1;
     }
 
+    /**
+     * Returns the {@link EventLoopMetrics} of this {@link EventLoop}.
+     */
+    @UnstableApi
+    public final EventLoopMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the {@link EventLoopMetricsListener} that is notified about the activity of this {@link EventLoop} or
+     * {@code null} if none was set.
+     */
+    @UnstableApi
+    public final EventLoopMetricsListener metricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the {@link EventLoopMetricsListener} that is notified about the activity of this {@link EventLoop}.
+     * Use {@code null} to remove a previous set listener.
+     */
+    @UnstableApi
+    public final void setMetricsListener(EventLoopMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Should be called by sub-classes from within {@link #wakeup(boolean)} once they actually wake up the
+     * {@link EventLoop} from a blocking select.
+     */
+    @UnstableApi
+    protected final void recordWakeupRequest() {
+        wakeupRequestNanos = System.nanoTime();
+    }
+
+    /**
+     * Should be called by sub-classes once the {@link EventLoop} returned from a blocking select because of a
+     * wakeup.
+     *
+     * @param wakeupTimeNanos   the {@link System#nanoTime()} at which the blocking select returned.
+     */
+    @UnstableApi
+    protected final void recordWakeup(long wakeupTimeNanos) {
+        assert inEventLoop();
+        wakeups ++;
+        EventLoopMetricsListener listener = metricsListener;
+        long requestNanos = wakeupRequestNanos;
+        if (listener != null && requestNanos != 0) {
+            try {
+                listener.wokenUp(this, Math.max(0, wakeupTimeNanos - requestNanos));
+            } catch (Throwable t) {
+                logger.warn("An exception was thrown by {}.wokenUp()", listener.getClass().getName(), t);
+            }
+        }
+    }
+
+    /**
+     * Should be called by sub-classes once a loop iteration was completed.
+     *
+     * @param waitTimeNanos     the time spent blocked waiting for I/O events during this iteration.
+     * @param ioTimeNanos       the time spent processing I/O events during this iteration.
+     */
+    @UnstableApi
+    protected final void recordIteration(long waitTimeNanos, long ioTimeNanos) {
+        assert inEventLoop();
+        iterations ++;
+        this.waitTimeNanos += waitTimeNanos;
+        this.ioTimeNanos += ioTimeNanos;
+
+        EventLoopMetricsListener listener = metricsListener;
+        long taskTimeNanos = taskTimeNanos();
+        long executedTasks = executedTasks();
+        if (listener != null) {
+            try {
+                listener.iterationCompleted(this, waitTimeNanos, ioTimeNanos,
+                        taskTimeNanos - lastTaskTimeNanos, executedTasks - lastExecutedTasks);
+            } catch (Throwable t) {
+                logger.warn("An exception was thrown by {}.iterationCompleted()", listener.getClass().getName(), t);
+            }
+        }
+        lastTaskTimeNanos = taskTimeNanos;
+        lastExecutedTasks = executedTasks;
+    }
+
+    private final class DefaultEventLoopMetrics implements EventLoopMetrics {
+        @Override
+        public int pendingTasks() {
+            return SingleThreadEventLoop.this.pendingTasks();
+        }
+
+        @Override
+        public int pendingPriorityTasks() {
+            return SingleThreadEventLoop.this.pendingPriorityTasks();
+        }
+
+        @Override
+        public long rejectedTasks() {
+            return SingleThreadEventLoop.this.rejectedTasks();
+        }
+
+        @Override
+        public int registeredChannels() {
+            return SingleThreadEventLoop.this.registeredChannels();
+        }
+
+        @Override
+        public long executedTasks() {
+            return SingleThreadEventLoop.this.executedTasks();
+        }
+
+        @Override
+        public long iterations() {
+            return iterations;
+        }
+
+        @Override
+        public long wakeups() {
+            return wakeups;
+        }
+
+        @Override
+        public long waitTimeNanos() {
+            return waitTimeNanos;
+        }
+
+        @Override
+        public long ioTimeNanos() {
+            return ioTimeNanos;
+        }
+
+        @Override
+        public long taskTimeNanos() {
+            return SingleThreadEventLoop.this.taskTimeNanos();
+        }
+    }
+
     /**
      * Marker interface for {@link Runnable} that will not trigger an {@link #wakeup(boolean)} in all cases.
      */
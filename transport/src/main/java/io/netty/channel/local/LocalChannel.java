@@ -85,6 +85,9 @@ public class LocalChannel extends AbstractChannel {
     private volatile boolean readInProgress;
     private volatile boolean writeInProgress;
     private volatile Future<?> finishReadFuture;
+    // Set while a task which reads from the inboundBuffer is pending on the EventLoop of this Channel. Only set by
+    // the EventLoop of the peer and cleared by the EventLoop of this Channel.
+    private volatile boolean finishReadScheduled;
 
     public LocalChannel() {
         super(null);
@@ -400,13 +403,17 @@ public class LocalChannel extends AbstractChannel {
         final Runnable finishPeerReadTask = new Runnable() {
             @Override
             public void run() {
+                peer.finishReadScheduled = false;
                 finishPeerRead0(peer);
             }
         };
         try {
             if (peer.writeInProgress) {
                 peer.finishReadFuture = peer.eventLoop().submit(finishPeerReadTask);
-            } else {
+            } else if (!peer.finishReadScheduled) {
+                // Batch all writes that happen until the peer runs the task, as it will read everything that was
+                // added to its inboundBuffer until then.
+                peer.finishReadScheduled = true;
                 peer.eventLoop().execute(finishPeerReadTask);
             }
         } catch (Throwable cause) {
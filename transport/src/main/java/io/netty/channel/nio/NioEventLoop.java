@@ -23,6 +23,7 @@ import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.util.IntSupplier;
 import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.ReflectionUtil;
 import io.netty.util.internal.SystemPropertyUtil;
@@ -48,6 +49,8 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.lang.Math.min;
+
 /**
  * {@link SingleThreadEventLoop} implementation which register the {@link Channel}'s to a
  * {@link Selector} and so does the multi-plexing of these in the event loop.
@@ -127,6 +130,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     private final SelectStrategy selectStrategy;
 
     private volatile int ioRatio = 50;
+    private volatile long spinTimeNanos;
     private int cancelledKeys;
     private boolean needsToSelectAgain;
 
@@ -266,8 +270,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     @Override
     protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
         // This event loop never calls takeTask()
-        return maxPendingTasks == Integer.MAX_VALUE ? PlatformDependent.<Runnable>newMpscQueue()
-                                                    : PlatformDependent.<Runnable>newMpscQueue(maxPendingTasks);
+        return newMpscTaskQueue(maxPendingTasks);
     }
 
     /**
@@ -339,6 +342,28 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns the time in nanoseconds this event loop spins, polling for I/O events without blocking, before it
+     * blocks to wait for I/O events.
+     */
+    public long getSpinTimeNanos() {
+        return spinTimeNanos;
+    }
+
+    /**
+     * Sets the time this event loop spins, polling for I/O events without blocking, before it blocks to wait for
+     * I/O events. The default value is {@code 0}, which means the event loop blocks right away.
+     * <p>
+     * Spinning reduces the latency to pick up I/O events and submitted tasks as the thread does not need to be waken
+     * up, at the cost of burning CPU cycles. This is mostly useful if the event loop runs on a dedicated core.
+     */
+    public void setSpinTime(long spinTime, TimeUnit unit) {
+        if (spinTime < 0) {
+            throw new IllegalArgumentException("spinTime: " + spinTime + " (expected: >= 0)");
+        }
+        spinTimeNanos = ObjectUtil.checkNotNull(unit, "unit").toNanos(spinTime);
+    }
+
     /**
      * Replaces the current {@link Selector} of this event loop with newly created {@link Selector}s to work
      * around the infamous epoll 100% CPU bug.
@@ -427,6 +452,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     protected void run() {
         for (;;) {
             try {
+                long waitTime = 0;
                 try {
                     switch (selectStrategy.calculateStrategy(selectNowSupplier, hasTasks())) {
                     case SelectStrategy.CONTINUE:
@@ -436,7 +462,10 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                         // fall-through to SELECT since the busy-wait is not supported with NIO
 
                     case SelectStrategy.SELECT:
+                        final long selectStartTime = System.nanoTime();
                         select(wakenUp.getAndSet(false));
+                        final long selectEndTime = System.nanoTime();
+                        waitTime = selectEndTime - selectStartTime;
 
                         // 'wakenUp.compareAndSet(false, true)' is always evaluated
                         // before calling 'selector.wakeup()' to reduce the wake-up
@@ -468,6 +497,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
 
                         if (wakenUp.get()) {
                             selector.wakeup();
+                            recordWakeup(selectEndTime);
                         }
                         // fall through
                     default:
@@ -483,23 +513,20 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 cancelledKeys = 0;
                 needsToSelectAgain = false;
                 final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
-                    try {
-                        processSelectedKeys();
-                    } finally {
-                        // Ensure we always run tasks.
+                final long ioStartTime = System.nanoTime();
+                long ioTime;
+                try {
+                    processSelectedKeys();
+                } finally {
+                    // Ensure we always run tasks.
+                    ioTime = System.nanoTime() - ioStartTime;
+                    if (ioRatio == 100) {
                         runAllTasks();
-                    }
-                } else {
-                    final long ioStartTime = System.nanoTime();
-                    try {
-                        processSelectedKeys();
-                    } finally {
-                        // Ensure we always run tasks.
-                        final long ioTime = System.nanoTime() - ioStartTime;
+                    } else {
                         runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                     }
                 }
+                recordIteration(waitTime, ioTime);
             } catch (Throwable t) {
                 handleLoopException(t);
             }
@@ -742,6 +769,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     @Override
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop && wakenUp.compareAndSet(false, true)) {
+            recordWakeupRequest();
             selector.wakeup();
         }
     }
@@ -764,6 +792,11 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     private void select(boolean oldWakenUp) throws IOException {
         Selector selector = this.selector;
         try {
+            final long spinTimeNanos = this.spinTimeNanos;
+            if (spinTimeNanos > 0 && selectSpin(selector, spinTimeNanos)) {
+                return;
+            }
+
             int selectCnt = 0;
             long currentTimeNanos = System.nanoTime();
             long selectDeadLineNanos = currentTimeNanos + delayNanos(currentTimeNanos);
@@ -844,6 +877,28 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    /**
+     * Polls the {@link Selector} without blocking until either something was selected, a task is pending or
+     * {@code spinTimeNanos} elapsed.
+     *
+     * @return {@code true} if the caller does not need to block in {@link Selector#select(long)} anymore.
+     */
+    private boolean selectSpin(Selector selector, long spinTimeNanos) throws IOException {
+        final long spinDeadlineNanos = System.nanoTime() + min(spinTimeNanos, delayNanos(System.nanoTime()));
+        for (;;) {
+            // selectNow() clears the effect of a previous Selector.wakeup(), so also stop spinning if a wakeup was
+            // requested. Otherwise a wakeup without a task, like the one of shutdownGracefully(), would be lost and
+            // the caller would block in select(timeout).
+            if (selector.selectNow() != 0 || wakenUp.get() || hasTasks()) {
+                return true;
+            }
+            if (System.nanoTime() - spinDeadlineNanos >= 0) {
+                return false;
+            }
+            PlatformDependent.onSpinWait();
+        }
+    }
+
     private Selector selectRebuildSelector(int selectCnt) throws IOException {
         // The selector returned prematurely many times in a row.
         // Rebuild the selector to work around the problem.
@@ -29,6 +29,7 @@ import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link MultithreadEventLoopGroup} implementations which is used for NIO {@link Selector} based {@link Channel}s.
@@ -111,6 +112,18 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Sets the time the child event loops spin, polling for I/O events without blocking, before they block to wait
+     * for I/O events. The default value is {@code 0}, which means the event loops block right away.
+     *
+     * @see NioEventLoop#setSpinTime(long, TimeUnit)
+     */
+    public void setSpinTime(long spinTime, TimeUnit unit) {
+        for (EventExecutor e: this) {
+            ((NioEventLoop) e).setSpinTime(spinTime, unit);
+        }
+    }
+
     /**
      * Replaces the current {@link Selector}s of the child event loops with newly created {@link Selector}s to work
      * around the  infamous epoll 100% CPU bug.
@@ -0,0 +1,412 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.FixedChannelPool.AcquireTimeoutAction;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * {@link ChannelPool} implementation which enforces a maximum number of concurrent connections like
+ * {@link FixedChannelPool}, but does not funnel every {@link #acquire()} and {@link #release(Channel)} through a
+ * single {@link io.netty.util.concurrent.EventExecutor}. The number of acquired {@link Channel}s is maintained with
+ * atomic operations and pending acquires are kept in a lock-free queue, so callers from different
+ * {@link io.netty.channel.EventLoop}s do not serialize on one thread.
+ * <p>
+ * Acquire timeouts are tracked by a {@link Timer}, which by default is a {@link HashedWheelTimer} shared by all
+ * instances. Pending acquires are generally served in FIFO order, but an {@link #acquire()} which finds a free slot
+ * may be served before already pending ones.
+ */
+@UnstableApi
+public class ConcurrentFixedChannelPool extends SimpleChannelPool {
+
+    private static final class DefaultTimerHolder {
+        static final Timer TIMER = new HashedWheelTimer(
+                new DefaultThreadFactory("channelPoolTimer", true), 10, TimeUnit.MILLISECONDS);
+    }
+
+    private final Timer timer;
+    private final AcquireTimeoutAction action;
+    private final long acquireTimeoutNanos;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+    private final Queue<AcquireTask> pendingAcquireQueue = new ConcurrentLinkedQueue<AcquireTask>();
+    private final AtomicInteger acquiredChannelCount = new AtomicInteger();
+    private final AtomicInteger pendingAcquireCount = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections    the number of maximal active connections, once this is reached new tries to acquire
+     *                          a {@link Channel} will be delayed until a connection is returned to the pool again.
+     */
+    public ConcurrentFixedChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections) {
+        this(bootstrap, handler, maxConnections, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections        the number of maximal active connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is returned to the
+     *                              pool again.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     */
+    public ConcurrentFixedChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections,
+                                      int maxPendingAcquires) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, null, -1, maxConnections, maxPendingAcquires,
+             true, true, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck           the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                              still healthy when obtain from the {@link ChannelPool}
+     * @param action                the {@link AcquireTimeoutAction} to use or {@code null} if non should be used.
+     *                              In this case {@param acquireTimeoutMillis} must be {@code -1}.
+     * @param acquireTimeoutMillis  the time (in milliseconds) after which an pending acquire must complete or
+     *                              the {@link AcquireTimeoutAction} takes place.
+     * @param maxConnections        the number of maximal active connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is returned to the
+     *                              pool again.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     * @param releaseHealthCheck    will check channel health before offering back if this parameter set to
+     *                              {@code true}.
+     * @param lastRecentUsed        {@code true} {@link Channel} selection will be LIFO, if {@code false} FIFO.
+     * @param timer                 the {@link Timer} which is used for the acquire timeouts or {@code null} to use a
+     *                              shared default {@link Timer}.
+     */
+    public ConcurrentFixedChannelPool(Bootstrap bootstrap,
+                                      ChannelPoolHandler handler,
+                                      ChannelHealthChecker healthCheck, AcquireTimeoutAction action,
+                                      long acquireTimeoutMillis,
+                                      int maxConnections, int maxPendingAcquires,
+                                      boolean releaseHealthCheck, boolean lastRecentUsed, Timer timer) {
+        super(bootstrap, handler, healthCheck, releaseHealthCheck, lastRecentUsed);
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 1)");
+        }
+        if (maxPendingAcquires < 1) {
+            throw new IllegalArgumentException("maxPendingAcquires: " + maxPendingAcquires + " (expected: >= 1)");
+        }
+        if (action == null && acquireTimeoutMillis == -1) {
+            acquireTimeoutNanos = -1;
+        } else if (action == null && acquireTimeoutMillis != -1) {
+            throw new NullPointerException("action");
+        } else if (action != null && acquireTimeoutMillis < 0) {
+            throw new IllegalArgumentException("acquireTimeoutMillis: " + acquireTimeoutMillis + " (expected: >= 0)");
+        } else {
+            acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        }
+        this.action = action;
+        this.timer = timer == null ? DefaultTimerHolder.TIMER : timer;
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+    }
+
+    /** Returns the number of acquired channels that this pool thinks it has. */
+    public int acquiredChannelCount() {
+        return acquiredChannelCount.get();
+    }
+
+    /** Returns the number of acquires which are waiting for a {@link Channel} to be released. */
+    public int pendingAcquireCount() {
+        return pendingAcquireCount.get();
+    }
+
+    // Only used in tests.
+    int pendingAcquireQueueSize() {
+        return pendingAcquireQueue.size();
+    }
+
+    @Override
+    public Future<Channel> acquire(final Promise<Channel> promise) {
+        ObjectUtil.checkNotNull(promise, "promise");
+        if (closed.get()) {
+            promise.setFailure(new IllegalStateException("ConcurrentFixedChannelPool was closed"));
+            return promise;
+        }
+        if (tryIncrementAcquired()) {
+            acquireWithSlot(promise);
+            return promise;
+        }
+        if (pendingAcquireCount.incrementAndGet() > maxPendingAcquires) {
+            pendingAcquireCount.decrementAndGet();
+            promise.setFailure(new IllegalStateException("Too many outstanding acquire operations"));
+            return promise;
+        }
+        AcquireTask task = new AcquireTask(promise);
+        pendingAcquireQueue.offer(task);
+        if (acquireTimeoutNanos >= 0) {
+            task.timeout = timer.newTimeout(task, acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        if (closed.get()) {
+            failPendingAcquires();
+        } else {
+            // A slot may have been released between our failed tryIncrementAcquired() and the offer.
+            runPendingAcquires();
+        }
+        return promise;
+    }
+
+    private boolean tryIncrementAcquired() {
+        for (;;) {
+            int count = acquiredChannelCount.get();
+            if (count >= maxConnections) {
+                return false;
+            }
+            if (acquiredChannelCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Acquires a {@link Channel} for which a slot was already reserved by incrementing the acquired count.
+     */
+    private void acquireWithSlot(Promise<Channel> promise) {
+        // The listener has no thread requirements, so run it on whatever thread completes the acquire.
+        Promise<Channel> p = ImmediateEventExecutor.INSTANCE.newPromise();
+        p.addListener(new AcquireListener(promise));
+        super.acquire(p);
+    }
+
+    private void decrementAndRunPendingAcquires() {
+        int currentCount = acquiredChannelCount.decrementAndGet();
+        assert currentCount >= 0;
+        runPendingAcquires();
+    }
+
+    private void runPendingAcquires() {
+        // Every release and every offer to the queue runs this, so no pending acquire can be missed.
+        while (!pendingAcquireQueue.isEmpty() && tryIncrementAcquired()) {
+            AcquireTask task = pollPendingAcquire();
+            if (task == null) {
+                // Someone else served the pending acquire, give back the slot and check again.
+                acquiredChannelCount.decrementAndGet();
+                continue;
+            }
+            acquireWithSlot(task.promise);
+        }
+    }
+
+    private AcquireTask pollPendingAcquire() {
+        for (;;) {
+            AcquireTask task = pendingAcquireQueue.poll();
+            if (task == null || task.claim(AcquireTask.CLAIMED)) {
+                return task;
+            }
+            // Already timed out, just drop it.
+        }
+    }
+
+    /**
+     * Drops timed out acquires from the head of the queue. All acquires use the same timeout so they time out in
+     * the order they were queued, which means this only ever needs to look at the head.
+     */
+    private void removeTimedOutAcquires() {
+        for (;;) {
+            AcquireTask task = pendingAcquireQueue.peek();
+            if (task == null || !task.isTimedOut()) {
+                return;
+            }
+            // The head is the first element remove(...) looks at.
+            pendingAcquireQueue.remove(task);
+        }
+    }
+
+    private void failPendingAcquires() {
+        for (;;) {
+            AcquireTask task = pollPendingAcquire();
+            if (task == null) {
+                break;
+            }
+            task.promise.tryFailure(new ClosedChannelException());
+        }
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        ObjectUtil.checkNotNull(promise, "promise");
+        final Promise<Void> p = ImmediateEventExecutor.INSTANCE.newPromise();
+        super.release(channel, p.addListener(new FutureListener<Void>() {
+
+            @Override
+            public void operationComplete(Future<Void> future) throws Exception {
+                if (closed.get()) {
+                    // Since the pool is closed, we have no choice but to close the channel
+                    channel.close();
+                    promise.setFailure(new IllegalStateException("ConcurrentFixedChannelPool was closed"));
+                    return;
+                }
+
+                if (future.isSuccess()) {
+                    decrementAndRunPendingAcquires();
+                    promise.setSuccess(null);
+                } else {
+                    Throwable cause = future.cause();
+                    // Check if the exception was not because of we passed the Channel to the wrong pool.
+                    if (!(cause instanceof IllegalArgumentException)) {
+                        decrementAndRunPendingAcquires();
+                    }
+                    promise.setFailure(future.cause());
+                }
+            }
+        }));
+        return promise;
+    }
+
+    private final class AcquireTask implements TimerTask {
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int TIMED_OUT = 2;
+
+        final Promise<Channel> promise;
+        volatile Timeout timeout;
+        // Not private as it is accessed via STATE_UPDATER.
+        volatile int state;
+
+        AcquireTask(Promise<Channel> promise) {
+            this.promise = promise;
+        }
+
+        /**
+         * Returns {@code true} if the caller is the first one to take over this pending acquire, either to serve it
+         * ({@link #CLAIMED}) or because it timed out ({@link #TIMED_OUT}).
+         */
+        boolean claim(int newState) {
+            if (!STATE_UPDATER.compareAndSet(this, PENDING, newState)) {
+                return false;
+            }
+            pendingAcquireCount.decrementAndGet();
+            Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            return true;
+        }
+
+        boolean isTimedOut() {
+            return state == TIMED_OUT;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (!claim(TIMED_OUT)) {
+                return;
+            }
+            // The task stays in the queue and is skipped by pollPendingAcquire(), just make sure timed out acquires
+            // can not pile up at its head.
+            removeTimedOutAcquires();
+            if (action == AcquireTimeoutAction.FAIL) {
+                // Fail the promise as we timed out.
+                promise.tryFailure(new TimeoutException(
+                        "Acquire operation took longer then configured maximum time") {
+                    @Override
+                    public synchronized Throwable fillInStackTrace() {
+                        return this;
+                    }
+                });
+            } else {
+                // Increment the acquire count and acquire a Channel which will create a new connection.
+                acquiredChannelCount.incrementAndGet();
+                acquireWithSlot(promise);
+            }
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<AcquireTask> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(AcquireTask.class, "state");
+
+    private final class AcquireListener implements FutureListener<Channel> {
+        private final Promise<Channel> originalPromise;
+
+        AcquireListener(Promise<Channel> originalPromise) {
+            this.originalPromise = originalPromise;
+        }
+
+        @Override
+        public void operationComplete(Future<Channel> future) throws Exception {
+            if (closed.get()) {
+                if (future.isSuccess()) {
+                    // Since the pool is closed, we have no choice but to close the channel
+                    future.getNow().close();
+                }
+                originalPromise.tryFailure(new IllegalStateException("ConcurrentFixedChannelPool was closed"));
+                return;
+            }
+
+            if (future.isSuccess()) {
+                Channel channel = future.getNow();
+                if (!originalPromise.trySuccess(channel)) {
+                    // Promise was completed in the meantime (like cancelled), just release the channel again
+                    release(channel);
+                }
+            } else {
+                decrementAndRunPendingAcquires();
+                originalPromise.tryFailure(future.cause());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            failPendingAcquires();
+            acquiredChannelCount.set(0);
+
+            // Ensure we dispatch this on another Thread as close() may be called from an EventLoop and we need
+            // to ensure we will not block in it.
+            GlobalEventExecutor.INSTANCE.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ConcurrentFixedChannelPool.super.close();
+                }
+            });
+        }
+    }
+}
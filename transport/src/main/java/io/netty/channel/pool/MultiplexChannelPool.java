@@ -0,0 +1,490 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * {@link ChannelPool} implementation for protocols which can multiplex several concurrent requests over a single
+ * connection, like HTTP/2. A {@link Channel} is not handed out exclusively but can be leased up to
+ * {@code maxLeasesPerConnection} times at once. Each {@link #acquire()} picks the least loaded {@link Channel} and
+ * only opens a new connection if all existing ones are fully leased and {@code maxConnections} is not reached yet.
+ * <p>
+ * The {@link ChannelHealthChecker} is not run during {@link #acquire()} but periodically in the background. Unhealthy
+ * {@link Channel}s are not leased anymore and are closed once their last lease was released.
+ * <p>
+ * Every successful {@link #acquire()} must be followed by exactly one {@link #release(Channel)}, even though the
+ * same {@link Channel} may be returned by several {@link #acquire()} calls.
+ */
+@UnstableApi
+public class MultiplexChannelPool implements ChannelPool {
+    private static final AttributeKey<Connection> CONNECTION_KEY = AttributeKey.newInstance("multiplexChannelPool");
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final ChannelHealthChecker healthCheck;
+    private final EventExecutor executor;
+    private final int maxConnections;
+    private final int maxLeasesPerConnection;
+    private final int maxPendingAcquires;
+    private final ScheduledFuture<?> healthCheckFuture;
+
+    // All of these are only accessed from the executor.
+    private final List<Connection> connections = new ArrayList<Connection>();
+    private final Deque<Promise<Channel>> pendingAcquires = new ArrayDeque<Promise<Channel>>();
+    private int pendingConnects;
+    private boolean closed;
+
+    private volatile int leaseCount;
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}, which is run every second.
+     *
+     * @param bootstrap                 the {@link Bootstrap} that is used for connections
+     * @param handler                   the {@link ChannelPoolHandler} that will be notified for the different pool
+     *                                  actions
+     * @param maxConnections            the number of maximal open connections
+     * @param maxLeasesPerConnection    the number of maximal concurrent leases of a single connection
+     */
+    public MultiplexChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections,
+                                int maxLeasesPerConnection) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, maxConnections, maxLeasesPerConnection,
+             Integer.MAX_VALUE, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap                 the {@link Bootstrap} that is used for connections
+     * @param handler                   the {@link ChannelPoolHandler} that will be notified for the different pool
+     *                                  actions
+     * @param healthCheck               the {@link ChannelHealthChecker} that is periodically run for all
+     *                                  connections
+     * @param maxConnections            the number of maximal open connections
+     * @param maxLeasesPerConnection    the number of maximal concurrent leases of a single connection
+     * @param maxPendingAcquires        the maximum number of pending acquires. Once this is exceeded acquire tries
+     *                                  will be failed
+     * @param healthCheckInterval       the interval in which the {@link ChannelHealthChecker} is run, {@code 0}
+     *                                  disables the health checks
+     * @param unit                      the {@link TimeUnit} of {@code healthCheckInterval}
+     */
+    public MultiplexChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler,
+                                ChannelHealthChecker healthCheck, int maxConnections, int maxLeasesPerConnection,
+                                int maxPendingAcquires, long healthCheckInterval, TimeUnit unit) {
+        this.handler = checkNotNull(handler, "handler");
+        this.healthCheck = checkNotNull(healthCheck, "healthCheck");
+        this.maxConnections = checkPositive(maxConnections, "maxConnections");
+        this.maxLeasesPerConnection = checkPositive(maxLeasesPerConnection, "maxLeasesPerConnection");
+        this.maxPendingAcquires = checkPositive(maxPendingAcquires, "maxPendingAcquires");
+        checkPositiveOrZero(healthCheckInterval, "healthCheckInterval");
+        checkNotNull(unit, "unit");
+        // Clone the original Bootstrap as we want to set our own handler
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                assert ch.eventLoop().inEventLoop();
+                handler.channelCreated(ch);
+            }
+        });
+        executor = bootstrap.config().group().next();
+        if (healthCheckInterval > 0) {
+            healthCheckFuture = executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    checkHealth();
+                }
+            }, healthCheckInterval, healthCheckInterval, unit);
+        } else {
+            healthCheckFuture = null;
+        }
+    }
+
+    /**
+     * Returns the number of currently acquired leases over all connections of this pool.
+     */
+    public int leaseCount() {
+        return leaseCount;
+    }
+
+    @Override
+    public final Future<Channel> acquire() {
+        return acquire(executor.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(final Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        if (executor.inEventLoop()) {
+            acquire0(promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    acquire0(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void acquire0(Promise<Channel> promise) {
+        assert executor.inEventLoop();
+
+        if (closed) {
+            promise.tryFailure(new IllegalStateException("MultiplexChannelPool was closed"));
+            return;
+        }
+        Connection connection = leastLoaded();
+        if (connection != null) {
+            lease(connection, promise);
+        } else if (connections.size() + pendingConnects < maxConnections) {
+            connect(promise);
+        } else if (pendingAcquires.size() >= maxPendingAcquires) {
+            promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+        } else {
+            pendingAcquires.add(promise);
+        }
+    }
+
+    private Connection leastLoaded() {
+        Connection leastLoaded = null;
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            if (connection.healthy && connection.leases < maxLeasesPerConnection && connection.channel.isActive() &&
+                    (leastLoaded == null || connection.leases < leastLoaded.leases)) {
+                leastLoaded = connection;
+            }
+        }
+        return leastLoaded;
+    }
+
+    private void lease(Connection connection, final Promise<Channel> promise) {
+        connection.leases++;
+        leaseCount++;
+        final Channel channel = connection.channel;
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            notifyAcquired(channel, promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    notifyAcquired(channel, promise);
+                }
+            });
+        }
+    }
+
+    private void notifyAcquired(Channel channel, Promise<Channel> promise) {
+        assert channel.eventLoop().inEventLoop();
+        try {
+            handler.channelAcquired(channel);
+        } catch (Throwable cause) {
+            release(channel);
+            promise.tryFailure(cause);
+            return;
+        }
+        if (!promise.trySuccess(channel)) {
+            // Promise was completed in the meantime (like cancelled), just release the lease again
+            release(channel);
+        }
+    }
+
+    private void connect(final Promise<Channel> promise) {
+        pendingConnects++;
+        final ChannelFuture future;
+        try {
+            future = connectChannel(bootstrap.clone());
+        } catch (Throwable cause) {
+            pendingConnects--;
+            promise.tryFailure(cause);
+            return;
+        }
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (executor.inEventLoop()) {
+                    onConnect(future, promise);
+                } else {
+                    final ChannelFuture f = future;
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            onConnect(f, promise);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void onConnect(ChannelFuture future, Promise<Channel> promise) {
+        assert executor.inEventLoop();
+        pendingConnects--;
+        if (!future.isSuccess()) {
+            promise.tryFailure(future.cause());
+            runPendingAcquires();
+            return;
+        }
+        final Channel channel = future.channel();
+        if (closed) {
+            channel.close();
+            promise.tryFailure(new IllegalStateException("MultiplexChannelPool was closed"));
+            return;
+        }
+        final Connection connection = new Connection(this, channel);
+        channel.attr(CONNECTION_KEY).set(connection);
+        connections.add(connection);
+        channel.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (executor.inEventLoop()) {
+                    remove(connection);
+                } else {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            remove(connection);
+                        }
+                    });
+                }
+            }
+        });
+        lease(connection, promise);
+        runPendingAcquires();
+    }
+
+    private void remove(Connection connection) {
+        assert executor.inEventLoop();
+        connection.healthy = false;
+        if (connections.remove(connection)) {
+            runPendingAcquires();
+        }
+    }
+
+    private void runPendingAcquires() {
+        assert executor.inEventLoop();
+        while (!pendingAcquires.isEmpty()) {
+            Connection connection = leastLoaded();
+            if (connection != null) {
+                lease(connection, pendingAcquires.poll());
+            } else if (connections.size() + pendingConnects < maxConnections) {
+                connect(pendingAcquires.poll());
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Bootstrap a new {@link Channel}. The default implementation uses {@link Bootstrap#connect()}, sub-classes may
+     * override this.
+     * <p>
+     * The {@link Bootstrap} that is passed in here is cloned via {@link Bootstrap#clone()}, so it is safe to modify.
+     */
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        return bs.connect();
+    }
+
+    @Override
+    public final Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        checkNotNull(channel, "channel");
+        checkNotNull(promise, "promise");
+        if (executor.inEventLoop()) {
+            release0(channel, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    release0(channel, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void release0(final Channel channel, final Promise<Void> promise) {
+        assert executor.inEventLoop();
+        Connection connection = channel.attr(CONNECTION_KEY).get();
+        if (connection == null || connection.pool != this || connection.leases == 0) {
+            // Better include a stacktrace here as this is an user error.
+            promise.tryFailure(new IllegalArgumentException(
+                    "Channel " + channel + " was not acquired from this ChannelPool"));
+            return;
+        }
+        connection.leases--;
+        leaseCount--;
+        if (connection.leases == 0 && (closed || !connection.healthy)) {
+            channel.close();
+        }
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            notifyReleased(channel, promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    notifyReleased(channel, promise);
+                }
+            });
+        }
+        runPendingAcquires();
+    }
+
+    private void notifyReleased(Channel channel, Promise<Void> promise) {
+        assert channel.eventLoop().inEventLoop();
+        try {
+            handler.channelReleased(channel);
+            promise.trySuccess(null);
+        } catch (Throwable cause) {
+            promise.tryFailure(cause);
+        }
+    }
+
+    private void checkHealth() {
+        assert executor.inEventLoop();
+        // Iterate over a copy as closing an unhealthy Channel may remove it from the list.
+        for (final Connection connection: connections.toArray(new Connection[0])) {
+            if (!connection.healthy) {
+                continue;
+            }
+            EventLoop loop = connection.channel.eventLoop();
+            if (loop.inEventLoop()) {
+                doHealthCheck(connection);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        doHealthCheck(connection);
+                    }
+                });
+            }
+        }
+    }
+
+    private void doHealthCheck(final Connection connection) {
+        final Future<Boolean> f;
+        try {
+            f = healthCheck.isHealthy(connection.channel);
+        } catch (Throwable cause) {
+            connection.channel.close();
+            return;
+        }
+        f.addListener(new FutureListener<Boolean>() {
+            @Override
+            public void operationComplete(final Future<Boolean> future) {
+                if (executor.inEventLoop()) {
+                    notifyHealthCheck(connection, future);
+                } else {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            notifyHealthCheck(connection, future);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private static void notifyHealthCheck(Connection connection, Future<Boolean> future) {
+        if (future.isSuccess() && future.getNow()) {
+            return;
+        }
+        // Do not lease the connection anymore and close it once all its leases were released.
+        connection.healthy = false;
+        if (connection.leases == 0) {
+            connection.channel.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor.inEventLoop()) {
+            close0();
+        } else {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    close0();
+                }
+            }).awaitUninterruptibly();
+        }
+    }
+
+    private void close0() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (healthCheckFuture != null) {
+            healthCheckFuture.cancel(false);
+        }
+        for (;;) {
+            Promise<Channel> promise = pendingAcquires.poll();
+            if (promise == null) {
+                break;
+            }
+            promise.tryFailure(new IllegalStateException("MultiplexChannelPool was closed"));
+        }
+        for (Connection connection: connections.toArray(new Connection[0])) {
+            // Connections which are still leased are closed once they are released.
+            if (connection.leases == 0) {
+                connection.channel.close();
+            }
+        }
+    }
+
+    private static final class Connection {
+        final MultiplexChannelPool pool;
+        final Channel channel;
+        int leases;
+        boolean healthy = true;
+
+        Connection(MultiplexChannelPool pool, Channel channel) {
+            this.pool = pool;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * {@link SimpleChannelPool} which keeps connections ready before they are acquired, so the first requests after a
+ * deploy or during a traffic spike do not pay for the connection establishment (and for example a TLS handshake).
+ * <p>
+ * A maintenance task runs periodically in the background and:
+ * <ul>
+ *     <li>opens connections until at least {@code minIdle} idle connections are available,</li>
+ *     <li>grows the number of idle connections up to {@code maxIdle} based on the recent acquire rate and the time
+ *     it takes to establish a connection, so that bursts can be served from idle connections,</li>
+ *     <li>closes connections which were idle for longer than {@code idleTimeout} as long as more idle connections
+ *     than needed are available. A random jitter is applied to the timeout of each connection, so connections which
+ *     were created together do not expire and get re-established together.</li>
+ * </ul>
+ * <p>
+ * Idle connections are handed out in LIFO order, so the least recently used connections are the ones to expire.
+ */
+@UnstableApi
+public class PrewarmingChannelPool extends SimpleChannelPool {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(PrewarmingChannelPool.class);
+    private static final double EWMA_WEIGHT = 0.25;
+
+    private final Deque<IdleChannel> idleChannels = PlatformDependent.newConcurrentDeque();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger pendingPrewarms = new AtomicInteger();
+    private final LongCounter acquireCount = PlatformDependent.newLongCounter();
+    private final int minIdle;
+    private final int maxIdle;
+    private final long idleTimeoutNanos;
+    private final double idleTimeoutJitter;
+    private final EventExecutor executor;
+    private final ScheduledFuture<?> maintenanceFuture;
+
+    // Only accessed from the executor.
+    private long lastAcquireCount;
+    private long lastMaintenanceNanos;
+
+    private volatile long connectNanos;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}, a jitter of 20% for the idle timeout and
+     * a maintenance interval of one second.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param minIdle           the number of idle connections which are always kept ready
+     * @param maxIdle           the maximal number of idle connections which are kept ready because of the acquire
+     *                          rate
+     * @param idleTimeout       the time after which an idle connection may be closed
+     * @param unit              the {@link TimeUnit} of {@code idleTimeout}
+     */
+    public PrewarmingChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int minIdle, int maxIdle,
+                                 long idleTimeout, TimeUnit unit) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, minIdle, maxIdle,
+             checkNotNull(unit, "unit").toNanos(idleTimeout), 0.2, TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap                 the {@link Bootstrap} that is used for connections
+     * @param handler                   the {@link ChannelPoolHandler} that will be notified for the different pool
+     *                                  actions
+     * @param healthCheck               the {@link ChannelHealthChecker} that will be used to check if a
+     *                                  {@link Channel} is still healthy when obtain from the {@link ChannelPool}
+     * @param minIdle                   the number of idle connections which are always kept ready
+     * @param maxIdle                   the maximal number of idle connections which are kept ready because of the
+     *                                  acquire rate
+     * @param idleTimeoutNanos          the time after which an idle connection may be closed
+     * @param idleTimeoutJitter         the fraction (between {@code 0} and {@code 1}) by which the idle timeout of
+     *                                  each connection is randomly reduced
+     * @param maintenanceIntervalNanos  the interval in which idle connections are established and evicted
+     */
+    public PrewarmingChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, ChannelHealthChecker healthCheck,
+                                 int minIdle, int maxIdle, long idleTimeoutNanos, double idleTimeoutJitter,
+                                 long maintenanceIntervalNanos) {
+        super(bootstrap, handler, healthCheck, true, true);
+        this.minIdle = checkPositiveOrZero(minIdle, "minIdle");
+        if (maxIdle < minIdle) {
+            throw new IllegalArgumentException("maxIdle: " + maxIdle + " (expected: >= minIdle(" + minIdle + "))");
+        }
+        this.maxIdle = maxIdle;
+        this.idleTimeoutNanos = checkPositive(idleTimeoutNanos, "idleTimeoutNanos");
+        if (idleTimeoutJitter < 0 || idleTimeoutJitter > 1) {
+            throw new IllegalArgumentException("idleTimeoutJitter: " + idleTimeoutJitter + " (expected: 0-1)");
+        }
+        this.idleTimeoutJitter = idleTimeoutJitter;
+        checkPositive(maintenanceIntervalNanos, "maintenanceIntervalNanos");
+        executor = bootstrap.config().group().next();
+        lastMaintenanceNanos = System.nanoTime();
+        // Run the first maintenance right away so the pool is prewarmed as soon as possible.
+        maintenanceFuture = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                maintain();
+            }
+        }, 0, maintenanceIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of idle connections which are ready to be acquired.
+     */
+    public int idleCount() {
+        return idleCount.get();
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        acquireCount.increment();
+        return super.acquire(promise);
+    }
+
+    @Override
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        final long start = System.nanoTime();
+        ChannelFuture future = super.connectChannel(bs);
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (future.isSuccess()) {
+                    long nanos = System.nanoTime() - start;
+                    long current = connectNanos;
+                    // Updates may race, but this is only used as an estimation.
+                    connectNanos = current == 0 ? nanos : (long) (current + EWMA_WEIGHT * (nanos - current));
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    protected Channel pollChannel() {
+        IdleChannel idle = idleChannels.pollLast();
+        if (idle == null) {
+            return null;
+        }
+        idleCount.decrementAndGet();
+        return idle.channel;
+    }
+
+    @Override
+    protected boolean offerChannel(Channel channel) {
+        long timeout = idleTimeoutNanos -
+                (long) (idleTimeoutNanos * idleTimeoutJitter * PlatformDependent.threadLocalRandom().nextDouble());
+        if (!idleChannels.offerLast(new IdleChannel(channel, System.nanoTime() + timeout))) {
+            return false;
+        }
+        idleCount.incrementAndGet();
+        return true;
+    }
+
+    private void maintain() {
+        assert executor.inEventLoop();
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        int target = targetIdleCount(now);
+        evictIdleChannels(now, target);
+
+        int missing = target - idleCount.get() - pendingPrewarms.get();
+        for (int i = 0; i < missing; i++) {
+            prewarm();
+        }
+    }
+
+    /**
+     * Returns the number of idle connections which should be kept ready. Based on Little's law this is the number of
+     * acquires which happen while a new connection is established.
+     */
+    private int targetIdleCount(long now) {
+        long acquires = acquireCount.value();
+        long elapsedNanos = now - lastMaintenanceNanos;
+        long recentAcquires = acquires - lastAcquireCount;
+        lastAcquireCount = acquires;
+        lastMaintenanceNanos = now;
+
+        if (elapsedNanos <= 0 || maxIdle == minIdle) {
+            return minIdle;
+        }
+        double needed = Math.ceil((double) recentAcquires * connectNanos / elapsedNanos);
+        return (int) Math.max(minIdle, Math.min(maxIdle, needed));
+    }
+
+    private void evictIdleChannels(long now, int target) {
+        // Iterate from the least recently used connection.
+        Iterator<IdleChannel> iterator = idleChannels.iterator();
+        while (iterator.hasNext()) {
+            IdleChannel idle = iterator.next();
+            boolean inactive = !idle.channel.isActive();
+            if (!inactive && (idleCount.get() <= target || now - idle.deadlineNanos < 0)) {
+                continue;
+            }
+            // Only close the Channel if it was not acquired concurrently.
+            if (idleChannels.removeFirstOccurrence(idle)) {
+                idleCount.decrementAndGet();
+                idle.channel.close();
+            }
+        }
+    }
+
+    private void prewarm() {
+        pendingPrewarms.incrementAndGet();
+        final ChannelFuture future;
+        try {
+            future = connectChannel(bootstrap().clone());
+        } catch (Throwable cause) {
+            pendingPrewarms.decrementAndGet();
+            logger.debug("Failed to prewarm a connection.", cause);
+            return;
+        }
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                pendingPrewarms.decrementAndGet();
+                if (!future.isSuccess()) {
+                    logger.debug("Failed to prewarm a connection.", future.cause());
+                } else if (closed || !offerChannel(future.channel())) {
+                    future.channel().close();
+                } else if (closed) {
+                    // The pool was closed concurrently, make sure the Channel does not stay in the pool.
+                    closeIdleChannels();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        maintenanceFuture.cancel(false);
+        super.close();
+    }
+
+    private void closeIdleChannels() {
+        for (;;) {
+            Channel channel = pollChannel();
+            if (channel == null) {
+                break;
+            }
+            channel.close();
+        }
+    }
+
+    private static final class IdleChannel {
+        final Channel channel;
+        final long deadlineNanos;
+
+        IdleChannel(Channel channel, long deadlineNanos) {
+            this.channel = channel;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
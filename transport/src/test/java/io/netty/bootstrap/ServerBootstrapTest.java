@@ -21,6 +21,8 @@ import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipelineTemplate;
 import io.netty.channel.DefaultEventLoopGroup;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.local.LocalAddress;
@@ -33,7 +35,9 @@ import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ServerBootstrapTest {
@@ -137,4 +141,192 @@ public class ServerBootstrapTest {
             group.shutdownGracefully();
         }
     }
+
+    @Test(timeout = 5000)
+    public void testLazyChildInitialization() throws Exception {
+        testLazyChildInitialization(true);
+    }
+
+    @Test(timeout = 5000)
+    public void testLazyChildInitializationWithoutAutoRead() throws Exception {
+        testLazyChildInitialization(false);
+    }
+
+    private static void testLazyChildInitialization(boolean autoRead) throws Exception {
+        final LocalAddress addr = new LocalAddress(UUID.randomUUID().toString());
+        final CountDownLatch acceptLatch = new CountDownLatch(1);
+        final CountDownLatch readLatch = new CountDownLatch(1);
+        final StringBuffer events = new StringBuffer();
+        final AtomicReference<Channel> child = new AtomicReference<Channel>();
+
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        Channel sch = null;
+        Channel cch = null;
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.channel(LocalServerChannel.class)
+                    .group(group)
+                    .lazyChildInitialization(true)
+                    .childOption(ChannelOption.AUTO_READ, autoRead)
+                    .handler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            child.set((Channel) msg);
+                            ctx.fireChannelRead(msg);
+                            acceptLatch.countDown();
+                        }
+                    })
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            events.append("init ");
+                            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                                @Override
+                                public void channelRegistered(ChannelHandlerContext ctx) {
+                                    events.append("registered ");
+                                }
+
+                                @Override
+                                public void channelActive(ChannelHandlerContext ctx) {
+                                    events.append("active ");
+                                }
+
+                                @Override
+                                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                    events.append(msg);
+                                    readLatch.countDown();
+                                }
+                            });
+                        }
+                    });
+            assertTrue(sb.config().isLazyChildInitialization());
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group)
+                    .channel(LocalChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter());
+
+            sch = sb.bind(addr).syncUninterruptibly().channel();
+            cch = cb.connect(addr).syncUninterruptibly().channel();
+
+            acceptLatch.await();
+            // Ensure all pending tasks of the child were processed.
+            child.get().eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).syncUninterruptibly();
+            assertEquals("", events.toString());
+
+            cch.writeAndFlush("msg").syncUninterruptibly();
+            readLatch.await();
+            assertEquals("init registered active msg", events.toString());
+        } finally {
+            if (sch != null) {
+                sch.close().syncUninterruptibly();
+            }
+            if (cch != null) {
+                cch.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testChildPipelineTemplate() throws Exception {
+        final LocalAddress addr = new LocalAddress(UUID.randomUUID().toString());
+        final CountDownLatch readLatch = new CountDownLatch(1);
+        final AtomicReference<String> names = new AtomicReference<String>();
+        final ChannelHandler last = new SharableInboundHandler() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                names.set(ctx.pipeline().names().toString());
+                readLatch.countDown();
+            }
+        };
+        ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+                .addLast("first", new ChannelPipelineTemplate.ChannelHandlerFactory() {
+                    @Override
+                    public ChannelHandler newHandler(Channel channel) {
+                        return new ChannelInboundHandlerAdapter();
+                    }
+                })
+                .addLast("last", last)
+                .build();
+
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        Channel sch = null;
+        Channel cch = null;
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.channel(LocalServerChannel.class)
+                    .group(group)
+                    .childPipeline(template);
+            assertSame(template, sb.config().childPipeline());
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group)
+                    .channel(LocalChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter());
+
+            sch = sb.bind(addr).syncUninterruptibly().channel();
+            cch = cb.connect(addr).syncUninterruptibly().channel();
+            cch.writeAndFlush("msg").syncUninterruptibly();
+            readLatch.await();
+            assertEquals("[first, last, DefaultChannelPipeline$TailContext#0]", names.get());
+        } finally {
+            if (sch != null) {
+                sch.close().syncUninterruptibly();
+            }
+            if (cch != null) {
+                cch.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testAcceptorPerEventLoopFallsBackToSingleAcceptor() throws Exception {
+        final LocalAddress addr = new LocalAddress(UUID.randomUUID().toString());
+        final CountDownLatch activeLatch = new CountDownLatch(1);
+
+        EventLoopGroup group = new DefaultEventLoopGroup(2);
+        Channel sch = null;
+        Channel cch = null;
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.channel(LocalServerChannel.class)
+                    .group(group)
+                    .acceptorPerEventLoop(ChannelOption.<Boolean>valueOf(
+                            ServerBootstrapTest.class, "SO_REUSEPORT"))
+                    .childHandler(new SharableInboundHandler() {
+                        @Override
+                        public void channelActive(ChannelHandlerContext ctx) {
+                            activeLatch.countDown();
+                        }
+                    });
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group)
+                    .channel(LocalChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter());
+
+            // LocalServerChannel does not support the option so only a single acceptor is bound.
+            sch = sb.bind(addr).syncUninterruptibly().channel();
+            cch = cb.connect(addr).syncUninterruptibly().channel();
+            activeLatch.await();
+        } finally {
+            if (sch != null) {
+                sch.close().syncUninterruptibly();
+            }
+            if (cch != null) {
+                cch.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class SharableInboundHandler extends ChannelInboundHandlerAdapter { }
 }
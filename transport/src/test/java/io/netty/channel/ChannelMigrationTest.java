@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ChannelMigrationTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void beforeClass() {
+        group = new DefaultEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test(timeout = 5000)
+    public void testMigrate() throws Exception {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        final BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+        LocalAddress address = new LocalAddress(ChannelMigrationTest.class.getName());
+        Channel sc = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        received.add(((ByteBuf) msg).readByte());
+                        ReferenceCountUtil.release(msg);
+                    }
+                })
+                .bind(address).syncUninterruptibly().channel();
+        Channel cc = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRegistered(ChannelHandlerContext ctx) {
+                        events.add("registered");
+                        ctx.fireChannelRegistered();
+                    }
+
+                    @Override
+                    public void channelUnregistered(ChannelHandlerContext ctx) {
+                        events.add("unregistered");
+                        ctx.fireChannelUnregistered();
+                    }
+                })
+                .connect(address).syncUninterruptibly().channel();
+        try {
+            assertEquals("registered", events.take());
+
+            EventLoop current = cc.eventLoop();
+            EventLoop target = null;
+            for (EventExecutor executor: group) {
+                if (executor != current) {
+                    target = (EventLoop) executor;
+                }
+            }
+            assertNotNull(target);
+
+            cc.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 1 }));
+            ChannelMigration.migrate(cc, target).syncUninterruptibly();
+            assertSame(target, cc.eventLoop());
+            assertTrue(cc.isRegistered());
+            assertTrue(cc.isActive());
+            assertEquals("unregistered", events.take());
+            assertEquals("registered", events.take());
+
+            cc.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 2 })).syncUninterruptibly();
+            assertEquals((byte) 1, received.take());
+            assertEquals((byte) 2, received.take());
+        } finally {
+            cc.close().syncUninterruptibly();
+            sc.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testTasksPendingOnOldEventLoopRunBeforeSwitch() throws Exception {
+        final BlockingQueue<Boolean> inEventLoop = new LinkedBlockingQueue<Boolean>();
+        Channel ch = new LocalChannel();
+        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelUnregistered(final ChannelHandlerContext ctx) {
+                // Submitted to the old EventLoop while the migration is in progress.
+                ctx.channel().eventLoop().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        inEventLoop.add(ctx.channel().eventLoop().inEventLoop());
+                    }
+                });
+                ctx.fireChannelUnregistered();
+            }
+        });
+        EventLoop current = group.next();
+        EventLoop target = group.next();
+        assertNotSame(current, target);
+        try {
+            current.register(ch).syncUninterruptibly();
+            ChannelMigration.migrate(ch, target).syncUninterruptibly();
+            assertSame(target, ch.eventLoop());
+            // The task must have run while the old EventLoop still owned the Channel.
+            assertTrue(inEventLoop.take());
+        } finally {
+            ch.close().syncUninterruptibly();
+        }
+    }
+
+    @Test
+    public void testMigrateToSameEventLoop() {
+        Channel ch = new LocalChannel();
+        try {
+            EventLoop eventLoop = group.next();
+            eventLoop.register(ch).syncUninterruptibly();
+            assertTrue(ChannelMigration.migrate(ch, eventLoop).isSuccess());
+            assertSame(eventLoop, ch.eventLoop());
+        } finally {
+            ch.close().syncUninterruptibly();
+        }
+    }
+
+    @Test
+    public void testMigrateUnregisteredFails() {
+        Channel ch = new LocalChannel();
+        ChannelFuture future = ChannelMigration.migrate(ch, group.next());
+        assertTrue(future.cause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testMigrateToOtherGroupFails() throws Exception {
+        EventLoopGroup otherGroup = new DefaultEventLoopGroup(1);
+        Channel ch = new LocalChannel();
+        try {
+            group.next().register(ch).syncUninterruptibly();
+            ChannelFuture future = ChannelMigration.migrate(ch, otherGroup.next()).await();
+            assertTrue(future.cause() instanceof IllegalArgumentException);
+        } finally {
+            ch.close().syncUninterruptibly();
+            otherGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.Test;
 
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.RejectedExecutionException;
@@ -361,6 +362,117 @@ public class ChannelOutboundBufferTest {
         safeClose(ch);
     }
 
+    @Test
+    public void testDemand() {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ch.config().setWriteBufferLowWaterMark(128 + ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD);
+        ch.config().setWriteBufferHighWaterMark(256 + ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD);
+
+        // Enough room, so the demand is satisfied directly.
+        assertTrue(ChannelBackpressure.demand(ch, 64).isSuccess());
+
+        ch.write(buffer().writeZero(128));
+        ch.write(buffer().writeZero(127));
+        ch.unsafe().outboundBuffer().addFlush();
+        assertFalse(ch.isWritable());
+        assertEquals(255 + 2 * ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD,
+                ChannelBackpressure.pendingBytes(ch));
+
+        ChannelFuture small = ChannelBackpressure.demand(ch, 64);
+        ChannelFuture large = ChannelBackpressure.demand(ch, Long.MAX_VALUE);
+        assertFalse(small.isDone());
+        assertFalse(large.isDone());
+
+        assertTrue(ch.unsafe().outboundBuffer().remove());
+        assertTrue(ch.isWritable());
+        assertTrue(small.isSuccess());
+        assertFalse(large.isDone());
+
+        // The large demand is capped to the high water mark and so satisfied once everything is written.
+        assertTrue(ch.unsafe().outboundBuffer().remove());
+        assertTrue(large.isSuccess());
+        assertEquals(0, ChannelBackpressure.timeToDrainNanos(ch));
+
+        safeClose(ch);
+    }
+
+    @Test
+    public void testDemandNotifiedOnFailedWrite() {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ch.config().setWriteBufferWaterMark(new WriteBufferWaterMark(128, 256));
+        ch.write(buffer().writeZero(512));
+        ch.unsafe().outboundBuffer().addFlush();
+
+        ChannelFuture future = ChannelBackpressure.demand(ch, 64);
+        assertFalse(future.isDone());
+
+        assertTrue(ch.unsafe().outboundBuffer().remove(new Exception()));
+        assertTrue(future.isSuccess());
+        safeClose(ch);
+    }
+
+    @Test
+    public void testDemandFailedOnClose() {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ch.config().setWriteBufferWaterMark(new WriteBufferWaterMark(128, 256));
+        ch.write(buffer().writeZero(512));
+
+        ChannelFuture future = ChannelBackpressure.demand(ch, 64);
+        assertFalse(future.isDone());
+
+        ch.close();
+        assertTrue(future.cause() instanceof ClosedChannelException);
+        assertTrue(ChannelBackpressure.demand(ch, 64).cause() instanceof ClosedChannelException);
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testDrainRate() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ChannelOutboundBuffer buffer = ch.unsafe().outboundBuffer();
+        assertEquals(0, buffer.drainRate());
+
+        ch.write(buffer().writeZero(1024));
+        buffer.addFlush();
+        Thread.sleep(20);
+        assertTrue(buffer.remove());
+        // The rate is only sampled once per flush or removeBytes(...) call.
+        assertEquals(0, buffer.drainRate());
+        buffer.addFlush();
+        long rate = buffer.drainRate();
+        assertTrue(rate > 0);
+        // Reading the rate does not change it.
+        assertEquals(rate, buffer.drainRate());
+
+        ch.write(buffer().writeZero(1024));
+        assertTrue(buffer.timeToDrainNanos() > 0);
+
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testDrainRateCountsPartialWritesAndFailures() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ChannelOutboundBuffer buffer = ch.unsafe().outboundBuffer();
+
+        ch.write(buffer().writeZero(65536));
+        ch.write(buffer().writeZero(1024));
+        buffer.addFlush();
+        Thread.sleep(20);
+        // Only partial progress, no message is removed.
+        buffer.removeBytes(32);
+        assertEquals(2, buffer.size());
+        long rate = buffer.drainRate();
+        assertTrue(rate > 0);
+
+        Thread.sleep(20);
+        assertTrue(buffer.remove(new Exception()));
+        buffer.addFlush();
+        assertTrue(buffer.drainRate() > rate);
+
+        safeClose(ch);
+    }
+
     @Test(timeout = 5000)
     public void testWriteTaskRejected() throws Exception {
         final SingleThreadEventExecutor executor = new SingleThreadEventExecutor(
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChannelPipelineTemplateTest {
+
+    @Sharable
+    private static final class SharableHandler extends ChannelInboundHandlerAdapter {
+        final AtomicInteger added = new AtomicInteger();
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            added.incrementAndGet();
+        }
+    }
+
+    private static final class CountingFactory implements ChannelPipelineTemplate.ChannelHandlerFactory {
+        final AtomicInteger created = new AtomicInteger();
+
+        @Override
+        public ChannelHandler newHandler(Channel channel) {
+            created.incrementAndGet();
+            return new ChannelInboundHandlerAdapter();
+        }
+    }
+
+    @Test
+    public void testApply() throws Exception {
+        SharableHandler shared = new SharableHandler();
+        CountingFactory factory = new CountingFactory();
+        ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+                .addLast("first", factory)
+                .addLast("second", shared)
+                .build();
+        assertEquals(Arrays.asList("first", "second"), template.names());
+
+        EmbeddedChannel ch1 = new EmbeddedChannel();
+        EmbeddedChannel ch2 = new EmbeddedChannel();
+        template.apply(ch1.pipeline());
+        template.apply(ch2.pipeline());
+
+        assertEquals(2, factory.created.get());
+        assertEquals(2, shared.added.get());
+        assertSame(shared, ch1.pipeline().get("second"));
+        assertSame(shared, ch2.pipeline().get("second"));
+        assertNotSame(ch1.pipeline().get("first"), ch2.pipeline().get("first"));
+        assertEquals(Arrays.asList("first", "second", "DefaultChannelPipeline$TailContext#0"),
+                ch1.pipeline().names());
+        ch1.finishAndReleaseAll();
+        ch2.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testApplyBeforeRegistration() throws Exception {
+        SharableHandler shared = new SharableHandler();
+        ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+                .addLast("handler", shared)
+                .build();
+        EmbeddedChannel ch = new EmbeddedChannel(false, false);
+        template.apply(ch.pipeline());
+        assertEquals(0, shared.added.get());
+        ch.register();
+        assertEquals(1, shared.added.get());
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testGeneratedNames() {
+        ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+                .addLast(new SharableHandler())
+                .addLast(new SharableHandler())
+                .build();
+        assertEquals(Arrays.asList("ChannelPipelineTemplateTest$SharableHandler#0",
+                "ChannelPipelineTemplateTest$SharableHandler#1"), template.names());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        ChannelPipelineTemplate.builder()
+                .addLast("handler", new SharableHandler())
+                .addLast("handler", new CountingFactory());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonSharableHandler() {
+        ChannelPipelineTemplate.builder().addLast("handler", new ChannelInboundHandlerAdapter());
+    }
+
+    @Test
+    public void testDuplicateNameInPipeline() throws Exception {
+        ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+                .addLast("handler", new SharableHandler())
+                .build();
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ch.pipeline().addLast("handler", new ChannelInboundHandlerAdapter());
+        try {
+            template.apply(ch.pipeline());
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        assertTrue(ch.pipeline().get("handler") instanceof ChannelInboundHandlerAdapter);
+        assertEquals(2, ch.pipeline().names().size());
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testInvalidHandlerDoesNotModifyPipeline() throws Exception {
+        final ChannelHandler first = new ChannelInboundHandlerAdapter();
+        final ChannelHandler second = new ChannelInboundHandlerAdapter();
+        ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+                .addLast("first", new ChannelPipelineTemplate.ChannelHandlerFactory() {
+                    @Override
+                    public ChannelHandler newHandler(Channel channel) {
+                        return first;
+                    }
+                })
+                .addLast("second", new ChannelPipelineTemplate.ChannelHandlerFactory() {
+                    @Override
+                    public ChannelHandler newHandler(Channel channel) {
+                        return second;
+                    }
+                })
+                .build();
+        EmbeddedChannel ch = new EmbeddedChannel();
+        EmbeddedChannel other = new EmbeddedChannel(second);
+        try {
+            template.apply(ch.pipeline());
+            fail();
+        } catch (ChannelPipelineException expected) {
+            // expected
+        }
+        assertEquals(1, ch.pipeline().names().size());
+
+        // The first handler was not marked as added, so it can still be used.
+        ch.pipeline().addLast("first", first);
+        assertSame(first, ch.pipeline().get("first"));
+        ch.finishAndReleaseAll();
+        other.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testSameNonSharableHandlerTwice() throws Exception {
+        final ChannelHandler handler = new ChannelInboundHandlerAdapter();
+        ChannelPipelineTemplate.ChannelHandlerFactory factory = new ChannelPipelineTemplate.ChannelHandlerFactory() {
+            @Override
+            public ChannelHandler newHandler(Channel channel) {
+                return handler;
+            }
+        };
+        ChannelPipelineTemplate template = ChannelPipelineTemplate.builder()
+                .addLast("first", factory)
+                .addLast("second", factory)
+                .build();
+        EmbeddedChannel ch = new EmbeddedChannel();
+        try {
+            template.apply(ch.pipeline());
+            fail();
+        } catch (ChannelPipelineException expected) {
+            // expected
+        }
+        assertEquals(1, ch.pipeline().names().size());
+        ch.pipeline().addLast(handler);
+        ch.finishAndReleaseAll();
+    }
+}
@@ -18,8 +18,10 @@ package io.netty.channel;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.local.LocalChannel;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.PrioritizedTaskQueue;
 import org.hamcrest.MatcherAssert;
 import org.junit.After;
 import org.junit.Before;
@@ -27,6 +29,8 @@ import org.junit.Test;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
@@ -505,6 +509,67 @@ public class SingleThreadEventLoopTest {
                                  onIteration1.getInvocationCount(), is(0));
     }
 
+    @Test(timeout = 10000)
+    public void testCloseFromOutsideDoesNotOvertakeTasks() throws Exception {
+        testCloseFromOutside(false, "task", "close");
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseFromOutsideDoesNotOvertakeWrites() throws Exception {
+        testCloseFromOutside(true, "task", "close");
+    }
+
+    private static void testCloseFromOutside(boolean writeBeforeClose, String... expected) throws Exception {
+        SingleThreadEventLoopD loop = new SingleThreadEventLoopD();
+        final CountDownLatch unblock = new CountDownLatch(1);
+        try {
+            Channel ch = new LocalChannel();
+            loop.register(ch).syncUninterruptibly();
+
+            final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (;;) {
+                        try {
+                            unblock.await();
+                            return;
+                        } catch (InterruptedException ignore) {
+                            // Interrupted by wakeup(...)
+                        }
+                    }
+                }
+            });
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    events.add("task");
+                }
+            });
+            if (writeBeforeClose) {
+                ch.write(Unpooled.buffer().writeZero(8));
+            }
+            ChannelFuture closeFuture = ch.close().addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    events.add("close");
+                }
+            });
+            // close() is never put into the priority lane, as it must not overtake tasks submitted before.
+            assertEquals(0, loop.pendingPriorityTasks());
+
+            unblock.countDown();
+            closeFuture.sync();
+            while (events.size() != expected.length) {
+                Thread.sleep(10);
+            }
+            assertEquals(Arrays.asList(expected), events);
+        } finally {
+            unblock.countDown();
+            loop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
     private static final class SingleThreadEventLoopA extends SingleThreadEventLoop {
 
         final AtomicInteger cleanedUp = new AtomicInteger();
@@ -583,6 +648,13 @@ public class SingleThreadEventLoopTest {
         }
     }
 
+    private static final class SingleThreadEventLoopD extends SingleThreadEventLoopB {
+        @Override
+        protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+            return new PrioritizedTaskQueue();
+        }
+    }
+
     private static class CountingRunnable implements Runnable {
 
         private final AtomicInteger invocationCount = new AtomicInteger();
@@ -19,6 +19,8 @@ import io.netty.channel.AbstractEventLoopTest;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopMetrics;
+import io.netty.channel.EventLoopMetricsListener;
 import io.netty.channel.SelectStrategy;
 import io.netty.channel.SelectStrategyFactory;
 import io.netty.channel.socket.ServerSocketChannel;
@@ -281,4 +283,118 @@ public class NioEventLoopTest extends AbstractEventLoopTest {
             group.shutdownGracefully();
         }
     }
+
+    @Test(timeout = 5000)
+    public void testMetrics() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        final NioEventLoop loop = (NioEventLoop) group.next();
+        try {
+            final CountDownLatch iterationLatch = new CountDownLatch(2);
+            final CountDownLatch wakeupLatch = new CountDownLatch(1);
+            loop.setMetricsListener(new EventLoopMetricsListener() {
+                @Override
+                public void iterationCompleted(EventLoop eventLoop, long waitTimeNanos, long ioTimeNanos,
+                                               long taskTimeNanos, long executedTasks) {
+                    assertSame(loop, eventLoop);
+                    if (executedTasks > 0) {
+                        iterationLatch.countDown();
+                    }
+                }
+
+                @Override
+                public void wokenUp(EventLoop eventLoop, long wakeupLatencyNanos) {
+                    assertSame(loop, eventLoop);
+                    assertTrue(wakeupLatencyNanos >= 0);
+                    wakeupLatch.countDown();
+                }
+            });
+
+            // Start the EventLoop and give it some time to block in select.
+            loop.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).syncUninterruptibly();
+            Thread.sleep(100);
+
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            });
+
+            iterationLatch.await();
+            wakeupLatch.await();
+
+            EventLoopMetrics metrics = loop.metrics();
+            assertTrue(metrics.executedTasks() >= 2);
+            assertTrue(metrics.iterations() > 0);
+            assertTrue(metrics.wakeups() > 0);
+            assertTrue(metrics.waitTimeNanos() > 0);
+            assertTrue(metrics.taskTimeNanos() > 0);
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testSpinTime() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        final NioEventLoop loop = (NioEventLoop) group.next();
+        try {
+            group.setSpinTime(10, TimeUnit.MILLISECONDS);
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(10), loop.getSpinTimeNanos());
+
+            // Tasks and scheduled tasks must be picked up while the EventLoop spins.
+            for (int i = 0; i < 100; i++) {
+                loop.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // NOOP
+                    }
+                }).syncUninterruptibly();
+            }
+            loop.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }, 1, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testShutdownWhileSpinning() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            // Spins until the default purge interval of one second as no task is scheduled.
+            group.setSpinTime(10, TimeUnit.SECONDS);
+            group.next().submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).syncUninterruptibly();
+
+            // The wakeup of the shutdown does not submit a task, so it must not be lost while spinning.
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+            assertTrue(group.awaitTermination(800, TimeUnit.MILLISECONDS));
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSpinTime() {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            group.setSpinTime(-1, TimeUnit.MILLISECONDS);
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
 }
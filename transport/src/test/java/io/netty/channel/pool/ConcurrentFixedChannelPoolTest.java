@@ -0,0 +1,248 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.FixedChannelPool.AcquireTimeoutAction;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentFixedChannelPoolTest {
+
+    private static EventLoopGroup group;
+
+    private Channel sc;
+    private Bootstrap cb;
+
+    @BeforeClass
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup();
+    }
+
+    @AfterClass
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Before
+    public void startServer() {
+        LocalAddress addr = new LocalAddress(UUID.randomUUID().toString());
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+    }
+
+    @After
+    public void stopServer() {
+        sc.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testAcquire() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ConcurrentFixedChannelPool pool = new ConcurrentFixedChannelPool(cb, handler, 1, Integer.MAX_VALUE);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.isDone());
+        assertEquals(1, pool.pendingAcquireCount());
+
+        pool.release(channel).syncUninterruptibly();
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+
+        Channel channel2 = future.getNow();
+        assertSame(channel, channel2);
+        assertEquals(1, handler.channelCount());
+        assertEquals(2, handler.acquiredCount());
+        assertEquals(1, handler.releasedCount());
+        assertEquals(0, pool.pendingAcquireCount());
+
+        pool.release(channel2).syncUninterruptibly();
+        assertEquals(0, pool.acquiredChannelCount());
+        pool.close();
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testAcquireTimeout() throws Exception {
+        ConcurrentFixedChannelPool pool = new ConcurrentFixedChannelPool(cb, new TestChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, AcquireTimeoutAction.FAIL, 500, 1, Integer.MAX_VALUE, true, true, null);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        try {
+            future.syncUninterruptibly();
+        } finally {
+            assertEquals(0, pool.pendingAcquireCount());
+            // The timed out acquire must not be served by a later release.
+            pool.release(channel).syncUninterruptibly();
+            assertEquals(0, pool.acquiredChannelCount());
+            pool.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testTimedOutAcquiresAreRemoved() throws Exception {
+        ConcurrentFixedChannelPool pool = new ConcurrentFixedChannelPool(cb, new TestChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, AcquireTimeoutAction.FAIL, 10, 1, 1000, true, true, null);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        List<Future<Channel>> futures = new ArrayList<Future<Channel>>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(pool.acquire());
+        }
+        for (Future<Channel> future : futures) {
+            assertTrue(future.await().cause() instanceof TimeoutException);
+        }
+        assertEquals(0, pool.pendingAcquireCount());
+        assertEquals(0, pool.pendingAcquireQueueSize());
+
+        // The pool still accepts as many pending acquires as configured.
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(pool.acquire().isDone());
+        }
+        pool.release(channel).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testAcquireNewConnection() throws Exception {
+        ConcurrentFixedChannelPool pool = new ConcurrentFixedChannelPool(cb, new TestChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, AcquireTimeoutAction.NEW, 500, 1, Integer.MAX_VALUE, true, true, null);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+        assertEquals(2, pool.acquiredChannelCount());
+        pool.release(channel).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTooManyPendingAcquires() throws Exception {
+        ConcurrentFixedChannelPool pool = new ConcurrentFixedChannelPool(cb, new TestChannelPoolHandler(), 1, 1);
+        pool.acquire().syncUninterruptibly();
+        Future<Channel> pending = pool.acquire();
+        assertFalse(pending.isDone());
+        try {
+            pool.acquire().syncUninterruptibly();
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testCloseFailsPendingAcquires() throws Exception {
+        ConcurrentFixedChannelPool pool = new ConcurrentFixedChannelPool(cb, new TestChannelPoolHandler(), 1);
+        pool.acquire().syncUninterruptibly();
+        Future<Channel> pending = pool.acquire();
+        pool.close();
+        assertNotNull(pending.await().cause());
+        assertTrue(pool.acquire().await().cause() instanceof IllegalStateException);
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentAcquireAndRelease() throws Throwable {
+        final int maxConnections = 4;
+        final int threads = 8;
+        final int iterations = 200;
+        final ConcurrentFixedChannelPool pool =
+                new ConcurrentFixedChannelPool(cb, new TestChannelPoolHandler(), maxConnections);
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < iterations; j++) {
+                            Channel channel = pool.acquire().syncUninterruptibly().getNow();
+                            int current = concurrent.incrementAndGet();
+                            for (;;) {
+                                int max = maxConcurrent.get();
+                                if (current <= max || maxConcurrent.compareAndSet(max, current)) {
+                                    break;
+                                }
+                            }
+                            concurrent.decrementAndGet();
+                            pool.release(channel).syncUninterruptibly();
+                        }
+                    } catch (Throwable cause) {
+                        error.compareAndSet(null, cause);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }));
+        }
+        for (Thread worker: workers) {
+            worker.start();
+        }
+        latch.await();
+        if (error.get() != null) {
+            throw error.get();
+        }
+        assertTrue(maxConcurrent.get() <= maxConnections);
+        assertEquals(0, pool.acquiredChannelCount());
+        assertEquals(0, pool.pendingAcquireCount());
+        pool.close();
+    }
+
+    private static final class TestChannelPoolHandler extends AbstractChannelPoolHandler {
+        @Override
+        public void channelCreated(Channel ch) throws Exception {
+            // NOOP
+        }
+    }
+}
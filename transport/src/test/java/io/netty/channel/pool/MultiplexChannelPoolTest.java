@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class MultiplexChannelPoolTest {
+
+    private static EventLoopGroup group;
+
+    private Channel sc;
+    private Bootstrap cb;
+
+    @BeforeClass
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup();
+    }
+
+    @AfterClass
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Before
+    public void startServer() {
+        LocalAddress addr = new LocalAddress(UUID.randomUUID().toString());
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+    }
+
+    @After
+    public void stopServer() {
+        sc.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testLeasesAreShared() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, handler, 2, 2);
+
+        Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertSame(channel1, channel2);
+
+        Channel channel3 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel1, channel3);
+        assertEquals(2, handler.channelCount());
+
+        // Release one lease of the first channel so it is the least loaded one.
+        pool.release(channel1).syncUninterruptibly();
+        Channel channel4 = pool.acquire().syncUninterruptibly().getNow();
+        assertSame(channel1, channel4);
+
+        assertSame(channel3, pool.acquire().syncUninterruptibly().getNow());
+        assertEquals(4, pool.leaseCount());
+
+        // All connections are fully leased, so the acquire needs to wait for a release.
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+        pool.release(channel3).syncUninterruptibly();
+        assertSame(channel3, future.syncUninterruptibly().getNow());
+
+        assertEquals(2, handler.channelCount());
+        assertEquals(6, handler.acquiredCount());
+        assertEquals(2, handler.releasedCount());
+        pool.close();
+    }
+
+    @Test
+    public void testTooManyPendingAcquires() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, 1, 1, 1, 0, TimeUnit.SECONDS);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> pending = pool.acquire();
+        Future<Channel> failed = pool.acquire().await();
+        assertTrue(failed.cause() instanceof IllegalStateException);
+
+        pool.close();
+        assertTrue(pending.await().cause() instanceof IllegalStateException);
+        // The channel is closed once its last lease was released.
+        assertTrue(channel.isActive());
+        pool.release(channel).syncUninterruptibly();
+        channel.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    public void testReleaseNotAcquired() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(), 1, 1);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        pool.release(channel).syncUninterruptibly();
+        assertTrue(pool.release(channel).await().cause() instanceof IllegalArgumentException);
+        // A shared channel must not be closed because of a bad release.
+        assertTrue(channel.isActive());
+        pool.close();
+    }
+
+    @Test(timeout = 5000)
+    public void testUnhealthyConnectionIsRetired() throws Exception {
+        final AtomicBoolean healthy = new AtomicBoolean(true);
+        ChannelHealthChecker healthCheck = new ChannelHealthChecker() {
+            @Override
+            public Future<Boolean> isHealthy(Channel channel) {
+                return channel.eventLoop().newSucceededFuture(healthy.get());
+            }
+        };
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(), healthCheck,
+                2, 2, Integer.MAX_VALUE, 10, TimeUnit.MILLISECONDS);
+        Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+
+        healthy.set(false);
+        Channel channel2;
+        do {
+            channel2 = pool.acquire().syncUninterruptibly().getNow();
+            if (channel2 == channel1) {
+                pool.release(channel2).syncUninterruptibly();
+                Thread.sleep(10);
+            }
+        } while (channel2 == channel1);
+        healthy.set(true);
+
+        // The unhealthy channel stays open until its last lease was released.
+        assertTrue(channel1.isActive());
+        pool.release(channel1).syncUninterruptibly();
+        channel1.closeFuture().syncUninterruptibly();
+
+        pool.release(channel2).syncUninterruptibly();
+        assertTrue(channel2.isActive());
+        pool.close();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PrewarmingChannelPoolTest {
+
+    private static EventLoopGroup group;
+
+    private Channel sc;
+    private Bootstrap cb;
+
+    @BeforeClass
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup();
+    }
+
+    @AfterClass
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Before
+    public void startServer() {
+        LocalAddress addr = new LocalAddress(UUID.randomUUID().toString());
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+    }
+
+    @After
+    public void stopServer() {
+        sc.close().syncUninterruptibly();
+    }
+
+    @Test(timeout = 5000)
+    public void testPrewarm() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        PrewarmingChannelPool pool = new PrewarmingChannelPool(cb, handler, 2, 2, 1, TimeUnit.MINUTES);
+        waitForIdleCount(pool, 2);
+        assertEquals(2, handler.channelCount());
+
+        // Acquiring does not need to open a new connection.
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        assertEquals(2, handler.channelCount());
+
+        // The idle connection is replaced in the background.
+        waitForIdleCount(pool, 2);
+        assertEquals(3, handler.channelCount());
+
+        pool.release(channel).syncUninterruptibly();
+        assertEquals(3, pool.idleCount());
+        pool.close();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testIdleEviction() throws Exception {
+        PrewarmingChannelPool pool = new PrewarmingChannelPool(cb, new CountingChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, 1, 1, TimeUnit.MILLISECONDS.toNanos(50), 0.5,
+                TimeUnit.MILLISECONDS.toNanos(10));
+        List<Channel> channels = new ArrayList<Channel>();
+        for (int i = 0; i < 4; i++) {
+            channels.add(pool.acquire().syncUninterruptibly().getNow());
+        }
+        for (Channel channel: channels) {
+            pool.release(channel).syncUninterruptibly();
+        }
+        assertTrue(pool.idleCount() >= 4);
+
+        // All but the minimum number of idle connections are closed once they expired.
+        waitForIdleCount(pool, 1);
+        int closed = 0;
+        for (Channel channel: channels) {
+            if (!channel.isOpen()) {
+                closed++;
+            }
+        }
+        assertTrue(closed >= 3);
+        pool.close();
+    }
+
+    @Test(timeout = 5000)
+    public void testInactiveIdleChannelIsEvicted() throws Exception {
+        PrewarmingChannelPool pool = new PrewarmingChannelPool(cb, new CountingChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, 1, 1, TimeUnit.MINUTES.toNanos(1), 0,
+                TimeUnit.MILLISECONDS.toNanos(10));
+        waitForIdleCount(pool, 1);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        pool.release(channel).syncUninterruptibly();
+        channel.close().syncUninterruptibly();
+
+        // The closed connection is dropped and replaced by a new one.
+        for (;;) {
+            Channel acquired = pool.acquire().syncUninterruptibly().getNow();
+            pool.release(acquired).syncUninterruptibly();
+            if (acquired != channel) {
+                break;
+            }
+        }
+        pool.close();
+    }
+
+    private static void waitForIdleCount(PrewarmingChannelPool pool, int count) throws InterruptedException {
+        while (pool.idleCount() != count) {
+            Thread.sleep(10);
+        }
+    }
+}